@@ -0,0 +1,23 @@
+-- Esquema inicial: tablas Usuario y Contrato.
+-- Usa IF NOT EXISTS para que una base creada antes con script.sql quede registrada en esta versión sin cambios.
+
+CREATE TABLE IF NOT EXISTS Usuario (
+    username VARCHAR(50) PRIMARY KEY COMMENT 'Nombre de usuario, clave primaria',
+    password VARCHAR(255) NOT NULL COMMENT 'Contraseña del usuario (debería ser hasheada en producción)',
+    nombre VARCHAR(100) NOT NULL COMMENT 'Nombre completo del usuario',
+    email VARCHAR(100) UNIQUE NOT NULL COMMENT 'Correo electrónico del usuario, debe ser único'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Tabla para almacenar información de los usuarios del sistema';
+
+CREATE TABLE IF NOT EXISTS Contrato (
+    id INT AUTO_INCREMENT PRIMARY KEY COMMENT 'Identificador único del contrato, auto-incrementable',
+    fecha_firma DATE NOT NULL COMMENT 'Fecha en que se firmó el contrato',
+    fecha_inicio DATE NOT NULL COMMENT 'Fecha de inicio de la vigencia del contrato',
+    fecha_fin DATE NOT NULL COMMENT 'Fecha de finalización de la vigencia del contrato',
+    empresa VARCHAR(255) NOT NULL COMMENT 'Nombre de la empresa involucrada en el contrato',
+    empleado VARCHAR(255) NOT NULL COMMENT 'Nombre del empleado asociado al contrato',
+    funciones TEXT COMMENT 'Descripción de las funciones o servicios del contrato',
+    monto DECIMAL(10, 2) NOT NULL COMMENT 'Monto económico total del contrato',
+    frecuencia_de_pago VARCHAR(50) NOT NULL COMMENT 'Frecuencia de pago (ej: Mensual, Trimestral, Anual)',
+    usuario_username VARCHAR(50) COMMENT 'Clave foránea que referencia al usuario que gestiona este contrato',
+    FOREIGN KEY (usuario_username) REFERENCES Usuario(username) ON DELETE CASCADE ON UPDATE CASCADE
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Tabla para almacenar información de los contratos';
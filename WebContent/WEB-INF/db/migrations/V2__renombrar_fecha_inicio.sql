@@ -0,0 +1,13 @@
+-- Las versiones anteriores de script.sql creaban la columna fechaInicio, pero los repositorios usan fecha_inicio.
+-- MySQL no tiene "RENAME COLUMN IF EXISTS": se consulta information_schema y se arma la sentencia solo si hace falta.
+
+SET @renombrar = (SELECT COUNT(*) FROM information_schema.COLUMNS
+                  WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Contrato' AND COLUMN_NAME = 'fechaInicio');
+
+SET @sentencia = IF(@renombrar > 0,
+    'ALTER TABLE Contrato CHANGE COLUMN fechaInicio fecha_inicio DATE NOT NULL COMMENT ''Fecha de inicio de la vigencia del contrato''',
+    'DO 0');
+
+PREPARE renombrar FROM @sentencia;
+EXECUTE renombrar;
+DEALLOCATE PREPARE renombrar;
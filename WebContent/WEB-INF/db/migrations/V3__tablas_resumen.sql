@@ -0,0 +1,53 @@
+-- Tablas de resumen de contratos, mantenidas por la aplicación en la misma transacción que cada cambio de contratos.
+-- Se recalculan completas porque una base existente puede ya tener contratos (o tablas creadas con script.sql).
+
+CREATE TABLE IF NOT EXISTS ResumenEmpresa (
+    empresa VARCHAR(255) PRIMARY KEY COMMENT 'Nombre de la empresa',
+    total_monto DECIMAL(18, 2) NOT NULL DEFAULT 0 COMMENT 'Suma de los montos de los contratos de la empresa',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos de la empresa'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Resumen de contratos por empresa';
+
+CREATE TABLE IF NOT EXISTS ResumenFrecuencia (
+    frecuencia_de_pago VARCHAR(50) PRIMARY KEY COMMENT 'Frecuencia de pago',
+    total_monto DECIMAL(18, 2) NOT NULL DEFAULT 0 COMMENT 'Suma de los montos de los contratos con esta frecuencia',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos con esta frecuencia'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Resumen de contratos por frecuencia de pago';
+
+CREATE TABLE IF NOT EXISTS ResumenUsuario (
+    usuario_username VARCHAR(50) PRIMARY KEY COMMENT 'Usuario que gestiona los contratos (cadena vacía para contratos sin usuario)',
+    total_monto DECIMAL(18, 2) NOT NULL DEFAULT 0 COMMENT 'Suma de los montos de los contratos del usuario',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos del usuario'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Resumen de contratos por usuario';
+
+CREATE TABLE IF NOT EXISTS ResumenVigentesMes (
+    mes DATE PRIMARY KEY COMMENT 'Primer día del mes',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos vigentes en algún día del mes'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Contratos vigentes por mes';
+
+DELETE FROM ResumenEmpresa;
+DELETE FROM ResumenFrecuencia;
+DELETE FROM ResumenUsuario;
+DELETE FROM ResumenVigentesMes;
+
+INSERT INTO ResumenEmpresa (empresa, total_monto, cantidad)
+SELECT empresa, SUM(monto), COUNT(*) FROM Contrato GROUP BY empresa;
+
+INSERT INTO ResumenFrecuencia (frecuencia_de_pago, total_monto, cantidad)
+SELECT frecuencia_de_pago, SUM(monto), COUNT(*) FROM Contrato GROUP BY frecuencia_de_pago;
+
+INSERT INTO ResumenUsuario (usuario_username, total_monto, cantidad)
+SELECT COALESCE(usuario_username, ''), SUM(monto), COUNT(*) FROM Contrato GROUP BY COALESCE(usuario_username, '');
+
+-- Como ResumenContratoRepository (MAX_MESES_VIGENCIA), se cuentan como mucho 1200 meses por contrato. Esa
+-- recursión supera el límite por defecto de MySQL (cte_max_recursion_depth = 1000), que se sube solo para esta sentencia.
+SET SESSION cte_max_recursion_depth = 1200;
+
+INSERT INTO ResumenVigentesMes (mes, cantidad)
+WITH RECURSIVE meses (id, mes, ultimo, n) AS (
+    SELECT id, CAST(DATE_FORMAT(fecha_inicio, '%Y-%m-01') AS DATE), CAST(DATE_FORMAT(fecha_fin, '%Y-%m-01') AS DATE), 1 FROM Contrato
+    UNION ALL
+    SELECT id, mes + INTERVAL 1 MONTH, ultimo, n + 1 FROM meses WHERE mes < ultimo AND n < 1200
+)
+SELECT mes, COUNT(*) FROM meses GROUP BY mes;
+
+SET SESSION cte_max_recursion_depth = DEFAULT;
@@ -0,0 +1,34 @@
+-- Índices para los caminos de acceso de ContratoRepository:
+--   idx_contrato_usuario_id:  listados y páginas por usuario (WHERE usuario_username = ? AND id > ? ORDER BY id).
+--                             También sirve a la clave foránea, así que MySQL descarta el índice implícito de la FK.
+--   idx_contrato_usuario_fin: contratos de un usuario por fecha de fin (vencimientos).
+--   idx_contrato_empresa / idx_contrato_empleado: conteos por valor para las sugerencias (GROUP BY con índice).
+-- Cada índice se crea solo si no existe, porque script.sql ya los crea en instalaciones nuevas.
+
+SET @sentencia = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Contrato' AND INDEX_NAME = 'idx_contrato_usuario_id') = 0,
+    'CREATE INDEX idx_contrato_usuario_id ON Contrato (usuario_username, id)', 'DO 0');
+PREPARE crear FROM @sentencia;
+EXECUTE crear;
+DEALLOCATE PREPARE crear;
+
+SET @sentencia = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Contrato' AND INDEX_NAME = 'idx_contrato_usuario_fin') = 0,
+    'CREATE INDEX idx_contrato_usuario_fin ON Contrato (usuario_username, fecha_fin)', 'DO 0');
+PREPARE crear FROM @sentencia;
+EXECUTE crear;
+DEALLOCATE PREPARE crear;
+
+SET @sentencia = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Contrato' AND INDEX_NAME = 'idx_contrato_empresa') = 0,
+    'CREATE INDEX idx_contrato_empresa ON Contrato (empresa)', 'DO 0');
+PREPARE crear FROM @sentencia;
+EXECUTE crear;
+DEALLOCATE PREPARE crear;
+
+SET @sentencia = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Contrato' AND INDEX_NAME = 'idx_contrato_empleado') = 0,
+    'CREATE INDEX idx_contrato_empleado ON Contrato (empleado)', 'DO 0');
+PREPARE crear FROM @sentencia;
+EXECUTE crear;
+DEALLOCATE PREPARE crear;
@@ -0,0 +1,26 @@
+-- Avisos de vencimiento de contratos (ver TareaVencimientos):
+--   idx_contrato_fin:        recorrido por rango de fecha_fin y cursor (fecha_fin, id) de la tarea diaria. Incluye
+--                            usuario_username para que la consulta se resuelva solo con el índice, sin leer las filas.
+--   NotificacionVencimiento: bandeja de salida de avisos. La clave única (contrato_id, fecha_fin) hace que repetir la
+--                            tarea no duplique avisos; un contrato prorrogado recibe un aviso nuevo para su nueva fecha.
+--                            Quien envía los avisos marca enviada_en; idx_notificacion_pendiente sirve esa lectura.
+-- El índice se crea solo si no existe, porque script.sql ya lo crea en instalaciones nuevas.
+
+SET @sentencia = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Contrato' AND INDEX_NAME = 'idx_contrato_fin') = 0,
+    'CREATE INDEX idx_contrato_fin ON Contrato (fecha_fin, id, usuario_username)', 'DO 0');
+PREPARE crear FROM @sentencia;
+EXECUTE crear;
+DEALLOCATE PREPARE crear;
+
+CREATE TABLE IF NOT EXISTS NotificacionVencimiento (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT 'Identificador del aviso',
+    contrato_id INT NOT NULL COMMENT 'Contrato que vence',
+    usuario_username VARCHAR(50) COMMENT 'Usuario que gestiona el contrato al crear el aviso',
+    fecha_fin DATE NOT NULL COMMENT 'Fecha de fin del contrato al crear el aviso',
+    creada_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Momento en que la tarea creó el aviso',
+    enviada_en TIMESTAMP NULL COMMENT 'Momento en que se envió el aviso (NULL si está pendiente)',
+    UNIQUE KEY uk_notificacion_contrato_fin (contrato_id, fecha_fin),
+    INDEX idx_notificacion_pendiente (enviada_en, id),
+    FOREIGN KEY (contrato_id) REFERENCES Contrato(id) ON DELETE CASCADE
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Bandeja de salida de avisos de vencimiento de contratos';
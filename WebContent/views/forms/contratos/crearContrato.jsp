@@ -22,11 +22,13 @@
             </div>
             <div class="form-group">
                 <label for="empresa">Empresa:</label>
-                <input type="text" class="form-control" id="empresa" name="empresa" required>
+                <input type="text" class="form-control" id="empresa" name="empresa" list="sugerenciasEmpresa" autocomplete="off" data-sugerencias="${pageContext.request.contextPath}/contratos/sugerencias?campo=empresa" required>
+                <datalist id="sugerenciasEmpresa"></datalist>
             </div>
             <div class="form-group">
                 <label for="empleado">Empleado:</label>
-                <input type="text" class="form-control" id="empleado" name="empleado" required>
+                <input type="text" class="form-control" id="empleado" name="empleado" list="sugerenciasEmpleado" autocomplete="off" data-sugerencias="${pageContext.request.contextPath}/contratos/sugerencias?campo=empleado" required>
+                <datalist id="sugerenciasEmpleado"></datalist>
             </div>
             <div class="form-group">
                 <label for="funciones">Funciones:</label>
@@ -9,6 +9,7 @@
     <div class="card-body">
         <form action="${pageContext.request.contextPath}/contratos/update" method="post">
             <input type="hidden" name="id" value="<c:out value="${contrato.id}"/>">
+            <input type="hidden" name="huella" value="<c:out value="${huellaContrato}"/>">
             <div class="form-group">
                 <label for="fecha_firma">Fecha de Firma:</label>
                 <input type="date" class="form-control" id="fecha_firma" name="fecha_firma" value="<c:out value="${contrato.fecha_firma}"/>" required>
@@ -23,11 +24,13 @@
             </div>
             <div class="form-group">
                 <label for="empresa">Empresa:</label>
-                <input type="text" class="form-control" id="empresa" name="empresa" value="<c:out value="${contrato.empresa}"/>" required>
+                <input type="text" class="form-control" id="empresa" name="empresa" list="sugerenciasEmpresa" autocomplete="off" data-sugerencias="${pageContext.request.contextPath}/contratos/sugerencias?campo=empresa" value="<c:out value="${contrato.empresa}"/>" required>
+                <datalist id="sugerenciasEmpresa"></datalist>
             </div>
             <div class="form-group">
                 <label for="empleado">Empleado:</label>
-                <input type="text" class="form-control" id="empleado" name="empleado" value="<c:out value="${contrato.empleado}"/>" required>
+                <input type="text" class="form-control" id="empleado" name="empleado" list="sugerenciasEmpleado" autocomplete="off" data-sugerencias="${pageContext.request.contextPath}/contratos/sugerencias?campo=empleado" value="<c:out value="${contrato.empleado}"/>" required>
+                <datalist id="sugerenciasEmpleado"></datalist>
             </div>
             <div class="form-group">
                 <label for="funciones">Funciones:</label>
@@ -0,0 +1,60 @@
+<%@include file="../../resources/header.jsp" %>
+<% request.setAttribute("pageTitle", "Importar Contratos"); %>
+<%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+
+<div class="card col-md-8 mx-auto">
+    <div class="card-header">
+        <h3 class="text-center">Importar Contratos desde CSV</h3>
+    </div>
+    <div class="card-body">
+        <p>
+            El archivo debe tener una fila de encabezado con las columnas
+            <code>fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago</code>
+            (el mismo formato de la exportación CSV). Las fechas van en formato <code>AAAA-MM-DD</code>.
+            Los contratos importados quedan asociados a su usuario.
+        </p>
+        <form action="${pageContext.request.contextPath}/contratos/import" method="post" enctype="multipart/form-data">
+            <div class="form-group">
+                <label for="archivo">Archivo CSV:</label>
+                <input type="file" class="form-control-file" id="archivo" name="archivo" accept=".csv,text/csv" required>
+            </div>
+            <div class="d-flex justify-content-between mt-4">
+                <button type="submit" class="btn btn-primary flex-fill mr-2">Importar</button>
+                <a href="${pageContext.request.contextPath}/contratos" class="btn btn-secondary flex-fill ml-2">Volver</a>
+            </div>
+        </form>
+
+        <c:if test="${resultadoImportacion != null}">
+            <hr>
+            <div class="alert ${resultadoImportacion.totalErrores == 0 ? 'alert-success' : 'alert-warning'}">
+                Contratos importados: <c:out value="${resultadoImportacion.exitosos}"/>.
+                Filas con error: <c:out value="${resultadoImportacion.totalErrores}"/>.
+            </div>
+            <c:if test="${not empty resultadoImportacion.errores}">
+                <div class="table-responsive">
+                    <table class="table table-sm table-striped">
+                        <thead class="thead-dark">
+                        <tr>
+                            <th>Línea</th>
+                            <th>Error</th>
+                        </tr>
+                        </thead>
+                        <tbody>
+                        <c:forEach var="errorFila" items="${resultadoImportacion.errores}">
+                            <tr>
+                                <td><c:out value="${errorFila.fila < 0 ? '-' : errorFila.fila}"/></td>
+                                <td><c:out value="${errorFila.mensaje}"/></td>
+                            </tr>
+                        </c:forEach>
+                        </tbody>
+                    </table>
+                </div>
+                <c:if test="${resultadoImportacion.totalErrores > resultadoImportacion.errores.size()}">
+                    <p class="text-muted">Solo se muestran los primeros <c:out value="${resultadoImportacion.errores.size()}"/> errores.</p>
+                </c:if>
+            </c:if>
+        </c:if>
+    </div>
+</div>
+
+<%@include file="../../resources/footer.jsp" %>
@@ -4,11 +4,41 @@
 
 <div class="d-flex justify-content-between align-items-center mb-3">
     <h2>Lista de Contratos</h2>
-    <a href="${pageContext.request.contextPath}/contratos/new" class="btn btn-success">Crear Nuevo Contrato</a>
+    <div>
+        <a href="${pageContext.request.contextPath}/contratos/export?format=csv" class="btn btn-secondary">Exportar CSV</a>
+        <a href="${pageContext.request.contextPath}/contratos/export?format=json" class="btn btn-secondary">Exportar JSON</a>
+        <a href="${pageContext.request.contextPath}/contratos/import" class="btn btn-secondary">Importar CSV</a>
+        <a href="${pageContext.request.contextPath}/contratos/new" class="btn btn-success">Crear Nuevo Contrato</a>
+    </div>
 </div>
 
+<form action="${pageContext.request.contextPath}/contratos/buscar" method="get" class="form-inline mb-3">
+    <label for="q" class="mr-2">Buscar:</label>
+    <input type="search" class="form-control mr-2" id="q" name="q" style="width: 24em;" placeholder="Funciones, empresa o empleado" value="<c:out value="${param.q}"/>">
+    <button type="submit" class="btn btn-primary">Buscar</button>
+</form>
+
+<form action="${pageContext.request.contextPath}/contratos" method="get" class="form-inline mb-3">
+    <label for="vigenteEn" class="mr-2">Vigentes el:</label>
+    <input type="date" class="form-control mr-3" id="vigenteEn" name="vigenteEn" value="<c:out value="${param.vigenteEn}"/>">
+    <label for="vencenEnDias" class="mr-2">Vencen en (días):</label>
+    <input type="number" min="0" class="form-control mr-3" id="vencenEnDias" name="vencenEnDias" style="width: 6em;" value="<c:out value="${param.vencenEnDias}"/>">
+    <label for="desde" class="mr-2">Vigentes entre:</label>
+    <input type="date" class="form-control mr-2" id="desde" name="desde" value="<c:out value="${param.desde}"/>">
+    <input type="date" class="form-control mr-3" id="hasta" name="hasta" value="<c:out value="${param.hasta}"/>" aria-label="Hasta">
+    <button type="submit" class="btn btn-primary mr-2">Filtrar</button>
+    <a href="${pageContext.request.contextPath}/contratos" class="btn btn-secondary">Quitar filtros</a>
+</form>
+
+<c:if test="${not empty totalBusqueda}">
+    <p class="text-muted"><c:out value="${totalBusqueda}"/> contrato(s) encontrado(s) para "<c:out value="${param.q}"/>", ordenados por relevancia.</p>
+</c:if>
+
+<%-- data-eventos: la tabla se actualiza con los cambios en vivo; los contratos nuevos solo se agregan en la última página sin filtros --%>
 <div class="table-responsive">
-    <table class="table table-striped table-hover">
+    <table class="table table-striped table-hover" data-eventos="${pageContext.request.contextPath}/contratos/eventos"
+           data-contexto="${pageContext.request.contextPath}"
+           data-agregar="${!paginaContratos.haySiguiente and empty totalBusqueda and empty param.vigenteEn and empty param.vencenEnDias and empty param.desde and empty param.hasta}">
         <thead class="thead-dark">
         <tr>
             <th>ID</th>
@@ -26,7 +56,7 @@
         </thead>
         <tbody>
         <c:forEach var="contrato" items="${listaContratos}">
-            <tr>
+            <tr data-id="<c:out value="${contrato.id}"/>">
                 <td><c:out value="${contrato.id}"/></td>
                 <td><c:out value="${contrato.fecha_firma}"/></td>
                 <td><c:out value="${contrato.fecha_inicio}"/></td>
@@ -48,7 +78,45 @@
 </div>
 
 <c:if test="${empty listaContratos}">
-    <div class="alert alert-info text-center">No hay contratos registrados para este usuario.</div>
+    <c:choose>
+        <c:when test="${not empty totalBusqueda}">
+            <div class="alert alert-info text-center">Ningún contrato coincide con la búsqueda.</div>
+        </c:when>
+        <c:otherwise>
+            <div class="alert alert-info text-center">No hay contratos registrados para este usuario.</div>
+        </c:otherwise>
+    </c:choose>
+</c:if>
+
+<c:if test="${paginaContratos.hayAnterior || paginaContratos.haySiguiente}">
+    <nav aria-label="Paginación de contratos">
+        <ul class="pagination justify-content-center">
+            <li class="page-item <c:if test="${!paginaContratos.hayAnterior}">disabled</c:if>">
+                <c:url var="urlAnterior" value="${empty totalBusqueda ? '/contratos' : '/contratos/buscar'}">
+                    <c:param name="${empty totalBusqueda ? 'antes' : 'posicion'}" value="${paginaContratos.cursorAnterior}"/>
+                    <c:if test="${not empty totalBusqueda}"><c:param name="q" value="${param.q}"/></c:if>
+                    <c:param name="tamano" value="${paginaContratos.tamano}"/>
+                    <c:if test="${not empty param.vigenteEn}"><c:param name="vigenteEn" value="${param.vigenteEn}"/></c:if>
+                    <c:if test="${not empty param.vencenEnDias}"><c:param name="vencenEnDias" value="${param.vencenEnDias}"/></c:if>
+                    <c:if test="${not empty param.desde}"><c:param name="desde" value="${param.desde}"/></c:if>
+                    <c:if test="${not empty param.hasta}"><c:param name="hasta" value="${param.hasta}"/></c:if>
+                </c:url>
+                <a class="page-link" href="${paginaContratos.hayAnterior ? urlAnterior : '#'}">&laquo; Anterior</a>
+            </li>
+            <li class="page-item <c:if test="${!paginaContratos.haySiguiente}">disabled</c:if>">
+                <c:url var="urlSiguiente" value="${empty totalBusqueda ? '/contratos' : '/contratos/buscar'}">
+                    <c:param name="${empty totalBusqueda ? 'despues' : 'posicion'}" value="${paginaContratos.cursorSiguiente}"/>
+                    <c:if test="${not empty totalBusqueda}"><c:param name="q" value="${param.q}"/></c:if>
+                    <c:param name="tamano" value="${paginaContratos.tamano}"/>
+                    <c:if test="${not empty param.vigenteEn}"><c:param name="vigenteEn" value="${param.vigenteEn}"/></c:if>
+                    <c:if test="${not empty param.vencenEnDias}"><c:param name="vencenEnDias" value="${param.vencenEnDias}"/></c:if>
+                    <c:if test="${not empty param.desde}"><c:param name="desde" value="${param.desde}"/></c:if>
+                    <c:if test="${not empty param.hasta}"><c:param name="hasta" value="${param.hasta}"/></c:if>
+                </c:url>
+                <a class="page-link" href="${paginaContratos.haySiguiente ? urlSiguiente : '#'}">Siguiente &raquo;</a>
+            </li>
+        </ul>
+    </nav>
 </c:if>
 
 <%@include file="../../resources/footer.jsp" %>
@@ -0,0 +1,107 @@
+<%@include file="../../resources/header.jsp" %>
+<% request.setAttribute("pageTitle", "Reportes"); %>
+<%@ page contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+
+<div class="d-flex justify-content-between align-items-center mb-3">
+    <h2>Reportes de Contratos</h2>
+    <form action="${pageContext.request.contextPath}/reportes/reconstruir" method="post"
+          onsubmit="return confirm('¿Recalcular todos los resúmenes desde la tabla de contratos? Las escrituras de contratos esperarán hasta que termine.');">
+        <button type="submit" class="btn btn-secondary">Reconstruir resúmenes</button>
+    </form>
+</div>
+
+<div class="row">
+    <div class="col-lg-4 mb-4">
+        <h4>Por empresa</h4>
+        <table class="table table-sm table-striped">
+            <thead class="thead-dark">
+            <tr>
+                <th>Empresa</th>
+                <th class="text-right">Contratos</th>
+                <th class="text-right">Monto total</th>
+            </tr>
+            </thead>
+            <tbody>
+            <c:forEach var="fila" items="${resumenEmpresas}">
+                <tr>
+                    <td><c:out value="${fila.clave}"/></td>
+                    <td class="text-right"><c:out value="${fila.cantidad}"/></td>
+                    <td class="text-right"><c:out value="${fila.totalMonto}"/></td>
+                </tr>
+            </c:forEach>
+            </tbody>
+        </table>
+    </div>
+    <div class="col-lg-4 mb-4">
+        <h4>Por frecuencia de pago</h4>
+        <table class="table table-sm table-striped">
+            <thead class="thead-dark">
+            <tr>
+                <th>Frecuencia</th>
+                <th class="text-right">Contratos</th>
+                <th class="text-right">Monto total</th>
+            </tr>
+            </thead>
+            <tbody>
+            <c:forEach var="fila" items="${resumenFrecuencias}">
+                <tr>
+                    <td><c:out value="${fila.clave}"/></td>
+                    <td class="text-right"><c:out value="${fila.cantidad}"/></td>
+                    <td class="text-right"><c:out value="${fila.totalMonto}"/></td>
+                </tr>
+            </c:forEach>
+            </tbody>
+        </table>
+    </div>
+    <div class="col-lg-4 mb-4">
+        <h4>Por usuario</h4>
+        <table class="table table-sm table-striped">
+            <thead class="thead-dark">
+            <tr>
+                <th>Usuario</th>
+                <th class="text-right">Contratos</th>
+                <th class="text-right">Monto total</th>
+            </tr>
+            </thead>
+            <tbody>
+            <c:forEach var="fila" items="${resumenUsuarios}">
+                <tr>
+                    <td><c:out value="${empty fila.clave ? '(sin usuario)' : fila.clave}"/></td>
+                    <td class="text-right"><c:out value="${fila.cantidad}"/></td>
+                    <td class="text-right"><c:out value="${fila.totalMonto}"/></td>
+                </tr>
+            </c:forEach>
+            </tbody>
+        </table>
+    </div>
+</div>
+
+<h4>Contratos vigentes por mes</h4>
+<form action="${pageContext.request.contextPath}/reportes" method="get" class="form-inline mb-3">
+    <label for="desde" class="mr-2">Desde:</label>
+    <input type="month" class="form-control mr-3" id="desde" name="desde" value="<c:out value="${desde}"/>">
+    <label for="hasta" class="mr-2">Hasta:</label>
+    <input type="month" class="form-control mr-3" id="hasta" name="hasta" value="<c:out value="${hasta}"/>">
+    <button type="submit" class="btn btn-primary">Ver</button>
+</form>
+<table class="table table-sm table-striped">
+    <thead class="thead-dark">
+    <tr>
+        <th>Mes</th>
+        <th class="text-right">Contratos vigentes</th>
+    </tr>
+    </thead>
+    <tbody>
+    <c:forEach var="fila" items="${vigentesPorMes}">
+        <tr>
+            <td><c:out value="${fila.mes.toString().substring(0, 7)}"/></td>
+            <td class="text-right"><c:out value="${fila.cantidad}"/></td>
+        </tr>
+    </c:forEach>
+    </tbody>
+</table>
+<c:if test="${empty vigentesPorMes}">
+    <div class="alert alert-info text-center">No hay contratos vigentes en el rango seleccionado.</div>
+</c:if>
+
+<%@include file="../../resources/footer.jsp" %>
@@ -37,4 +37,25 @@
     <div class="alert alert-info text-center">No hay usuarios registrados en el sistema.</div>
 </c:if>
 
+<c:if test="${paginaUsuarios.hayAnterior || paginaUsuarios.haySiguiente}">
+    <nav aria-label="Paginación de usuarios">
+        <ul class="pagination justify-content-center">
+            <li class="page-item <c:if test="${!paginaUsuarios.hayAnterior}">disabled</c:if>">
+                <c:url var="urlAnterior" value="/usuarios">
+                    <c:param name="antes" value="${paginaUsuarios.cursorAnterior}"/>
+                    <c:param name="tamano" value="${paginaUsuarios.tamano}"/>
+                </c:url>
+                <a class="page-link" href="${paginaUsuarios.hayAnterior ? urlAnterior : '#'}">&laquo; Anterior</a>
+            </li>
+            <li class="page-item <c:if test="${!paginaUsuarios.haySiguiente}">disabled</c:if>">
+                <c:url var="urlSiguiente" value="/usuarios">
+                    <c:param name="despues" value="${paginaUsuarios.cursorSiguiente}"/>
+                    <c:param name="tamano" value="${paginaUsuarios.tamano}"/>
+                </c:url>
+                <a class="page-link" href="${paginaUsuarios.haySiguiente ? urlSiguiente : '#'}">Siguiente &raquo;</a>
+            </li>
+        </ul>
+    </nav>
+</c:if>
+
 <%@include file="../../resources/footer.jsp" %>
@@ -35,4 +35,148 @@ document.addEventListener('DOMContentLoaded', function() {
             });
         });
     });
+
+    // Autocompletado de campos con data-sugerencias (URL del endpoint de sugerencias) y un <datalist> asociado.
+    // Espera a que se deje de escribir antes de pedir sugerencias y descarta las respuestas que llegan tarde.
+    const RETARDO_SUGERENCIAS_MS = 150;
+    document.querySelectorAll('input[data-sugerencias]').forEach(input => {
+        const lista = input.list;
+        if (!lista || typeof fetch === 'undefined') {
+            return;
+        }
+        let temporizador = null;
+        let controlador = null;
+        let ultimoPrefijo = null;
+
+        const pedirSugerencias = () => {
+            const prefijo = input.value.trim();
+            if (prefijo === ultimoPrefijo) {
+                return;
+            }
+            ultimoPrefijo = prefijo;
+            if (controlador) {
+                controlador.abort(); // Cancela la petición anterior, que ya no corresponde a lo escrito
+            }
+            controlador = typeof AbortController !== 'undefined' ? new AbortController() : null;
+            const url = input.dataset.sugerencias + '&q=' + encodeURIComponent(prefijo);
+            fetch(url, {credentials: 'same-origin', signal: controlador ? controlador.signal : undefined})
+                .then(respuesta => respuesta.ok ? respuesta.json() : [])
+                .then(sugerencias => {
+                    lista.innerHTML = '';
+                    sugerencias.forEach(sugerencia => {
+                        const opcion = document.createElement('option');
+                        opcion.value = sugerencia.texto;
+                        opcion.label = sugerencia.cantidad + (sugerencia.cantidad === 1 ? ' contrato' : ' contratos');
+                        lista.appendChild(opcion);
+                    });
+                })
+                .catch(() => { /* Petición cancelada o sin conexión: se mantienen las sugerencias anteriores */ });
+        };
+
+        input.addEventListener('input', () => {
+            clearTimeout(temporizador);
+            temporizador = setTimeout(pedirSugerencias, RETARDO_SUGERENCIAS_MS);
+        });
+    });
+
+    // Lista de contratos en vivo: recibe por Server-Sent Events los cambios de los contratos del usuario y los aplica
+    // a la tabla, sin recargar la página. Si la conexión se corta se pudieron perder cambios: al reconectar se recarga.
+    const tablaEnVivo = document.querySelector('table[data-eventos]');
+    if (tablaEnVivo && typeof EventSource !== 'undefined') {
+        const cuerpo = tablaEnVivo.querySelector('tbody');
+        const encabezados = Array.from(tablaEnVivo.querySelectorAll('thead th')).map(th => th.textContent + ':');
+        const contexto = tablaEnVivo.dataset.contexto;
+        const CAMPOS = ['id', 'fecha_firma', 'fecha_inicio', 'fecha_fin', 'empresa', 'empleado', 'funciones', 'monto',
+            'frecuencia_de_pago', 'usuario_username'];
+        const ESPERA_MAXIMA_MS = 60000;
+        let espera = 5000;
+
+        // El monto se muestra como en la JSP (Double.toString): 5000.0, 1234.5
+        const formatearMonto = monto => Number.isInteger(monto) ? monto.toFixed(1) : String(monto);
+
+        const enlace = (texto, url, clase) => {
+            const a = document.createElement('a');
+            a.href = url;
+            a.className = 'btn btn-sm mb-1 ' + clase;
+            a.textContent = texto;
+            return a;
+        };
+
+        const llenarFila = (fila, contrato) => {
+            fila.dataset.id = contrato.id;
+            fila.innerHTML = '';
+            CAMPOS.forEach((campo, i) => {
+                const celda = document.createElement('td');
+                const valor = contrato[campo];
+                celda.textContent = valor === null ? '' : (campo === 'monto' ? formatearMonto(valor) : valor);
+                celda.setAttribute('data-label', encabezados[i]);
+                fila.appendChild(celda);
+            });
+            const acciones = document.createElement('td');
+            acciones.setAttribute('data-label', encabezados[CAMPOS.length]);
+            acciones.appendChild(enlace('Editar', contexto + '/contratos/edit?id=' + contrato.id, 'btn-warning'));
+            acciones.appendChild(document.createTextNode(' '));
+            const eliminar = enlace('Eliminar', contexto + '/contratos/delete?id=' + contrato.id, 'btn-danger');
+            eliminar.addEventListener('click', evento => {
+                if (!confirm('¿Está seguro de que desea eliminar este contrato? Esta acción es irreversible.')) {
+                    evento.preventDefault();
+                }
+            });
+            acciones.appendChild(eliminar);
+            fila.appendChild(acciones);
+            fila.classList.add('table-info'); // Resalta el cambio unos segundos
+            setTimeout(() => fila.classList.remove('table-info'), 3000);
+        };
+
+        const filaDe = id => cuerpo.querySelector('tr[data-id="' + id + '"]');
+
+        const conectar = recargarAlAbrir => {
+            const fuente = new EventSource(tablaEnVivo.dataset.eventos);
+            let perdida = recargarAlAbrir;
+            fuente.addEventListener('open', () => {
+                if (perdida) {
+                    window.location.reload();
+                }
+                espera = 5000;
+            });
+            fuente.addEventListener('error', () => {
+                perdida = true;
+                if (fuente.readyState === EventSource.CLOSED) {
+                    // Respuesta que no es de eventos (sesión vencida, servidor ocupado): se reintenta cada vez más tarde
+                    setTimeout(() => conectar(true), espera);
+                    espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+                }
+            });
+            fuente.addEventListener('fin', () => {
+                // El servidor cierra la conexión por antigüedad, sin perder eventos: se abre otra sin recargar
+                fuente.close();
+                conectar(false);
+            });
+            fuente.addEventListener('creado', evento => {
+                const contrato = JSON.parse(evento.data);
+                const fila = filaDe(contrato.id);
+                if (fila) {
+                    llenarFila(fila, contrato);
+                } else if (tablaEnVivo.dataset.agregar === 'true') {
+                    const nueva = document.createElement('tr');
+                    llenarFila(nueva, contrato);
+                    cuerpo.appendChild(nueva);
+                }
+            });
+            fuente.addEventListener('actualizado', evento => {
+                const contrato = JSON.parse(evento.data);
+                const fila = filaDe(contrato.id);
+                if (fila) {
+                    llenarFila(fila, contrato);
+                }
+            });
+            fuente.addEventListener('eliminado', evento => {
+                const fila = filaDe(JSON.parse(evento.data).id);
+                if (fila) {
+                    fila.remove();
+                }
+            });
+        };
+        conectar(false);
+    }
 });
@@ -4,6 +4,6 @@
 <script src="https://code.jquery.com/jquery-3.5.1.slim.min.js"></script>
 <script src="https://cdn.jsdelivr.net/npm/popper.js@1.16.1/dist/umd/popper.min.js"></script>
 <script src="https://cdn.jsdelivr.net/npm/bootstrap@4.5.2/dist/js/bootstrap.min.js"></script>
-<script src="${pageContext.request.contextPath}/views/js/script.js"></script>
+<script src="${pageContext.request.contextPath}${applicationScope.recursos['/views/js/script.js']}"></script>
 </body>
 </html>
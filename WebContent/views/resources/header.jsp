@@ -7,7 +7,8 @@
     <meta name="viewport" content="width=device-width, initial-scale=1.0">
     <title>SGC - <c:out value="${pageTitle}" default="Gestión de Contratos"/></title>
     <link href="https://cdn.jsdelivr.net/npm/bootstrap@4.5.2/dist/css/bootstrap.min.css" rel="stylesheet">
-    <link href="${pageContext.request.contextPath}/views/css/style.css" rel="stylesheet">
+    <%-- URL con la huella del contenido (RecursosEstaticosFilter): el navegador la guarda hasta que el archivo cambie --%>
+    <link href="${pageContext.request.contextPath}${applicationScope.recursos['/views/css/style.css']}" rel="stylesheet">
     <style>
         /* Estilos generales para toda la aplicación */
         body {
@@ -129,6 +130,9 @@
             <li class="nav-item">
                 <a class="nav-link" href="${pageContext.request.contextPath}/usuarios">Usuarios</a>
             </li>
+            <li class="nav-item">
+                <a class="nav-link" href="${pageContext.request.contextPath}/reportes">Reportes</a>
+            </li>
         </ul>
         <ul class="navbar-nav">
             <c:if test="${sessionScope.usuarioLogueado != null}">
@@ -158,6 +162,7 @@
             <c:when test="${param.message eq 'ContratoActualizado'}">Contrato actualizado exitosamente.</c:when>
             <c:when test="${param.message eq 'ContratoEliminado'}">Contrato eliminado exitosamente.</c:when>
             <c:when test="${param.message eq 'SesionCerrada'}">Sesión cerrada exitosamente.</c:when>
+            <c:when test="${param.message eq 'ResumenesReconstruidos'}">Resúmenes de contratos reconstruidos exitosamente.</c:when>
             <c:otherwise>Operación exitosa.</c:otherwise>
         </c:choose>
         <button type="button" class="close" data-dismiss="alert" aria-label="Close">
@@ -178,6 +183,7 @@
             <c:when test="${param.message eq 'ErrorCrearContrato'}">Error al crear contrato.</c:when>
             <c:when test="${param.message eq 'ErrorActualizarContrato'}">Error al actualizar contrato.</c:when>
             <c:when test="${param.message eq 'ErrorEliminarContrato'}">Error al eliminar contrato.</c:when>
+            <c:when test="${param.message eq 'ErrorReconstruirResumenes'}">Error al reconstruir los resúmenes de contratos.</c:when>
             <c:when test="${param.message eq 'IDInvalido'}">ID inválido.</c:when>
             <c:otherwise>Ocurrió un error inesperado.</c:otherwise>
         </c:choose>
@@ -0,0 +1,190 @@
+package main.java.benchmarks;
+
+import main.java.controllers.AsyncRequestExecutor;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Concurrencia que soporta {@link AsyncRequestExecutor} en modo síncrono (la acción ocupa el hilo del contenedor) y
+ * asíncrono (la acción se ejecuta en el executor propio y el hilo del contenedor queda libre).
+ * <p>
+ * Cada operación llega con {@code concurrencia} peticiones simultáneas a un "contenedor" de {@code hilosContenedor}
+ * hilos (200, como {@code maxThreads} de Tomcat) y espera a que todas terminen. Cada petición bloquea su hilo
+ * {@code latenciaMs} ms, como una consulta lenta a MySQL. Mientras el tiempo por operación se mantiene cerca de
+ * {@code latenciaMs}, esa concurrencia es sostenible; cuando crece en múltiplos de la latencia, las peticiones
+ * esperan hilo libre. La petición y la respuesta son simulaciones mínimas, así que se mide el costo de la
+ * planificación de hilos y no el de Tomcat.
+ * <p>
+ * {@link AsyncRequestExecutor} lee {@code sgc.async.enabled} al cargarse, así que cada modo es un benchmark con su
+ * propio fork y la propiedad en los argumentos de la JVM. El modo asíncrono usa hilos virtuales con Java 21 o
+ * superior; con versiones anteriores usa un pool de {@code sgc.async.threads} hilos (200 por defecto, ajustable con
+ * {@code -jvmArgs "-Dsgc.async.threads=..."}; no con {@code -jvmArgsAppend}, que reemplazaría la propiedad del modo).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AsyncRequestExecutorBenchmark {
+
+    // Peticiones simultáneas por operación
+    @Param({"100", "400", "1600"})
+    public int concurrencia;
+
+    @Param({"200"})
+    public int hilosContenedor;
+
+    @Param({"20"})
+    public int latenciaMs;
+
+    private ExecutorService contenedor;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contenedor = Executors.newFixedThreadPool(hilosContenedor);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contenedor.shutdownNow();
+        AsyncRequestExecutor.shutdown();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dsgc.async.enabled=false")
+    public long sincrono() throws InterruptedException {
+        return atenderPeticiones();
+    }
+
+    // La cola admite la mayor concurrencia medida, para que ninguna petición se rechace por cola llena
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Dsgc.async.enabled=true", "-Dsgc.async.queue=1600"})
+    public long asincrono() throws InterruptedException {
+        return atenderPeticiones();
+    }
+
+    private long atenderPeticiones() throws InterruptedException {
+        CountDownLatch terminadas = new CountDownLatch(concurrencia);
+        for (int i = 0; i < concurrencia; i++) {
+            contenedor.execute(() -> {
+                HttpServletResponse response = respuesta();
+                AtomicBoolean asincrona = new AtomicBoolean();
+                try {
+                    AsyncRequestExecutor.ejecutar(peticion(asincrona, response, terminadas), response, (rq, rs) -> {
+                        try {
+                            Thread.sleep(latenciaMs);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                if (!asincrona.get()) {
+                    terminadas.countDown(); // Se atendió en el hilo del contenedor
+                }
+            });
+        }
+        terminadas.await();
+        return terminadas.getCount();
+    }
+
+    /**
+     * Petición mínima con soporte asíncrono: si el executor la pasa a modo asíncrono, lo marca en {@code asincrona}
+     * y su {@link AsyncContext} avisa al completarse.
+     */
+    private static HttpServletRequest peticion(AtomicBoolean asincrona, HttpServletResponse response,
+                                               CountDownLatch terminadas) {
+        Map<String, Object> atributos = new ConcurrentHashMap<>();
+        HttpServletRequest[] request = new HttpServletRequest[1];
+        AsyncContext contexto = (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(),
+                new Class<?>[]{AsyncContext.class}, (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "complete":
+                            terminadas.countDown();
+                            return null;
+                        case "getRequest":
+                            return request[0];
+                        case "getResponse":
+                            return response;
+                        default:
+                            return null;
+                    }
+                });
+        request[0] = (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[]{HttpServletRequest.class}, (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "isAsyncSupported":
+                            return true;
+                        case "startAsync":
+                            asincrona.set(true);
+                            return contexto;
+                        case "getAsyncContext":
+                            return contexto;
+                        case "setAttribute":
+                            atributos.put((String) args[0], args[1]);
+                            return null;
+                        case "getAttribute":
+                            return atributos.get(args[0]);
+                        case "getRequestURI":
+                            return "/contratos/listar";
+                        default:
+                            return metodo.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                    }
+                });
+        return request[0];
+    }
+
+    /**
+     * Respuesta mínima que descarta lo que se escribe.
+     */
+    private static HttpServletResponse respuesta() {
+        ServletOutputStream salida = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+        return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, metodo, args) -> {
+                    if ("getOutputStream".equals(metodo.getName())) {
+                        return salida;
+                    }
+                    return metodo.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                });
+    }
+}
@@ -0,0 +1,285 @@
+package main.java.benchmarks;
+
+import main.java.models.repositories.ResumenContratoRepository;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.MigrationRunner;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Estado compartido de los benchmarks que usan la base de datos.
+ * <p>
+ * Configura la aplicación para usar una base de datos H2 en memoria en modo MySQL (salvo que ya se haya
+ * indicado otra con {@code -jvmArgs "-Dsgc.db.url=..."}), crea las tablas con las migraciones de la aplicación y
+ * las llena con {@link #usuarios} usuarios y {@link #contratos} contratos repartidos entre ellos.
+ * <p>
+ * Los datos son deterministas: el contrato con ID {@code i} (de 1 a {@code contratos}) pertenece al usuario
+ * {@link #username(int) username((i - 1) % usuarios)}. Las filas insertadas por los benchmarks durante una
+ * iteración se eliminan al terminarla, para que el volumen no crezca entre iteraciones.
+ */
+@State(Scope.Benchmark)
+public class BaseDeDatosBenchmark {
+
+    // Número de contratos de la tabla Contrato
+    @Param({"1000", "100000"})
+    public int contratos;
+
+    // Número de usuarios entre los que se reparten los contratos
+    @Param({"50"})
+    public int usuarios;
+
+    private static final String[] EMPRESAS = {"Acme S.A.", "Globex", "Initech", "Umbrella", "Soylent", "Hooli"};
+    private static final String[] FRECUENCIAS = {"Mensual", "Quincenal", "Trimestral", "Anual"};
+    private static final int TAMANO_LOTE_CARGA = 1000;
+
+    // Tablas de las migraciones, en orden de borrado (las que tienen claves foráneas primero)
+    private static final String[] TABLAS = {"NotificacionVencimiento", "Contrato", "Usuario", "ResumenEmpresa",
+            "ResumenFrecuencia", "ResumenUsuario", "ResumenVigentesMes", "schema_version"};
+
+    // Índice condicional de una migración: 'CREATE INDEX nombre ON Tabla (columnas)'
+    private static final Pattern CREAR_INDICE = Pattern.compile("'CREATE INDEX ([^']+)'");
+
+    /**
+     * Configura la conexión, crea el esquema y carga los datos. Se ejecuta una vez por combinación de parámetros.
+     *
+     * @throws SQLException Si falla la creación o la carga de las tablas.
+     * @throws IOException  Si no se pueden leer las migraciones.
+     */
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException {
+        crearBase(contratos, usuarios);
+    }
+
+    /**
+     * Configura la conexión, crea el esquema y carga los datos con el reparto descrito en la clase. La usan también
+     * los benchmarks que necesitan otro volumen de datos, como {@link ExportacionBenchmark}.
+     *
+     * @param contratos Número de contratos.
+     * @param usuarios  Número de usuarios entre los que se reparten.
+     * @throws SQLException Si falla la creación o la carga de las tablas.
+     * @throws IOException  Si no se pueden leer las migraciones.
+     */
+    static void crearBase(int contratos, int usuarios) throws SQLException, IOException {
+        configurar("sgc.db.url", "jdbc:h2:mem:sgc_bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        configurar("sgc.db.driver", "org.h2.Driver");
+        configurar("sgc.db.user", "sa");
+        configurar("sgc.db.password", "sgc");
+        // H2 no admite el fetch size negativo que activa el streaming de Connector/J
+        configurar("sgc.db.streamingFetchSize", "1000");
+        configurar("sgc.db.pool.leakDetectionMs", "0");
+
+        crearEsquema();
+        cargarUsuarios(usuarios);
+        cargarContratos(contratos, usuarios);
+        if (!new ResumenContratoRepository().reconstruir()) {
+            throw new SQLException("No se pudieron calcular las tablas de resumen.");
+        }
+    }
+
+    /**
+     * Borra las tablas y las vuelve a crear con las migraciones de {@code WEB-INF/db/migrations}, empaquetadas en el
+     * JAR, para medir con los mismos índices que producción. Contra MySQL se aplican con {@link MigrationRunner};
+     * contra H2, sentencia por sentencia con {@link #adaptarParaH2(String)}.
+     */
+    private static void crearEsquema() throws SQLException, IOException {
+        List<MigrationRunner.Migracion> migraciones = leerMigraciones();
+        migraciones.sort(Comparator.comparingInt(MigrationRunner.Migracion::getVersion));
+        boolean h2 = System.getProperty("sgc.db.url").startsWith("jdbc:h2:");
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            if (h2) {
+                stmt.execute("DROP ALL OBJECTS");
+                for (MigrationRunner.Migracion migracion : migraciones) {
+                    for (String sentencia : MigrationRunner.dividirSentencias(migracion.getSql())) {
+                        String adaptada = adaptarParaH2(sentencia);
+                        if (adaptada != null) {
+                            stmt.execute(adaptada);
+                        }
+                    }
+                }
+                return;
+            }
+            for (String tabla : TABLAS) {
+                stmt.execute("DROP TABLE IF EXISTS " + tabla);
+            }
+        }
+        if (!new MigrationRunner(migraciones).migrar()) {
+            throw new SQLException("No se pudieron aplicar las migraciones.");
+        }
+    }
+
+    private static List<MigrationRunner.Migracion> leerMigraciones() throws IOException {
+        URI directorio;
+        try {
+            directorio = BaseDeDatosBenchmark.class.getResource("/db/migrations").toURI();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        if (!"jar".equals(directorio.getScheme())) {
+            return MigrationRunner.leerDirectorio(Paths.get(directorio));
+        }
+        try (FileSystem jar = FileSystems.newFileSystem(directorio, Collections.emptyMap())) {
+            return MigrationRunner.leerDirectorio(jar.getPath("/db/migrations"));
+        }
+    }
+
+    /**
+     * Traduce a H2 una sentencia de las migraciones, que están escritas para MySQL:
+     * <ul>
+     *     <li>Los índices condicionales ({@code SET @sentencia = IF(..., 'CREATE INDEX ...', 'DO 0')} seguido de
+     *     {@code PREPARE}/{@code EXECUTE}) pasan a {@code CREATE INDEX IF NOT EXISTS}.</li>
+     *     <li>El resto de {@code SET}, {@code PREPARE}, {@code EXECUTE} y {@code DEALLOCATE} se omite: el renombrado
+     *     de V2 solo aplica a bases creadas con versiones antiguas de script.sql, y el límite de recursión de V3 es
+     *     para la sentencia del punto siguiente.</li>
+     *     <li>El cálculo de {@code ResumenVigentesMes} de V3 (una CTE recursiva con {@code DATE_FORMAT}, que H2 no
+     *     tiene) se omite: al migrar la base está vacía, y {@link #crearBase(int, int)} recalcula los resúmenes con
+     *     {@link ResumenContratoRepository#reconstruir()} después de cargar los datos.</li>
+     * </ul>
+     * El resto, incluidas las opciones de tabla y los comentarios de columna de MySQL, lo acepta H2 en modo MySQL.
+     *
+     * @param sentencia Sentencia de una migración, como la devuelve {@link MigrationRunner#dividirSentencias(String)}.
+     * @return La sentencia para H2, o {@code null} si se omite.
+     */
+    static String adaptarParaH2(String sentencia) {
+        String mayusculas = sentencia.toUpperCase(Locale.ROOT);
+        if (mayusculas.startsWith("SET ")) {
+            Matcher indice = CREAR_INDICE.matcher(sentencia);
+            return indice.find() ? "CREATE INDEX IF NOT EXISTS " + indice.group(1) : null;
+        }
+        if (mayusculas.startsWith("PREPARE ") || mayusculas.startsWith("EXECUTE ") || mayusculas.startsWith("DEALLOCATE ")) {
+            return null;
+        }
+        if (mayusculas.contains("WITH RECURSIVE")) {
+            return null;
+        }
+        return sentencia;
+    }
+
+    /**
+     * Elimina los contratos y usuarios que los benchmarks de escritura insertaron durante la iteración.
+     *
+     * @throws SQLException Si falla la limpieza.
+     */
+    @TearDown(Level.Iteration)
+    public void limpiarInsertados() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement borrarContratos = conn.prepareStatement("DELETE FROM Contrato WHERE id > ?");
+             PreparedStatement borrarUsuarios = conn.prepareStatement("DELETE FROM Usuario WHERE username LIKE 'nuevo%'")) {
+            borrarContratos.setInt(1, contratos);
+            borrarContratos.executeUpdate();
+            borrarUsuarios.executeUpdate();
+        }
+    }
+
+    /**
+     * Cierra el pool de conexiones al terminar la combinación de parámetros.
+     */
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        DatabaseConnection.shutdown();
+    }
+
+    /**
+     * @return El ID de un contrato cargado, elegido al azar.
+     */
+    public int idAleatorio() {
+        return 1 + ThreadLocalRandom.current().nextInt(contratos);
+    }
+
+    /**
+     * @return El username de un usuario cargado, elegido al azar.
+     */
+    public String usernameAleatorio() {
+        return username(ThreadLocalRandom.current().nextInt(usuarios));
+    }
+
+    /**
+     * @param id ID de un contrato cargado.
+     * @return El username del dueño de ese contrato.
+     */
+    public String duenoDe(int id) {
+        return username((id - 1) % usuarios);
+    }
+
+    /**
+     * @param indice Índice del usuario, de 0 a {@code usuarios - 1}.
+     * @return Su username. Los usernames tienen el mismo ancho para que el orden alfabético coincida con el índice.
+     */
+    public static String username(int indice) {
+        return String.format("usuario%06d", indice);
+    }
+
+    private static void cargarUsuarios(int usuarios) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT INTO Usuario (username, password, nombre, email) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < usuarios; i++) {
+                String username = username(i);
+                pstmt.setString(1, username);
+                pstmt.setString(2, "clave" + i);
+                pstmt.setString(3, "Usuario " + i);
+                pstmt.setString(4, username + "@sgc.com");
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void cargarContratos(int contratos, int usuarios) throws SQLException {
+        LocalDate base = LocalDate.of(2020, 1, 1);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT INTO Contrato (fecha_firma, fecha_inicio, fecha_fin, empresa, empleado,"
+                     + " funciones, monto, frecuencia_de_pago, usuario_username) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < contratos; i++) {
+                LocalDate inicio = base.plusDays(i % 1500);
+                pstmt.setDate(1, Date.valueOf(inicio.minusDays(10)));
+                pstmt.setDate(2, Date.valueOf(inicio));
+                pstmt.setDate(3, Date.valueOf(inicio.plusMonths(6 + i % 30)));
+                pstmt.setString(4, EMPRESAS[i % EMPRESAS.length]);
+                pstmt.setString(5, "Empleado " + i);
+                pstmt.setString(6, "Funciones del contrato " + i);
+                pstmt.setBigDecimal(7, BigDecimal.valueOf(1_000 + (i % 9_000)));
+                pstmt.setString(8, FRECUENCIAS[i % FRECUENCIAS.length]);
+                pstmt.setString(9, username(i % usuarios));
+                pstmt.addBatch();
+                if ((i + 1) % TAMANO_LOTE_CARGA == 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        }
+    }
+
+    private static void configurar(String clave, String valor) {
+        if (System.getProperty(clave) == null) {
+            System.setProperty(clave, valor);
+        }
+    }
+}
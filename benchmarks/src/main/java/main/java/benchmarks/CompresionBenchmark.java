@@ -0,0 +1,133 @@
+package main.java.benchmarks;
+
+import main.java.utils.DeflaterPool;
+import main.java.utils.GzipSalida;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Costo de comprimir con gzip la tabla del listado de contratos (el HTML que genera listarContratos.jsp),
+ * con el {@link DeflaterPool} que usa {@code CompresionFilter} y con un {@link GZIPOutputStream} nuevo por respuesta.
+ * Al preparar cada prueba se imprime el tamaño de la página antes y después de comprimir.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompresionBenchmark {
+
+    /**
+     * Filas del listado: el tamaño de página por defecto y el máximo.
+     */
+    @Param({"20", "100"})
+    public int filas;
+
+    private final DeflaterPool pool = new DeflaterPool(6, 4);
+    private byte[] pagina;
+    private DescartarSalida destino;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        pagina = generarListado(filas).getBytes(StandardCharsets.UTF_8);
+        destino = new DescartarSalida();
+        ByteArrayOutputStream comprimida = new ByteArrayOutputStream();
+        GzipSalida gzip = new GzipSalida(comprimida, pool);
+        gzip.write(pagina);
+        gzip.terminar();
+        System.out.printf("%nListado de %d contratos: %d bytes, %d bytes con gzip (%.1f %%)%n",
+                filas, pagina.length, comprimida.size(), 100.0 * comprimida.size() / pagina.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        pool.cerrar();
+    }
+
+    @Benchmark
+    public long gzipConPool() throws IOException {
+        GzipSalida gzip = new GzipSalida(destino, pool);
+        gzip.write(pagina);
+        gzip.terminar();
+        return gzip.getBytesSalida();
+    }
+
+    @Benchmark
+    public long gzipSinPool() throws IOException {
+        long antes = destino.bytes;
+        GZIPOutputStream gzip = new GZIPOutputStream(destino);
+        gzip.write(pagina);
+        gzip.finish();
+        gzip.close(); // Libera la memoria nativa de su Deflater
+        return destino.bytes - antes;
+    }
+
+    private static String generarListado(int filas) {
+        String[] empresas = {"Acme S.A.", "Globex Ltda.", "Initech S.A.S.", "Umbrella Corp.", "Soylent S.A."};
+        String[] frecuencias = {"Mensual", "Quincenal", "Semanal"};
+        StringBuilder html = new StringBuilder();
+        html.append("<table class=\"table table-striped table-hover\">\n<thead class=\"thead-dark\">\n<tr>")
+                .append("<th>ID</th><th>Fecha Firma</th><th>Inicio</th><th>Fin</th><th>Empresa</th><th>Empleado</th>")
+                .append("<th>Funciones</th><th>Monto</th><th>Frecuencia</th><th>Usuario</th><th>Acciones</th></tr>\n")
+                .append("</thead>\n<tbody>\n");
+        LocalDate inicio = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < filas; i++) {
+            int id = 100_000 + i * 37;
+            LocalDate firma = inicio.plusDays(i * 3L);
+            html.append("<tr>\n")
+                    .append("    <td>").append(id).append("</td>\n")
+                    .append("    <td>").append(firma).append("</td>\n")
+                    .append("    <td>").append(firma.plusDays(10)).append("</td>\n")
+                    .append("    <td>").append(firma.plusDays(375)).append("</td>\n")
+                    .append("    <td>").append(empresas[i % empresas.length]).append("</td>\n")
+                    .append("    <td>Empleado ").append(i * 7919 % 1000).append("</td>\n")
+                    .append("    <td>Soporte y mantenimiento del sistema de facturación, turno ").append(i % 3).append("</td>\n")
+                    .append("    <td>").append(1_000 + i * 13 % 5_000).append(".00</td>\n")
+                    .append("    <td>").append(frecuencias[i % frecuencias.length]).append("</td>\n")
+                    .append("    <td>usuario").append(String.format("%06d", i % 50)).append("</td>\n")
+                    .append("    <td>\n        <a href=\"/sgc/contratos/edit?id=").append(id)
+                    .append("\" class=\"btn btn-warning btn-sm mb-1\">Editar</a>\n        <a href=\"/sgc/contratos/delete?id=")
+                    .append(id).append("\" class=\"btn btn-danger btn-sm mb-1\" onclick=\"return confirm('¿Está seguro de que")
+                    .append(" desea eliminar este contrato? Esta acción es irreversible.');\">Eliminar</a>\n    </td>\n</tr>\n");
+        }
+        return html.append("</tbody>\n</table>\n").toString();
+    }
+
+    /**
+     * Destino que solo cuenta los bytes, para medir la compresión sin el costo de copiar el resultado.
+     */
+    private static final class DescartarSalida extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
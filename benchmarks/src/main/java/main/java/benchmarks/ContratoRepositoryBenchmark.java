@@ -0,0 +1,130 @@
+package main.java.benchmarks;
+
+import main.java.models.entities.Contrato;
+import main.java.models.repositories.ContratoRepository;
+import main.java.models.repositories.ResultadoLote;
+import main.java.utils.Pagina;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link ContratoRepository}: lecturas por ID, listados, páginas keyset, streaming y escrituras.
+ * Mide el throughput y la distribución de latencias (percentiles de {@link Mode#SampleTime}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContratoRepositoryBenchmark {
+
+    private static final int TAMANO_LOTE = 100;
+    private static final int TAMANO_PAGINA_API = 100;
+    // fields=id,empresa,monto de /api/contratos
+    private static final int COLUMNAS_EMPRESA_MONTO = (1 << ContratoRepository.indiceColumna("empresa"))
+            | (1 << ContratoRepository.indiceColumna("monto"));
+
+    private ContratoRepository repositorio;
+
+    /**
+     * Crea el repositorio después de que {@link BaseDeDatosBenchmark} haya configurado la conexión,
+     * ya que la configuración de la aplicación se lee al cargar las clases.
+     *
+     * @param bd Estado de la base de datos ya preparado.
+     */
+    @Setup(Level.Trial)
+    public void preparar(BaseDeDatosBenchmark bd) {
+        repositorio = new ContratoRepository();
+    }
+
+    @Benchmark
+    public Contrato getContratoById(BaseDeDatosBenchmark bd) {
+        return repositorio.getContratoById(bd.idAleatorio());
+    }
+
+    @Benchmark
+    public List<Contrato> getContratosByUsuario(BaseDeDatosBenchmark bd) {
+        return repositorio.getContratosByUsuario(bd.usernameAleatorio());
+    }
+
+    @Benchmark
+    public List<Contrato> getContratosPaginaPrimera(BaseDeDatosBenchmark bd) {
+        return repositorio.getContratosPagina(bd.usernameAleatorio(), 0, false, Pagina.TAMANO_POR_DEFECTO + 1);
+    }
+
+    @Benchmark
+    public List<Contrato> getContratosPaginaIntermedia(BaseDeDatosBenchmark bd) {
+        int cursor = bd.idAleatorio();
+        return repositorio.getContratosPagina(bd.duenoDe(cursor), cursor, false, Pagina.TAMANO_POR_DEFECTO + 1);
+    }
+
+    @Benchmark
+    public void streamContratosPorUsuario(BaseDeDatosBenchmark bd, Blackhole bh) throws IOException {
+        bh.consume(repositorio.streamContratos(bd.usernameAleatorio(), bh::consume));
+    }
+
+    @Benchmark
+    public void streamContratosPaginaCompleta(BaseDeDatosBenchmark bd, Blackhole bh) throws IOException {
+        bh.consume(repositorio.streamContratosPagina(bd.usernameAleatorio(), 0, TAMANO_PAGINA_API,
+                ContratoRepository.TODAS_LAS_COLUMNAS, bh::consume));
+    }
+
+    @Benchmark
+    public void streamContratosPaginaProyectada(BaseDeDatosBenchmark bd, Blackhole bh) throws IOException {
+        bh.consume(repositorio.streamContratosPagina(bd.usernameAleatorio(), 0, TAMANO_PAGINA_API,
+                COLUMNAS_EMPRESA_MONTO, bh::consume));
+    }
+
+    @Benchmark
+    public boolean createContrato(BaseDeDatosBenchmark bd) {
+        return repositorio.createContrato(nuevoContrato(bd.usernameAleatorio()));
+    }
+
+    @Benchmark
+    public ResultadoLote createContratosLote(BaseDeDatosBenchmark bd) {
+        String username = bd.usernameAleatorio();
+        List<Contrato> lote = new ArrayList<>(TAMANO_LOTE);
+        for (int i = 0; i < TAMANO_LOTE; i++) {
+            lote.add(nuevoContrato(username));
+        }
+        return repositorio.createContratos(lote);
+    }
+
+    @Benchmark
+    public boolean updateContrato(BaseDeDatosBenchmark bd) {
+        int id = bd.idAleatorio();
+        Contrato contrato = nuevoContrato(bd.duenoDe(id));
+        contrato.setId(id);
+        return repositorio.updateContrato(contrato);
+    }
+
+    @Benchmark
+    public boolean createYDeleteContrato(BaseDeDatosBenchmark bd) {
+        Contrato contrato = nuevoContrato(bd.usernameAleatorio());
+        repositorio.createContrato(contrato);
+        return repositorio.deleteContrato(contrato.getId());
+    }
+
+    private static Contrato nuevoContrato(String username) {
+        return new Contrato(Date.valueOf("2024-01-10"), Date.valueOf("2024-02-01"), Date.valueOf("2025-01-31"),
+                "Acme S.A.", "Empleado de prueba", "Funciones de prueba", 2_500.0, "Mensual", username);
+    }
+}
@@ -0,0 +1,55 @@
+package main.java.benchmarks;
+
+import main.java.models.entities.Contrato;
+import main.java.models.services.ContratoService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las reglas de negocio de {@link ContratoService}. No usan la base de datos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContratoServiceBenchmark {
+
+    private final ContratoService servicio = new ContratoService();
+
+    private final Contrato valido = new Contrato(Date.valueOf("2024-01-10"), Date.valueOf("2024-02-01"),
+            Date.valueOf("2025-01-31"), "Acme S.A.", "Empleado", "Funciones", 2_500.0, "Mensual", "usuario000000");
+
+    private final Contrato fechasInvertidas = new Contrato(Date.valueOf("2024-01-10"), Date.valueOf("2025-02-01"),
+            Date.valueOf("2024-01-31"), "Acme S.A.", "Empleado", "Funciones", 2_500.0, "Mensual", "usuario000000");
+
+    private final Contrato sinFechas = new Contrato(null, null, null, "Acme S.A.", "Empleado", "Funciones",
+            2_500.0, "Mensual", "usuario000000");
+
+    @Benchmark
+    public String validarContratoValido() {
+        return servicio.validarContrato(valido);
+    }
+
+    @Benchmark
+    public String validarContratoFechasInvertidas() {
+        return servicio.validarContrato(fechasInvertidas);
+    }
+
+    @Benchmark
+    public String validarContratoSinFechas() {
+        return servicio.validarContrato(sinFechas);
+    }
+}
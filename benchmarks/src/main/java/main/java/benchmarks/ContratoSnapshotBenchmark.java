@@ -0,0 +1,71 @@
+package main.java.benchmarks;
+
+import main.java.models.analytics.Agregado;
+import main.java.models.analytics.ContratoSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de las consultas analíticas sobre {@link ContratoSnapshot}: totales y agrupaciones
+ * en un rango de fechas, sin acceso a la base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContratoSnapshotBenchmark {
+
+    private static final LocalDate DESDE = LocalDate.of(2021, 1, 1);
+    private static final LocalDate HASTA = LocalDate.of(2021, 12, 31);
+
+    private ContratoSnapshot snapshot;
+
+    /**
+     * Carga la instantánea desde la base de datos ya preparada por {@link BaseDeDatosBenchmark}.
+     *
+     * @param bd Estado de la base de datos ya preparado.
+     */
+    @Setup(Level.Trial)
+    public void preparar(BaseDeDatosBenchmark bd) {
+        snapshot = ContratoSnapshot.getInstancia();
+        if (!snapshot.cargar()) {
+            throw new IllegalStateException("No se pudo cargar la instantánea de contratos.");
+        }
+    }
+
+    @Benchmark
+    public Agregado totalesVigencia() {
+        return snapshot.totales(ContratoSnapshot.CampoFecha.VIGENCIA, DESDE, HASTA);
+    }
+
+    @Benchmark
+    public Agregado totalesSinFiltro() {
+        return snapshot.totales(ContratoSnapshot.CampoFecha.FIRMA, null, null);
+    }
+
+    @Benchmark
+    public List<Agregado> agruparPorEmpresa() {
+        return snapshot.agrupar(ContratoSnapshot.Dimension.EMPRESA, ContratoSnapshot.CampoFecha.INICIO, DESDE, HASTA);
+    }
+
+    @Benchmark
+    public List<Agregado> agruparPorUsuario() {
+        return snapshot.agrupar(ContratoSnapshot.Dimension.USUARIO, ContratoSnapshot.CampoFecha.VIGENCIA, DESDE, HASTA);
+    }
+}
@@ -0,0 +1,30 @@
+package main.java.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Punto de entrada del JAR de benchmarks. Acepta los mismos argumentos que {@code org.openjdk.jmh.Main}
+ * y agrega siempre el perfilador {@code gc}, de modo que cada resultado incluye la tasa de asignación
+ * de memoria por operación ({@code gc.alloc.rate.norm}).
+ */
+public final class EjecutarBenchmarks {
+
+    private EjecutarBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean conGc = false;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if ("-prof".equals(args[i]) && args[i + 1].startsWith("gc")) {
+                conGc = true;
+            }
+        }
+        if (!conGc) {
+            String[] conPerfilador = Arrays.copyOf(args, args.length + 2);
+            conPerfilador[args.length] = "-prof";
+            conPerfilador[args.length + 1] = "gc";
+            args = conPerfilador;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,112 @@
+package main.java.benchmarks;
+
+import main.java.models.repositories.ContratoRepository;
+import main.java.utils.CsvWriter;
+import main.java.utils.DatabaseConnection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exportación de la tabla completa de contratos (un millón de filas por defecto) con
+ * {@link ContratoRepository#streamContratos}: el recorrido solo, y el recorrido escribiendo el CSV de
+ * {@code /contratos/export} en un writer que descarta la salida. Cada operación es una exportación completa, así que
+ * las filas por segundo son {@code contratos} dividido por el tiempo medio.
+ * <p>
+ * La tabla se carga en H2 una vez por combinación de parámetros, lo que con un millón de filas tarda unos segundos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExportacionBenchmark {
+
+    @Param({"1000000"})
+    public int contratos;
+
+    @Param({"50"})
+    public int usuarios;
+
+    private ContratoRepository repositorio;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException {
+        BaseDeDatosBenchmark.crearBase(contratos, usuarios);
+        repositorio = new ContratoRepository();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        DatabaseConnection.shutdown();
+    }
+
+    @Benchmark
+    public boolean recorrerTodos(Blackhole bh) throws IOException {
+        return repositorio.streamContratos(null, bh::consume);
+    }
+
+    @Benchmark
+    public long exportarTodosCsv() throws IOException {
+        DescartarTexto destino = new DescartarTexto();
+        Writer writer = new BufferedWriter(destino, 8 * 1024);
+        CsvWriter csv = new CsvWriter(writer);
+        boolean completo = repositorio.streamContratos(null, contrato -> csv.campo(contrato.getId())
+                .campo(String.valueOf(contrato.getFecha_firma()))
+                .campo(String.valueOf(contrato.getFecha_inicio()))
+                .campo(String.valueOf(contrato.getFecha_fin()))
+                .campo(contrato.getEmpresa())
+                .campo(contrato.getEmpleado())
+                .campo(contrato.getFunciones())
+                .campo(BigDecimal.valueOf(contrato.getMonto()).setScale(2, RoundingMode.HALF_UP).toPlainString())
+                .campo(contrato.getFrecuencia_de_pago())
+                .campo(contrato.getUsuarioUsername())
+                .finFila());
+        if (!completo) {
+            throw new IllegalStateException("La exportación no recorrió toda la tabla.");
+        }
+        writer.flush();
+        return destino.caracteres;
+    }
+
+    /**
+     * Writer que solo cuenta los caracteres, en lugar de la respuesta HTTP.
+     */
+    private static final class DescartarTexto extends Writer {
+        private long caracteres;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            caracteres += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package main.java.benchmarks;
+
+import main.java.controllers.ApiServlet;
+import main.java.controllers.ContratoServlet;
+import main.java.models.entities.Usuario;
+import main.java.models.repositories.UsuarioRepository;
+import main.java.utils.DatabaseConnection;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.loader.WebappLoader;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.jasper.servlet.JasperInitializer;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una página del listado de contratos servida por Tomcat embebido: la vista JSP ({@code /contratos}) frente a la API
+ * JSON ({@code /api/contratos}), completa y con {@code fields=id,empresa,monto}. Las tres rutas leen la misma página
+ * del mismo usuario, así que la diferencia es el renderizado: JSP/EL y JSTL sobre la lista de entidades, o
+ * {@code JsonWriter} a medida que se leen las filas.
+ * <p>
+ * Las peticiones son HTTP/1.1 reales sobre loopback, con un solo hilo cliente y sin solaparse. Cada operación suma el
+ * trabajo del servidor, el del cliente HTTP (el mismo en las tres rutas) y la latencia de loopback, así que el
+ * throughput es una cota inferior de las páginas por segundo que atiende un núcleo del servidor, y la razón entre
+ * rutas subestima la diferencia de renderizado. La asignación por operación ({@code gc.alloc.rate.norm}) incluye
+ * también la del cliente.
+ * <p>
+ * Las vistas se leen de {@code WebContent} (el benchmark se ejecuta desde la raíz del repositorio, o con
+ * {@code -jvmArgs "-Dsgc.bench.webContent=..."}). Las clases de la aplicación se cargan del JAR de benchmarks, no de
+ * {@code WEB-INF/classes}, y los servlets se registran sin el listener de la aplicación: las migraciones ya las aplica
+ * {@link BaseDeDatosBenchmark#crearBase(int, int)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class ListadoContratosBenchmark {
+
+    @Param({"20", "100"})
+    public int tamano;
+
+    @Param({"10000"})
+    public int contratos;
+
+    @Param({"50"})
+    public int usuarios;
+
+    private Tomcat tomcat;
+    private HttpClient cliente;
+    private HttpRequest paginaJsp;
+    private HttpRequest paginaApi;
+    private HttpRequest paginaApiProyectada;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException, IOException, LifecycleException, InterruptedException {
+        BaseDeDatosBenchmark.crearBase(contratos, usuarios);
+        Usuario usuario = new UsuarioRepository().getUsuarioByUsername(BaseDeDatosBenchmark.username(0));
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("sgc-bench-tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+        Context contexto = tomcat.addContext("", webContent().toString());
+        WebappLoader cargador = new WebappLoader();
+        cargador.setDelegate(true); // Las clases del classpath antes que las de WEB-INF/classes y WEB-INF/lib
+        contexto.setLoader(cargador);
+        Tomcat.initWebappDefaults(contexto);
+        contexto.addServletContainerInitializer(new JasperInitializer(), null);
+        Tomcat.addServlet(contexto, "contratos", new ContratoServlet()).setAsyncSupported(true);
+        contexto.addServletMappingDecoded("/contratos/*", "contratos");
+        Tomcat.addServlet(contexto, "api", new ApiServlet()).setAsyncSupported(true);
+        contexto.addServletMappingDecoded("/api/*", "api");
+        FilterDef sesion = new FilterDef();
+        sesion.setFilterName("sesion");
+        sesion.setFilter(new SesionIniciada(usuario));
+        sesion.setAsyncSupported("true");
+        contexto.addFilterDef(sesion);
+        FilterMap mapeo = new FilterMap();
+        mapeo.setFilterName("sesion");
+        mapeo.addURLPattern("/*");
+        contexto.addFilterMap(mapeo);
+        tomcat.start();
+
+        String base = "http://localhost:" + tomcat.getConnector().getLocalPort();
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).cookieHandler(new CookieManager()).build();
+        paginaJsp = HttpRequest.newBuilder(URI.create(base + "/contratos?tamano=" + tamano)).build();
+        paginaApi = HttpRequest.newBuilder(URI.create(base + "/api/contratos?tamano=" + tamano)).build();
+        paginaApiProyectada = HttpRequest.newBuilder(
+                URI.create(base + "/api/contratos?fields=id,empresa,monto&tamano=" + tamano)).build();
+
+        // Inicia la sesión, compila la JSP y comprueba que las tres rutas devuelvan el primer contrato del usuario
+        comprobar(paginaJsp, "data-id=\"1\"");
+        comprobar(paginaApi, "\"id\":1");
+        comprobar(paginaApiProyectada, "\"id\":1");
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+        DatabaseConnection.shutdown();
+    }
+
+    @Benchmark
+    public int jsp() throws IOException, InterruptedException {
+        return pedir(paginaJsp);
+    }
+
+    @Benchmark
+    public int api() throws IOException, InterruptedException {
+        return pedir(paginaApi);
+    }
+
+    @Benchmark
+    public int apiProyectada() throws IOException, InterruptedException {
+        return pedir(paginaApiProyectada);
+    }
+
+    private int pedir(HttpRequest peticion) throws IOException, InterruptedException {
+        HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException(peticion.uri() + " respondió " + respuesta.statusCode());
+        }
+        return respuesta.statusCode();
+    }
+
+    private void comprobar(HttpRequest peticion, String marca) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200 || !respuesta.body().contains(marca)) {
+            throw new IllegalStateException(peticion.uri() + " respondió " + respuesta.statusCode() + " sin el primer contrato: "
+                    + respuesta.body());
+        }
+    }
+
+    private static Path webContent() {
+        String configurado = System.getProperty("sgc.bench.webContent");
+        Path directorio = Paths.get(configurado != null ? configurado : "WebContent").toAbsolutePath();
+        if (!Files.isDirectory(directorio.resolve("views"))) {
+            throw new IllegalStateException("No se encontraron las vistas en " + directorio
+                    + "; ejecute el benchmark desde la raíz del repositorio o indique -Dsgc.bench.webContent.");
+        }
+        return directorio;
+    }
+
+    /**
+     * Deja al usuario logueado en la sesión, como después de {@code /usuarios/login}. El cliente conserva la cookie,
+     * así que la sesión se crea una sola vez.
+     */
+    private static final class SesionIniciada implements Filter {
+        private final Usuario usuario;
+
+        private SesionIniciada(Usuario usuario) {
+            this.usuario = usuario;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            HttpSession sesion = ((HttpServletRequest) request).getSession();
+            if (sesion.getAttribute("usuarioLogueado") == null) {
+                sesion.setAttribute("usuarioLogueado", usuario);
+            }
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package main.java.benchmarks;
+
+import main.java.models.entities.Usuario;
+import main.java.models.repositories.UsuarioRepository;
+import main.java.utils.Pagina;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks de {@link UsuarioRepository}: lectura por username, listados, páginas keyset y escrituras.
+ * Mide el throughput y la distribución de latencias (percentiles de {@link Mode#SampleTime}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsuarioRepositoryBenchmark {
+
+    // Contador compartido para generar usernames nuevos únicos entre hilos
+    private static final AtomicLong SECUENCIA = new AtomicLong();
+
+    private UsuarioRepository repositorio;
+
+    /**
+     * Crea el repositorio después de que {@link BaseDeDatosBenchmark} haya configurado la conexión,
+     * ya que la configuración de la aplicación se lee al cargar las clases.
+     *
+     * @param bd Estado de la base de datos ya preparado.
+     */
+    @Setup(Level.Trial)
+    public void preparar(BaseDeDatosBenchmark bd) {
+        repositorio = new UsuarioRepository();
+    }
+
+    @Benchmark
+    public Usuario getUsuarioByUsername(BaseDeDatosBenchmark bd) {
+        return repositorio.getUsuarioByUsername(bd.usernameAleatorio());
+    }
+
+    @Benchmark
+    public List<Usuario> getAllUsuarios(BaseDeDatosBenchmark bd) {
+        return repositorio.getAllUsuarios();
+    }
+
+    @Benchmark
+    public List<Usuario> getUsuariosPagina(BaseDeDatosBenchmark bd) {
+        return repositorio.getUsuariosPagina(bd.usernameAleatorio(), false, Pagina.TAMANO_POR_DEFECTO + 1);
+    }
+
+    @Benchmark
+    public boolean updateUsuario(BaseDeDatosBenchmark bd) {
+        String username = bd.usernameAleatorio();
+        return repositorio.updateUsuario(new Usuario(username, "clave", "Usuario actualizado", username + "@sgc.com"));
+    }
+
+    @Benchmark
+    public boolean createYDeleteUsuario(BaseDeDatosBenchmark bd) {
+        // El prefijo "nuevo" permite que BaseDeDatosBenchmark limpie lo que quede al final de la iteración
+        String username = "nuevo" + SECUENCIA.incrementAndGet();
+        repositorio.createUsuario(new Usuario(username, "clave", "Usuario nuevo", username + "@sgc.com"));
+        return repositorio.deleteUsuario(username);
+    }
+}
@@ -1,4 +1,7 @@
 -- Script SQL para la base de datos del Sistema de Gestión de Contratos (SGC)
+-- Crea la base con datos de ejemplo. El esquema también lo crean y actualizan las migraciones de
+-- WebContent/WEB-INF/db/migrations, que la aplicación aplica al iniciar; al cambiar el esquema,
+-- agregue una migración nueva y refleje el cambio aquí.
 
 -- 1. Crear la base de datos si no existe
 CREATE DATABASE IF NOT EXISTS sgc_db CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci;
@@ -20,7 +23,7 @@ CREATE TABLE IF NOT EXISTS Usuario (
 CREATE TABLE IF NOT EXISTS Contrato (
                                         id INT AUTO_INCREMENT PRIMARY KEY COMMENT 'Identificador único del contrato, auto-incrementable',
                                         fecha_firma DATE NOT NULL COMMENT 'Fecha en que se firmó el contrato',
-                                        fechaInicio DATE NOT NULL COMMENT 'Fecha de inicio de la vigencia del contrato',
+                                        fecha_inicio DATE NOT NULL COMMENT 'Fecha de inicio de la vigencia del contrato',
                                         fecha_fin DATE NOT NULL COMMENT 'Fecha de finalización de la vigencia del contrato',
                                         empresa VARCHAR(255) NOT NULL COMMENT 'Nombre de la empresa involucrada en el contrato',
     empleado VARCHAR(255) NOT NULL COMMENT 'Nombre del empleado asociado al contrato',
@@ -28,6 +31,12 @@ CREATE TABLE IF NOT EXISTS Contrato (
     monto DECIMAL(10, 2) NOT NULL COMMENT 'Monto económico total del contrato',
     frecuencia_de_pago VARCHAR(50) NOT NULL COMMENT 'Frecuencia de pago (ej: Mensual, Trimestral, Anual)',
     usuario_username VARCHAR(50) COMMENT 'Clave foránea que referencia al usuario que gestiona este contrato',
+    -- Índices de los caminos de acceso de la aplicación (ver WEB-INF/db/migrations/V4__indices_contrato.sql y V5__vencimientos.sql)
+    INDEX idx_contrato_usuario_id (usuario_username, id),
+    INDEX idx_contrato_usuario_fin (usuario_username, fecha_fin),
+    INDEX idx_contrato_empresa (empresa),
+    INDEX idx_contrato_empleado (empleado),
+    INDEX idx_contrato_fin (fecha_fin, id, usuario_username),
     -- Definición de la clave foránea para relacionar con la tabla Usuario
     FOREIGN KEY (usuario_username) REFERENCES Usuario(username) ON DELETE CASCADE ON UPDATE CASCADE
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Tabla para almacenar información de los contratos';
@@ -39,8 +48,71 @@ INSERT INTO Usuario (username, password, nombre, email) VALUES
                                                             ('mariag', 'mariag456', 'María García', 'maria.garcia@sgc.com');
 
 -- 6. Insertar datos de ejemplo en la tabla 'Contrato'
-INSERT INTO Contrato (fecha_firma, fechaInicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username) VALUES
+INSERT INTO Contrato (fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username) VALUES
                                                                                                                                       ('2023-01-15', '2023-02-01', '2024-01-31', 'Tech Solutions S.A.', 'Carlos Ruiz', 'Desarrollo de software a medida', 5000.00, 'Mensual', 'admin'),
                                                                                                                                       ('2023-03-01', '2023-03-10', '2024-03-09', 'Global Corp Ltda.', 'Ana López', 'Consultoría en ciberseguridad', 7500.00, 'Trimestral', 'admin'),
                                                                                                                                       ('2023-05-20', '2023-06-01', '2023-12-31', 'Innovatech S.A.S.', 'Pedro Gómez', 'Diseño y desarrollo de UX/UI', 4000.00, 'Mensual', 'juanp'),
-                                                                                                                                      ('2024-02-10', '2024-03-01', '2025-02-28', 'Servicios Integrales Cia. Ltda.', 'Laura Fernández', 'Gestión de proyectos IT', 6000.00, 'Mensual', 'mariag');
\ No newline at end of file
+                                                                                                                                      ('2024-02-10', '2024-03-01', '2025-02-28', 'Servicios Integrales Cia. Ltda.', 'Laura Fernández', 'Gestión de proyectos IT', 6000.00, 'Mensual', 'mariag');
+-- 7. Crear las tablas de resumen de contratos
+-- La aplicación las mantiene al día en la misma transacción que cada alta, modificación o baja de contratos.
+-- Si se desvían (por ejemplo, tras cambios hechos directamente en la base de datos), se recalculan desde /reportes.
+CREATE TABLE IF NOT EXISTS ResumenEmpresa (
+    empresa VARCHAR(255) PRIMARY KEY COMMENT 'Nombre de la empresa',
+    total_monto DECIMAL(18, 2) NOT NULL DEFAULT 0 COMMENT 'Suma de los montos de los contratos de la empresa',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos de la empresa'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Resumen de contratos por empresa';
+
+CREATE TABLE IF NOT EXISTS ResumenFrecuencia (
+    frecuencia_de_pago VARCHAR(50) PRIMARY KEY COMMENT 'Frecuencia de pago',
+    total_monto DECIMAL(18, 2) NOT NULL DEFAULT 0 COMMENT 'Suma de los montos de los contratos con esta frecuencia',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos con esta frecuencia'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Resumen de contratos por frecuencia de pago';
+
+CREATE TABLE IF NOT EXISTS ResumenUsuario (
+    usuario_username VARCHAR(50) PRIMARY KEY COMMENT 'Usuario que gestiona los contratos (cadena vacía para contratos sin usuario)',
+    total_monto DECIMAL(18, 2) NOT NULL DEFAULT 0 COMMENT 'Suma de los montos de los contratos del usuario',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos del usuario'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Resumen de contratos por usuario';
+
+CREATE TABLE IF NOT EXISTS ResumenVigentesMes (
+    mes DATE PRIMARY KEY COMMENT 'Primer día del mes',
+    cantidad INT NOT NULL DEFAULT 0 COMMENT 'Número de contratos vigentes en algún día del mes'
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Contratos vigentes por mes';
+
+-- 8. Calcular los resúmenes de los contratos de ejemplo
+INSERT INTO ResumenEmpresa (empresa, total_monto, cantidad)
+SELECT empresa, SUM(monto), COUNT(*) FROM Contrato GROUP BY empresa;
+
+INSERT INTO ResumenFrecuencia (frecuencia_de_pago, total_monto, cantidad)
+SELECT frecuencia_de_pago, SUM(monto), COUNT(*) FROM Contrato GROUP BY frecuencia_de_pago;
+
+INSERT INTO ResumenUsuario (usuario_username, total_monto, cantidad)
+SELECT COALESCE(usuario_username, ''), SUM(monto), COUNT(*) FROM Contrato GROUP BY COALESCE(usuario_username, '');
+
+-- Como ResumenContratoRepository (MAX_MESES_VIGENCIA), se cuentan como mucho 1200 meses por contrato. Esa
+-- recursión supera el límite por defecto de MySQL (cte_max_recursion_depth = 1000), que se sube solo para esta sentencia.
+SET SESSION cte_max_recursion_depth = 1200;
+
+INSERT INTO ResumenVigentesMes (mes, cantidad)
+WITH RECURSIVE meses (id, mes, ultimo, n) AS (
+    SELECT id, CAST(DATE_FORMAT(fecha_inicio, '%Y-%m-01') AS DATE), CAST(DATE_FORMAT(fecha_fin, '%Y-%m-01') AS DATE), 1 FROM Contrato
+    UNION ALL
+    SELECT id, mes + INTERVAL 1 MONTH, ultimo, n + 1 FROM meses WHERE mes < ultimo AND n < 1200
+)
+SELECT mes, COUNT(*) FROM meses GROUP BY mes;
+
+SET SESSION cte_max_recursion_depth = DEFAULT;
+
+-- 9. Crear la bandeja de salida de avisos de vencimiento
+-- La tarea diaria de vencimientos agrega un aviso por contrato y fecha de fin; quien los envía marca enviada_en.
+CREATE TABLE IF NOT EXISTS NotificacionVencimiento (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT 'Identificador del aviso',
+    contrato_id INT NOT NULL COMMENT 'Contrato que vence',
+    usuario_username VARCHAR(50) COMMENT 'Usuario que gestiona el contrato al crear el aviso',
+    fecha_fin DATE NOT NULL COMMENT 'Fecha de fin del contrato al crear el aviso',
+    creada_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Momento en que la tarea creó el aviso',
+    enviada_en TIMESTAMP NULL COMMENT 'Momento en que se envió el aviso (NULL si está pendiente)',
+    UNIQUE KEY uk_notificacion_contrato_fin (contrato_id, fecha_fin),
+    INDEX idx_notificacion_pendiente (enviada_en, id),
+    FOREIGN KEY (contrato_id) REFERENCES Contrato(id) ON DELETE CASCADE
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Bandeja de salida de avisos de vencimiento de contratos';
@@ -0,0 +1,362 @@
+package main.java.controllers;
+
+import main.java.models.entities.Contrato;
+import main.java.models.entities.Usuario;
+import main.java.models.repositories.ContratoRepository;
+import main.java.models.repositories.UsuarioRepository;
+import main.java.models.services.ContratoService;
+import main.java.models.services.UsuarioService;
+import main.java.utils.JsonWriter;
+import main.java.utils.RequestMetrics;
+import main.java.utils.VersionRegistry;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Date;
+import java.util.StringJoiner;
+
+/**
+ * API JSON de solo lectura sobre los mismos servicios que las vistas JSP.
+ * <ul>
+ *     <li>{@code GET /api/contratos}: contratos del usuario logueado, ordenados por ID.</li>
+ *     <li>{@code GET /api/usuarios}: usuarios ordenados por username (sin contraseña).</li>
+ * </ul>
+ * Parámetros: {@code fields} (lista separada por comas de las columnas a devolver; por defecto todas),
+ * {@code despues} (cursor devuelto en {@code siguiente} por la página anterior) y {@code tamano}
+ * (por defecto 100, como mucho {@link ContratoService#TAMANO_MAXIMO_RECORRIDO}).
+ * <p>
+ * La respuesta es {@code {"resultados": [...], "siguiente": cursor|null}}. Las filas se escriben con
+ * {@link JsonWriter} a medida que se leen de la base de datos, sin pasar por JSP/EL ni reflexión, y con
+ * {@code fields} la consulta solo selecciona esas columnas. El ID (o el username) se devuelve siempre.
+ */
+@WebServlet(urlPatterns = {"/api/*"}, asyncSupported = true)
+public class ApiServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    // Latencia y errores por recurso, exportados en /metrics
+    private static final RequestMetrics METRICAS_GET = new RequestMetrics("api", "GET", "/contratos", "/usuarios");
+    private static final int TAMANO_POR_DEFECTO = 100;
+    private static final int TAMANO_BUFFER = 32 * 1024; // Mientras no se llene, un error aún puede responderse como 500
+    private static final String TIPO_JSON = "application/json";
+
+    private ContratoService contratoService;
+    private UsuarioService usuarioService;
+
+    /**
+     * Constructor del servlet. Inicializa los servicios de contratos y de usuarios.
+     */
+    public ApiServlet() {
+        super();
+        this.contratoService = new ContratoService();
+        this.usuarioService = new UsuarioService();
+    }
+
+    /**
+     * Maneja las peticiones HTTP GET. Sin sesión iniciada responde 401 en lugar de redirigir al login.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (usuarioLogueado(request) == null) {
+            escribirError(response, HttpServletResponse.SC_UNAUTHORIZED, "Se requiere iniciar sesión.");
+            return;
+        }
+
+        AsyncRequestExecutor.ejecutar(request, response, this::procesarGet);
+    }
+
+    /**
+     * Despacha la petición GET al recurso correspondiente según la ruta.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void procesarGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String action = request.getPathInfo(); // Obtiene la parte de la URL después de /api
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            if (action == null) {
+                action = "";
+            }
+            switch (action) {
+                case "/contratos": // /api/contratos?fields=id,empresa,monto&despues=n&tamano=n
+                    listarContratos(request, response);
+                    break;
+                case "/usuarios": // /api/usuarios?fields=username,nombre&despues=xxx&tamano=n
+                    listarUsuarios(request, response);
+                    break;
+                default:
+                    escribirError(response, HttpServletResponse.SC_NOT_FOUND, "Recurso no encontrado: use /api/contratos o /api/usuarios.");
+                    break;
+            }
+            error = false;
+        } finally {
+            METRICAS_GET.registrar(action, inicio, error);
+        }
+    }
+
+    /**
+     * Devuelve una página de contratos del usuario logueado.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void listarContratos(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Usuario usuarioLogueado = usuarioLogueado(request);
+        int columnas = ContratoRepository.TODAS_LAS_COLUMNAS;
+        String fields = request.getParameter("fields");
+        if (fields != null) {
+            columnas = 0;
+            for (String campo : fields.split(",")) {
+                campo = campo.trim();
+                int indice = ContratoRepository.indiceColumna(campo);
+                if (indice >= 0) {
+                    columnas |= 1 << indice;
+                } else if (!campo.equals("id") && !campo.isEmpty()) {
+                    escribirError(response, HttpServletResponse.SC_BAD_REQUEST, "Campo desconocido: " + campo
+                            + ". Campos permitidos: " + camposContrato() + ".");
+                    return;
+                }
+            }
+        }
+        Integer despues = parsearEntero(request.getParameter("despues"));
+        int tamano = tamanoSolicitado(request);
+
+        VersionRegistry.Marca version = contratoService.obtenerVersionContratos(usuarioLogueado.getUsername());
+        String etag = RespuestaCondicional.etag(version.getVersion(), usuarioLogueado.getUsername());
+        if (RespuestaCondicional.noModificado(request, response, etag, version.getInstante())) {
+            return;
+        }
+
+        JsonWriter json = iniciarRespuesta(response);
+        final int seleccion = columnas;
+        int[] filas = {0};
+        int[] ultimoId = {0};
+        boolean completo = contratoService.recorrerPaginaContratos(usuarioLogueado.getUsername(), despues, tamano, columnas, contrato -> {
+            json.inicioObjeto().nombre("id").valor(contrato.getId());
+            for (int i = 0; seleccion >> i != 0; i++) {
+                if ((seleccion & (1 << i)) != 0) {
+                    json.nombre(ContratoRepository.nombreColumna(i));
+                    escribirColumna(json, contrato, i);
+                }
+            }
+            json.finObjeto();
+            filas[0]++;
+            ultimoId[0] = contrato.getId();
+        });
+        terminarRespuesta(response, json, completo, filas[0] == tamano ? String.valueOf(ultimoId[0]) : null);
+    }
+
+    /**
+     * Devuelve una página de usuarios, sin contraseña.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void listarUsuarios(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Usuario usuarioLogueado = usuarioLogueado(request);
+        int columnas = UsuarioRepository.TODAS_LAS_COLUMNAS_PUBLICAS;
+        String fields = request.getParameter("fields");
+        if (fields != null) {
+            columnas = 0;
+            for (String campo : fields.split(",")) {
+                campo = campo.trim();
+                int indice = UsuarioRepository.indiceColumnaPublica(campo);
+                if (indice >= 0) {
+                    columnas |= 1 << indice;
+                } else if (!campo.equals("username") && !campo.isEmpty()) {
+                    escribirError(response, HttpServletResponse.SC_BAD_REQUEST, "Campo desconocido: " + campo
+                            + ". Campos permitidos: " + camposUsuario() + ".");
+                    return;
+                }
+            }
+        }
+        String despues = request.getParameter("despues");
+        if (despues != null && despues.isEmpty()) {
+            despues = null;
+        }
+        int tamano = tamanoSolicitado(request);
+
+        // Sin versión (lectura de una réplica quizá atrasada) la respuesta no lleva validadores
+        VersionRegistry.Marca version = usuarioService.obtenerVersionUsuarios();
+        if (version != null) {
+            String etag = RespuestaCondicional.etag(version.getVersion(), usuarioLogueado.getUsername());
+            if (RespuestaCondicional.noModificado(request, response, etag, version.getInstante())) {
+                return;
+            }
+        } else {
+            response.setHeader("Cache-Control", "private, no-cache");
+        }
+
+        JsonWriter json = iniciarRespuesta(response);
+        final int seleccion = columnas;
+        int[] filas = {0};
+        String[] ultimo = {null};
+        boolean completo = usuarioService.recorrerPaginaUsuarios(despues, tamano, columnas, usuario -> {
+            json.inicioObjeto().nombre("username").valor(usuario.getUsername());
+            if ((seleccion & (1 << UsuarioRepository.indiceColumnaPublica("nombre"))) != 0) {
+                json.nombre("nombre").valor(usuario.getNombre());
+            }
+            if ((seleccion & (1 << UsuarioRepository.indiceColumnaPublica("email"))) != 0) {
+                json.nombre("email").valor(usuario.getEmail());
+            }
+            json.finObjeto();
+            filas[0]++;
+            ultimo[0] = usuario.getUsername();
+        });
+        terminarRespuesta(response, json, completo, filas[0] == tamano ? ultimo[0] : null);
+    }
+
+    /**
+     * Prepara la respuesta JSON y abre el objeto y el arreglo de resultados.
+     */
+    private JsonWriter iniciarRespuesta(HttpServletResponse response) throws IOException {
+        response.setContentType(TIPO_JSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setBufferSize(TAMANO_BUFFER);
+        JsonWriter json = new JsonWriter(EscritorRespuesta.abrir(response));
+        json.inicioObjeto().nombre("resultados").inicioArreglo();
+        return json;
+    }
+
+    /**
+     * Cierra el arreglo de resultados con el cursor de la página siguiente. Si la base de datos falló y aún no se
+     * envió nada, descarta lo escrito y responde 500; si ya se envió parte, corta la respuesta para que el cliente
+     * la detecte incompleta.
+     */
+    private void terminarRespuesta(HttpServletResponse response, JsonWriter json, boolean completo, String siguiente)
+            throws IOException {
+        if (!completo) {
+            if (response.isCommitted()) {
+                throw new IOException("Error de base de datos durante la respuesta de la API.");
+            }
+            response.reset();
+            escribirError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error al consultar la base de datos.");
+            return;
+        }
+        json.finArreglo().nombre("siguiente");
+        if (siguiente != null) {
+            json.valor(siguiente);
+        } else {
+            json.valorNulo();
+        }
+        json.finObjeto();
+        json.flush();
+    }
+
+    /**
+     * Escribe el valor de una columna de contrato, según su posición en las máscaras de {@link ContratoRepository}.
+     */
+    private static void escribirColumna(JsonWriter json, Contrato contrato, int columna) throws IOException {
+        switch (columna) {
+            case 0:
+                escribirFecha(json, contrato.getFecha_firma());
+                break;
+            case 1:
+                escribirFecha(json, contrato.getFecha_inicio());
+                break;
+            case 2:
+                escribirFecha(json, contrato.getFecha_fin());
+                break;
+            case 3:
+                json.valor(contrato.getEmpresa());
+                break;
+            case 4:
+                json.valor(contrato.getEmpleado());
+                break;
+            case 5:
+                json.valor(contrato.getFunciones());
+                break;
+            case 6:
+                json.valorCrudo(formatearMonto(contrato.getMonto()));
+                break;
+            case 7:
+                json.valor(contrato.getFrecuencia_de_pago());
+                break;
+            case 8:
+                json.valor(contrato.getUsuarioUsername());
+                break;
+            default:
+                throw new IllegalArgumentException("Columna desconocida: " + columna);
+        }
+    }
+
+    private static void escribirFecha(JsonWriter json, Date fecha) throws IOException {
+        if (fecha != null) {
+            json.valor(fecha.toString()); // java.sql.Date: AAAA-MM-DD
+        } else {
+            json.valorNulo();
+        }
+    }
+
+    /**
+     * Responde un error con cuerpo JSON {@code {"error": mensaje}}.
+     */
+    private static void escribirError(HttpServletResponse response, int estado, String mensaje) throws IOException {
+        response.setStatus(estado);
+        response.setContentType(TIPO_JSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        new JsonWriter(EscritorRespuesta.abrir(response)).inicioObjeto().nombre("error").valor(mensaje).finObjeto().flush();
+    }
+
+    private static String camposContrato() {
+        StringJoiner campos = new StringJoiner(", ");
+        campos.add("id");
+        for (int i = 0; ContratoRepository.TODAS_LAS_COLUMNAS >> i != 0; i++) {
+            campos.add(ContratoRepository.nombreColumna(i));
+        }
+        return campos.toString();
+    }
+
+    private static String camposUsuario() {
+        StringJoiner campos = new StringJoiner(", ");
+        campos.add("username");
+        for (int i = 0; UsuarioRepository.TODAS_LAS_COLUMNAS_PUBLICAS >> i != 0; i++) {
+            campos.add(UsuarioRepository.nombreColumnaPublica(i));
+        }
+        return campos.toString();
+    }
+
+    private static Usuario usuarioLogueado(HttpServletRequest request) {
+        HttpSession session = request.getSession(false); // No crear una sesión si no existe
+        return (session != null) ? (Usuario) session.getAttribute("usuarioLogueado") : null;
+    }
+
+    private static int tamanoSolicitado(HttpServletRequest request) {
+        Integer tamano = parsearEntero(request.getParameter("tamano"));
+        return tamano != null && tamano > 0 ? Math.min(tamano, ContratoService.TAMANO_MAXIMO_RECORRIDO) : TAMANO_POR_DEFECTO;
+    }
+
+    /**
+     * Formatea un monto con dos decimales y sin notación científica, igual que las exportaciones.
+     */
+    private static String formatearMonto(double monto) {
+        return BigDecimal.valueOf(monto).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static Integer parsearEntero(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
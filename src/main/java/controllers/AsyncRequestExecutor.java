@@ -0,0 +1,238 @@
+package main.java.controllers;
+
+import main.java.utils.AppConfig;
+import main.java.utils.ContextoPeticion;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta el trabajo de los servlets (que hace JDBC bloqueante) fuera de los hilos del contenedor.
+ * <p>
+ * Con {@code sgc.async.enabled=true}, la petición se pasa a modo asíncrono ({@link AsyncContext}) y la acción se
+ * ejecuta en un executor propio: hilos virtuales si la JVM los soporta (Java 21 o superior), o un pool acotado de
+ * hilos de plataforma en caso contrario. Así una consulta lenta a MySQL no ocupa un hilo de Tomcat.
+ * Cada petición tiene un tiempo máximo ({@code sgc.async.timeoutMs}); si se supera se responde 503, y lo que la acción
+ * intente responder después se descarta (ver {@link RespuestaAsincrona}).
+ * <p>
+ * El {@link ContextoPeticion} del hilo del contenedor se propaga al hilo que ejecuta la acción.
+ * Con el modo asíncrono desactivado (valor por defecto) la acción se ejecuta directamente, como antes.
+ * Los servlets deben usar {@link #forward(HttpServletRequest, HttpServletResponse, String)} para mostrar una JSP,
+ * ya que en modo asíncrono no se puede usar {@code RequestDispatcher.forward} desde otro hilo.
+ */
+public final class AsyncRequestExecutor {
+
+    private static final boolean HABILITADO = AppConfig.getBoolean("sgc.async.enabled", false);
+    private static final long TIMEOUT_MS = AppConfig.getLong("sgc.async.timeoutMs", 30_000);
+
+    // Atributo de la petición que indica si la respuesta asíncrona ya fue entregada (despachada, completada o expirada).
+    private static final String ATRIBUTO_TERMINADA = AsyncRequestExecutor.class.getName() + ".terminada";
+
+    private static final ExecutorService EXECUTOR = HABILITADO ? crearExecutor() : null;
+
+    /**
+     * Acción de un servlet que procesa una petición.
+     */
+    @FunctionalInterface
+    public interface Accion {
+        void ejecutar(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    private AsyncRequestExecutor() {
+    }
+
+    /**
+     * Ejecuta una acción de servlet, en modo asíncrono si está habilitado o directamente si no.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @param accion   La acción a ejecutar.
+     * @throws ServletException Si la acción falla en modo síncrono.
+     * @throws IOException      Si la acción falla en modo síncrono.
+     */
+    public static void ejecutar(HttpServletRequest request, HttpServletResponse response, Accion accion)
+            throws ServletException, IOException {
+        if (!HABILITADO || !request.isAsyncSupported()) {
+            accion.ejecutar(request, response);
+            return;
+        }
+
+        AsyncContext contexto = request.startAsync(request, response);
+        contexto.setTimeout(TIMEOUT_MS);
+        AtomicBoolean terminada = new AtomicBoolean(false);
+        request.setAttribute(ATRIBUTO_TERMINADA, terminada);
+        contexto.addListener(new ListenerTimeout(terminada));
+
+        try {
+            // El contexto de la petición (usuario, enrutamiento de lecturas) acompaña a la acción al otro hilo
+            RespuestaAsincrona respuesta = new RespuestaAsincrona(response, terminada);
+            EXECUTOR.execute(ContextoPeticion.propagar(() -> procesar(contexto, request, respuesta, accion, terminada)));
+        } catch (RejectedExecutionException e) {
+            // El executor está saturado: se rechaza la petición en lugar de encolarla sin límite
+            if (terminada.compareAndSet(false, true)) {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Servidor ocupado, intente de nuevo.");
+                contexto.complete();
+            }
+        }
+    }
+
+    /**
+     * Muestra una vista JSP. En modo asíncrono despacha el {@link AsyncContext} hacia la vista;
+     * en modo síncrono hace un {@code forward} normal.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @param vista    Ruta de la JSP dentro de la aplicación.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    public static void forward(HttpServletRequest request, HttpServletResponse response, String vista)
+            throws ServletException, IOException {
+        if (request.isAsyncStarted()) {
+            AtomicBoolean terminada = (AtomicBoolean) request.getAttribute(ATRIBUTO_TERMINADA);
+            if (terminada == null || terminada.compareAndSet(false, true)) {
+                request.getAsyncContext().dispatch(vista);
+            }
+            return;
+        }
+        request.getRequestDispatcher(vista).forward(request, response);
+    }
+
+    /**
+     * Quita el tiempo máximo de una petición asíncrona. Se usa en respuestas largas, como las exportaciones.
+     *
+     * @param request Petición HTTP.
+     */
+    public static void sinLimiteDeTiempo(HttpServletRequest request) {
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().setTimeout(0);
+        }
+    }
+
+    /**
+     * Detiene el executor. Se llama al detener la aplicación.
+     */
+    public static void shutdown() {
+        if (EXECUTOR != null) {
+            EXECUTOR.shutdown();
+        }
+    }
+
+    private static void procesar(AsyncContext contexto, HttpServletRequest request, RespuestaAsincrona response,
+                                 Accion accion, AtomicBoolean terminada) {
+        boolean correcta = false;
+        try {
+            accion.ejecutar(request, response);
+            correcta = true;
+        } catch (Exception e) {
+            if (terminada.get()) {
+                // La petición ya expiró: la respuesta dejó de aceptar escrituras y la acción se detuvo
+                System.err.println("Petición asíncrona " + request.getRequestURI() + " detenida tras terminar: " + e.getMessage());
+                return;
+            }
+            System.err.println("Error procesando petición asíncrona " + request.getRequestURI() + ": " + e.getMessage());
+            e.printStackTrace();
+            if (!response.isCommitted()) {
+                try {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException | IllegalStateException ignorada) {
+                    // La respuesta ya no se puede modificar
+                }
+            }
+        } finally {
+            // Si la acción no despachó a una vista (por ejemplo, hizo un redirect), se completa la petición
+            if (terminada.compareAndSet(false, true)) {
+                if (correcta) {
+                    cerrarRespuesta((HttpServletResponse) response.getResponse()); // Ya está terminada: sin el envoltorio
+                }
+                contexto.complete();
+            }
+        }
+    }
+
+    /**
+     * Cierra el cuerpo de la respuesta antes de completarla, para que los filtros que la envuelven (como la
+     * compresión) escriban sus últimos bytes: después de {@code complete()} ya no pueden hacerlo.
+     */
+    private static void cerrarRespuesta(HttpServletResponse response) {
+        try {
+            try {
+                response.getOutputStream().close();
+            } catch (IllegalStateException e) {
+                response.getWriter().close(); // La acción escribió con el writer
+            }
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("No se pudo cerrar la respuesta asíncrona: " + e.getMessage());
+        }
+    }
+
+    private static ExecutorService crearExecutor() {
+        try {
+            // Hilos virtuales (Java 21+). Se obtienen por reflexión para seguir compilando con Java 11.
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            System.out.println("Procesamiento asíncrono de servlets con hilos virtuales.");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int hilos = AppConfig.getInt("sgc.async.threads", 200);
+            System.out.println("Procesamiento asíncrono de servlets con " + hilos + " hilos de plataforma (hilos virtuales no disponibles).");
+            AtomicInteger contador = new AtomicInteger();
+            return new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(AppConfig.getInt("sgc.async.queue", 1_000)),
+                    r -> {
+                        Thread hilo = new Thread(r, "sgc-async-" + contador.incrementAndGet());
+                        hilo.setDaemon(true);
+                        return hilo;
+                    });
+        }
+    }
+
+    /**
+     * Responde 503 si la petición supera su tiempo máximo antes de entregar una respuesta.
+     */
+    private static final class ListenerTimeout implements AsyncListener {
+        private final AtomicBoolean terminada;
+
+        private ListenerTimeout(AtomicBoolean terminada) {
+            this.terminada = terminada;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            // Si la acción ya despachó o completó la respuesta, el contenedor se encarga de terminarla
+            if (terminada.compareAndSet(false, true)) {
+                HttpServletResponse response = (HttpServletResponse) event.getAsyncContext().getResponse();
+                if (!response.isCommitted()) {
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Tiempo de espera agotado procesando la petición.");
+                }
+                event.getAsyncContext().complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            terminada.set(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
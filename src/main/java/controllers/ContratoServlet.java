@@ -2,18 +2,44 @@ package main.java.controllers;
 
 import main.java.models.entities.Contrato;
 import main.java.models.entities.Usuario;
+import main.java.models.repositories.FiltroContratos;
+import main.java.models.repositories.ResultadoLote;
 import main.java.models.services.ContratoService;
+import main.java.models.services.OperacionMasiva;
+import main.java.models.services.UsuarioService;
+import main.java.utils.CsvReader;
+import main.java.utils.CsvWriter;
+import main.java.utils.InvertedIndex;
+import main.java.utils.JsonWriter;
+import main.java.utils.Pagina;
+import main.java.utils.RadixTrie;
+import main.java.utils.RequestMetrics;
+import main.java.utils.VersionRegistry;
 
-import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Part;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Servlet principal para la gestión de Contratos.
@@ -22,17 +48,28 @@ import java.util.List;
  * Ademas de ser el encargado de  manejar las peticiones HTTP GET y POST
  */
 
-@WebServlet(urlPatterns = {"/contratos", "/contratos/*"})
+@WebServlet(urlPatterns = {"/contratos", "/contratos/*"}, asyncSupported = true)
+@MultipartConfig(fileSizeThreshold = 1024 * 1024, maxFileSize = 100L * 1024 * 1024, maxRequestSize = 100L * 1024 * 1024)
 public class ContratoServlet extends HttpServlet {
     private static final long serialVersionUID = 1L; // Identificador de versión para serialización
+    // Latencia y errores por acción, exportados en /metrics
+    private static final RequestMetrics METRICAS_GET = new RequestMetrics("contratos", "GET", "/new", "/edit", "/delete", "/export", "/import", "/buscar", "/sugerencias", "/operacion");
+    private static final RequestMetrics METRICAS_POST = new RequestMetrics("contratos", "POST", "/create", "/update", "/import", "/eliminarMasivo", "/reasignar", "/cancelarOperacion");
+    private static final int TAMANO_BUFFER_EXPORTACION = 64 * 1024; // Buffer de respuesta para exportaciones
+    private static final int TAMANO_BLOQUE_IMPORTACION = 1000; // Filas de CSV que se envían juntas al servicio
+    private static final int TAMANO_SUGERENCIAS = 8; // Sugerencias por defecto en el autocompletado
+    private static final int MAXIMO_SUGERENCIAS = 50;
+    private static final String VISTA_IMPORTAR = "/views/forms/contratos/importarContratos.jsp";
     private ContratoService contratoService; // Instancia del servicio de contrato
+    private UsuarioService usuarioService; // Para validar el destino de las reasignaciones
 
     /**
-     * Constructor del servlet. Inicializa el servicio de contrato.
+     * Constructor del servlet. Inicializa los servicios de contrato y de usuario.
      */
     public ContratoServlet() {
         super();
         this.contratoService = new ContratoService();
+        this.usuarioService = new UsuarioService();
     }
 
     /**
@@ -72,26 +109,67 @@ public class ContratoServlet extends HttpServlet {
         if (!checkAuthentication(request, response)) {
             return; // Si no está autenticado, ya se redirigió y se detiene la ejecución
         }
+        if ("/eventos".equals(request.getPathInfo())) { // /contratos/eventos (cambios en vivo, Server-Sent Events)
+            // Conexión de larga duración: no pasa por el executor asíncrono ni por las métricas de latencia
+            Usuario usuarioLogueado = (Usuario) request.getSession(false).getAttribute("usuarioLogueado");
+            DifusorEventosContratos.getInstancia().suscribir(request, response, usuarioLogueado.getUsername());
+            return;
+        }
 
-        String action = request.getPathInfo(); // Obtiene la parte de la URL después de /contratos
+        AsyncRequestExecutor.ejecutar(request, response, this::procesarGet);
+    }
 
-        if (action == null) { // Si la URL es solo /contratos
-            listarContratos(request, response);
-        } else {
-            switch (action) {
-                case "/new": // /contratos/new
-                    mostrarFormularioCrear(request, response);
-                    break;
-                case "/edit": // /contratos/edit?id=xxx
-                    mostrarFormularioEditar(request, response);
-                    break;
-                case "/delete": // /contratos/delete?id=xxx
-                    eliminarContrato(request, response);
-                    break;
-                default: // Cualquier otra sub-ruta no reconocida
-                    listarContratos(request, response); // Por defecto, redirige a la lista
-                    break;
+    /**
+     * Despacha la petición GET a la acción correspondiente según la ruta.
+     * Se ejecuta en el hilo del contenedor o, con el modo asíncrono habilitado, en {@link AsyncRequestExecutor}.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    private void procesarGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String action = request.getPathInfo(); // Obtiene la parte de la URL después de /contratos
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            if (action == null) { // Si la URL es solo /contratos
+                listarContratos(request, response);
+            } else {
+                switch (action) {
+                    case "/new": // /contratos/new
+                        mostrarFormularioCrear(request, response);
+                        break;
+                    case "/edit": // /contratos/edit?id=xxx
+                        mostrarFormularioEditar(request, response);
+                        break;
+                    case "/delete": // /contratos/delete?id=xxx
+                        eliminarContrato(request, response);
+                        break;
+                    case "/export": // /contratos/export?format=csv|json
+                        AsyncRequestExecutor.sinLimiteDeTiempo(request); // Una exportación grande puede tardar
+                        exportarContratos(request, response);
+                        break;
+                    case "/import": // /contratos/import (formulario de carga de CSV)
+                        mostrarFormularioImportar(request, response);
+                        break;
+                    case "/buscar": // /contratos/buscar?q=xxx&posicion=n[&format=json]
+                        buscarContratos(request, response);
+                        break;
+                    case "/sugerencias": // /contratos/sugerencias?campo=empresa|empleado&q=xxx
+                        sugerirValores(request, response);
+                        break;
+                    case "/operacion": // /contratos/operacion?id=n (avance de una operación masiva)
+                        mostrarOperacion(request, response);
+                        break;
+                    default: // Cualquier otra sub-ruta no reconocida
+                        listarContratos(request, response); // Por defecto, redirige a la lista
+                        break;
+                }
             }
+            error = false;
+        } finally {
+            METRICAS_GET.registrar(action, inicio, error);
         }
     }
 
@@ -110,54 +188,684 @@ public class ContratoServlet extends HttpServlet {
             return; // Si no está autenticado, ya se redirigió y se detiene la ejecución
         }
 
+        AsyncRequestExecutor.ejecutar(request, response, this::procesarPost);
+    }
+
+    /**
+     * Despacha la petición POST a la acción correspondiente según la ruta.
+     * Se ejecuta en el hilo del contenedor o, con el modo asíncrono habilitado, en {@link AsyncRequestExecutor}.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    private void procesarPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         String action = request.getPathInfo(); // Obtiene la parte de la URL después de /contratos
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            if (action == null) { // Si la URL es solo /contratos (manejo de POST sin sub-ruta explícita)
+                // Simplificación: si el formulario envía un 'actionType' de 'update', se asume actualización.
+                if (request.getParameter("actionType") != null && request.getParameter("actionType").equals("update")) {
+                    actualizarContrato(request, response);
+                } else {
+                    crearContrato(request, response);
+                }
+            } else {
+                switch (action) {
+                    case "/create": // /contratos/create
+                        crearContrato(request, response);
+                        break;
+                    case "/update": // /contratos/update
+                        actualizarContrato(request, response);
+                        break;
+                    case "/import": // /contratos/import (carga masiva desde CSV)
+                        importarContratos(request, response);
+                        break;
+                    case "/eliminarMasivo": // /contratos/eliminarMasivo (ids=1,2,3 o empresa / venceAntesDe)
+                        eliminarContratosMasivo(request, response);
+                        break;
+                    case "/reasignar": // /contratos/reasignar (origen, destino[, empresa, venceAntesDe])
+                        reasignarContratos(request, response);
+                        break;
+                    case "/cancelarOperacion": // /contratos/cancelarOperacion?id=n
+                        cancelarOperacion(request, response);
+                        break;
+                    default: // Cualquier otra sub-ruta no reconocida para POST
+                        response.sendError(HttpServletResponse.SC_NOT_FOUND, "Acción POST no encontrada.");
+                        break;
+                }
+            }
+            error = false;
+        } finally {
+            METRICAS_POST.registrar(action, inicio, error);
+        }
+    }
+
+    /**
+     * Recupera una página de contratos (filtrados por el usuario logueado) y la envía a la JSP de listado.
+     * Acepta los parámetros opcionales {@code despues} / {@code antes} (cursores sobre el ID) y {@code tamano},
+     * y uno de estos filtros de vigencia, resueltos con el índice de vigencias:
+     * {@code vigenteEn} (fecha), {@code vencenEnDias} (número de días desde hoy) o {@code desde} y {@code hasta}
+     * (contratos vigentes en algún día del rango). Las fechas van en formato AAAA-MM-DD.
+     * Responde 304 a las peticiones condicionales ({@code If-None-Match}) si los contratos del usuario no cambiaron.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    private void listarContratos(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
+
+        Integer despues = parsearEntero(request.getParameter("despues"));
+        Integer antes = parsearEntero(request.getParameter("antes"));
+        Integer tamanoSolicitado = parsearEntero(request.getParameter("tamano"));
+        int tamano = tamanoSolicitado != null ? tamanoSolicitado : Pagina.TAMANO_POR_DEFECTO;
+
+        // Si hay un usuario logueado, mostrar solo los contratos asociados a ese usuario.
+        // Si no (no debería ocurrir si checkAuthentication funciona), como fallback se paginan todos.
+        String username = (usuarioLogueado != null) ? usuarioLogueado.getUsername() : null;
+
+        // Si los contratos del usuario no cambiaron desde la copia del navegador, se responde 304 sin consultar nada.
+        // La página depende también del día (filtro vencenEnDias) y del nombre que muestra la cabecera.
+        VersionRegistry.Marca version = contratoService.obtenerVersionContratos(username);
+        LocalDate hoy = LocalDate.now();
+        String etag = RespuestaCondicional.etag(version.getVersion(), username,
+                usuarioLogueado != null ? usuarioLogueado.getNombre() : null, hoy);
+        long inicioDelDia = hoy.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (RespuestaCondicional.noModificado(request, response, etag, Math.max(version.getInstante(), inicioDelDia))) {
+            return;
+        }
+
+        Pagina<Contrato> pagina;
+        try {
+            LocalDate vigenteEn = parsearFecha(request.getParameter("vigenteEn"));
+            Integer vencenEnDias = parsearEntero(request.getParameter("vencenEnDias"));
+            LocalDate desde = parsearFecha(request.getParameter("desde"));
+            LocalDate hasta = parsearFecha(request.getParameter("hasta"));
+            if (username != null && vigenteEn != null) {
+                pagina = contratoService.obtenerPaginaContratosVigentes(username, vigenteEn, vigenteEn, despues, antes, tamano);
+            } else if (username != null && vencenEnDias != null && vencenEnDias >= 0) {
+                pagina = contratoService.obtenerPaginaContratosQueVencen(username, vencenEnDias, despues, antes, tamano);
+            } else if (username != null && (desde != null || hasta != null)) {
+                // Un rango abierto por un lado se acota con el otro extremo
+                LocalDate inicioRango = desde != null ? desde : hasta;
+                LocalDate finRango = hasta != null ? hasta : desde;
+                if (inicioRango.isAfter(finRango)) {
+                    throw new DateTimeParseException("El rango de fechas está invertido.", inicioRango.toString(), 0);
+                }
+                pagina = contratoService.obtenerPaginaContratosVigentes(username, inicioRango, finRango, despues, antes, tamano);
+            } else {
+                pagina = contratoService.obtenerPaginaContratosPorUsuario(username, despues, antes, tamano);
+            }
+        } catch (DateTimeParseException e) {
+            request.setAttribute("error", "Filtro de fechas inválido: use el formato AAAA-MM-DD y un rango con inicio anterior al fin.");
+            pagina = contratoService.obtenerPaginaContratosPorUsuario(username, despues, antes, tamano);
+        }
+
+        request.setAttribute("paginaContratos", pagina);
+        request.setAttribute("listaContratos", pagina.getElementos()); // Guarda la lista en el ámbito de la petición
+        AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/listarContratos.jsp"); // Redirige a la JSP
+    }
+
+    /**
+     * Busca entre los contratos del usuario logueado los que contienen todos los términos de {@code q}
+     * en sus funciones, empresa o empleado, ordenados por relevancia. La página se elige con {@code posicion}
+     * (número de resultados a saltar) y {@code tamano}. Con {@code format=json} responde los resultados con su
+     * puntaje; si no, los muestra en la lista de contratos.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    private void buscarContratos(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
+        String consulta = request.getParameter("q");
+        boolean formatoJson = "json".equalsIgnoreCase(request.getParameter("format"));
+
+        if (consulta == null || consulta.trim().isEmpty()) {
+            if (formatoJson) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Falta el parámetro q con el texto a buscar.");
+            } else {
+                response.sendRedirect(request.getContextPath() + "/contratos");
+            }
+            return;
+        }
 
-        if (action == null) { // Si la URL es solo /contratos (manejo de POST sin sub-ruta explícita)
-            // Simplificación: si el formulario envía un 'actionType' de 'update', se asume actualización.
-            if (request.getParameter("actionType") != null && request.getParameter("actionType").equals("update")) {
-                actualizarContrato(request, response);
+        Integer posicionSolicitada = parsearEntero(request.getParameter("posicion"));
+        Integer tamanoSolicitado = parsearEntero(request.getParameter("tamano"));
+        int tamano = Pagina.normalizarTamano(tamanoSolicitado != null ? tamanoSolicitado : Pagina.TAMANO_POR_DEFECTO);
+        InvertedIndex.Resultados<Contrato> resultados = contratoService.buscarContratos(usuarioLogueado.getUsername(), consulta,
+                posicionSolicitada != null ? posicionSolicitada : 0, tamano);
+        int posicion = resultados.getDesplazamiento();
+        int siguiente = posicion + resultados.getValores().size();
+        boolean haySiguiente = siguiente < resultados.getTotal() && siguiente <= ContratoService.MAXIMO_DESPLAZAMIENTO_BUSQUEDA;
+
+        if (formatoJson) {
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            Writer writer = EscritorRespuesta.abrir(response);
+            JsonWriter json = new JsonWriter(writer);
+            json.inicioObjeto()
+                    .nombre("consulta").valor(consulta)
+                    .nombre("total").valor(resultados.getTotal())
+                    .nombre("posicion").valor(posicion)
+                    .nombre("siguiente");
+            if (haySiguiente) {
+                json.valor(siguiente);
             } else {
-                crearContrato(request, response);
+                json.valorNulo();
+            }
+            json.nombre("resultados").inicioArreglo();
+            for (int i = 0; i < resultados.getValores().size(); i++) {
+                Contrato contrato = resultados.getValores().get(i);
+                json.inicioObjeto()
+                        .nombre("id").valor(contrato.getId())
+                        .nombre("puntaje").valor(resultados.getPuntajes().get(i))
+                        .nombre("fecha_firma").valor(String.valueOf(contrato.getFecha_firma()))
+                        .nombre("fecha_inicio").valor(String.valueOf(contrato.getFecha_inicio()))
+                        .nombre("fecha_fin").valor(String.valueOf(contrato.getFecha_fin()))
+                        .nombre("empresa").valor(contrato.getEmpresa())
+                        .nombre("empleado").valor(contrato.getEmpleado())
+                        .nombre("funciones").valor(contrato.getFunciones())
+                        .nombre("monto").valorCrudo(formatearMonto(contrato.getMonto()))
+                        .nombre("frecuencia_de_pago").valor(contrato.getFrecuencia_de_pago())
+                        .finObjeto();
             }
+            json.finArreglo().finObjeto();
+            writer.flush();
+            return;
+        }
+
+        // Los cursores de la lista son posiciones en el ranking, no IDs
+        String cursorSiguiente = haySiguiente ? String.valueOf(siguiente) : null;
+        String cursorAnterior = posicion > 0 ? String.valueOf(Math.max(0, posicion - tamano)) : null;
+        Pagina<Contrato> pagina = new Pagina<>(new ArrayList<>(resultados.getValores()), tamano, cursorSiguiente, cursorAnterior);
+        request.setAttribute("paginaContratos", pagina);
+        request.setAttribute("listaContratos", pagina.getElementos());
+        request.setAttribute("totalBusqueda", resultados.getTotal());
+        AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/listarContratos.jsp");
+    }
+
+    /**
+     * Responde en JSON los valores ya usados de empresa o empleado que empiezan con {@code q}, con su número
+     * de contratos, para el autocompletado de los formularios. Se resuelve en memoria, sin consultar la base de datos.
+     *
+     * @param request  Petición HTTP (parámetros {@code campo}, {@code q} y opcionalmente {@code limite}).
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void sugerirValores(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ContratoService.CampoSugerencia campo;
+        try {
+            campo = ContratoService.CampoSugerencia.valueOf(String.valueOf(request.getParameter("campo")).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Campo de sugerencias no soportado: use empresa o empleado.");
+            return;
+        }
+        String prefijo = request.getParameter("q") == null ? "" : request.getParameter("q");
+        Integer limiteSolicitado = parsearEntero(request.getParameter("limite"));
+        int limite = Math.min(Math.max(limiteSolicitado != null ? limiteSolicitado : TAMANO_SUGERENCIAS, 1), MAXIMO_SUGERENCIAS);
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        Writer writer = EscritorRespuesta.abrir(response);
+        JsonWriter json = new JsonWriter(writer);
+        json.inicioArreglo();
+        for (RadixTrie.Sugerencia sugerencia : contratoService.sugerirValores(campo, prefijo, limite)) {
+            json.inicioObjeto()
+                    .nombre("texto").valor(sugerencia.getTexto())
+                    .nombre("cantidad").valor(sugerencia.getCantidad())
+                    .finObjeto();
+        }
+        json.finArreglo();
+        writer.flush();
+    }
+
+    /**
+     * Exporta todos los contratos del usuario logueado en formato CSV o JSON.
+     * Las filas se escriben directamente en la respuesta a medida que se leen de la base de datos,
+     * por lo que la memoria usada es constante sin importar cuántos contratos se exporten.
+     *
+     * @param request  Petición HTTP (parámetro opcional {@code format}: "csv" por defecto o "json").
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void exportarContratos(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
+        String formato = request.getParameter("format") == null ? "csv" : request.getParameter("format").toLowerCase();
+
+        if (!formato.equals("csv") && !formato.equals("json")) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Formato de exportación no soportado: use csv o json.");
+            return;
+        }
+
+        response.setCharacterEncoding("UTF-8");
+        response.setBufferSize(TAMANO_BUFFER_EXPORTACION);
+        response.setHeader("Content-Disposition", "attachment; filename=\"contratos." + formato + "\"");
+        response.setContentType(formato.equals("csv") ? "text/csv" : "application/json");
+        // Sobre el stream: si el cliente se desconecta, la escritura falla y se deja de recorrer la tabla
+        Writer writer = EscritorRespuesta.abrir(response);
+        boolean completo;
+
+        if (formato.equals("csv")) {
+            CsvWriter csv = new CsvWriter(writer);
+            csv.campo("id").campo("fecha_firma").campo("fecha_inicio").campo("fecha_fin").campo("empresa").campo("empleado")
+                    .campo("funciones").campo("monto").campo("frecuencia_de_pago").campo("usuario_username").finFila();
+            completo = contratoService.exportarContratosPorUsuario(usuarioLogueado.getUsername(), contrato -> {
+                csv.campo(contrato.getId())
+                        .campo(String.valueOf(contrato.getFecha_firma()))
+                        .campo(String.valueOf(contrato.getFecha_inicio()))
+                        .campo(String.valueOf(contrato.getFecha_fin()))
+                        .campo(contrato.getEmpresa())
+                        .campo(contrato.getEmpleado())
+                        .campo(contrato.getFunciones())
+                        .campo(formatearMonto(contrato.getMonto()))
+                        .campo(contrato.getFrecuencia_de_pago())
+                        .campo(contrato.getUsuarioUsername())
+                        .finFila();
+            });
         } else {
-            switch (action) {
-                case "/create": // /contratos/create
-                    crearContrato(request, response);
-                    break;
-                case "/update": // /contratos/update
-                    actualizarContrato(request, response);
-                    break;
-                default: // Cualquier otra sub-ruta no reconocida para POST
-                    response.sendError(HttpServletResponse.SC_NOT_FOUND, "Acción POST no encontrada.");
-                    break;
+            JsonWriter json = new JsonWriter(writer);
+            json.inicioArreglo();
+            completo = contratoService.exportarContratosPorUsuario(usuarioLogueado.getUsername(), contrato -> {
+                json.inicioObjeto()
+                        .nombre("id").valor(contrato.getId())
+                        .nombre("fecha_firma").valor(String.valueOf(contrato.getFecha_firma()))
+                        .nombre("fecha_inicio").valor(String.valueOf(contrato.getFecha_inicio()))
+                        .nombre("fecha_fin").valor(String.valueOf(contrato.getFecha_fin()))
+                        .nombre("empresa").valor(contrato.getEmpresa())
+                        .nombre("empleado").valor(contrato.getEmpleado())
+                        .nombre("funciones").valor(contrato.getFunciones())
+                        .nombre("monto").valorCrudo(formatearMonto(contrato.getMonto()))
+                        .nombre("frecuencia_de_pago").valor(contrato.getFrecuencia_de_pago())
+                        .nombre("usuario_username").valor(contrato.getUsuarioUsername())
+                        .finObjeto();
+            });
+            json.finArreglo();
+        }
+
+        if (!completo) {
+            // Los encabezados ya fueron enviados; solo se puede cortar la descarga para que el cliente la detecte incompleta.
+            System.err.println("Exportación de contratos incompleta para el usuario " + usuarioLogueado.getUsername());
+            throw new IOException("Error de base de datos durante la exportación.");
+        }
+        writer.flush();
+    }
+
+    /**
+     * Inicia la eliminación en segundo plano de contratos del usuario logueado: los de la lista {@code ids}
+     * (separados por comas, o el parámetro repetido) o los que cumplan los filtros {@code empresa} y/o
+     * {@code venceAntesDe} (fecha de fin anterior a AAAA-MM-DD). Se exige al menos un criterio, para no eliminar
+     * todos los contratos por error. Responde 202 con la operación; su avance se consulta en {@code /contratos/operacion}.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void eliminarContratosMasivo(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
+        FiltroContratos filtro;
+        try {
+            filtro = leerFiltroMasivo(request, usuarioLogueado.getUsername());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (filtro == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Indique los contratos a eliminar: ids, empresa o venceAntesDe.");
+            return;
+        }
+        responderOperacion(request, response, HttpServletResponse.SC_ACCEPTED,
+                contratoService.eliminarContratos(filtro, usuarioLogueado.getUsername()));
+    }
+
+    /**
+     * Inicia la reasignación en segundo plano de los contratos del usuario {@code origen} al usuario {@code destino},
+     * por ejemplo cuando un empleado deja la empresa. Acepta los mismos filtros opcionales que la eliminación masiva.
+     * La aplicación no tiene roles de administrador, así que el usuario de origen debe ser el usuario logueado: cada
+     * usuario solo puede ceder sus propios contratos.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void reasignarContratos(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
+        String origen = request.getParameter("origen");
+        String destino = request.getParameter("destino");
+        if (origen == null || origen.isEmpty() || destino == null || destino.isEmpty() || origen.equals(destino)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Indique un usuario de origen y uno de destino distintos.");
+            return;
+        }
+        if (!origen.equals(usuarioLogueado.getUsername())) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Solo puede reasignar sus propios contratos.");
+            return;
+        }
+        if (usuarioService.obtenerUsuarioPorUsername(destino) == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "El usuario de destino no existe: " + destino);
+            return;
+        }
+        FiltroContratos filtro;
+        try {
+            filtro = leerFiltroMasivo(request, origen);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        if (filtro == null) {
+            filtro = FiltroContratos.porUsuario(origen, null, null); // Todos los contratos del usuario de origen
+        }
+        responderOperacion(request, response, HttpServletResponse.SC_ACCEPTED,
+                contratoService.reasignarContratos(filtro, destino, usuarioLogueado.getUsername()));
+    }
+
+    /**
+     * Devuelve en JSON el avance de una operación masiva iniciada por el usuario logueado.
+     *
+     * @param request  Petición HTTP (parámetro {@code id}).
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void mostrarOperacion(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        OperacionMasiva operacion = buscarOperacion(request, response);
+        if (operacion != null) {
+            responderOperacion(request, response, HttpServletResponse.SC_OK, operacion);
+        }
+    }
+
+    /**
+     * Pide detener una operación masiva iniciada por el usuario logueado. Los lotes ya confirmados se mantienen.
+     *
+     * @param request  Petición HTTP (parámetro {@code id}).
+     * @param response Respuesta HTTP.
+     * @throws IOException Si ocurre un error de E/S.
+     */
+    private void cancelarOperacion(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        OperacionMasiva operacion = buscarOperacion(request, response);
+        if (operacion != null) {
+            operacion.cancelar();
+            responderOperacion(request, response, HttpServletResponse.SC_ACCEPTED, operacion);
+        }
+    }
+
+    /**
+     * Busca la operación del parámetro {@code id}; si no existe o es de otro usuario, responde 404.
+     */
+    private OperacionMasiva buscarOperacion(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
+        Integer id = parsearEntero(request.getParameter("id"));
+        OperacionMasiva operacion = id != null ? ContratoService.obtenerOperacion(id) : null;
+        if (operacion == null || !operacion.getSolicitante().equals(usuarioLogueado.getUsername())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Operación no encontrada.");
+            return null;
+        }
+        return operacion;
+    }
+
+    /**
+     * Lee los criterios de una operación masiva: {@code ids}, o {@code empresa} y/o {@code venceAntesDe}.
+     *
+     * @return El filtro, o {@code null} si la petición no trae ningún criterio.
+     * @throws IllegalArgumentException Si un ID o la fecha no son válidos.
+     */
+    private FiltroContratos leerFiltroMasivo(HttpServletRequest request, String username) {
+        String[] valoresIds = request.getParameterValues("ids");
+        if (valoresIds != null) {
+            List<Integer> ids = new ArrayList<>();
+            for (String valor : valoresIds) {
+                for (String id : valor.split(",")) {
+                    if (!id.trim().isEmpty()) {
+                        Integer numero = parsearEntero(id.trim());
+                        if (numero == null) {
+                            throw new IllegalArgumentException("ID de contrato inválido: " + id.trim());
+                        }
+                        ids.add(numero);
+                    }
+                }
             }
+            if (!ids.isEmpty()) {
+                return FiltroContratos.porIds(username, ids);
+            }
+        }
+        String empresa = request.getParameter("empresa");
+        empresa = empresa == null || empresa.trim().isEmpty() ? null : empresa.trim();
+        String venceAntesDe = request.getParameter("venceAntesDe");
+        Date finAntesDe;
+        try {
+            finAntesDe = parsearFechaSql(venceAntesDe == null || venceAntesDe.isEmpty() ? null : venceAntesDe);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Fecha inválida en venceAntesDe: use el formato AAAA-MM-DD.");
+        }
+        if (empresa == null && finAntesDe == null) {
+            return null;
         }
+        return FiltroContratos.porUsuario(username, empresa, finAntesDe);
+    }
+
+    /**
+     * Escribe el estado de una operación masiva en JSON, con la URL para consultar su avance en {@code Location}.
+     */
+    private void responderOperacion(HttpServletRequest request, HttpServletResponse response, int estado,
+                                    OperacionMasiva operacion) throws IOException {
+        String url = request.getContextPath() + "/contratos/operacion?id=" + operacion.getId();
+        response.setStatus(estado);
+        response.setHeader("Location", url);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        Writer writer = EscritorRespuesta.abrir(response);
+        JsonWriter json = new JsonWriter(writer);
+        json.inicioObjeto()
+                .nombre("id").valor(operacion.getId())
+                .nombre("tipo").valor(operacion.getTipo().name())
+                .nombre("estado").valor(operacion.getEstado().name())
+                .nombre("total").valor(operacion.getTotal())
+                .nombre("procesados").valor(operacion.getProcesados())
+                .nombre("lotes").valor(operacion.getLotes())
+                .nombre("error").valor(operacion.getError())
+                .nombre("progreso").valor(url)
+                .finObjeto();
+        writer.flush();
     }
 
     /**
-     * Recupera los contratos (filtrados por el usuario logueado) y los envía a la JSP de listado.
+     * Muestra el formulario para importar contratos desde un archivo CSV.
      *
      * @param request  Petición HTTP.
      * @param response Respuesta HTTP.
      * @throws ServletException Si ocurre un error del servlet.
      * @throws IOException      Si ocurre un error de E/S.
      */
-    private void listarContratos(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+    private void mostrarFormularioImportar(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        AsyncRequestExecutor.forward(request, response, VISTA_IMPORTAR);
+    }
+
+    /**
+     * Importa contratos desde un archivo CSV subido en el campo {@code archivo}.
+     * El archivo se lee fila a fila; las filas se validan y se envían al servicio en bloques para insertarlas por lotes,
+     * por lo que el archivo nunca se carga completo en memoria. Los contratos quedan asociados al usuario logueado.
+     * La primera fila debe ser el encabezado con los nombres de columna (el mismo formato de la exportación CSV).
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    private void importarContratos(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         HttpSession session = request.getSession(false);
         Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
 
-        List<Contrato> listaContratos;
-        if (usuarioLogueado != null) {
-            // Si hay un usuario logueado, mostrar solo los contratos asociados a ese usuario.
-            listaContratos = contratoService.obtenerContratosPorUsuario(usuarioLogueado.getUsername());
-        } else {
-            // Esto no debería ocurrir si checkAuthentication funciona, pero como fallback, mostrar todos.
-            listaContratos = contratoService.obtenerTodosLosContratos();
+        Part archivo = request.getPart("archivo");
+        if (archivo == null || archivo.getSize() == 0) {
+            request.setAttribute("error", "Debe seleccionar un archivo CSV con contratos.");
+            AsyncRequestExecutor.forward(request, response, VISTA_IMPORTAR);
+            return;
+        }
+
+        ResultadoLote resultado = new ResultadoLote();
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8))) {
+            CsvReader csv = new CsvReader(lector);
+            Map<String, Integer> columnas = indexarColumnas(csv.siguienteFila());
+
+            List<Contrato> bloque = new ArrayList<>(TAMANO_BLOQUE_IMPORTACION);
+            List<Long> lineas = new ArrayList<>(TAMANO_BLOQUE_IMPORTACION); // Línea del CSV de cada contrato del bloque
+            String[] fila;
+            while ((fila = csv.siguienteFila()) != null) {
+                if (fila.length == 1 && fila[0].trim().isEmpty()) {
+                    continue; // Se ignoran las líneas vacías
+                }
+                try {
+                    bloque.add(convertirFilaCsv(fila, columnas, usuarioLogueado.getUsername()));
+                    lineas.add(csv.getLineaFila());
+                } catch (IllegalArgumentException e) {
+                    resultado.agregarError(csv.getLineaFila(), "Formato inválido: " + e.getMessage());
+                }
+                if (bloque.size() == TAMANO_BLOQUE_IMPORTACION) {
+                    importarBloque(bloque, lineas, resultado);
+                }
+            }
+            importarBloque(bloque, lineas, resultado);
+        } catch (IllegalArgumentException | IOException e) {
+            request.setAttribute("error", "No se pudo leer el archivo CSV: " + e.getMessage());
         }
 
-        request.setAttribute("listaContratos", listaContratos); // Guarda la lista en el ámbito de la petición
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/listarContratos.jsp");
-        dispatcher.forward(request, response); // Redirige a la JSP
+        request.setAttribute("resultadoImportacion", resultado);
+        AsyncRequestExecutor.forward(request, response, VISTA_IMPORTAR);
+    }
+
+    /**
+     * Envía un bloque de contratos al servicio y acumula el resultado, traduciendo las posiciones a líneas del CSV.
+     * Al terminar vacía el bloque para reutilizarlo.
+     */
+    private void importarBloque(List<Contrato> bloque, List<Long> lineas, ResultadoLote resultado) {
+        if (bloque.isEmpty()) {
+            return;
+        }
+        ResultadoLote parcial = contratoService.crearContratos(bloque);
+        resultado.acumular(parcial, posicion -> posicion < 0 ? posicion : lineas.get((int) posicion));
+        bloque.clear();
+        lineas.clear();
+    }
+
+    /**
+     * Construye el índice nombre de columna → posición a partir de la fila de encabezado del CSV.
+     *
+     * @param encabezado La primera fila del CSV.
+     * @return El índice de columnas.
+     * @throws IllegalArgumentException Si falta el encabezado o alguna columna obligatoria.
+     */
+    private Map<String, Integer> indexarColumnas(String[] encabezado) {
+        if (encabezado == null) {
+            throw new IllegalArgumentException("el archivo está vacío.");
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.length; i++) {
+            String nombre = encabezado[i].trim().toLowerCase();
+            if (i == 0 && !nombre.isEmpty() && nombre.charAt(0) == 0xFEFF) {
+                nombre = nombre.substring(1); // Marca BOM que agregan algunos editores
+            }
+            columnas.put(nombre, i);
+        }
+        for (String obligatoria : new String[]{"fecha_firma", "fecha_inicio", "fecha_fin", "empresa", "empleado", "monto", "frecuencia_de_pago"}) {
+            if (!columnas.containsKey(obligatoria)) {
+                throw new IllegalArgumentException("falta la columna obligatoria '" + obligatoria + "' en el encabezado.");
+            }
+        }
+        return columnas;
+    }
+
+    /**
+     * Convierte una fila del CSV en un contrato del usuario indicado.
+     *
+     * @throws IllegalArgumentException Si falta un valor obligatorio o una fecha o el monto no tienen un formato válido.
+     */
+    private Contrato convertirFilaCsv(String[] fila, Map<String, Integer> columnas, String username) {
+        return new Contrato(
+                Date.valueOf(valorObligatorio(fila, columnas, "fecha_firma")),
+                Date.valueOf(valorObligatorio(fila, columnas, "fecha_inicio")),
+                Date.valueOf(valorObligatorio(fila, columnas, "fecha_fin")),
+                valorObligatorio(fila, columnas, "empresa"),
+                valorObligatorio(fila, columnas, "empleado"),
+                valorColumna(fila, columnas, "funciones"),
+                Double.parseDouble(valorObligatorio(fila, columnas, "monto")),
+                valorObligatorio(fila, columnas, "frecuencia_de_pago"),
+                username);
+    }
+
+    private String valorObligatorio(String[] fila, Map<String, Integer> columnas, String nombre) {
+        String valor = valorColumna(fila, columnas, nombre);
+        if (valor == null) {
+            throw new IllegalArgumentException("falta el valor de la columna '" + nombre + "'.");
+        }
+        return valor;
+    }
+
+    private String valorColumna(String[] fila, Map<String, Integer> columnas, String nombre) {
+        Integer indice = columnas.get(nombre);
+        if (indice == null || indice >= fila.length) {
+            return null;
+        }
+        return fila[indice].trim();
+    }
+
+    /**
+     * Formatea un monto con dos decimales y sin notación científica.
+     *
+     * @param monto El monto a formatear.
+     * @return El monto como texto, por ejemplo "5000.00".
+     */
+    private String formatearMonto(double monto) {
+        return BigDecimal.valueOf(monto).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    /**
+     * Convierte un parámetro de la petición a entero.
+     *
+     * @param valor El valor del parámetro.
+     * @return El entero, o {@code null} si el parámetro no existe o no es un número válido.
+     */
+    private Integer parsearEntero(String valor) {
+        if (valor == null || valor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Convierte un parámetro de fecha con formato AAAA-MM-DD.
+     *
+     * @param valor El valor del parámetro.
+     * @return La fecha, o {@code null} si el parámetro no existe.
+     * @throws DateTimeParseException Si el parámetro no es una fecha válida.
+     */
+    private LocalDate parsearFecha(String valor) {
+        return valor == null || valor.isEmpty() ? null : LocalDate.parse(valor);
+    }
+
+    /**
+     * Convierte un parámetro de fecha con formato AAAA-MM-DD a {@link Date}.
+     *
+     * @param valor El valor del parámetro.
+     * @return La fecha, o {@code null} si el parámetro no existe.
+     * @throws IllegalArgumentException Si el parámetro no es una fecha válida.
+     */
+    private Date parsearFechaSql(String valor) {
+        return valor == null ? null : Date.valueOf(valor);
     }
 
     /**
@@ -169,8 +877,7 @@ public class ContratoServlet extends HttpServlet {
      * @throws IOException      Si ocurre un error de E/S.
      */
     private void mostrarFormularioCrear(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/crearContrato.jsp");
-        dispatcher.forward(request, response);
+        AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/crearContrato.jsp");
     }
 
     /**
@@ -188,8 +895,8 @@ public class ContratoServlet extends HttpServlet {
 
             if (contratoExistente != null) {
                 request.setAttribute("contrato", contratoExistente); // Guarda el contrato en el ámbito de la petición
-                RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/editarContrato.jsp");
-                dispatcher.forward(request, response);
+                request.setAttribute("huellaContrato", ContratoService.huella(contratoExistente)); // Para detectar envíos sin cambios
+                AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/editarContrato.jsp");
             } else {
                 // Si el contrato no se encuentra, redirige a la lista con un mensaje de error.
                 response.sendRedirect(request.getContextPath() + "/contratos?status=error&message=ContratoNoEncontrado");
@@ -240,19 +947,20 @@ public class ContratoServlet extends HttpServlet {
                 // Si hubo un error, vuelve al formulario de creación con un mensaje de error.
                 request.setAttribute("error", "Error al crear contrato. Verifique los datos.");
                 request.setAttribute("contrato", nuevoContrato); // Para mantener los datos en el formulario
-                RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/crearContrato.jsp");
-                dispatcher.forward(request, response);
+                AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/crearContrato.jsp");
             }
         } catch (IllegalArgumentException e) {
             // Captura errores de formato de fecha o número
             request.setAttribute("error", "Error en el formato de la fecha o monto. Asegúrese de que los datos sean correctos. " + e.getMessage());
-            RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/crearContrato.jsp");
-            dispatcher.forward(request, response);
+            AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/crearContrato.jsp");
         }
     }
 
     /**
      * Procesa la actualización de un contrato existente a partir de los datos del formulario.
+     * La actualización es parcial: los campos que no vienen en la petición conservan su valor guardado,
+     * y solo se escriben las columnas que cambiaron. Si el formulario trae todos los campos y coinciden con la huella
+     * del contrato que cargó ({@code huella}), no se consulta la base de datos.
      *
      * @param request  Petición HTTP.
      * @param response Respuesta HTTP.
@@ -269,20 +977,59 @@ public class ContratoServlet extends HttpServlet {
         }
 
         try {
-            // Obtiene y convierte los parámetros del formulario
+            // Obtiene y convierte los parámetros del formulario; los ausentes quedan en null
             int id = Integer.parseInt(request.getParameter("id"));
-            Date fechaFirma = Date.valueOf(request.getParameter("fecha_firma"));
-            Date fechaInicio = Date.valueOf(request.getParameter("fecha_inicio"));
-            Date fechaFin = Date.valueOf(request.getParameter("fecha_fin"));
+            Date fechaFirma = parsearFechaSql(request.getParameter("fecha_firma"));
+            Date fechaInicio = parsearFechaSql(request.getParameter("fecha_inicio"));
+            Date fechaFin = parsearFechaSql(request.getParameter("fecha_fin"));
             String empresa = request.getParameter("empresa");
             String empleado = request.getParameter("empleado");
             String funciones = request.getParameter("funciones");
-            double monto = Double.parseDouble(request.getParameter("monto"));
+            String montoParam = request.getParameter("monto");
+            Double monto = montoParam != null ? Double.valueOf(montoParam) : null;
             String frecuenciaDePago = request.getParameter("frecuencia_de_pago");
 
-            // Crea un objeto Contrato con los datos actualizados
-            Contrato contratoAActualizar = new Contrato(id, fechaFirma, fechaInicio, fechaFin, empresa, empleado, funciones, monto, frecuenciaDePago, usuarioLogueado.getUsername());
-            boolean actualizado = contratoService.actualizarContrato(contratoAActualizar); // Intenta actualizar el contrato
+            // Formulario enviado con los mismos datos que tenía al cargarse: no hay nada que leer ni escribir
+            String huella = request.getParameter("huella");
+            if (huella != null && fechaFirma != null && fechaInicio != null && fechaFin != null && empresa != null
+                    && empleado != null && funciones != null && monto != null && frecuenciaDePago != null) {
+                Contrato enviado = new Contrato(id, fechaFirma, fechaInicio, fechaFin, empresa, empleado, funciones,
+                        monto, frecuenciaDePago, usuarioLogueado.getUsername());
+                if (huella.equals(ContratoService.huella(enviado))) {
+                    response.sendRedirect(request.getContextPath() + "/contratos?status=success&message=ContratoActualizado");
+                    return;
+                }
+            }
+
+            // Cambios sobre la versión guardada del contrato, que sigue asociado al usuario logueado
+            Consumer<Contrato> cambios = contrato -> {
+                if (fechaFirma != null) {
+                    contrato.setFecha_firma(fechaFirma);
+                }
+                if (fechaInicio != null) {
+                    contrato.setFecha_inicio(fechaInicio);
+                }
+                if (fechaFin != null) {
+                    contrato.setFecha_fin(fechaFin);
+                }
+                if (empresa != null) {
+                    contrato.setEmpresa(empresa);
+                }
+                if (empleado != null) {
+                    contrato.setEmpleado(empleado);
+                }
+                if (funciones != null) {
+                    contrato.setFunciones(funciones);
+                }
+                if (monto != null) {
+                    contrato.setMonto(monto);
+                }
+                if (frecuenciaDePago != null) {
+                    contrato.setFrecuencia_de_pago(frecuenciaDePago);
+                }
+                contrato.setUsuarioUsername(usuarioLogueado.getUsername());
+            };
+            boolean actualizado = contratoService.actualizarContrato(id, cambios); // Intenta actualizar el contrato
 
             if (actualizado) {
                 // Si se actualizó exitosamente, redirige a la lista con un mensaje de éxito.
@@ -290,18 +1037,20 @@ public class ContratoServlet extends HttpServlet {
             } else {
                 // Si hubo un error, vuelve al formulario de edición con un mensaje de error.
                 request.setAttribute("error", "Error al actualizar contrato. Verifique los datos.");
-                request.setAttribute("contrato", contratoAActualizar); // Para mantener los datos en el formulario
-                RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/editarContrato.jsp");
-                dispatcher.forward(request, response);
+                Contrato contratoEnFormulario = contratoService.obtenerContratoPorId(id);
+                if (contratoEnFormulario != null) {
+                    cambios.accept(contratoEnFormulario);
+                }
+                request.setAttribute("contrato", contratoEnFormulario); // Para mantener los datos en el formulario
+                request.setAttribute("huellaContrato", huella); // La del contrato que cargó el formulario, no la de lo editado
+                AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/editarContrato.jsp");
             }
         } catch (NumberFormatException e) {
             request.setAttribute("error", "ID o monto inválido. " + e.getMessage());
-            RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/editarContrato.jsp");
-            dispatcher.forward(request, response);
+            AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/editarContrato.jsp");
         } catch (IllegalArgumentException e) {
             request.setAttribute("error", "Error en el formato de la fecha. " + e.getMessage());
-            RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/contratos/editarContrato.jsp");
-            dispatcher.forward(request, response);
+            AsyncRequestExecutor.forward(request, response, "/views/forms/contratos/editarContrato.jsp");
         }
     }
 
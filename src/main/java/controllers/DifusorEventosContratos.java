@@ -0,0 +1,454 @@
+package main.java.controllers;
+
+import main.java.models.entities.Contrato;
+import main.java.models.services.ContratoCambioListener;
+import main.java.utils.AnilloMpsc;
+import main.java.utils.AppConfig;
+import main.java.utils.JsonWriter;
+import main.java.utils.MetricsRegistry;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envía a las páginas de listado abiertas, con Server-Sent Events ({@code GET /contratos/eventos}), los cambios de
+ * los contratos de su usuario: así la lista se actualiza sola en lugar de recargarse para ver los cambios de otros.
+ * <p>
+ * Como {@link ContratoCambioListener}, recibe los cambios ya confirmados en el hilo que los hizo. Cada evento se
+ * convierte una sola vez a texto SSE y se deja en el {@link AnilloMpsc} de cada suscriptor del usuario dueño del
+ * contrato, de {@code sgc.sse.bufferEventos} eventos; el hilo que hizo el cambio nunca escribe en un socket ni espera.
+ * Un hilo propio escribe los eventos con la E/S no bloqueante del contenedor ({@link WriteListener}): si el socket
+ * de un cliente no admite más datos, se sigue con los demás y el contenedor avisa cuando puede continuar. Un cliente
+ * que no lee al ritmo de los cambios llena su anillo y se desconecta ({@code sgc_sse_clients_evicted_total}); el
+ * navegador se reconecta solo y, como perdió eventos, la página vuelve a cargar la lista.
+ * <p>
+ * Cada {@code sgc.sse.heartbeatMs} se envía un comentario a todos los clientes, para que los proxies no corten la
+ * conexión por inactividad y para detectar los clientes que ya se fueron. Cada conexión dura como máximo
+ * {@code sgc.sse.maxConexionMs}; al cerrarla se envía el evento {@code fin} y el navegador abre una nueva, en la que
+ * se vuelve a verificar la sesión. Se admiten hasta {@code sgc.sse.maxClientes} conexiones a la vez.
+ * Se desactiva con {@code sgc.sse.enabled=false}.
+ */
+public final class DifusorEventosContratos implements ContratoCambioListener {
+
+    private static final boolean HABILITADO = AppConfig.getBoolean("sgc.sse.enabled", true);
+    private static final int BUFFER_EVENTOS = AppConfig.getInt("sgc.sse.bufferEventos", 64);
+    private static final int MAXIMO_CLIENTES = AppConfig.getInt("sgc.sse.maxClientes", 1_000);
+    private static final long LATIDO_MS = AppConfig.getLong("sgc.sse.heartbeatMs", 20_000);
+    private static final long DURACION_MAXIMA_MS = AppConfig.getLong("sgc.sse.maxConexionMs", 30 * 60_000);
+    private static final long REINTENTO_MS = AppConfig.getLong("sgc.sse.retryMs", 5_000);
+
+    private static final byte[] LATIDO = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIN = "event: fin\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final DifusorEventosContratos INSTANCIA = new DifusorEventosContratos();
+
+    private static final LongAdder EVENTOS = MetricsRegistry.contador("sgc_sse_events_total",
+            "Eventos de contratos entregados a los clientes conectados por SSE.");
+    private static final LongAdder DESALOJADOS = MetricsRegistry.contador("sgc_sse_clients_evicted_total",
+            "Clientes SSE desconectados por no leer los eventos a tiempo.");
+    private static final LongAdder RECHAZADOS = MetricsRegistry.contador("sgc_sse_clients_rejected_total",
+            "Conexiones SSE rechazadas por superar sgc.sse.maxClientes.");
+
+    static {
+        MetricsRegistry.gauge("sgc_sse_clients", "Clientes conectados por SSE a los eventos de contratos.",
+                () -> INSTANCIA.conectados.get());
+    }
+
+    // Suscriptores por username del usuario dueño de los contratos
+    private final ConcurrentHashMap<String, Set<Cliente>> suscriptores = new ConcurrentHashMap<>();
+    private final AtomicInteger conectados = new AtomicInteger();
+    private volatile ScheduledThreadPoolExecutor ejecutor;
+
+    private DifusorEventosContratos() {
+    }
+
+    public static DifusorEventosContratos getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Inicia el hilo de escritura y los latidos. Sin efecto si ya está iniciado o si los eventos están desactivados.
+     */
+    public synchronized void iniciar() {
+        if (!HABILITADO || ejecutor != null) {
+            return;
+        }
+        ScheduledThreadPoolExecutor nuevo = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread hilo = new Thread(r, "sgc-eventos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        nuevo.scheduleWithFixedDelay(this::latir, LATIDO_MS, LATIDO_MS, TimeUnit.MILLISECONDS);
+        ejecutor = nuevo;
+    }
+
+    /**
+     * Cierra todas las conexiones y detiene el hilo de escritura. Se llama al detener la aplicación.
+     */
+    public synchronized void detener() {
+        if (ejecutor == null) {
+            return;
+        }
+        for (Set<Cliente> clientes : suscriptores.values()) {
+            for (Cliente cliente : clientes) {
+                cliente.cerrar();
+            }
+        }
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ejecutor = null;
+    }
+
+    /**
+     * Atiende {@code GET /contratos/eventos}: deja la petición abierta en modo asíncrono y le envía los cambios de
+     * los contratos del usuario. Responde 404 si los eventos están desactivados y 503 si hay demasiados clientes.
+     *
+     * @param request  Petición HTTP (debe admitir modo asíncrono).
+     * @param response Respuesta HTTP.
+     * @param username Usuario con sesión iniciada; solo recibe los cambios de sus contratos.
+     * @throws IOException Si falla el envío de un error.
+     */
+    public void suscribir(HttpServletRequest request, HttpServletResponse response, String username) throws IOException {
+        if (ejecutor == null || !request.isAsyncSupported()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Eventos de contratos no disponibles.");
+            return;
+        }
+        if (conectados.incrementAndGet() > MAXIMO_CLIENTES) {
+            conectados.decrementAndGet();
+            RECHAZADOS.increment();
+            response.setHeader("Retry-After", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(REINTENTO_MS) + 1));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Demasiadas conexiones de eventos.");
+            return;
+        }
+
+        // El tipo se fija antes de pedir el stream: así la compresión deja pasar la respuesta sin tocarla
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no"); // Que un proxy nginx no retenga los eventos
+
+        AsyncContext contexto;
+        ServletOutputStream salida;
+        try {
+            contexto = request.startAsync();
+            salida = response.getOutputStream();
+        } catch (IOException | RuntimeException e) {
+            conectados.decrementAndGet();
+            throw e;
+        }
+        contexto.setTimeout(0); // La duración de la conexión la controla el latido
+        Cliente cliente = new Cliente(contexto, salida, username);
+        contexto.addListener(cliente);
+        suscriptores.compute(username, (clave, clientes) -> {
+            Set<Cliente> conjunto = clientes != null ? clientes : ConcurrentHashMap.newKeySet();
+            conjunto.add(cliente);
+            return conjunto;
+        });
+        cliente.enviar(("retry: " + REINTENTO_MS + "\n\n").getBytes(StandardCharsets.UTF_8));
+        // El contenedor llama a onWritePossible cuando se puede escribir el primer evento
+        cliente.salida.setWriteListener(cliente);
+    }
+
+    @Override
+    public void contratoCreado(Contrato contrato) {
+        publicar(contrato.getUsuarioUsername(), "creado", contrato);
+    }
+
+    @Override
+    public void contratoActualizado(Contrato anterior, Contrato nuevo) {
+        String dueno = nuevo.getUsuarioUsername();
+        if (dueno != null && dueno.equals(anterior.getUsuarioUsername())) {
+            publicar(dueno, "actualizado", nuevo);
+        } else {
+            // Reasignado: sale de la lista del dueño anterior y entra en la del nuevo
+            publicar(anterior.getUsuarioUsername(), "eliminado", anterior);
+            publicar(dueno, "creado", nuevo);
+        }
+    }
+
+    @Override
+    public void contratoEliminado(Contrato eliminado) {
+        publicar(eliminado.getUsuarioUsername(), "eliminado", eliminado);
+    }
+
+    /**
+     * Deja el evento en el anillo de cada suscriptor del usuario. Solo se convierte a texto si hay alguno.
+     */
+    private void publicar(String username, String tipo, Contrato contrato) {
+        Set<Cliente> clientes = username != null ? suscriptores.get(username) : null;
+        if (clientes == null || clientes.isEmpty()) {
+            return;
+        }
+        byte[] evento;
+        try {
+            evento = formatear(tipo, contrato);
+        } catch (IOException e) {
+            System.err.println("No se pudo preparar el evento de contrato " + contrato.getId() + ": " + e.getMessage());
+            return;
+        }
+        for (Cliente cliente : clientes) {
+            if (!cliente.enviar(evento)) {
+                DESALOJADOS.increment();
+                cliente.cerrar();
+            }
+        }
+    }
+
+    /**
+     * Formato SSE: {@code event: tipo} y {@code data:} con el contrato en JSON (solo el ID si se eliminó).
+     */
+    private static byte[] formatear(String tipo, Contrato contrato) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        Writer texto = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        texto.write("event: ");
+        texto.write(tipo);
+        texto.write("\ndata: ");
+        // JsonWriter escapa los saltos de línea, así que el JSON ocupa una sola línea "data:"
+        JsonWriter json = new JsonWriter(texto);
+        json.inicioObjeto().nombre("id").valor(contrato.getId());
+        if (!tipo.equals("eliminado")) {
+            json.nombre("fecha_firma").valor(textoFecha(contrato.getFecha_firma()))
+                    .nombre("fecha_inicio").valor(textoFecha(contrato.getFecha_inicio()))
+                    .nombre("fecha_fin").valor(textoFecha(contrato.getFecha_fin()))
+                    .nombre("empresa").valor(contrato.getEmpresa())
+                    .nombre("empleado").valor(contrato.getEmpleado())
+                    .nombre("funciones").valor(contrato.getFunciones())
+                    .nombre("monto").valorCrudo(BigDecimal.valueOf(contrato.getMonto()).setScale(2, RoundingMode.HALF_UP).toPlainString())
+                    .nombre("frecuencia_de_pago").valor(contrato.getFrecuencia_de_pago())
+                    .nombre("usuario_username").valor(contrato.getUsuarioUsername());
+        }
+        json.finObjeto();
+        json.flush();
+        texto.write("\n\n");
+        texto.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String textoFecha(Object fecha) {
+        return fecha != null ? fecha.toString() : null;
+    }
+
+    /**
+     * Envía el latido a todos los clientes y cierra las conexiones que superaron su duración máxima.
+     */
+    private void latir() {
+        long ahora = System.currentTimeMillis();
+        for (Set<Cliente> clientes : suscriptores.values()) {
+            for (Cliente cliente : clientes) {
+                if (ahora - cliente.inicio >= DURACION_MAXIMA_MS) {
+                    cliente.terminar();
+                } else if (!cliente.enviar(LATIDO)) {
+                    DESALOJADOS.increment();
+                    cliente.cerrar();
+                }
+            }
+        }
+    }
+
+    private void quitar(Cliente cliente) {
+        suscriptores.computeIfPresent(cliente.username, (clave, clientes) -> {
+            clientes.remove(cliente);
+            return clientes.isEmpty() ? null : clientes;
+        });
+    }
+
+    /**
+     * Una conexión SSE. Los eventos se escriben en el hilo del difusor o en el del contenedor que llama a
+     * {@link #onWritePossible()}, nunca en dos a la vez.
+     */
+    private final class Cliente implements WriteListener, AsyncListener {
+        private final AsyncContext contexto;
+        private final ServletOutputStream salida;
+        private final String username;
+        private final long inicio = System.currentTimeMillis();
+        private final AnilloMpsc<byte[]> pendientes = new AnilloMpsc<>(BUFFER_EVENTOS);
+        private final AtomicBoolean programado = new AtomicBoolean(); // Hay una escritura pendiente en el ejecutor
+        private final AtomicBoolean escribiendo = new AtomicBoolean(); // Un hilo está escribiendo
+        private final AtomicBoolean cerrado = new AtomicBoolean();
+        private volatile boolean terminarAlVaciar;
+        private volatile boolean esperandoSocket; // isReady() dio false: el contenedor llamará a onWritePossible
+        private boolean completado;
+        private boolean sinFlush;
+
+        private Cliente(AsyncContext contexto, ServletOutputStream salida, String username) {
+            this.contexto = contexto;
+            this.salida = salida;
+            this.username = username;
+        }
+
+        /**
+         * Deja un evento para escribir, sin bloquear.
+         *
+         * @return {@code false} si el anillo está lleno: el cliente no lee a tiempo.
+         */
+        boolean enviar(byte[] evento) {
+            if (cerrado.get()) {
+                return true;
+            }
+            if (!pendientes.ofrecer(evento)) {
+                return false;
+            }
+            programar();
+            return true;
+        }
+
+        /**
+         * Envía el evento {@code fin} y completa la respuesta después de escribir lo pendiente.
+         */
+        void terminar() {
+            if (terminarAlVaciar) {
+                return;
+            }
+            terminarAlVaciar = true;
+            if (!enviar(FIN)) {
+                cerrar();
+            }
+        }
+
+        /**
+         * Cierra la conexión sin escribir lo pendiente.
+         */
+        void cerrar() {
+            if (cerrado.compareAndSet(false, true)) {
+                quitar(this);
+                conectados.decrementAndGet();
+                programar(); // El hilo de escritura completa la respuesta
+            }
+        }
+
+        private void programar() {
+            ScheduledThreadPoolExecutor actual = ejecutor;
+            if (actual == null || !programado.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                actual.execute(() -> {
+                    programado.set(false);
+                    escribir();
+                });
+            } catch (RejectedExecutionException e) {
+                programado.set(false);
+                escribir(); // El difusor se está deteniendo
+            }
+        }
+
+        /**
+         * Escribe los eventos pendientes mientras el socket los acepte. Si otro hilo está escribiendo, él se encarga.
+         */
+        private void escribir() {
+            while (escribiendo.compareAndSet(false, true)) {
+                try {
+                    escribirPendientes();
+                } catch (IOException | RuntimeException e) {
+                    cerrar(); // El cliente se desconectó
+                    completar();
+                } finally {
+                    escribiendo.set(false);
+                }
+                // Un evento, un cierre o un aviso del contenedor que llegó mientras se escribía, sin hilo que lo atienda
+                boolean cierrePendiente = cerrado.get() && !completado;
+                boolean hayQueEscribir = pendientes.getTamano() > 0 || sinFlush || (terminarAlVaciar && !completado);
+                if (!cierrePendiente && (esperandoSocket || !hayQueEscribir)) {
+                    return;
+                }
+            }
+        }
+
+        private void escribirPendientes() throws IOException {
+            if (completado) {
+                return;
+            }
+            if (cerrado.get()) {
+                completar();
+                return;
+            }
+            esperandoSocket = false;
+            while (salida.isReady()) {
+                byte[] evento = pendientes.tomar();
+                if (evento == null) {
+                    if (sinFlush) {
+                        sinFlush = false;
+                        salida.flush();
+                        continue;
+                    }
+                    if (terminarAlVaciar) {
+                        cerrar();
+                        completar();
+                    }
+                    return;
+                }
+                salida.write(evento);
+                sinFlush = true;
+                if (evento != LATIDO && evento != FIN) {
+                    EVENTOS.increment();
+                }
+            }
+            esperandoSocket = true;
+        }
+
+        private void completar() {
+            if (!completado) {
+                completado = true;
+                try {
+                    contexto.complete();
+                } catch (IllegalStateException e) {
+                    // El contenedor ya terminó la petición (el cliente se fue)
+                }
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            esperandoSocket = false; // Antes de competir por la escritura, para que otro hilo no pierda el aviso
+            escribir();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            cerrar();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            cerrar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            cerrar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            cerrar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
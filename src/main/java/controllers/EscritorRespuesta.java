@@ -0,0 +1,37 @@
+package main.java.controllers;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Writer para el cuerpo de las respuestas que los servlets generan directamente (JSON, CSV).
+ * <p>
+ * Escribe en {@code getOutputStream()} y no en {@code getWriter()}: el {@link java.io.PrintWriter} de la respuesta
+ * no lanza excepciones, así que con él una exportación seguiría recorriendo la base de datos para un cliente que ya
+ * se desconectó, o una acción asíncrona seguiría trabajando después de responder 503 por tiempo agotado. Con este
+ * writer, esos casos llegan a la acción como {@link IOException} a más tardar al llenarse el buffer.
+ */
+final class EscritorRespuesta {
+
+    private static final int TAMANO_BUFFER = 8 * 1024;
+
+    private EscritorRespuesta() {
+    }
+
+    /**
+     * Abre el writer con la codificación ya configurada en la respuesta. Debe cerrarse o vaciarse con
+     * {@code flush()} al terminar de escribir.
+     *
+     * @param response Respuesta HTTP, con el tipo de contenido y la codificación ya asignados.
+     * @return El writer.
+     * @throws IOException Si no se puede obtener el stream de la respuesta.
+     */
+    static Writer abrir(HttpServletResponse response) throws IOException {
+        Charset codificacion = Charset.forName(response.getCharacterEncoding());
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), codificacion), TAMANO_BUFFER);
+    }
+}
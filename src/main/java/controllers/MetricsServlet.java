@@ -0,0 +1,71 @@
+package main.java.controllers;
+
+import main.java.models.entities.Usuario;
+import main.java.utils.AppConfig;
+import main.java.utils.MetricsRegistry;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Expone las métricas de la aplicación en el formato de texto de Prometheus.
+ * <p>
+ * Requiere autenticación: un usuario con sesión iniciada, o la cabecera {@code Authorization: Bearer <token>}
+ * con el token configurado en {@code sgc.metrics.token} (para que Prometheus pueda leerlas sin sesión).
+ * Si el token no está configurado, solo se aceptan usuarios con sesión.
+ */
+@WebServlet(urlPatterns = {"/metrics"})
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final String TOKEN = AppConfig.getString("sgc.metrics.token", null);
+    private static final String PREFIJO_BEARER = "Bearer ";
+
+    /**
+     * Devuelve todas las métricas registradas.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!estaAutorizado(request)) {
+            response.setHeader("WWW-Authenticate", "Bearer realm=\"sgc-metrics\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Se requiere autenticación para ver las métricas.");
+            return;
+        }
+
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter out = response.getWriter();
+        MetricsRegistry.escribirPrometheus(out);
+    }
+
+    /**
+     * Comprueba si la petición trae un token válido o pertenece a un usuario con sesión iniciada.
+     */
+    private boolean estaAutorizado(HttpServletRequest request) {
+        String autorizacion = request.getHeader("Authorization");
+        if (TOKEN != null && autorizacion != null && autorizacion.startsWith(PREFIJO_BEARER)) {
+            byte[] recibido = autorizacion.substring(PREFIJO_BEARER.length()).trim().getBytes(StandardCharsets.UTF_8);
+            // Comparación en tiempo constante para no filtrar el token por diferencias de tiempo
+            if (MessageDigest.isEqual(recibido, TOKEN.getBytes(StandardCharsets.UTF_8))) {
+                return true;
+            }
+        }
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (session != null) ? (Usuario) session.getAttribute("usuarioLogueado") : null;
+        return usuarioLogueado != null;
+    }
+}
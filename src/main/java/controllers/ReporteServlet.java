@@ -0,0 +1,252 @@
+package main.java.controllers;
+
+import main.java.models.analytics.Agregado;
+import main.java.models.analytics.ContratoSnapshot;
+import main.java.models.entities.Usuario;
+import main.java.models.services.ReporteService;
+import main.java.utils.JsonWriter;
+import main.java.utils.RequestMetrics;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Servlet de reportes de contratos.
+ * Mapea /reportes (resúmenes por empresa, frecuencia de pago y usuario, y contratos vigentes por mes),
+ * /reportes/analitica (consultas ad hoc en JSON sobre la instantánea en memoria)
+ * y /reportes/reconstruir (POST) para recalcular los resúmenes desde la tabla de contratos.
+ */
+@WebServlet(urlPatterns = {"/reportes", "/reportes/*"}, asyncSupported = true)
+public class ReporteServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    // Latencia y errores por acción, exportados en /metrics
+    private static final RequestMetrics METRICAS_GET = new RequestMetrics("reportes", "GET", "/analitica");
+    private static final RequestMetrics METRICAS_POST = new RequestMetrics("reportes", "POST", "/reconstruir");
+    private static final String VISTA_REPORTES = "/views/forms/reportes/reportes.jsp";
+    // Rango de meses por defecto del reporte de vigencia, relativo al mes actual
+    private static final int MESES_ATRAS_POR_DEFECTO = 11;
+    private static final int MESES_ADELANTE_POR_DEFECTO = 12;
+    private ReporteService reporteService;
+
+    /**
+     * Constructor del servlet. Inicializa el servicio de reportes.
+     */
+    public ReporteServlet() {
+        super();
+        this.reporteService = new ReporteService();
+    }
+
+    /**
+     * Verifica que haya un usuario con sesión iniciada; si no, redirige al login.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @return {@code true} si el usuario está autenticado y puede continuar.
+     * @throws IOException Si ocurre un error de E/S durante la redirección.
+     */
+    private boolean checkAuthentication(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpSession session = request.getSession(false);
+        Usuario usuarioLogueado = (session != null) ? (Usuario) session.getAttribute("usuarioLogueado") : null;
+        if (usuarioLogueado == null) {
+            response.sendRedirect(request.getContextPath() + "/usuarios/login");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Maneja las peticiones HTTP GET: muestra los reportes.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error específico del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!checkAuthentication(request, response)) {
+            return;
+        }
+
+        AsyncRequestExecutor.ejecutar(request, response, this::procesarGet);
+    }
+
+    /**
+     * Maneja las peticiones HTTP POST: /reportes/reconstruir.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error específico del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!checkAuthentication(request, response)) {
+            return;
+        }
+
+        AsyncRequestExecutor.ejecutar(request, response, this::procesarPost);
+    }
+
+    private void procesarGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String action = request.getPathInfo();
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            if ("/analitica".equals(action)) { // /reportes/analitica?campo=&desde=&hasta=&agrupar=
+                consultarAnalitica(request, response);
+            } else {
+                mostrarReportes(request, response);
+            }
+            error = false;
+        } finally {
+            METRICAS_GET.registrar(action, inicio, error);
+        }
+    }
+
+    private void procesarPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String action = request.getPathInfo();
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            if ("/reconstruir".equals(action)) {
+                AsyncRequestExecutor.sinLimiteDeTiempo(request); // Recorre toda la tabla de contratos
+                reconstruirResumenes(request, response);
+            } else {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, "Acción POST no encontrada.");
+            }
+            error = false;
+        } finally {
+            METRICAS_POST.registrar(action, inicio, error);
+        }
+    }
+
+    /**
+     * Carga los cuatro reportes y los envía a la JSP.
+     * Acepta los parámetros opcionales {@code desde} y {@code hasta} (formato yyyy-MM) para el reporte por mes.
+     */
+    private void mostrarReportes(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        YearMonth actual = YearMonth.now();
+        YearMonth desde = parsearMes(request.getParameter("desde"), actual.minusMonths(MESES_ATRAS_POR_DEFECTO));
+        YearMonth hasta = parsearMes(request.getParameter("hasta"), actual.plusMonths(MESES_ADELANTE_POR_DEFECTO));
+        if (desde.isAfter(hasta)) {
+            YearMonth temporal = desde;
+            desde = hasta;
+            hasta = temporal;
+        }
+
+        request.setAttribute("resumenEmpresas", reporteService.obtenerResumenPorEmpresa());
+        request.setAttribute("resumenFrecuencias", reporteService.obtenerResumenPorFrecuencia());
+        request.setAttribute("resumenUsuarios", reporteService.obtenerResumenPorUsuario());
+        request.setAttribute("vigentesPorMes", reporteService.obtenerVigentesPorMes(desde, hasta));
+        request.setAttribute("desde", desde.toString());
+        request.setAttribute("hasta", hasta.toString());
+        AsyncRequestExecutor.forward(request, response, VISTA_REPORTES);
+    }
+
+    /**
+     * Responde en JSON una consulta analítica sobre la instantánea en memoria de contratos.
+     * Parámetros opcionales: {@code campo} (firma, inicio, fin o vigencia; por defecto vigencia),
+     * {@code desde} y {@code hasta} (yyyy-MM-dd) y {@code agrupar} (empresa, frecuencia o usuario).
+     */
+    private void consultarAnalitica(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ContratoSnapshot.CampoFecha campo;
+        ContratoSnapshot.Dimension dimension;
+        LocalDate desde;
+        LocalDate hasta;
+        try {
+            String parametroCampo = request.getParameter("campo");
+            String parametroAgrupar = request.getParameter("agrupar");
+            campo = parametroCampo == null || parametroCampo.isEmpty() ? ContratoSnapshot.CampoFecha.VIGENCIA
+                    : ContratoSnapshot.CampoFecha.valueOf(parametroCampo.toUpperCase(Locale.ROOT));
+            dimension = parametroAgrupar == null || parametroAgrupar.isEmpty() ? null
+                    : ContratoSnapshot.Dimension.valueOf(parametroAgrupar.toUpperCase(Locale.ROOT));
+            desde = parsearFecha(request.getParameter("desde"));
+            hasta = parsearFecha(request.getParameter("hasta"));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "Parámetros inválidos: campo=firma|inicio|fin|vigencia, agrupar=empresa|frecuencia|usuario, desde/hasta=yyyy-MM-dd.");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        List<Agregado> resultado = reporteService.consultarAnalitica(campo, desde, hasta, dimension);
+        long duracionMicros = (System.nanoTime() - inicio) / 1000;
+        if (resultado == null) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "La instantánea analítica no está disponible.");
+            return;
+        }
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        JsonWriter json = new JsonWriter(EscritorRespuesta.abrir(response));
+        json.inicioObjeto()
+                .nombre("contratos").valor(reporteService.contarContratosAnalitica())
+                .nombre("campo").valor(campo.name().toLowerCase(Locale.ROOT))
+                .nombre("desde").valor(desde == null ? null : desde.toString())
+                .nombre("hasta").valor(hasta == null ? null : hasta.toString())
+                .nombre("agrupar").valor(dimension == null ? null : dimension.name().toLowerCase(Locale.ROOT))
+                .nombre("duracionMicros").valor(duracionMicros)
+                .nombre("resultados").inicioArreglo();
+        for (Agregado agregado : resultado) {
+            json.inicioObjeto();
+            if (dimension != null) {
+                json.nombre("clave").valor(agregado.getClave());
+            }
+            json.nombre("cantidad").valor(agregado.getCantidad())
+                    .nombre("total").valorCrudo(agregado.getTotalMonto().toPlainString())
+                    .nombre("promedio").valorCrudo(agregado.getPromedioMonto().toPlainString())
+                    .nombre("minimo").valorCrudo(agregado.getMontoMinimo().toPlainString())
+                    .nombre("maximo").valorCrudo(agregado.getMontoMaximo().toPlainString())
+                    .finObjeto();
+        }
+        json.finArreglo().finObjeto();
+        json.flush();
+    }
+
+    /**
+     * Recalcula los resúmenes y redirige a los reportes con el resultado.
+     */
+    private void reconstruirResumenes(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (reporteService.reconstruirResumenes()) {
+            response.sendRedirect(request.getContextPath() + "/reportes?status=success&message=ResumenesReconstruidos");
+        } else {
+            response.sendRedirect(request.getContextPath() + "/reportes?status=error&message=ErrorReconstruirResumenes");
+        }
+    }
+
+    /**
+     * Convierte un parámetro con formato yyyy-MM-dd en una fecha.
+     *
+     * @return La fecha, o {@code null} si el parámetro falta.
+     * @throws DateTimeParseException Si el parámetro no es una fecha válida.
+     */
+    private LocalDate parsearFecha(String valor) {
+        return valor == null || valor.isEmpty() ? null : LocalDate.parse(valor);
+    }
+
+    /**
+     * Convierte un parámetro con formato yyyy-MM en un mes.
+     *
+     * @return El mes, o {@code porDefecto} si el parámetro falta o no es válido.
+     */
+    private YearMonth parsearMes(String valor, YearMonth porDefecto) {
+        if (valor == null || valor.isEmpty()) {
+            return porDefecto;
+        }
+        try {
+            return YearMonth.parse(valor);
+        } catch (DateTimeParseException e) {
+            return porDefecto;
+        }
+    }
+}
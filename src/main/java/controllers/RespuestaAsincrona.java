@@ -0,0 +1,214 @@
+package main.java.controllers;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Respuesta que recibe la acción de un servlet en modo asíncrono. Cuando la petición ya terminó (por ejemplo, porque
+ * expiró y se respondió 503), la acción puede seguir ejecutándose en su hilo: a partir de ese momento los redirect,
+ * errores y cambios de estado o cabeceras se ignoran, y escribir en el stream del cuerpo lanza {@link IOException},
+ * como si el cliente se hubiera desconectado, para que la acción deje de generar una respuesta que nadie va a recibir.
+ * <p>
+ * El {@link PrintWriter} de {@link #getWriter()} no puede lanzar {@link IOException} (la guardaría en
+ * {@code checkError()} y la acción seguiría): lanza {@link IllegalStateException}. Los servlets escriben sus
+ * respuestas con {@link EscritorRespuesta}, sobre el stream.
+ */
+final class RespuestaAsincrona extends HttpServletResponseWrapper {
+
+    private final AtomicBoolean terminada;
+    private Salida salida;
+    private PrintWriter writer;
+
+    /**
+     * @param response  Respuesta original.
+     * @param terminada Indica si la respuesta asíncrona ya fue entregada.
+     */
+    RespuestaAsincrona(HttpServletResponse response, AtomicBoolean terminada) {
+        super(response);
+        this.terminada = terminada;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (salida == null) {
+            comprobar();
+            salida = new Salida(super.getOutputStream());
+        }
+        return salida;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            comprobar();
+            writer = new Impresor(super.getWriter());
+        }
+        return writer;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        if (!terminada.get()) {
+            super.sendError(sc, msg);
+        }
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        if (!terminada.get()) {
+            super.sendError(sc);
+        }
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        if (!terminada.get()) {
+            super.sendRedirect(location);
+        }
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        if (!terminada.get()) {
+            super.setStatus(sc);
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!terminada.get()) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!terminada.get()) {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if (!terminada.get()) {
+            super.setContentType(type);
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        salida = null;
+        writer = null;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        comprobar();
+        super.flushBuffer();
+    }
+
+    private void comprobar() throws IOException {
+        if (terminada.get()) {
+            throw new IOException("La petición asíncrona ya terminó.");
+        }
+    }
+
+    /**
+     * Stream que deja de escribir en la respuesta original cuando la petición termina.
+     */
+    private final class Salida extends ServletOutputStream {
+        private final ServletOutputStream original;
+
+        private Salida(ServletOutputStream original) {
+            this.original = original;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            comprobar();
+            original.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            comprobar();
+            original.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            comprobar();
+            original.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!terminada.get()) {
+                original.close();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return original.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            original.setWriteListener(writeListener);
+        }
+    }
+
+    /**
+     * PrintWriter que deja de escribir en el writer original cuando la petición termina.
+     */
+    private final class Impresor extends PrintWriter {
+
+        private Impresor(PrintWriter original) {
+            super(original);
+        }
+
+        @Override
+        public void write(int c) {
+            comprobarSinExcepcionComprobada();
+            super.write(c);
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            comprobarSinExcepcionComprobada();
+            super.write(buf, off, len);
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            comprobarSinExcepcionComprobada();
+            super.write(s, off, len);
+        }
+
+        @Override
+        public void flush() {
+            comprobarSinExcepcionComprobada();
+            super.flush();
+        }
+
+        @Override
+        public void close() {
+            if (!terminada.get()) {
+                super.close();
+            }
+        }
+
+        private void comprobarSinExcepcionComprobada() {
+            if (terminada.get()) {
+                throw new IllegalStateException("La petición asíncrona ya terminó.");
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package main.java.controllers;
+
+import main.java.utils.VersionRegistry;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+
+/**
+ * Respuestas condicionales ({@code ETag} / {@code Last-Modified} y {@code 304 Not Modified}) para las vistas
+ * cuyo contenido depende solo de datos versionados con {@link VersionRegistry}.
+ * <p>
+ * El ETag se calcula antes de consultar la base de datos: si coincide con el que envía el cliente en
+ * {@code If-None-Match}, se responde 304 sin consulta ni JSP. Las respuestas llevan
+ * {@code Cache-Control: private, no-cache}, de modo que el navegador siempre revalida y los proxies no las guardan.
+ */
+final class RespuestaCondicional {
+
+    private RespuestaCondicional() {
+    }
+
+    /**
+     * Construye un ETag débil a partir de una versión de datos y de todo lo demás que cambia la respuesta
+     * (usuario de la sesión, fecha del día si la vista depende de ella...). Los parámetros de la URL no hace falta
+     * incluirlos: el cliente guarda una copia por URL.
+     *
+     * @param version    Versión de los datos de la vista.
+     * @param variantes  Otros valores de los que depende la respuesta.
+     * @return El ETag, con comillas y prefijo {@code W/}.
+     */
+    static String etag(long version, Object... variantes) {
+        return "W/\"" + Long.toString(VersionRegistry.getArranque(), 36) + "-" + Long.toString(version, 36)
+                + "-" + Integer.toHexString(Arrays.hashCode(variantes)) + "\"";
+    }
+
+    /**
+     * Agrega los validadores a la respuesta y comprueba si el cliente ya tiene esa versión.
+     * {@code If-None-Match} tiene prioridad; {@code If-Modified-Since} solo se usa si el cliente no envía ETag.
+     *
+     * @param request            Petición HTTP.
+     * @param response           Respuesta HTTP.
+     * @param etag               ETag de la respuesta, de {@link #etag(long, Object...)}.
+     * @param ultimaModificacion Momento del último cambio de los datos (System.currentTimeMillis).
+     * @return {@code true} si se respondió 304 y no hay que generar la vista.
+     */
+    static boolean noModificado(HttpServletRequest request, HttpServletResponse response, String etag, long ultimaModificacion) {
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("ETag", etag);
+        // Last-Modified tiene resolución de segundos: si el último cambio es del segundo en curso, otro cambio en ese
+        // mismo segundo tendría la misma fecha, así que en ese caso solo se envía el ETag
+        boolean segundoCerrado = ultimaModificacion / 1000 < System.currentTimeMillis() / 1000;
+        if (segundoCerrado) {
+            response.setDateHeader("Last-Modified", ultimaModificacion);
+        }
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        boolean coincide;
+        if (ifNoneMatch != null) {
+            coincide = coincideEtag(ifNoneMatch, etag);
+        } else {
+            long ifModifiedSince;
+            try {
+                ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            } catch (IllegalArgumentException e) {
+                ifModifiedSince = -1; // Fecha mal formada: se ignora, como indica la especificación
+            }
+            coincide = segundoCerrado && ifModifiedSince >= 0 && ultimaModificacion / 1000 <= ifModifiedSince / 1000;
+        }
+        if (coincide) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return coincide;
+    }
+
+    /**
+     * Comparación débil (RFC 9110) de un ETag con la lista de {@code If-None-Match}.
+     */
+    private static boolean coincideEtag(String ifNoneMatch, String etag) {
+        String opaco = sinPrefijoDebil(etag);
+        for (String candidato : ifNoneMatch.split(",")) {
+            candidato = candidato.trim();
+            if (candidato.equals("*") || sinPrefijoDebil(candidato).equals(opaco)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sinPrefijoDebil(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -2,8 +2,10 @@ package main.java.controllers;
 
 import main.java.models.entities.Usuario;
 import main.java.models.services.UsuarioService;
+import main.java.utils.Pagina;
+import main.java.utils.RequestMetrics;
+import main.java.utils.VersionRegistry;
 
-import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -11,7 +13,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Controlador para manejar las operaciones relacionadas con los usuarios.
@@ -27,9 +28,12 @@ import java.util.List;
  * - /usuarios/logout - Cerrar sesión
  * - /usuarios/authenticate - Procesar autenticación (POST)
  */
-@WebServlet(urlPatterns = {"/usuarios", "/usuarios/*"})
+@WebServlet(urlPatterns = {"/usuarios", "/usuarios/*"}, asyncSupported = true)
 public class UsuarioServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
+    // Latencia y errores por acción, exportados en /metrics
+    private static final RequestMetrics METRICAS_GET = new RequestMetrics("usuarios", "GET", "/new", "/edit", "/delete", "/login", "/logout");
+    private static final RequestMetrics METRICAS_POST = new RequestMetrics("usuarios", "POST", "/create", "/update", "/authenticate");
     private UsuarioService usuarioService; // Servicio para manejar la lógica de negocio de usuarios
 
     /**
@@ -85,30 +89,51 @@ public class UsuarioServlet extends HttpServlet {
             }
         }
 
-        // Determinar la acción a realizar basada en la ruta
-        if (action == null) {
-            listarUsuarios(request, response);
-        } else {
-            switch (action) {
-                case "/new":
-                    mostrarFormularioCrear(request, response);
-                    break;
-                case "/edit":
-                    mostrarFormularioEditar(request, response);
-                    break;
-                case "/delete":
-                    eliminarUsuario(request, response);
-                    break;
-                case "/login":
-                    mostrarFormularioLogin(request, response);
-                    break;
-                case "/logout":
-                    cerrarSesion(request, response);
-                    break;
-                default:
-                    listarUsuarios(request, response);
-                    break;
+        AsyncRequestExecutor.ejecutar(request, response, this::procesarGet);
+    }
+
+    /**
+     * Despacha la petición GET a la acción correspondiente según la ruta.
+     * Se ejecuta en el hilo del contenedor o, con el modo asíncrono habilitado, en {@link AsyncRequestExecutor}.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    private void procesarGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String action = request.getPathInfo();
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            // Determinar la acción a realizar basada en la ruta
+            if (action == null) {
+                listarUsuarios(request, response);
+            } else {
+                switch (action) {
+                    case "/new":
+                        mostrarFormularioCrear(request, response);
+                        break;
+                    case "/edit":
+                        mostrarFormularioEditar(request, response);
+                        break;
+                    case "/delete":
+                        eliminarUsuario(request, response);
+                        break;
+                    case "/login":
+                        mostrarFormularioLogin(request, response);
+                        break;
+                    case "/logout":
+                        cerrarSesion(request, response);
+                        break;
+                    default:
+                        listarUsuarios(request, response);
+                        break;
+                }
             }
+            error = false;
+        } finally {
+            METRICAS_GET.registrar(action, inicio, error);
         }
     }
 
@@ -129,43 +154,99 @@ public class UsuarioServlet extends HttpServlet {
             }
         }
 
-        // Determinar la acción a realizar basada en la ruta y parámetros
-        if (action == null) {
-            if (request.getParameter("actionType") != null && request.getParameter("actionType").equals("update")) {
-                actualizarUsuario(request, response);
-            } else {
-                crearUsuario(request, response);
-            }
-        } else {
-            switch (action) {
-                case "/create":
-                    crearUsuario(request, response);
-                    break;
-                case "/update":
+        AsyncRequestExecutor.ejecutar(request, response, this::procesarPost);
+    }
+
+    /**
+     * Despacha la petición POST a la acción correspondiente según la ruta.
+     * Se ejecuta en el hilo del contenedor o, con el modo asíncrono habilitado, en {@link AsyncRequestExecutor}.
+     *
+     * @param request  Petición HTTP.
+     * @param response Respuesta HTTP.
+     * @throws ServletException Si ocurre un error del servlet.
+     * @throws IOException      Si ocurre un error de E/S.
+     */
+    private void procesarPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String action = request.getPathInfo();
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            // Determinar la acción a realizar basada en la ruta y parámetros
+            if (action == null) {
+                if (request.getParameter("actionType") != null && request.getParameter("actionType").equals("update")) {
                     actualizarUsuario(request, response);
-                    break;
-                case "/authenticate":
-                    autenticarUsuario(request, response);
-                    break;
-                default:
-                    response.sendError(HttpServletResponse.SC_NOT_FOUND, "Acción POST no encontrada.");
-                    break;
+                } else {
+                    crearUsuario(request, response);
+                }
+            } else {
+                switch (action) {
+                    case "/create":
+                        crearUsuario(request, response);
+                        break;
+                    case "/update":
+                        actualizarUsuario(request, response);
+                        break;
+                    case "/authenticate":
+                        autenticarUsuario(request, response);
+                        break;
+                    default:
+                        response.sendError(HttpServletResponse.SC_NOT_FOUND, "Acción POST no encontrada.");
+                        break;
+                }
             }
+            error = false;
+        } finally {
+            METRICAS_POST.registrar(action, inicio, error);
         }
     }
 
     /**
-     * Lista todos los usuarios en el sistema
+     * Lista una página de los usuarios del sistema.
+     * Acepta los parámetros opcionales despues / antes (cursores sobre el username) y tamano.
+     * Responde 304 a las peticiones condicionales si ningún usuario cambió.
      * @param request Objeto HttpServletRequest con la solicitud del cliente
      * @param response Objeto HttpServletResponse para la respuesta al cliente
      * @throws ServletException Si ocurre un error en el servlet
      * @throws IOException Si ocurre un error de entrada/salida
      */
     private void listarUsuarios(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        List<Usuario> listaUsuarios = usuarioService.obtenerTodosLosUsuarios();
-        request.setAttribute("listaUsuarios", listaUsuarios);
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/usuarios/listarUsuarios.jsp");
-        dispatcher.forward(request, response);
+        // Si ningún usuario cambió desde la copia del navegador, se responde 304 sin consultar nada
+        VersionRegistry.Marca version = usuarioService.obtenerVersionUsuarios();
+        if (version != null) {
+            HttpSession session = request.getSession(false);
+            Usuario usuarioLogueado = session != null ? (Usuario) session.getAttribute("usuarioLogueado") : null;
+            String etag = RespuestaCondicional.etag(version.getVersion(),
+                    usuarioLogueado != null ? usuarioLogueado.getUsername() : null,
+                    usuarioLogueado != null ? usuarioLogueado.getNombre() : null);
+            if (RespuestaCondicional.noModificado(request, response, etag, version.getInstante())) {
+                return;
+            }
+        }
+
+        String despues = request.getParameter("despues");
+        String antes = request.getParameter("antes");
+        int tamano = Pagina.TAMANO_POR_DEFECTO;
+        try {
+            if (request.getParameter("tamano") != null) {
+                tamano = Integer.parseInt(request.getParameter("tamano"));
+            }
+        } catch (NumberFormatException e) {
+            // Un tamaño inválido se ignora y se usa el tamaño por defecto
+        }
+
+        Pagina<Usuario> pagina = usuarioService.obtenerPaginaUsuarios(vacioANulo(despues), vacioANulo(antes), tamano);
+        request.setAttribute("paginaUsuarios", pagina);
+        request.setAttribute("listaUsuarios", pagina.getElementos());
+        AsyncRequestExecutor.forward(request, response, "/views/forms/usuarios/listarUsuarios.jsp");
+    }
+
+    /**
+     * Convierte un parámetro vacío en null
+     * @param valor Valor del parámetro
+     * @return El valor, o null si está vacío
+     */
+    private String vacioANulo(String valor) {
+        return (valor == null || valor.isEmpty()) ? null : valor;
     }
 
     /**
@@ -176,8 +257,7 @@ public class UsuarioServlet extends HttpServlet {
      * @throws IOException Si ocurre un error de entrada/salida
      */
     private void mostrarFormularioCrear(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/usuarios/crearUsuario.jsp");
-        dispatcher.forward(request, response);
+        AsyncRequestExecutor.forward(request, response, "/views/forms/usuarios/crearUsuario.jsp");
     }
 
     /**
@@ -193,8 +273,7 @@ public class UsuarioServlet extends HttpServlet {
 
         if (usuarioExistente != null) {
             request.setAttribute("usuario", usuarioExistente);
-            RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/usuarios/editarUsuario.jsp");
-            dispatcher.forward(request, response);
+            AsyncRequestExecutor.forward(request, response, "/views/forms/usuarios/editarUsuario.jsp");
         } else {
             response.sendRedirect(request.getContextPath() + "/usuarios?status=error&message=UsuarioNoEncontrado");
         }
@@ -226,8 +305,7 @@ public class UsuarioServlet extends HttpServlet {
             // Mostrar error y volver al formulario con los datos ingresados
             request.setAttribute("error", "Error al crear usuario. El nombre de usuario ya podría existir o hubo un problema.");
             request.setAttribute("usuario", nuevoUsuario);
-            RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/usuarios/crearUsuario.jsp");
-            dispatcher.forward(request, response);
+            AsyncRequestExecutor.forward(request, response, "/views/forms/usuarios/crearUsuario.jsp");
         }
     }
 
@@ -257,8 +335,7 @@ public class UsuarioServlet extends HttpServlet {
             // Mostrar error y volver al formulario con los datos ingresados
             request.setAttribute("error", "Error al actualizar usuario.");
             request.setAttribute("usuario", usuarioAActualizar);
-            RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/usuarios/editarUsuario.jsp");
-            dispatcher.forward(request, response);
+            AsyncRequestExecutor.forward(request, response, "/views/forms/usuarios/editarUsuario.jsp");
         }
     }
 
@@ -291,8 +368,7 @@ public class UsuarioServlet extends HttpServlet {
      * @throws IOException Si ocurre un error de entrada/salida
      */
     private void mostrarFormularioLogin(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/usuarios/login.jsp");
-        dispatcher.forward(request, response);
+        AsyncRequestExecutor.forward(request, response, "/views/forms/usuarios/login.jsp");
     }
 
     /**
@@ -319,8 +395,7 @@ public class UsuarioServlet extends HttpServlet {
         } else {
             // Mostrar error de credenciales inválidas
             request.setAttribute("error", "Credenciales inválidas. Por favor, inténtelo de nuevo.");
-            RequestDispatcher dispatcher = request.getRequestDispatcher("/views/forms/usuarios/login.jsp");
-            dispatcher.forward(request, response);
+            AsyncRequestExecutor.forward(request, response, "/views/forms/usuarios/login.jsp");
         }
     }
 
@@ -0,0 +1,177 @@
+package main.java.filters;
+
+import main.java.utils.AppConfig;
+import main.java.utils.DeflaterPool;
+import main.java.utils.GzipSalida;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Comprime con gzip las respuestas de texto (páginas JSP, CSS, JavaScript, JSON, CSV) de los clientes que lo
+ * aceptan, usando {@link java.util.zip.Deflater} reutilizados de un {@link DeflaterPool}.
+ * <p>
+ * Solo se comprimen las respuestas de al menos {@code sgc.http.gzip.minBytes} bytes (por defecto 1024): por debajo,
+ * el encabezado y el final gzip ocupan casi lo mismo que se ahorra. Nunca se comprimen {@code text/event-stream},
+ * las peticiones HEAD ni las de rangos. Se desactiva con {@code sgc.http.gzip.enabled=false}.
+ * <p>
+ * Publica en /metrics, por ruta, los bytes antes y después de comprimir y el tiempo de compresión
+ * ({@code sgc_http_gzip_*}), para calcular el ahorro de transferencia frente al costo de CPU.
+ * <p>
+ * Con el procesamiento asíncrono, la respuesta se termina al volver del despacho a la JSP o, si la acción no despacha,
+ * cuando {@link main.java.controllers.AsyncRequestExecutor} cierra la respuesta antes de completarla.
+ */
+@WebFilter(urlPatterns = "/*", dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.ASYNC}, asyncSupported = true)
+public class CompresionFilter extends HttpFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final boolean HABILITADO = AppConfig.getBoolean("sgc.http.gzip.enabled", true);
+    private static final int UMBRAL_BYTES = AppConfig.getInt("sgc.http.gzip.minBytes", 1024);
+
+    private static final DeflaterPool POOL = new DeflaterPool(AppConfig.getInt("sgc.http.gzip.nivel", 6),
+            AppConfig.getInt("sgc.http.gzip.poolMax", 2 * Runtime.getRuntime().availableProcessors()));
+
+    // Respuesta envuelta de la petición, para terminarla en el despacho asíncrono
+    private static final String ATRIBUTO_RESPUESTA = CompresionFilter.class.getName() + ".respuesta";
+
+    private static final ConcurrentHashMap<String, MetricasRuta> METRICAS = new ConcurrentHashMap<>();
+
+    static {
+        MetricsRegistry.gauge("sgc_http_gzip_deflaters_idle", "Deflaters libres en el pool de compresión.",
+                POOL::getLibres);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            RespuestaComprimida comprimida = (RespuestaComprimida) request.getAttribute(ATRIBUTO_RESPUESTA);
+            procesar(request, response, chain, comprimida);
+            return;
+        }
+        if (!HABILITADO || "HEAD".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // La respuesta depende de Accept-Encoding aunque este cliente no acepte gzip (para las cachés intermedias)
+        response.addHeader("Vary", "Accept-Encoding");
+        if (!aceptaGzip(request.getHeader("Accept-Encoding")) || request.getHeader("Range") != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RespuestaComprimida comprimida = new RespuestaComprimida(response, POOL, UMBRAL_BYTES, ruta(request),
+                CompresionFilter::registrar);
+        request.setAttribute(ATRIBUTO_RESPUESTA, comprimida);
+        procesar(request, comprimida, chain, comprimida);
+    }
+
+    /**
+     * Pasa la petición a la cadena y, si la respuesta no sigue en modo asíncrono, la termina.
+     * Si la cadena falla, el flujo gzip no se termina, para que el cliente no tome por completa una respuesta cortada.
+     */
+    private void procesar(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                          RespuestaComprimida comprimida) throws IOException, ServletException {
+        boolean completo = false;
+        try {
+            chain.doFilter(request, response);
+            completo = true;
+        } finally {
+            if (comprimida != null && !request.isAsyncStarted()) {
+                if (completo) {
+                    comprimida.terminar();
+                } else {
+                    comprimida.abortar();
+                }
+            }
+        }
+    }
+
+    /**
+     * Interpreta {@code Accept-Encoding}: acepta gzip si aparece (o aparece {@code *}) sin {@code q=0}.
+     */
+    static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String opcion : acceptEncoding.split(",")) {
+            String[] partes = opcion.split(";");
+            String codificacion = partes[0].trim().toLowerCase(Locale.ROOT);
+            if (!codificacion.equals("gzip") && !codificacion.equals("x-gzip") && !codificacion.equals("*")) {
+                continue;
+            }
+            boolean rechazada = false;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.startsWith("q=") || parametro.startsWith("Q=")) {
+                    try {
+                        rechazada = Double.parseDouble(parametro.substring(2).trim()) <= 0;
+                    } catch (NumberFormatException e) {
+                        rechazada = true;
+                    }
+                }
+            }
+            return !rechazada;
+        }
+        return false;
+    }
+
+    /**
+     * @return El patrón del servlet que atiende la petición (ej: "/contratos/*"), con un número de valores acotado.
+     */
+    private static String ruta(HttpServletRequest request) {
+        HttpServletMapping mapeo = request.getHttpServletMapping();
+        return mapeo != null && mapeo.getPattern() != null && !mapeo.getPattern().isEmpty() ? mapeo.getPattern() : "otra";
+    }
+
+    private static void registrar(RespuestaComprimida comprimida) {
+        GzipSalida gzip = comprimida.getGzip();
+        if (gzip == null) {
+            return;
+        }
+        MetricasRuta metricas = METRICAS.computeIfAbsent(comprimida.getRuta(), MetricasRuta::new);
+        metricas.respuestas.increment();
+        metricas.bytesOriginales.add(gzip.getBytesEntrada());
+        metricas.bytesEnviados.add(gzip.getBytesSalida());
+        metricas.duracion.registrarNanos(gzip.getNanosCompresion());
+    }
+
+    /**
+     * Libera los {@code Deflater} libres del pool. Se llama al detener la aplicación.
+     */
+    public static void shutdown() {
+        POOL.cerrar();
+    }
+
+    private static final class MetricasRuta {
+        private final LongAdder respuestas;
+        private final LongAdder bytesOriginales;
+        private final LongAdder bytesEnviados;
+        private final LatencyHistogram duracion;
+
+        private MetricasRuta(String ruta) {
+            respuestas = MetricsRegistry.contador("sgc_http_gzip_responses_total",
+                    "Respuestas comprimidas con gzip.", "ruta", ruta);
+            bytesOriginales = MetricsRegistry.contador("sgc_http_gzip_original_bytes_total",
+                    "Bytes de las respuestas comprimidas antes de comprimir.", "ruta", ruta);
+            bytesEnviados = MetricsRegistry.contador("sgc_http_gzip_sent_bytes_total",
+                    "Bytes enviados de las respuestas comprimidas, con el encabezado gzip.", "ruta", ruta);
+            duracion = MetricsRegistry.histograma("sgc_http_gzip_duration_seconds",
+                    "Tiempo de CPU dedicado a comprimir cada respuesta.", "ruta", ruta);
+        }
+    }
+}
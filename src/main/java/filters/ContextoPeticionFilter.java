@@ -0,0 +1,117 @@
+package main.java.filters;
+
+import main.java.models.entities.Usuario;
+import main.java.utils.ContextoPeticion;
+import main.java.utils.DatabaseConnection;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * Establece el {@link ContextoPeticion} de cada petición: el usuario con sesión iniciada y si sus lecturas deben ir
+ * al primario en lugar de a una réplica.
+ * <p>
+ * Las peticiones que pueden escribir (todo método distinto de GET, HEAD y OPTIONS) leen siempre del primario.
+ * Las peticiones que confirman una escritura, con cualquier método (las bajas se hacen con enlaces GET), marcan la
+ * sesión al terminar: durante {@code sgc.db.replica.stickyMs} las peticiones siguientes de esa sesión también leen
+ * del primario, para que el usuario vea sus propios cambios aunque las réplicas vayan atrasadas. La escritura la
+ * registran {@code DatabaseConnection.enTransaccion} y los servicios con {@link ContextoPeticion#registrarEscritura()}.
+ */
+@WebFilter(urlPatterns = "/*", dispatcherTypes = DispatcherType.REQUEST, asyncSupported = true)
+public class ContextoPeticionFilter extends HttpFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    // Momento (System.currentTimeMillis) en que terminó la última petición de la sesión que confirmó una escritura
+    private static final String ATRIBUTO_ULTIMA_ESCRITURA = ContextoPeticionFilter.class.getName() + ".ultimaEscritura";
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpSession session = request.getSession(false);
+        String usuario = null;
+        boolean leerDelPrimario = !esMetodoSeguro(request.getMethod());
+        if (session != null) {
+            try {
+                Object logueado = session.getAttribute("usuarioLogueado");
+                usuario = logueado instanceof Usuario ? ((Usuario) logueado).getUsername() : null;
+                Long ultimaEscritura = (Long) session.getAttribute(ATRIBUTO_ULTIMA_ESCRITURA);
+                leerDelPrimario |= ultimaEscritura != null
+                        && System.currentTimeMillis() - ultimaEscritura < DatabaseConnection.LECTURA_PROPIA_MS;
+            } catch (IllegalStateException e) {
+                // La sesión se invalidó entre getSession y getAttribute: se trata como una petición sin sesión
+            }
+        }
+
+        ContextoPeticion contexto = new ContextoPeticion(usuario, leerDelPrimario);
+        ContextoPeticion.establecer(contexto);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ContextoPeticion.establecer(null);
+            if (request.isAsyncStarted()) {
+                // La acción sigue en otro hilo y puede escribir todavía: se comprueba cuando se complete la respuesta
+                request.getAsyncContext().addListener(new MarcaAlTerminar(request, contexto));
+            } else if (contexto.isEscribio()) {
+                marcarEscritura(request);
+            }
+        }
+    }
+
+    private static boolean esMetodoSeguro(String metodo) {
+        return "GET".equals(metodo) || "HEAD".equals(metodo) || "OPTIONS".equals(metodo);
+    }
+
+    /**
+     * Registra en la sesión (si existe; el login pudo crearla durante la petición) el final de una petición que
+     * confirmó una escritura.
+     */
+    private static void marcarEscritura(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            try {
+                session.setAttribute(ATRIBUTO_ULTIMA_ESCRITURA, System.currentTimeMillis());
+            } catch (IllegalStateException e) {
+                // La petición cerró la sesión (logout o eliminación de usuario): no hay nada que marcar
+            }
+        }
+    }
+
+    private static final class MarcaAlTerminar implements AsyncListener {
+        private final HttpServletRequest request;
+        private final ContextoPeticion contexto;
+
+        private MarcaAlTerminar(HttpServletRequest request, ContextoPeticion contexto) {
+            this.request = request;
+            this.contexto = contexto;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (contexto.isEscribio()) {
+                marcarEscritura(request);
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
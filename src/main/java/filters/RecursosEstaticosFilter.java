@@ -0,0 +1,117 @@
+package main.java.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caché del navegador para los recursos estáticos propios (CSS y JavaScript de {@code /views}).
+ * <p>
+ * Al iniciar calcula una huella (SHA-256 abreviado) del contenido de cada recurso y publica en el contexto de la
+ * aplicación el mapa {@code recursos}, de ruta a URL versionada: las JSP enlazan
+ * {@code ${applicationScope.recursos['/views/css/style.css']}}, que devuelve {@code /views/css/style.css?v=<huella>}.
+ * Las peticiones con la huella vigente se marcan {@code Cache-Control: public, max-age=31536000, immutable}: el
+ * navegador no vuelve a pedirlas hasta que cambie el contenido, y con él la URL. El resto se marca {@code no-cache},
+ * de modo que siempre se revalidan con {@code ETag}/{@code Last-Modified}.
+ * <p>
+ * Las huellas se calculan al desplegar: si se modifica un recurso sin redesplegar, se sigue sirviendo con la huella
+ * anterior.
+ */
+@WebFilter(urlPatterns = {"/views/css/*", "/views/js/*"}, asyncSupported = true)
+public class RecursosEstaticosFilter extends HttpFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] CARPETAS = {"/views/css/", "/views/js/"};
+    private static final int LARGO_HUELLA = 12; // Caracteres hexadecimales (48 bits)
+    private static final String CACHE_INMUTABLE = "public, max-age=31536000, immutable";
+
+    private Map<String, String> huellas = Collections.emptyMap();
+
+    @Override
+    public void init() throws ServletException {
+        ServletContext contexto = getServletContext();
+        Map<String, String> calculadas = new HashMap<>();
+        for (String carpeta : CARPETAS) {
+            calcularHuellas(contexto, carpeta, calculadas);
+        }
+        huellas = calculadas;
+
+        // Ruta -> URL versionada; las rutas sin huella se devuelven sin cambios
+        Map<String, String> urls = new HashMap<String, String>() {
+            @Override
+            public String get(Object ruta) {
+                String url = super.get(ruta);
+                return url != null ? url : (String) ruta;
+            }
+        };
+        for (Map.Entry<String, String> huella : calculadas.entrySet()) {
+            urls.put(huella.getKey(), huella.getKey() + "?v=" + huella.getValue());
+        }
+        contexto.setAttribute("recursos", Collections.unmodifiableMap(urls));
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        String huella = huellas.get(ruta);
+        String version = request.getParameter("v");
+        response.setHeader("Cache-Control", huella != null && huella.equals(version) ? CACHE_INMUTABLE : "no-cache");
+        chain.doFilter(request, response);
+    }
+
+    private static void calcularHuellas(ServletContext contexto, String carpeta, Map<String, String> huellas) {
+        Set<String> rutas = contexto.getResourcePaths(carpeta);
+        if (rutas == null) {
+            return;
+        }
+        for (String ruta : rutas) {
+            if (ruta.endsWith("/")) {
+                calcularHuellas(contexto, ruta, huellas);
+                continue;
+            }
+            try (InputStream entrada = contexto.getResourceAsStream(ruta)) {
+                if (entrada != null) {
+                    huellas.put(ruta, huella(entrada));
+                }
+            } catch (IOException e) {
+                System.err.println("No se pudo calcular la huella de " + ruta + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static String huella(InputStream entrada) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible.", e);
+        }
+        byte[] buffer = new byte[8192];
+        int leidos;
+        while ((leidos = entrada.read(buffer)) != -1) {
+            sha.update(buffer, 0, leidos);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : sha.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            if (hex.length() >= LARGO_HUELLA) {
+                break;
+            }
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,454 @@
+package main.java.filters;
+
+import main.java.utils.DeflaterPool;
+import main.java.utils.GzipSalida;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Respuesta que se comprime con gzip si su contenido es texto y supera un tamaño mínimo.
+ * <p>
+ * Los primeros {@code umbral} bytes se guardan en memoria. Si la respuesta termina antes, se envía sin comprimir
+ * y con {@code Content-Length}; si los supera, se decide según el tipo de contenido en ese momento. Los
+ * {@code flush()} anteriores a la decisión se ignoran, para no comprimir respuestas pequeñas que hacen flush al
+ * final; una vez comprimiendo, cada {@code flush()} envía lo escrito hasta entonces.
+ * <p>
+ * Los tipos que no se comprimen (imágenes, descargas binarias, {@code text/event-stream}) se escriben directamente
+ * en la respuesta original si su tipo se conoce al pedir el writer o el stream.
+ */
+final class RespuestaComprimida extends HttpServletResponseWrapper {
+
+    private enum Estado { PENDIENTE, COMPRIMIDA, SIN_COMPRIMIR }
+
+    private final DeflaterPool pool;
+    private final int umbral;
+    private final String ruta;
+    private final Consumer<RespuestaComprimida> alTerminar;
+
+    private Estado estado = Estado.PENDIENTE;
+    private Salida salida;
+    private PrintWriter writer;
+    private boolean directo; // El servlet escribe en la respuesta original, sin pasar por este envoltorio
+    private long longitudDeclarada = -1;
+    private GzipSalida gzip;
+    private boolean terminada;
+
+    /**
+     * @param response   Respuesta original.
+     * @param pool       Pool de {@code Deflater} para la compresión.
+     * @param umbral     Tamaño mínimo, en bytes, para comprimir.
+     * @param ruta       Ruta de la petición para las métricas.
+     * @param alTerminar Se llama una sola vez, al terminar o abortar la respuesta.
+     */
+    RespuestaComprimida(HttpServletResponse response, DeflaterPool pool, int umbral, String ruta,
+                        Consumer<RespuestaComprimida> alTerminar) {
+        super(response);
+        this.pool = pool;
+        this.umbral = umbral;
+        this.ruta = ruta;
+        this.alTerminar = alTerminar;
+    }
+
+    String getRuta() {
+        return ruta;
+    }
+
+    /**
+     * @return El flujo gzip si la respuesta se comprimió, o {@code null} si no (para las métricas).
+     */
+    GzipSalida getGzip() {
+        return gzip;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() ya fue llamado para esta respuesta.");
+        }
+        if (directo || (salida == null && !admiteCompresion())) {
+            directo = true;
+            return super.getOutputStream();
+        }
+        if (salida == null) {
+            salida = new Salida();
+        }
+        return salida;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer != null) {
+            return writer;
+        }
+        if (salida != null) {
+            throw new IllegalStateException("getOutputStream() ya fue llamado para esta respuesta.");
+        }
+        if (directo || !admiteCompresion()) {
+            directo = true;
+            return super.getWriter();
+        }
+        String charset = getCharacterEncoding();
+        salida = new Salida();
+        try {
+            writer = new PrintWriter(new OutputStreamWriter(salida, charset));
+        } catch (UnsupportedEncodingException e) {
+            salida = null;
+            throw e;
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (directo || estado == Estado.SIN_COMPRIMIR) {
+            super.setContentLengthLong(len);
+        } else {
+            longitudDeclarada = len; // Se aplica solo si al final no se comprime
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name) && !directo && estado != Estado.SIN_COMPRIMIR) {
+            longitudDeclarada = value != null ? Long.parseLong(value.trim()) : -1;
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setHeader(name, value);
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (salida != null && estado != Estado.PENDIENTE) {
+            salida.flush();
+        }
+        if (estado != Estado.PENDIENTE || directo) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (writer != null) {
+            writer.flush(); // Lo que el writer tenga sin codificar también se descarta
+        }
+        super.resetBuffer(); // Lanza IllegalStateException si la respuesta ya está confirmada
+        if (salida != null) {
+            salida.pendientes = 0;
+            if (estado == Estado.COMPRIMIDA) {
+                // El encabezado Content-Encoding sigue puesto: se empieza un flujo gzip nuevo
+                gzip.abortar();
+                try {
+                    gzip = new GzipSalida(super.getOutputStream(), pool);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset(); // Lanza IllegalStateException si la respuesta ya está confirmada
+        if (gzip != null) {
+            gzip.abortar();
+            gzip = null;
+        }
+        writer = null;
+        salida = null;
+        directo = false;
+        longitudDeclarada = -1;
+        estado = Estado.PENDIENTE;
+        super.addHeader("Vary", "Accept-Encoding");
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        pasarARespuestaOriginal();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        pasarARespuestaOriginal();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        pasarARespuestaOriginal();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * Envía lo que quede de la respuesta: el contenido en memoria (sin comprimir, si no llegó al umbral)
+     * o el final del flujo gzip. No cierra la respuesta original. Llamarlo más de una vez no tiene efecto.
+     *
+     * @throws IOException Si falla la escritura.
+     */
+    void terminar() throws IOException {
+        if (terminada) {
+            return;
+        }
+        try {
+            if (!directo) {
+                if (writer != null) {
+                    writer.flush();
+                }
+                if (salida != null) {
+                    salida.terminar();
+                }
+            }
+        } finally {
+            finalizar();
+        }
+    }
+
+    /**
+     * Libera el {@code Deflater} sin terminar el flujo gzip, para que una respuesta que falló a mitad de camino no
+     * parezca completa. Lo que estaba en memoria sin enviar se descarta.
+     */
+    void abortar() {
+        if (terminada) {
+            return;
+        }
+        if (salida != null) {
+            salida.pendientes = 0;
+        }
+        finalizar();
+    }
+
+    private void finalizar() {
+        terminada = true;
+        if (gzip != null) {
+            gzip.abortar(); // Sin efecto si el flujo gzip ya se terminó
+        }
+        alTerminar.accept(this);
+    }
+
+    /**
+     * Antes de un error o una redirección, que el contenedor escribe en la respuesta original, descarta lo escrito.
+     * Si ya se estaba comprimiendo, se reinicia la respuesta para quitar {@code Content-Encoding}, lo que también
+     * quita los demás encabezados; una respuesta confirmada no se toca y el contenedor rechazará la operación.
+     */
+    private void pasarARespuestaOriginal() {
+        if (salida != null && !isCommitted()) {
+            if (estado == Estado.COMPRIMIDA) {
+                super.reset();
+                gzip.abortar();
+                gzip = null;
+            }
+            salida.pendientes = 0;
+        }
+        directo = true;
+    }
+
+    /**
+     * @return {@code false} si ya se sabe que la respuesta no debe comprimirse.
+     */
+    private boolean admiteCompresion() {
+        int status = getStatus();
+        if (status < 200 || status == SC_NO_CONTENT || status == SC_PARTIAL_CONTENT || status == SC_NOT_MODIFIED) {
+            return false;
+        }
+        if (containsHeader("Content-Encoding")) {
+            return false;
+        }
+        String tipo = getContentType();
+        return tipo == null || esTipoComprimible(tipo);
+    }
+
+    /**
+     * @param tipo Valor de {@code Content-Type}, con o sin parámetros.
+     * @return {@code true} si es un tipo de texto que vale la pena comprimir.
+     */
+    static boolean esTipoComprimible(String tipo) {
+        String base = tipo;
+        int parametros = base.indexOf(';');
+        if (parametros >= 0) {
+            base = base.substring(0, parametros);
+        }
+        base = base.trim().toLowerCase(Locale.ROOT);
+        if (base.equals("text/event-stream")) {
+            return false; // Cada evento debe llegar en cuanto se escribe
+        }
+        return base.startsWith("text/")
+                || base.equals("application/json") || base.endsWith("+json")
+                || base.equals("application/javascript") || base.equals("application/xml") || base.endsWith("+xml");
+    }
+
+    /**
+     * Decide si se comprime, con el estado de la respuesta en este momento, y envía el contenido en memoria.
+     *
+     * @param superaUmbral {@code true} si el contenido llegó al tamaño mínimo para comprimir.
+     */
+    private void decidir(boolean superaUmbral) throws IOException {
+        String tipo = getContentType();
+        if (superaUmbral && admiteCompresion() && tipo != null) {
+            super.setHeader("Content-Encoding", "gzip");
+            String etag = getHeader("ETag");
+            if (etag != null && etag.startsWith("\"")) {
+                super.setHeader("ETag", "W/" + etag); // El contenido comprimido no es idéntico byte a byte
+            }
+            gzip = new GzipSalida(super.getOutputStream(), pool);
+            estado = Estado.COMPRIMIDA;
+        } else {
+            estado = Estado.SIN_COMPRIMIR;
+            if (longitudDeclarada >= 0) {
+                super.setContentLengthLong(longitudDeclarada);
+            } else if (!superaUmbral && salida.pendientes > 0) {
+                super.setContentLengthLong(salida.pendientes);
+            }
+        }
+    }
+
+    /**
+     * Stream del envoltorio: guarda en memoria hasta decidir y luego escribe comprimido o directo.
+     */
+    private final class Salida extends ServletOutputStream {
+        private byte[] buffer;
+        private int pendientes;
+        private ServletOutputStream original;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (estado == Estado.PENDIENTE && pendientes < umbral) {
+                reservar();
+                buffer[pendientes++] = (byte) b;
+                return;
+            }
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (estado == Estado.PENDIENTE) {
+                if (pendientes + len <= umbral) {
+                    reservar();
+                    System.arraycopy(b, off, buffer, pendientes, len);
+                    pendientes += len;
+                    return;
+                }
+                decidir(true);
+                enviarPendientes();
+            }
+            if (estado == Estado.COMPRIMIDA) {
+                gzip.write(b, off, len);
+            } else {
+                original().write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (estado == Estado.COMPRIMIDA) {
+                gzip.flush();
+            } else if (estado == Estado.SIN_COMPRIMIR) {
+                original().flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            RespuestaComprimida.this.terminar();
+            original().close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return estado != Estado.SIN_COMPRIMIR || original == null || original.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (estado != Estado.PENDIENTE || pendientes > 0) {
+                throw new IllegalStateException("La escritura no bloqueante debe configurarse antes de escribir la respuesta.");
+            }
+            // La compresión solo admite escritura bloqueante: la respuesta se envía sin comprimir
+            try {
+                decidir(false);
+                original().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void terminar() throws IOException {
+            if (estado == Estado.PENDIENTE) {
+                decidir(false);
+                enviarPendientes();
+            }
+            if (estado == Estado.COMPRIMIDA) {
+                gzip.terminar();
+            }
+        }
+
+        private void enviarPendientes() throws IOException {
+            if (pendientes > 0) {
+                if (estado == Estado.COMPRIMIDA) {
+                    gzip.write(buffer, 0, pendientes);
+                } else {
+                    original().write(buffer, 0, pendientes);
+                }
+                pendientes = 0;
+            }
+            buffer = null;
+        }
+
+        private void reservar() {
+            if (buffer == null) {
+                buffer = new byte[umbral];
+            }
+        }
+
+        private ServletOutputStream original() throws IOException {
+            if (original == null) {
+                original = RespuestaComprimida.super.getOutputStream();
+            }
+            return original;
+        }
+    }
+}
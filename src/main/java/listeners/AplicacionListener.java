@@ -0,0 +1,132 @@
+package main.java.listeners;
+
+import main.java.controllers.AsyncRequestExecutor;
+import main.java.controllers.DifusorEventosContratos;
+import main.java.filters.CompresionFilter;
+import main.java.models.analytics.ContratoSnapshot;
+import main.java.models.audit.AuditoriaContratos;
+import main.java.models.services.ContratoService;
+import main.java.models.services.TareaVencimientos;
+import main.java.models.services.UsuarioService;
+import main.java.utils.AppConfig;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.MetricsRegistry;
+import main.java.utils.MigrationRunner;
+import main.java.utils.PlanificadorTareas;
+import main.java.utils.SqlTracer;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Listener del ciclo de vida de la aplicación.
+ * Prepara los recursos compartidos al desplegar la aplicación y los libera al detenerla.
+ */
+@WebListener
+public class AplicacionListener implements ServletContextListener {
+
+    private static final String RUTA_MIGRACIONES = "/WEB-INF/db/migrations/";
+
+    /**
+     * Se ejecuta al desplegar la aplicación. Abre el mínimo de conexiones del pool, aplica las migraciones
+     * de esquema pendientes (salvo con {@code sgc.db.migrar=false}), publica
+     * las estadísticas de las cachés en /metrics, conecta la instantánea analítica, el log de auditoría y los eventos
+     * en vivo de las listas a los cambios de contratos y programa la tarea diaria de avisos de vencimiento.
+     * Con {@code sgc.analytics.precargar} (activado por defecto) la instantánea se carga en segundo plano;
+     * si no, se carga en la primera consulta. Lo mismo ocurre con el diccionario de sugerencias de empresa y
+     * empleado y {@code sgc.sugerencias.precargar}.
+     *
+     * @param sce Evento con el contexto de la aplicación.
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        DatabaseConnection.inicializar();
+        if (AppConfig.getBoolean("sgc.db.migrar", true)) {
+            migrarEsquema(sce.getServletContext());
+        }
+        MetricsRegistry.registrarCache(UsuarioService.getCacheUsuarios());
+        MetricsRegistry.registrarCache(ContratoService.getCacheListados());
+        MetricsRegistry.registrarCache(ContratoService.getCacheVigencias());
+        MetricsRegistry.registrarCache(ContratoService.getCacheBusqueda());
+
+        ContratoService.registrarListener(ContratoSnapshot.getInstancia());
+        AuditoriaContratos.getInstancia().iniciar();
+        ContratoService.registrarListener(AuditoriaContratos.getInstancia());
+        DifusorEventosContratos.getInstancia().iniciar();
+        ContratoService.registrarListener(DifusorEventosContratos.getInstancia());
+        TareaVencimientos.programar();
+        if (AppConfig.getBoolean("sgc.analytics.precargar", true)) {
+            Thread carga = new Thread(ContratoSnapshot.getInstancia()::cargar, "sgc-analytics-carga");
+            carga.setDaemon(true);
+            carga.start();
+        }
+        if (AppConfig.getBoolean("sgc.sugerencias.precargar", true)) {
+            Thread carga = new Thread(ContratoService::precargarSugerencias, "sgc-sugerencias-carga");
+            carga.setDaemon(true);
+            carga.start();
+        }
+    }
+
+    /**
+     * Aplica las migraciones de {@code WEB-INF/db/migrations} que falten. Si alguna falla, la aplicación
+     * sigue iniciando con el esquema actual y el error queda en el log.
+     *
+     * @param contexto Contexto de la aplicación, del que se leen los archivos de migración.
+     */
+    private void migrarEsquema(ServletContext contexto) {
+        List<MigrationRunner.Migracion> migraciones = new ArrayList<>();
+        Set<String> rutas = contexto.getResourcePaths(RUTA_MIGRACIONES);
+        if (rutas != null) {
+            for (String ruta : rutas) {
+                try (InputStream entrada = contexto.getResourceAsStream(ruta)) {
+                    if (entrada == null) {
+                        continue;
+                    }
+                    String nombre = ruta.substring(ruta.lastIndexOf('/') + 1);
+                    MigrationRunner.Migracion migracion = MigrationRunner.Migracion.desdeArchivo(nombre,
+                            new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+                    if (migracion != null) {
+                        migraciones.add(migracion);
+                    }
+                } catch (IOException e) {
+                    System.err.println("No se pudo leer la migración " + ruta + ": " + e.getMessage());
+                    return;
+                }
+            }
+        }
+        if (!new MigrationRunner(migraciones).migrar()) {
+            System.err.println("El esquema de la base de datos no está al día; revise los errores de migración anteriores.");
+        }
+    }
+
+    /**
+     * Se ejecuta al detener la aplicación. Cierra las conexiones de eventos de contratos, detiene el procesamiento
+     * asíncrono, las tareas programadas y las operaciones masivas de contratos, escribe los eventos de auditoría
+     * pendientes, cierra el pool de conexiones, libera los compresores de respuestas y escribe el resumen de
+     * sentencias SQL en el log de consultas lentas.
+     *
+     * @param sce Evento con el contexto de la aplicación.
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ContratoService.quitarListener(ContratoSnapshot.getInstancia());
+        ContratoService.quitarListener(DifusorEventosContratos.getInstancia());
+        DifusorEventosContratos.getInstancia().detener();
+        AsyncRequestExecutor.shutdown();
+        PlanificadorTareas.shutdown();
+        ContratoService.shutdownOperacionesMasivas();
+        ContratoService.quitarListener(AuditoriaContratos.getInstancia());
+        AuditoriaContratos.getInstancia().detener();
+        DatabaseConnection.shutdown();
+        CompresionFilter.shutdown();
+        SqlTracer.shutdown();
+    }
+}
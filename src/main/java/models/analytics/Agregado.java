@@ -0,0 +1,66 @@
+package main.java.models.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Resultado de una agregación sobre {@link ContratoSnapshot}: número de contratos y suma, mínimo y máximo
+ * del monto, para todos los contratos filtrados o para un grupo (una empresa, una frecuencia de pago...).
+ * Los montos se guardan en centavos para sumar sin errores de redondeo.
+ */
+public class Agregado {
+    private final String clave;
+    private final long cantidad;
+    private final long sumaCentavos;
+    private final long minimoCentavos;
+    private final long maximoCentavos;
+
+    /**
+     * @param clave          El valor del grupo, o {@code null} si no se agrupó.
+     * @param cantidad       El número de contratos.
+     * @param sumaCentavos   La suma de los montos, en centavos.
+     * @param minimoCentavos El monto mínimo, en centavos (0 si no hay contratos).
+     * @param maximoCentavos El monto máximo, en centavos (0 si no hay contratos).
+     */
+    public Agregado(String clave, long cantidad, long sumaCentavos, long minimoCentavos, long maximoCentavos) {
+        this.clave = clave;
+        this.cantidad = cantidad;
+        this.sumaCentavos = sumaCentavos;
+        this.minimoCentavos = minimoCentavos;
+        this.maximoCentavos = maximoCentavos;
+    }
+
+    public String getClave() {
+        return clave;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public BigDecimal getTotalMonto() {
+        return BigDecimal.valueOf(sumaCentavos, 2);
+    }
+
+    /**
+     * @return El monto promedio, o 0 si no hay contratos.
+     */
+    public BigDecimal getPromedioMonto() {
+        return cantidad == 0 ? BigDecimal.ZERO.setScale(2)
+                : BigDecimal.valueOf(sumaCentavos, 2).divide(BigDecimal.valueOf(cantidad), 2, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal getMontoMinimo() {
+        return BigDecimal.valueOf(minimoCentavos, 2);
+    }
+
+    public BigDecimal getMontoMaximo() {
+        return BigDecimal.valueOf(maximoCentavos, 2);
+    }
+
+    @Override
+    public String toString() {
+        return "Agregado{clave='" + clave + "', cantidad=" + cantidad + ", total=" + getTotalMonto()
+                + ", min=" + getMontoMinimo() + ", max=" + getMontoMaximo() + '}';
+    }
+}
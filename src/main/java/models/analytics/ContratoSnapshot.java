@@ -0,0 +1,536 @@
+package main.java.models.analytics;
+
+import main.java.models.entities.Contrato;
+import main.java.models.repositories.ContratoRepository;
+import main.java.models.services.ContratoCambioListener;
+import main.java.utils.AppConfig;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Instantánea en memoria de la tabla Contrato, organizada por columnas, para consultas analíticas
+ * (suma, promedio, mínimo y máximo del monto en un rango de fechas, agrupado o no por empresa, frecuencia
+ * de pago o usuario) sin consultar MySQL.
+ * <p>
+ * Cada columna es un arreglo primitivo: el ID, el monto en centavos ({@code long}), las fechas como días
+ * desde la época ({@code int}) y las columnas de texto codificadas con un diccionario ({@code int}).
+ * Las consultas recorren los arreglos sin crear objetos por fila y, a partir de {@code sgc.analytics.filasPorBloque}
+ * filas, en paralelo por bloques en el {@link java.util.concurrent.ForkJoinPool} común.
+ * <p>
+ * La instantánea se carga desde {@link ContratoRepository} y después se mantiene al día como
+ * {@link ContratoCambioListener}. Las filas eliminadas se marcan y se compactan cuando superan un cuarto del total.
+ * Las filas se mantienen ordenadas por ID para localizar un contrato con búsqueda binaria.
+ */
+public final class ContratoSnapshot implements ContratoCambioListener {
+
+    /**
+     * Fecha por la que se filtran los contratos. {@code VIGENCIA} selecciona los contratos cuyo período
+     * [inicio, fin] se superpone con el rango consultado.
+     */
+    public enum CampoFecha { FIRMA, INICIO, FIN, VIGENCIA }
+
+    /**
+     * Columna por la que se agrupan los resultados.
+     */
+    public enum Dimension { EMPRESA, FRECUENCIA, USUARIO }
+
+    private static final int FILAS_POR_BLOQUE = Math.max(1024, AppConfig.getInt("sgc.analytics.filasPorBloque", 1 << 16));
+    private static final int CAPACIDAD_INICIAL = 1024;
+    // Mínimo de filas eliminadas antes de compactar, para no compactar instantáneas pequeñas en cada baja
+    private static final int MIN_ELIMINADAS_COMPACTAR = 1024;
+
+    // Posiciones de cada grupo en el arreglo de acumulados: cantidad, suma, mínimo y máximo
+    private static final int CANTIDAD = 0;
+    private static final int SUMA = 1;
+    private static final int MINIMO = 2;
+    private static final int MAXIMO = 3;
+    private static final int CAMPOS = 4;
+
+    private static final ContratoSnapshot INSTANCIA = new ContratoSnapshot();
+
+    private static final LatencyHistogram LATENCIA_CONSULTA = MetricsRegistry.histograma(
+            "sgc_analytics_query_seconds", "Duración de las consultas sobre la instantánea columnar de contratos.");
+    private static final LatencyHistogram LATENCIA_CARGA = MetricsRegistry.histograma(
+            "sgc_analytics_load_seconds", "Duración de la carga completa de la instantánea columnar de contratos.");
+
+    static {
+        MetricsRegistry.gauge("sgc_analytics_rows", "Contratos en la instantánea columnar.", () -> INSTANCIA.getFilas());
+    }
+
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final Object bloqueoCarga = new Object(); // Evita dos cargas completas simultáneas
+    private final ContratoRepository contratoRepository = new ContratoRepository();
+
+    private Columnas columnas; // null hasta la primera carga completa
+    private List<Consumer<Columnas>> pendientes; // Cambios recibidos durante una carga, para aplicarlos al terminar
+
+    private ContratoSnapshot() {
+    }
+
+    /**
+     * @return La instantánea compartida por toda la aplicación.
+     */
+    public static ContratoSnapshot getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * @return {@code true} si la instantánea ya se cargó y puede responder consultas.
+     */
+    public boolean estaCargada() {
+        bloqueo.readLock().lock();
+        try {
+            return columnas != null;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return El número de contratos en la instantánea (0 si aún no se cargó).
+     */
+    public long getFilas() {
+        bloqueo.readLock().lock();
+        try {
+            return columnas == null ? 0 : columnas.n - columnas.eliminadas;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Carga (o recarga) la instantánea completa recorriendo la tabla Contrato en streaming.
+     * Mientras se carga, las consultas usan la instantánea anterior, y los cambios que llegan se aplican a
+     * ambas para que la nueva no pierda los confirmados durante el recorrido.
+     *
+     * @return {@code true} si la carga terminó, {@code false} si falló (se conserva la instantánea anterior).
+     */
+    @SuppressWarnings("try")
+    public boolean cargar() {
+        synchronized (bloqueoCarga) {
+            bloqueo.writeLock().lock();
+            try {
+                pendientes = new ArrayList<>();
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+
+            Columnas nuevas = new Columnas(CAPACIDAD_INICIAL);
+            boolean completa;
+            // Del primario: los cambios recibidos durante la carga se aplican encima y deben partir del estado confirmado
+            try (LatencyHistogram.Medicion medicion = LATENCIA_CARGA.medir();
+                 DatabaseConnection.AmbitoPrimario primario = DatabaseConnection.leerDelPrimario()) {
+                completa = contratoRepository.streamContratos(null, nuevas::guardar);
+            } catch (IOException e) {
+                completa = false; // guardar no escribe en ningún flujo, no debería ocurrir
+            }
+
+            bloqueo.writeLock().lock();
+            try {
+                if (completa) {
+                    for (Consumer<Columnas> cambio : pendientes) {
+                        cambio.accept(nuevas);
+                    }
+                    columnas = nuevas;
+                }
+                pendientes = null;
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+            if (!completa) {
+                System.err.println("No se pudo cargar la instantánea analítica de contratos.");
+            }
+            return completa;
+        }
+    }
+
+    /**
+     * Carga la instantánea si aún no se cargó. Si varias consultas llegan a la vez, solo la primera la carga.
+     *
+     * @return {@code true} si la instantánea está disponible.
+     */
+    private boolean asegurarCargada() {
+        if (estaCargada()) {
+            return true;
+        }
+        synchronized (bloqueoCarga) {
+            return estaCargada() || cargar();
+        }
+    }
+
+    /**
+     * Calcula la cantidad de contratos y el total, mínimo y máximo del monto en un rango de fechas.
+     * Si la instantánea no se ha cargado, la carga primero.
+     *
+     * @param campo La fecha por la que se filtra.
+     * @param desde Primer día del rango (incluido), o {@code null} para no acotar.
+     * @param hasta Último día del rango (incluido), o {@code null} para no acotar.
+     * @return El {@link Agregado} de todos los contratos del rango, o {@code null} si la instantánea no está disponible.
+     */
+    public Agregado totales(CampoFecha campo, LocalDate desde, LocalDate hasta) {
+        List<Agregado> resultado = consultar(campo, desde, hasta, null);
+        return resultado == null ? null : resultado.get(0);
+    }
+
+    /**
+     * Igual que {@link #totales(CampoFecha, LocalDate, LocalDate)}, pero con un resultado por cada valor de la
+     * dimensión indicada, ordenados de mayor a menor monto total. Los grupos sin contratos en el rango se omiten.
+     *
+     * @return Los agregados por grupo, o {@code null} si la instantánea no está disponible.
+     */
+    public List<Agregado> agrupar(Dimension dimension, CampoFecha campo, LocalDate desde, LocalDate hasta) {
+        return consultar(campo, desde, hasta, dimension);
+    }
+
+    @SuppressWarnings("try")
+    private List<Agregado> consultar(CampoFecha campo, LocalDate desde, LocalDate hasta, Dimension dimension) {
+        if (!asegurarCargada()) {
+            return null;
+        }
+        int diaDesde = desde == null ? Integer.MIN_VALUE : (int) desde.toEpochDay();
+        int diaHasta = hasta == null ? Integer.MAX_VALUE : (int) hasta.toEpochDay();
+
+        try (LatencyHistogram.Medicion medicion = LATENCIA_CONSULTA.medir()) {
+            bloqueo.readLock().lock();
+            try {
+                Columnas c = columnas;
+                // Un campo de fecha simple se filtra con a = b = esa columna: fecha <= hasta y fecha >= desde
+                int[] a;
+                int[] b;
+                switch (campo) {
+                    case FIRMA:
+                        a = b = c.firma;
+                        break;
+                    case INICIO:
+                        a = b = c.inicio;
+                        break;
+                    case FIN:
+                        a = b = c.fin;
+                        break;
+                    default: // VIGENCIA: inicio <= hasta y fin >= desde
+                        a = c.inicio;
+                        b = c.fin;
+                        break;
+                }
+                Diccionario diccionario = dimension == null ? null : c.diccionario(dimension);
+                int[] grupos = dimension == null ? null : c.codigos(dimension);
+                int numGrupos = dimension == null ? 1 : diccionario.tamano();
+
+                long[] acumulados = escanear(c, a, b, diaDesde, diaHasta, grupos, numGrupos);
+
+                List<Agregado> resultado = new ArrayList<>(numGrupos);
+                for (int g = 0; g < numGrupos; g++) {
+                    int base = g * CAMPOS;
+                    long cantidad = acumulados[base + CANTIDAD];
+                    if (cantidad > 0 || dimension == null) {
+                        resultado.add(new Agregado(dimension == null ? null : diccionario.valor(g), cantidad,
+                                acumulados[base + SUMA],
+                                cantidad > 0 ? acumulados[base + MINIMO] : 0,
+                                cantidad > 0 ? acumulados[base + MAXIMO] : 0));
+                    }
+                }
+                if (dimension != null) {
+                    resultado.sort(Comparator.comparing(Agregado::getTotalMonto).reversed());
+                }
+                return resultado;
+            } finally {
+                bloqueo.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Recorre todas las filas, en paralelo por bloques si hay más de un bloque, y combina los acumulados.
+     */
+    private static long[] escanear(Columnas c, int[] a, int[] b, int diaDesde, int diaHasta, int[] grupos, int numGrupos) {
+        int n = c.n;
+        int bloques = (n + FILAS_POR_BLOQUE - 1) / FILAS_POR_BLOQUE;
+        if (bloques <= 1) {
+            return escanearBloque(c, a, b, diaDesde, diaHasta, grupos, numGrupos, 0, n);
+        }
+        return IntStream.range(0, bloques).parallel()
+                .mapToObj(bloque -> escanearBloque(c, a, b, diaDesde, diaHasta, grupos, numGrupos,
+                        bloque * FILAS_POR_BLOQUE, Math.min(n, (bloque + 1) * FILAS_POR_BLOQUE)))
+                .reduce(ContratoSnapshot::combinar)
+                .orElseGet(() -> nuevosAcumulados(numGrupos));
+    }
+
+    /**
+     * Acumula las filas [desde, hasta) que cumplen el filtro de fechas. No crea objetos por fila.
+     */
+    private static long[] escanearBloque(Columnas c, int[] a, int[] b, int diaDesde, int diaHasta,
+                                         int[] grupos, int numGrupos, int desde, int hasta) {
+        long[] acumulados = nuevosAcumulados(numGrupos);
+        boolean[] viva = c.viva;
+        long[] monto = c.montoCentavos;
+        for (int i = desde; i < hasta; i++) {
+            if (viva[i] && a[i] <= diaHasta && b[i] >= diaDesde) {
+                int base = grupos == null ? 0 : grupos[i] * CAMPOS;
+                long m = monto[i];
+                acumulados[base + CANTIDAD]++;
+                acumulados[base + SUMA] += m;
+                if (m < acumulados[base + MINIMO]) {
+                    acumulados[base + MINIMO] = m;
+                }
+                if (m > acumulados[base + MAXIMO]) {
+                    acumulados[base + MAXIMO] = m;
+                }
+            }
+        }
+        return acumulados;
+    }
+
+    private static long[] nuevosAcumulados(int numGrupos) {
+        long[] acumulados = new long[numGrupos * CAMPOS];
+        for (int base = 0; base < acumulados.length; base += CAMPOS) {
+            acumulados[base + MINIMO] = Long.MAX_VALUE;
+            acumulados[base + MAXIMO] = Long.MIN_VALUE;
+        }
+        return acumulados;
+    }
+
+    private static long[] combinar(long[] x, long[] y) {
+        for (int base = 0; base < x.length; base += CAMPOS) {
+            x[base + CANTIDAD] += y[base + CANTIDAD];
+            x[base + SUMA] += y[base + SUMA];
+            x[base + MINIMO] = Math.min(x[base + MINIMO], y[base + MINIMO]);
+            x[base + MAXIMO] = Math.max(x[base + MAXIMO], y[base + MAXIMO]);
+        }
+        return x;
+    }
+
+    // --- ContratoCambioListener: mantiene la instantánea al día tras cada cambio confirmado ---
+
+    @Override
+    public void contratoCreado(Contrato contrato) {
+        Contrato copia = copiar(contrato);
+        aplicar(c -> c.guardar(copia));
+    }
+
+    @Override
+    public void contratoActualizado(Contrato anterior, Contrato nuevo) {
+        Contrato copia = copiar(nuevo);
+        aplicar(c -> c.guardar(copia));
+    }
+
+    @Override
+    public void contratoEliminado(Contrato eliminado) {
+        int id = eliminado.getId();
+        aplicar(c -> c.eliminar(id));
+    }
+
+    /**
+     * Aplica un cambio a la instantánea actual y, si hay una carga en curso, lo guarda para aplicarlo también a la nueva.
+     * Los cambios son idempotentes (guardar o eliminar por ID), así que aplicarlo a una fila que la carga ya leyó actualizada no tiene efecto.
+     */
+    private void aplicar(Consumer<Columnas> cambio) {
+        bloqueo.writeLock().lock();
+        try {
+            if (columnas != null) {
+                cambio.accept(columnas);
+            }
+            if (pendientes != null) {
+                pendientes.add(cambio);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    private static Contrato copiar(Contrato c) {
+        return new Contrato(c.getId(), c.getFecha_firma(), c.getFecha_inicio(), c.getFecha_fin(), c.getEmpresa(),
+                c.getEmpleado(), null, c.getMonto(), c.getFrecuencia_de_pago(), c.getUsuarioUsername());
+    }
+
+    /**
+     * Las columnas de la instantánea. Las filas [0, n) están ordenadas por ID; las eliminadas tienen {@code viva = false}.
+     */
+    private static final class Columnas {
+        private int n;
+        private int eliminadas;
+        private int[] id;
+        private long[] montoCentavos;
+        private int[] firma;
+        private int[] inicio;
+        private int[] fin;
+        private int[] empresa;
+        private int[] frecuencia;
+        private int[] usuario;
+        private boolean[] viva;
+        private final Diccionario empresas = new Diccionario();
+        private final Diccionario frecuencias = new Diccionario();
+        private final Diccionario usuarios = new Diccionario();
+
+        private Columnas(int capacidad) {
+            id = new int[capacidad];
+            montoCentavos = new long[capacidad];
+            firma = new int[capacidad];
+            inicio = new int[capacidad];
+            fin = new int[capacidad];
+            empresa = new int[capacidad];
+            frecuencia = new int[capacidad];
+            usuario = new int[capacidad];
+            viva = new boolean[capacidad];
+        }
+
+        /**
+         * Agrega el contrato o, si ya existe una fila con su ID, la reemplaza.
+         * Los IDs nuevos suelen ser mayores que todos los existentes, así que normalmente se agrega al final.
+         */
+        private void guardar(Contrato contrato) {
+            int fila = n > 0 && id[n - 1] < contrato.getId() ? -(n + 1) : Arrays.binarySearch(id, 0, n, contrato.getId());
+            if (fila < 0) {
+                fila = -(fila + 1);
+                abrirHueco(fila);
+                id[fila] = contrato.getId();
+            } else if (!viva[fila]) {
+                eliminadas--;
+            }
+            montoCentavos[fila] = Math.round(contrato.getMonto() * 100);
+            firma[fila] = diaEpoca(contrato.getFecha_firma());
+            inicio[fila] = diaEpoca(contrato.getFecha_inicio());
+            fin[fila] = diaEpoca(contrato.getFecha_fin());
+            empresa[fila] = empresas.codigo(contrato.getEmpresa());
+            frecuencia[fila] = frecuencias.codigo(contrato.getFrecuencia_de_pago());
+            usuario[fila] = usuarios.codigo(contrato.getUsuarioUsername());
+            viva[fila] = true;
+        }
+
+        private void eliminar(int idContrato) {
+            int fila = Arrays.binarySearch(id, 0, n, idContrato);
+            if (fila >= 0 && viva[fila]) {
+                viva[fila] = false;
+                eliminadas++;
+                if (eliminadas >= MIN_ELIMINADAS_COMPACTAR && eliminadas > n / 4) {
+                    compactar();
+                }
+            }
+        }
+
+        private void abrirHueco(int fila) {
+            if (n == id.length) {
+                redimensionar(Math.max(CAPACIDAD_INICIAL, n + (n >> 1)));
+            }
+            if (fila < n) {
+                int mover = n - fila;
+                System.arraycopy(id, fila, id, fila + 1, mover);
+                System.arraycopy(montoCentavos, fila, montoCentavos, fila + 1, mover);
+                System.arraycopy(firma, fila, firma, fila + 1, mover);
+                System.arraycopy(inicio, fila, inicio, fila + 1, mover);
+                System.arraycopy(fin, fila, fin, fila + 1, mover);
+                System.arraycopy(empresa, fila, empresa, fila + 1, mover);
+                System.arraycopy(frecuencia, fila, frecuencia, fila + 1, mover);
+                System.arraycopy(usuario, fila, usuario, fila + 1, mover);
+                System.arraycopy(viva, fila, viva, fila + 1, mover);
+            }
+            n++;
+        }
+
+        private void redimensionar(int capacidad) {
+            id = Arrays.copyOf(id, capacidad);
+            montoCentavos = Arrays.copyOf(montoCentavos, capacidad);
+            firma = Arrays.copyOf(firma, capacidad);
+            inicio = Arrays.copyOf(inicio, capacidad);
+            fin = Arrays.copyOf(fin, capacidad);
+            empresa = Arrays.copyOf(empresa, capacidad);
+            frecuencia = Arrays.copyOf(frecuencia, capacidad);
+            usuario = Arrays.copyOf(usuario, capacidad);
+            viva = Arrays.copyOf(viva, capacidad);
+        }
+
+        /**
+         * Quita las filas eliminadas conservando el orden por ID.
+         */
+        private void compactar() {
+            int destino = 0;
+            for (int i = 0; i < n; i++) {
+                if (viva[i]) {
+                    if (destino != i) {
+                        id[destino] = id[i];
+                        montoCentavos[destino] = montoCentavos[i];
+                        firma[destino] = firma[i];
+                        inicio[destino] = inicio[i];
+                        fin[destino] = fin[i];
+                        empresa[destino] = empresa[i];
+                        frecuencia[destino] = frecuencia[i];
+                        usuario[destino] = usuario[i];
+                        viva[destino] = true;
+                    }
+                    destino++;
+                }
+            }
+            Arrays.fill(viva, destino, n, false);
+            n = destino;
+            eliminadas = 0;
+        }
+
+        private Diccionario diccionario(Dimension dimension) {
+            switch (dimension) {
+                case EMPRESA:
+                    return empresas;
+                case FRECUENCIA:
+                    return frecuencias;
+                default:
+                    return usuarios;
+            }
+        }
+
+        private int[] codigos(Dimension dimension) {
+            switch (dimension) {
+                case EMPRESA:
+                    return empresa;
+                case FRECUENCIA:
+                    return frecuencia;
+                default:
+                    return usuario;
+            }
+        }
+
+        private static int diaEpoca(Date fecha) {
+            return fecha == null ? 0 : (int) fecha.toLocalDate().toEpochDay();
+        }
+    }
+
+    /**
+     * Codificación por diccionario de una columna de texto: cada valor distinto recibe un código consecutivo.
+     * Los códigos no se reutilizan; un valor que deja de usarse simplemente no aparece en los resultados.
+     * Los valores nulos se codifican como la cadena vacía.
+     */
+    private static final class Diccionario {
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> valores = new ArrayList<>();
+
+        private int codigo(String valor) {
+            String clave = valor == null ? "" : valor;
+            Integer codigo = codigos.get(clave);
+            if (codigo == null) {
+                codigo = valores.size();
+                codigos.put(clave, codigo);
+                valores.add(clave);
+            }
+            return codigo;
+        }
+
+        private String valor(int codigo) {
+            return valores.get(codigo);
+        }
+
+        private int tamano() {
+            return valores.size();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package main.java.models.audit;
+
+import main.java.models.entities.Contrato;
+import main.java.models.services.ContratoCambioListener;
+import main.java.utils.AnilloMpsc;
+import main.java.utils.AppConfig;
+import main.java.utils.ContextoPeticion;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log de auditoría de los cambios de contratos: quién creó, modificó o eliminó cada contrato, con sus valores antes
+ * y después del cambio.
+ * <p>
+ * Como {@link ContratoCambioListener}, recibe los cambios ya confirmados en el hilo de la petición y solo los deja en
+ * un {@link AnilloMpsc} de {@code sgc.audit.queue} eventos: la petición nunca espera por la escritura. Si el anillo
+ * está lleno, el evento se descarta y se cuenta en {@code sgc_audit_events_dropped_total}. Un hilo propio saca los
+ * eventos por lotes y los agrega como JSON, con un CRC por registro, a segmentos de {@code sgc.audit.segmentBytes}
+ * bytes mapeados en memoria en {@code sgc.audit.dir}; cuando un segmento se llena se pasa al siguiente. Los segmentos
+ * se fuerzan al disco cada {@code sgc.audit.forceMs} ms: una caída del proceso no pierde lo ya escrito en el
+ * segmento, pero un corte de energía puede perder ese último intervalo.
+ * <p>
+ * El usuario que hizo el cambio se toma de {@link ContextoPeticion}; los cambios hechos fuera de una petición se
+ * registran sin actor. Los segmentos se leen con {@link LectorAuditoria}. Se desactiva con
+ * {@code sgc.audit.enabled=false}.
+ */
+public final class AuditoriaContratos implements ContratoCambioListener {
+
+    private static final boolean HABILITADO = AppConfig.getBoolean("sgc.audit.enabled", true);
+    private static final int TAMANO_SEGMENTO = AppConfig.getInt("sgc.audit.segmentBytes", 16 * 1024 * 1024);
+    private static final int CAPACIDAD_COLA = AppConfig.getInt("sgc.audit.queue", 8192);
+    private static final long FORZAR_NANOS = TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("sgc.audit.forceMs", 1_000));
+    private static final int MAXIMO_LOTE = 1024; // Eventos por lote de escritura
+    private static final long ESPERA_NANOS = TimeUnit.MILLISECONDS.toNanos(5); // Espera del hilo con la cola vacía
+    private static final long ESPERA_CIERRE_MS = 5_000;
+
+    private static final AuditoriaContratos INSTANCIA = new AuditoriaContratos();
+
+    private static final LongAdder ESCRITOS = MetricsRegistry.contador("sgc_audit_events_written_total",
+            "Eventos de auditoría escritos en los segmentos.");
+    private static final LongAdder DESCARTADOS_COLA = MetricsRegistry.contador("sgc_audit_events_dropped_total",
+            "Eventos de auditoría descartados.", "motivo", "cola_llena");
+    private static final LongAdder DESCARTADOS_ERROR = MetricsRegistry.contador("sgc_audit_events_dropped_total",
+            "Eventos de auditoría descartados.", "motivo", "error_escritura");
+    private static final LongAdder SEGMENTOS = MetricsRegistry.contador("sgc_audit_segments_total",
+            "Segmentos del log de auditoría creados.");
+    private static final LatencyHistogram LATENCIA_LOTE = MetricsRegistry.histograma("sgc_audit_batch_write_seconds",
+            "Duración de la escritura de cada lote de eventos de auditoría.");
+
+    static {
+        MetricsRegistry.gauge("sgc_audit_queue_depth", "Eventos de auditoría en cola, pendientes de escribir.",
+                () -> INSTANCIA.cola.getTamano());
+    }
+
+    private final AnilloMpsc<EventoAuditoria> cola = new AnilloMpsc<>(CAPACIDAD_COLA);
+    private final Path directorio = SegmentoAuditoria.directorioConfigurado();
+    private volatile boolean activo;
+    private Thread hilo;
+
+    // Solo los usa el hilo de escritura
+    private final List<EventoAuditoria> lote = new ArrayList<>(MAXIMO_LOTE);
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+    private final Writer texto = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+    private SegmentoAuditoria segmento;
+    private long ultimoForzado = System.nanoTime();
+    private long erroresSeguidos;
+
+    private AuditoriaContratos() {
+    }
+
+    public static AuditoriaContratos getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Inicia el hilo de escritura. Sin efecto si ya está iniciado o si la auditoría está desactivada.
+     */
+    public synchronized void iniciar() {
+        if (!HABILITADO || activo) {
+            return;
+        }
+        activo = true;
+        hilo = new Thread(this::escribirEnBucle, "sgc-auditoria");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Escribe los eventos pendientes, fuerza el segmento al disco y detiene el hilo de escritura.
+     * Se llama al detener la aplicación.
+     */
+    public synchronized void detener() {
+        if (!activo) {
+            return;
+        }
+        activo = false;
+        LockSupport.unpark(hilo);
+        try {
+            hilo.join(ESPERA_CIERRE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (hilo.isAlive()) {
+            System.err.println("El hilo de auditoría no terminó en " + ESPERA_CIERRE_MS + " ms; pueden perderse eventos en cola.");
+        }
+    }
+
+    @Override
+    public void contratoCreado(Contrato contrato) {
+        encolar(EventoAuditoria.Accion.CREAR, null, copiar(contrato));
+    }
+
+    @Override
+    public void contratoActualizado(Contrato anterior, Contrato nuevo) {
+        encolar(EventoAuditoria.Accion.ACTUALIZAR, copiar(anterior), copiar(nuevo));
+    }
+
+    @Override
+    public void contratoEliminado(Contrato eliminado) {
+        encolar(EventoAuditoria.Accion.ELIMINAR, copiar(eliminado), null);
+    }
+
+    private void encolar(EventoAuditoria.Accion accion, Contrato antes, Contrato despues) {
+        if (!activo) {
+            return;
+        }
+        ContextoPeticion contexto = ContextoPeticion.actual();
+        EventoAuditoria evento = new EventoAuditoria(System.currentTimeMillis(),
+                contexto != null ? contexto.getUsuario() : null, accion, antes, despues);
+        if (!cola.ofrecer(evento)) {
+            DESCARTADOS_COLA.increment();
+        }
+    }
+
+    private void escribirEnBucle() {
+        try {
+            while (activo) {
+                if (cola.drenar(lote::add, MAXIMO_LOTE) > 0) {
+                    escribirLote();
+                } else {
+                    forzarSiToca();
+                    LockSupport.parkNanos(ESPERA_NANOS);
+                }
+            }
+            // Al detener: lo que quede en la cola
+            while (cola.drenar(lote::add, MAXIMO_LOTE) > 0) {
+                escribirLote();
+            }
+        } finally {
+            forzar();
+        }
+    }
+
+    @SuppressWarnings("try")
+    private void escribirLote() {
+        int escritos = 0;
+        try (LatencyHistogram.Medicion medicion = LATENCIA_LOTE.medir()) {
+            for (EventoAuditoria evento : lote) {
+                escribir(evento);
+                escritos++;
+            }
+            erroresSeguidos = 0;
+        } catch (IOException | RuntimeException e) {
+            DESCARTADOS_ERROR.add(lote.size() - escritos);
+            // Se informa el primer error de una racha y luego uno de cada mil, para no llenar el log
+            if (erroresSeguidos++ % 1000 == 0) {
+                System.err.println("Error al escribir el log de auditoría en " + directorio + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+            cerrarSegmento(); // Se reintenta con un segmento nuevo en el próximo lote
+        } finally {
+            lote.clear();
+        }
+        forzarSiToca();
+    }
+
+    private void escribir(EventoAuditoria evento) throws IOException {
+        bytes.reset();
+        evento.escribirJson(texto);
+        byte[] datos = bytes.toByteArray();
+        if (datos.length > SegmentoAuditoria.maximoDatos(TAMANO_SEGMENTO)) {
+            throw new IOException("Evento de auditoría de " + datos.length + " bytes, mayor que un segmento.");
+        }
+        if (segmento == null || !segmento.agregar(datos, datos.length)) {
+            rotar();
+            segmento.agregar(datos, datos.length);
+        }
+        ESCRITOS.increment();
+    }
+
+    /**
+     * Cierra el segmento actual (forzándolo al disco) y crea el siguiente. Al iniciar, el primer segmento toma el
+     * número siguiente al del último segmento del directorio: nunca se reescribe un segmento existente.
+     */
+    private void rotar() throws IOException {
+        long siguiente;
+        if (segmento != null) {
+            forzar();
+            segmento.cerrar();
+            siguiente = segmento.getNumero() + 1;
+        } else {
+            Files.createDirectories(directorio);
+            List<Path> existentes = SegmentoAuditoria.listar(directorio);
+            siguiente = existentes.isEmpty() ? 1 : SegmentoAuditoria.numeroDe(existentes.get(existentes.size() - 1)) + 1;
+        }
+        segmento = SegmentoAuditoria.crear(directorio, siguiente, TAMANO_SEGMENTO);
+        SEGMENTOS.increment();
+    }
+
+    /**
+     * Abandona el segmento actual después de un error de escritura: lleva al disco lo que se alcanzó a escribir y lo
+     * cierra. El próximo lote empieza un segmento nuevo.
+     */
+    private void cerrarSegmento() {
+        if (segmento == null) {
+            return;
+        }
+        forzar();
+        segmento.cerrar();
+        segmento = null;
+    }
+
+    private void forzarSiToca() {
+        if (segmento != null && segmento.isPendienteForzar() && System.nanoTime() - ultimoForzado >= FORZAR_NANOS) {
+            forzar();
+        }
+    }
+
+    private void forzar() {
+        ultimoForzado = System.nanoTime();
+        if (segmento == null) {
+            return;
+        }
+        try {
+            segmento.forzar();
+        } catch (RuntimeException e) {
+            System.err.println("No se pudo llevar al disco el segmento de auditoría " + segmento.getArchivo() + ": " + e.getMessage());
+        }
+    }
+
+    private static Contrato copiar(Contrato c) {
+        return new Contrato(c.getId(), c.getFecha_firma(), c.getFecha_inicio(), c.getFecha_fin(), c.getEmpresa(),
+                c.getEmpleado(), c.getFunciones(), c.getMonto(), c.getFrecuencia_de_pago(), c.getUsuarioUsername());
+    }
+}
@@ -0,0 +1,81 @@
+package main.java.models.audit;
+
+import main.java.models.entities.Contrato;
+import main.java.utils.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Un cambio de contrato pendiente de escribir en el log de auditoría. Guarda copias de los contratos, porque los que
+ * reciben los listeners no deben conservarse; la conversión a JSON se hace en el hilo de escritura.
+ */
+final class EventoAuditoria {
+
+    /**
+     * Operación registrada.
+     */
+    enum Accion {
+        CREAR, ACTUALIZAR, ELIMINAR
+    }
+
+    private final long instante;
+    private final String actor;
+    private final Accion accion;
+    private final Contrato antes;
+    private final Contrato despues;
+
+    EventoAuditoria(long instante, String actor, Accion accion, Contrato antes, Contrato despues) {
+        this.instante = instante;
+        this.actor = actor;
+        this.accion = accion;
+        this.antes = antes;
+        this.despues = despues;
+    }
+
+    /**
+     * Escribe el evento como objeto JSON:
+     * {@code {"ts": ms, "actor": usuario|null, "accion": ..., "id": n, "antes": {...}|null, "despues": {...}|null}}.
+     *
+     * @param destino Donde se escribe el JSON.
+     * @throws IOException Si falla la escritura.
+     */
+    void escribirJson(Writer destino) throws IOException {
+        JsonWriter json = new JsonWriter(destino);
+        json.inicioObjeto()
+                .nombre("ts").valor(instante)
+                .nombre("actor").valor(actor)
+                .nombre("accion").valor(accion.name())
+                .nombre("id").valor((despues != null ? despues : antes).getId())
+                .nombre("antes");
+        escribirContrato(json, antes);
+        json.nombre("despues");
+        escribirContrato(json, despues);
+        json.finObjeto();
+        json.flush();
+    }
+
+    private static void escribirContrato(JsonWriter json, Contrato contrato) throws IOException {
+        if (contrato == null) {
+            json.valorNulo();
+            return;
+        }
+        json.inicioObjeto()
+                .nombre("fecha_firma").valor(texto(contrato.getFecha_firma()))
+                .nombre("fecha_inicio").valor(texto(contrato.getFecha_inicio()))
+                .nombre("fecha_fin").valor(texto(contrato.getFecha_fin()))
+                .nombre("empresa").valor(contrato.getEmpresa())
+                .nombre("empleado").valor(contrato.getEmpleado())
+                .nombre("funciones").valor(contrato.getFunciones())
+                .nombre("monto").valorCrudo(BigDecimal.valueOf(contrato.getMonto()).setScale(2, RoundingMode.HALF_UP).toPlainString())
+                .nombre("frecuencia_de_pago").valor(contrato.getFrecuencia_de_pago())
+                .nombre("usuario_username").valor(contrato.getUsuarioUsername())
+                .finObjeto();
+    }
+
+    private static String texto(Object valor) {
+        return valor != null ? valor.toString() : null;
+    }
+}
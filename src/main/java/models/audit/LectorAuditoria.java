@@ -0,0 +1,68 @@
+package main.java.models.audit;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Herramienta de línea de comandos que lee los segmentos del log de auditoría de {@link AuditoriaContratos}
+ * y escribe un evento JSON por línea en la salida estándar, en el orden en que se registraron.
+ * <p>
+ * Uso: {@code java -cp ... main.java.models.audit.LectorAuditoria [directorio|segmento] [--contrato <id>]}.
+ * Sin argumentos lee {@code sgc.audit.dir}. Verifica el CRC de cada registro: la lectura de un segmento termina en el
+ * primer registro dañado, lo que se informa en la salida de errores junto con el resumen. Termina con código 1 si
+ * algún segmento tenía registros dañados o un formato desconocido.
+ */
+public final class LectorAuditoria {
+
+    private LectorAuditoria() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path ruta = SegmentoAuditoria.directorioConfigurado();
+        Long contrato = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--contrato") && i + 1 < args.length) {
+                contrato = Long.valueOf(args[++i]);
+            } else {
+                ruta = Paths.get(args[i]);
+            }
+        }
+
+        List<Path> segmentos = Files.isDirectory(ruta) ? SegmentoAuditoria.listar(ruta) : Collections.singletonList(ruta);
+        if (segmentos.isEmpty()) {
+            System.err.println("No hay segmentos de auditoría en " + ruta);
+            return;
+        }
+        // El escritor genera el JSON siempre igual, así que el ID del contrato se reconoce sin interpretar el registro
+        String marca = contrato != null ? ",\"id\":" + contrato + "," : null;
+        PrintStream salida = new PrintStream(System.out, false, StandardCharsets.UTF_8.name());
+        long[] registros = {0};
+        int danados = 0;
+        for (Path segmento : segmentos) {
+            SegmentoAuditoria.FinLectura fin = SegmentoAuditoria.leer(segmento, (datos, posicion) -> {
+                String evento = new String(datos, StandardCharsets.UTF_8);
+                registros[0]++;
+                if (marca == null || evento.contains(marca)) {
+                    salida.println(evento);
+                }
+            });
+            if (fin != SegmentoAuditoria.FinLectura.COMPLETA) {
+                danados++;
+                System.err.println(segmento.getFileName() + ": " + (fin == SegmentoAuditoria.FinLectura.REGISTRO_DANADO
+                        ? "registro dañado o incompleto; se ignora el resto del segmento" : "formato desconocido"));
+            }
+        }
+        salida.flush();
+        System.err.println(registros[0] + " registro(s) en " + segmentos.size() + " segmento(s)"
+                + (danados > 0 ? ", " + danados + " con errores" : "") + ".");
+        if (danados > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package main.java.models.audit;
+
+import main.java.utils.AppConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Archivo de segmento del log de auditoría, de tamaño fijo y mapeado en memoria, en el que solo se agregan registros.
+ * <p>
+ * Formato: un encabezado de {@value #TAMANO_ENCABEZADO} bytes (identificador {@code SGCA}, versión y número de
+ * segmento) seguido de registros {@code [longitud int][CRC32C int][datos]}, en orden big-endian. El archivo se crea
+ * con su tamaño final lleno de ceros, así que una longitud 0 marca el final de los registros. Un registro cuyo CRC no
+ * coincide (por ejemplo, escrito a medias antes de una caída) también se considera el final del segmento.
+ * <p>
+ * Escribir en el segmento es copiar en memoria: el sistema operativo lleva las páginas al disco, y
+ * {@link #forzar()} lo obliga a hacerlo. No es seguro para usarse desde varios hilos a la vez.
+ */
+final class SegmentoAuditoria {
+
+    static final int MAGICO = 0x53474341; // "SGCA"
+    static final int VERSION = 1;
+    static final int TAMANO_ENCABEZADO = 16;
+    static final int TAMANO_CABECERA_REGISTRO = 8;
+    static final String PREFIJO = "auditoria-";
+    static final String EXTENSION = ".seg";
+
+    private final Path archivo;
+    private final long numero;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    private boolean pendienteForzar;
+    private boolean cerrado;
+
+    private SegmentoAuditoria(Path archivo, long numero, MappedByteBuffer buffer) {
+        this.archivo = archivo;
+        this.numero = numero;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Crea un segmento nuevo en el directorio.
+     *
+     * @param directorio Directorio de los segmentos.
+     * @param numero     Número del segmento; forma parte del nombre del archivo.
+     * @param tamano     Tamaño del archivo en bytes.
+     * @return El segmento, listo para escribir después del encabezado.
+     * @throws IOException Si no se puede crear o mapear el archivo (o ya existe).
+     */
+    static SegmentoAuditoria crear(Path directorio, long numero, int tamano) throws IOException {
+        Path archivo = directorio.resolve(nombreArchivo(numero));
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // El mapeo sigue siendo válido después de cerrar el canal
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+            buffer.putInt(MAGICO).putInt(VERSION).putLong(numero);
+            SegmentoAuditoria segmento = new SegmentoAuditoria(archivo, numero, buffer);
+            segmento.pendienteForzar = true;
+            return segmento;
+        }
+    }
+
+    /**
+     * Agrega un registro si cabe en lo que queda del segmento.
+     *
+     * @param datos    Contenido del registro.
+     * @param longitud Número de bytes de {@code datos} a escribir.
+     * @return {@code true} si se escribió, {@code false} si no cabe o el segmento está cerrado y hay que pasar al
+     * siguiente.
+     */
+    boolean agregar(byte[] datos, int longitud) {
+        if (cerrado || buffer.remaining() < TAMANO_CABECERA_REGISTRO + longitud) {
+            return false;
+        }
+        crc.reset();
+        crc.update(datos, 0, longitud);
+        // Primero los datos y el CRC, y por último la longitud: un lector nunca ve una longitud sin sus datos
+        int inicio = buffer.position();
+        buffer.position(inicio + 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(datos, 0, longitud);
+        buffer.putInt(inicio, longitud);
+        pendienteForzar = true;
+        return true;
+    }
+
+    /**
+     * Lleva al disco lo escrito desde la última vez.
+     */
+    void forzar() {
+        if (pendienteForzar) {
+            buffer.force();
+            pendienteForzar = false;
+        }
+    }
+
+    /**
+     * Deja de admitir registros. No lleva nada al disco: lo escrito se fuerza antes con {@link #forzar()}. El mapeo
+     * se libera cuando el recolector de basura recoge el buffer (Java no ofrece una forma de liberarlo antes).
+     */
+    void cerrar() {
+        cerrado = true;
+    }
+
+    boolean isPendienteForzar() {
+        return pendienteForzar;
+    }
+
+    long getNumero() {
+        return numero;
+    }
+
+    Path getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * @return El directorio de los segmentos, {@code sgc.audit.dir} (por defecto {@code ~/sgc-auditoria}).
+     */
+    static Path directorioConfigurado() {
+        return Paths.get(AppConfig.getString("sgc.audit.dir",
+                Paths.get(System.getProperty("user.home"), "sgc-auditoria").toString()));
+    }
+
+    /**
+     * Capacidad máxima de datos de un registro en un segmento de {@code tamano} bytes.
+     */
+    static int maximoDatos(int tamano) {
+        return tamano - TAMANO_ENCABEZADO - TAMANO_CABECERA_REGISTRO;
+    }
+
+    static String nombreArchivo(long numero) {
+        return String.format("%s%016d%s", PREFIJO, numero, EXTENSION);
+    }
+
+    /**
+     * @return Los archivos de segmento del directorio, ordenados por número (vacío si el directorio no existe).
+     * @throws IOException Si no se puede listar el directorio.
+     */
+    static List<Path> listar(Path directorio) throws IOException {
+        if (!Files.isDirectory(directorio)) {
+            return Collections.emptyList();
+        }
+        List<Path> segmentos = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.filter(archivo -> numeroDe(archivo) >= 0).forEach(segmentos::add);
+        }
+        segmentos.sort((a, b) -> Long.compare(numeroDe(a), numeroDe(b)));
+        return segmentos;
+    }
+
+    /**
+     * @return El número de segmento según el nombre del archivo, o -1 si no es un segmento.
+     */
+    static long numeroDe(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        if (!nombre.startsWith(PREFIJO) || !nombre.endsWith(EXTENSION)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Recorre los registros de un segmento hasta el final o hasta el primer registro dañado.
+     *
+     * @param archivo  El archivo de segmento.
+     * @param registro Recibe los datos de cada registro válido, y su posición en el archivo.
+     * @return Cómo terminó la lectura.
+     * @throws IOException Si no se puede leer el archivo.
+     */
+    static FinLectura leer(Path archivo, LectorRegistros registro) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(archivo));
+        if (buffer.remaining() < TAMANO_ENCABEZADO || buffer.getInt() != MAGICO) {
+            return FinLectura.FORMATO_DESCONOCIDO;
+        }
+        if (buffer.getInt() != VERSION) {
+            return FinLectura.FORMATO_DESCONOCIDO;
+        }
+        buffer.getLong(); // Número de segmento
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= TAMANO_CABECERA_REGISTRO) {
+            int posicion = buffer.position();
+            int longitud = buffer.getInt();
+            int esperado = buffer.getInt();
+            if (longitud == 0) {
+                return FinLectura.COMPLETA;
+            }
+            if (longitud < 0 || longitud > buffer.remaining()) {
+                return FinLectura.REGISTRO_DANADO;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), longitud);
+            if ((int) crc.getValue() != esperado) {
+                return FinLectura.REGISTRO_DANADO;
+            }
+            byte[] datos = new byte[longitud];
+            buffer.get(datos);
+            registro.leer(datos, posicion);
+        }
+        return FinLectura.COMPLETA;
+    }
+
+    /**
+     * Cómo terminó la lectura de un segmento.
+     */
+    enum FinLectura {
+        COMPLETA, REGISTRO_DANADO, FORMATO_DESCONOCIDO
+    }
+
+    /**
+     * Recibe los registros leídos de un segmento.
+     */
+    interface LectorRegistros {
+        void leer(byte[] datos, int posicion);
+    }
+}
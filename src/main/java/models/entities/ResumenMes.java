@@ -0,0 +1,52 @@
+package main.java.models.entities;
+
+import java.sql.Date;
+
+/**
+ * Número de contratos vigentes en un mes.
+ * Corresponde a la tabla 'ResumenVigentesMes' en la base de datos.
+ */
+public class ResumenMes {
+    private Date mes;
+    private long cantidad;
+
+    /**
+     * Constructor vacío por defecto.
+     */
+    public ResumenMes() {
+    }
+
+    /**
+     * Constructor con todos los atributos.
+     *
+     * @param mes      El primer día del mes.
+     * @param cantidad El número de contratos vigentes en algún día del mes.
+     */
+    public ResumenMes(Date mes, long cantidad) {
+        this.mes = mes;
+        this.cantidad = cantidad;
+    }
+
+    // --- Métodos Getters y Setters para acceder y modificar los atributos ---
+
+    public Date getMes() {
+        return mes;
+    }
+
+    public void setMes(Date mes) {
+        this.mes = mes;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(long cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenMes{mes=" + mes + ", cantidad=" + cantidad + '}';
+    }
+}
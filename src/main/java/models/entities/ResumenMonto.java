@@ -0,0 +1,63 @@
+package main.java.models.entities;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila de un resumen de contratos agrupado por un valor (empresa, frecuencia de pago o usuario).
+ * Corresponde a las tablas 'ResumenEmpresa', 'ResumenFrecuencia' y 'ResumenUsuario' en la base de datos.
+ */
+public class ResumenMonto {
+    private String clave;
+    private BigDecimal totalMonto;
+    private long cantidad;
+
+    /**
+     * Constructor vacío por defecto.
+     */
+    public ResumenMonto() {
+    }
+
+    /**
+     * Constructor con todos los atributos.
+     *
+     * @param clave      El valor por el que se agrupa (ej: el nombre de la empresa).
+     * @param totalMonto La suma de los montos de los contratos del grupo.
+     * @param cantidad   El número de contratos del grupo.
+     */
+    public ResumenMonto(String clave, BigDecimal totalMonto, long cantidad) {
+        this.clave = clave;
+        this.totalMonto = totalMonto;
+        this.cantidad = cantidad;
+    }
+
+    // --- Métodos Getters y Setters para acceder y modificar los atributos ---
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public BigDecimal getTotalMonto() {
+        return totalMonto;
+    }
+
+    public void setTotalMonto(BigDecimal totalMonto) {
+        this.totalMonto = totalMonto;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(long cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenMonto{clave='" + clave + "', totalMonto=" + totalMonto + ", cantidad=" + cantidad + '}';
+    }
+}
@@ -1,24 +1,95 @@
 package main.java.models.repositories;
 
 import main.java.models.entities.Contrato;
+import main.java.utils.AppConfig;
 import main.java.utils.DatabaseConnection;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
 
+import java.io.IOException;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement; // Necesario para obtener las claves generadas
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
 
 /**
  * Clase que maneja las operaciones de acceso a datos (CRUD) para la entidad {@link Contrato}.
  * Se comunica directamente con la base de datos.
  *  Esta clase proporciona métodos para crear, leer y listar contratos.
- *
+ * Las lecturas de consulta (por ID, listados, páginas y recorridos) usan {@link DatabaseConnection#getReadConnection()}
+ * y pueden ir a una réplica; las que preceden a una escritura o validan permisos leen siempre del primario.
  */
 public class ContratoRepository {
 
+    // Latencia de cada método, exportada en /metrics
+    private static final LatencyHistogram LATENCIA_CREATE_CONTRATO = MetricsRegistry.repositorio("ContratoRepository", "createContrato");
+    private static final LatencyHistogram LATENCIA_CREATE_CONTRATOS = MetricsRegistry.repositorio("ContratoRepository", "createContratos");
+    private static final LatencyHistogram LATENCIA_GET_CONTRATO_BY_ID = MetricsRegistry.repositorio("ContratoRepository", "getContratoById");
+    private static final LatencyHistogram LATENCIA_GET_CONTRATO_BY_ID_FOR_UPDATE = MetricsRegistry.repositorio("ContratoRepository", "getContratoByIdForUpdate");
+    private static final LatencyHistogram LATENCIA_GET_USUARIO_USERNAME_BY_CONTRATO_ID = MetricsRegistry.repositorio("ContratoRepository", "getUsuarioUsernameByContratoId");
+    private static final LatencyHistogram LATENCIA_GET_ALL_CONTRATOS = MetricsRegistry.repositorio("ContratoRepository", "getAllContratos");
+    private static final LatencyHistogram LATENCIA_GET_CONTRATOS_BY_USUARIO = MetricsRegistry.repositorio("ContratoRepository", "getContratosByUsuario");
+    private static final LatencyHistogram LATENCIA_GET_CONTRATOS_BY_USUARIO_FOR_UPDATE = MetricsRegistry.repositorio("ContratoRepository", "getContratosByUsuarioForUpdate");
+    private static final LatencyHistogram LATENCIA_GET_CONTRATOS_PAGINA = MetricsRegistry.repositorio("ContratoRepository", "getContratosPagina");
+    private static final LatencyHistogram LATENCIA_STREAM_CONTRATOS = MetricsRegistry.repositorio("ContratoRepository", "streamContratos");
+    private static final LatencyHistogram LATENCIA_STREAM_CONTRATOS_PAGINA = MetricsRegistry.repositorio("ContratoRepository", "streamContratosPagina");
+    private static final LatencyHistogram LATENCIA_GET_CONTEO_VALORES = MetricsRegistry.repositorio("ContratoRepository", "getConteoValores");
+    private static final LatencyHistogram LATENCIA_UPDATE_CONTRATO = MetricsRegistry.repositorio("ContratoRepository", "updateContrato");
+    private static final LatencyHistogram LATENCIA_DELETE_CONTRATO = MetricsRegistry.repositorio("ContratoRepository", "deleteContrato");
+    private static final LatencyHistogram LATENCIA_GET_LOTE_FOR_UPDATE = MetricsRegistry.repositorio("ContratoRepository", "getContratosLoteForUpdate");
+    private static final LatencyHistogram LATENCIA_CONTAR_CONTRATOS = MetricsRegistry.repositorio("ContratoRepository", "contarContratos");
+    private static final LatencyHistogram LATENCIA_DELETE_CONTRATOS = MetricsRegistry.repositorio("ContratoRepository", "deleteContratos");
+    private static final LatencyHistogram LATENCIA_REASIGNAR_CONTRATOS = MetricsRegistry.repositorio("ContratoRepository", "reasignarContratos");
+    private static final LatencyHistogram LATENCIA_GET_VENCIMIENTOS_LOTE = MetricsRegistry.repositorio("ContratoRepository", "getVencimientosLote");
+
+    // Tamaño de fetch para recorridos en streaming. Integer.MIN_VALUE indica a Connector/J que entregue
+    // las filas una a una desde el socket en lugar de cargar todo el resultado en memoria.
+    private static final int FETCH_SIZE_STREAMING = AppConfig.getInt("sgc.db.streamingFetchSize", Integer.MIN_VALUE);
+
+    // Número de filas por lote en las inserciones masivas; cada lote se confirma en su propia transacción.
+    private static final int TAMANO_LOTE = AppConfig.getInt("sgc.db.batchSize", 500);
+
+    // Columnas que se pueden actualizar (todas salvo id). El bit i de una máscara de columnas corresponde a
+    // COLUMNAS_ACTUALIZABLES[i]; las mismas máscaras indican qué columnas lee streamContratosPagina.
+    private static final String[] COLUMNAS_ACTUALIZABLES = {"fecha_firma", "fecha_inicio", "fecha_fin", "empresa",
+            "empleado", "funciones", "monto", "frecuencia_de_pago", "usuario_username"};
+
+    /**
+     * Máscara con todas las columnas actualizables, para {@link #updateContrato(Contrato, int)}.
+     */
+    public static final int TODAS_LAS_COLUMNAS = (1 << COLUMNAS_ACTUALIZABLES.length) - 1;
+
+    // Sentencias UPDATE generadas por máscara de columnas. Se generan la primera vez que se usa cada combinación;
+    // como mucho hay 511, todas pequeñas.
+    private static final AtomicReferenceArray<String> SQL_ACTUALIZAR = new AtomicReferenceArray<>(TODAS_LAS_COLUMNAS + 1);
+
+    // Sentencias SELECT de streamContratosPagina por máscara de columnas: primero sin filtro de usuario, luego con él
+    private static final AtomicReferenceArray<String> SQL_PAGINA_COLUMNAS = new AtomicReferenceArray<>(2 * (TODAS_LAS_COLUMNAS + 1));
+
+    // Sentencias SQL. Las de consulta, actualización y borrado son públicas (o se generan con los métodos sql* públicos)
+    // para que ExplainPlanVerifier compruebe con EXPLAIN exactamente las que ejecuta el repositorio.
+    private static final String SELECT_CONTRATO = "SELECT id, fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username FROM Contrato";
+    public static final String SQL_POR_ID = SELECT_CONTRATO + " WHERE id = ?";
+    public static final String SQL_POR_ID_FOR_UPDATE = SQL_POR_ID + " FOR UPDATE";
+    public static final String SQL_DUENO_POR_ID = "SELECT usuario_username FROM Contrato WHERE id = ?";
+    public static final String SQL_POR_USUARIO = SELECT_CONTRATO + " WHERE usuario_username = ?";
+    public static final String SQL_POR_USUARIO_FOR_UPDATE = SQL_POR_USUARIO + " FOR UPDATE";
+    public static final String SQL_ELIMINAR = "DELETE FROM Contrato WHERE id = ?";
+
+    private static final String SQL_INSERTAR = "INSERT INTO Contrato (fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     /**
      * Inserta un nuevo contrato en la base de datos.
      * El ID del contrato será auto-generado por la base de datos y asignado al objeto Contrato.
@@ -26,21 +97,14 @@ public class ContratoRepository {
      * @param contrato El objeto {@link Contrato} a insertar.
      * @return {@code true} si la inserción fue exitosa, {@code false} en caso contrario.
      */
+    @SuppressWarnings("try")
     public boolean createContrato(Contrato contrato) {
-        String sql = "INSERT INTO Contrato (fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_CREATE_CONTRATO.medir();
+             Connection conn = DatabaseConnection.getConnection();
              // PreparedStatement con Statement.RETURN_GENERATED_KEYS para obtener el ID auto-generado
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setDate(1, contrato.getFecha_firma());
-            pstmt.setDate(2, contrato.getFecha_inicio());
-            pstmt.setDate(3, contrato.getFecha_fin());
-            pstmt.setString(4, contrato.getEmpresa());
-            pstmt.setString(5, contrato.getEmpleado());
-            pstmt.setString(6, contrato.getFunciones());
-            pstmt.setDouble(7, contrato.getMonto());
-            pstmt.setString(8, contrato.getFrecuencia_de_pago());
-            pstmt.setString(9, contrato.getUsuarioUsername());
+             PreparedStatement pstmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+
+            asignarParametrosInsercion(pstmt, contrato);
 
             int rowsAffected = pstmt.executeUpdate(); // Ejecuta la consulta de inserción
 
@@ -61,32 +125,154 @@ public class ContratoRepository {
         }
     }
 
+    /**
+     * Inserta varios contratos usando lotes JDBC ({@code addBatch}/{@code executeBatch}) sobre una sola conexión.
+     * Los contratos se envían en bloques de {@code sgc.db.batchSize} filas y cada bloque se confirma en su propia
+     * transacción. Si un bloque falla, se deshace y sus filas se reintentan una a una para identificar
+     * exactamente cuáles fallan; las demás se insertan igualmente.
+     * Los IDs generados se asignan a cada objeto {@link Contrato} insertado.
+     *
+     * @param contratos Los contratos a insertar.
+     * @return Un {@link ResultadoLote} con el número de contratos insertados y los errores por fila,
+     *         donde la fila es la posición (desde 0) del contrato en la colección.
+     */
+    public ResultadoLote createContratos(Collection<Contrato> contratos) {
+        return createContratos(contratos, insertados -> true);
+    }
+
+    /**
+     * Igual que {@link #createContratos(Collection)}, pero antes de confirmar cada bloque (o cada fila, al
+     * reintentar) ejecuta {@code antesDeConfirmar} con los contratos recién insertados. El callback corre dentro
+     * de la misma transacción: los repositorios que use obtienen la misma conexión con
+     * {@link DatabaseConnection#getConnection()}. Si devuelve {@code false}, el bloque se deshace.
+     *
+     * @param contratos        Los contratos a insertar.
+     * @param antesDeConfirmar Trabajo adicional por bloque, por ejemplo actualizar tablas de resumen.
+     * @return Un {@link ResultadoLote} con el número de contratos insertados y los errores por fila.
+     */
+    @SuppressWarnings("try")
+    public ResultadoLote createContratos(Collection<Contrato> contratos, Predicate<List<Contrato>> antesDeConfirmar) {
+        ResultadoLote resultado = new ResultadoLote();
+        if (contratos.isEmpty()) {
+            return resultado;
+        }
+        try (LatencyHistogram.Medicion medicion = LATENCIA_CREATE_CONTRATOS.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
+            List<Contrato> bloque = new ArrayList<>(Math.min(TAMANO_LOTE, contratos.size()));
+            int inicioBloque = 0;
+            for (Contrato contrato : contratos) {
+                bloque.add(contrato);
+                if (bloque.size() == TAMANO_LOTE) {
+                    insertarBloque(conn, pstmt, bloque, inicioBloque, antesDeConfirmar, resultado);
+                    inicioBloque += bloque.size();
+                    bloque.clear();
+                }
+            }
+            if (!bloque.isEmpty()) {
+                insertarBloque(conn, pstmt, bloque, inicioBloque, antesDeConfirmar, resultado);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al crear contratos por lotes: " + e.getMessage());
+            e.printStackTrace();
+            resultado.agregarError(-1, "Error de conexión: " + e.getMessage());
+        }
+        return resultado;
+    }
+
+    /**
+     * Inserta un bloque de contratos como un único lote JDBC y confirma la transacción.
+     * Si el lote falla, lo deshace y reintenta cada fila por separado.
+     */
+    private void insertarBloque(Connection conn, PreparedStatement pstmt, List<Contrato> bloque, int inicioBloque,
+                                Predicate<List<Contrato>> antesDeConfirmar, ResultadoLote resultado) throws SQLException {
+        try {
+            for (Contrato contrato : bloque) {
+                asignarParametrosInsercion(pstmt, contrato);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                // Las claves llegan en el mismo orden en que se agregaron las filas al lote
+                for (int i = 0; i < bloque.size() && generatedKeys.next(); i++) {
+                    bloque.get(i).setId(generatedKeys.getInt(1));
+                }
+            }
+            confirmarSi(conn, antesDeConfirmar, bloque);
+            resultado.sumarExitosos(bloque.size());
+            return;
+        } catch (SQLException e) {
+            conn.rollback();
+            pstmt.clearBatch();
+        }
+
+        // El lote falló: se reintenta fila por fila para reportar los errores con precisión
+        for (int i = 0; i < bloque.size(); i++) {
+            Contrato contrato = bloque.get(i);
+            try {
+                asignarParametrosInsercion(pstmt, contrato);
+                pstmt.executeUpdate();
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        contrato.setId(generatedKeys.getInt(1));
+                    }
+                }
+                confirmarSi(conn, antesDeConfirmar, Collections.singletonList(contrato));
+                resultado.sumarExitosos(1);
+            } catch (SQLException e) {
+                conn.rollback();
+                contrato.setId(0);
+                resultado.agregarError(inicioBloque + i, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ejecuta el trabajo adicional del bloque en la transacción abierta y, si termina bien, la confirma.
+     *
+     * @throws SQLException Si el trabajo falla o devuelve {@code false}; el llamador deshace la transacción.
+     */
+    private void confirmarSi(Connection conn, Predicate<List<Contrato>> antesDeConfirmar, List<Contrato> insertados) throws SQLException {
+        if (!DatabaseConnection.ejecutarEnTransaccion(conn, () -> antesDeConfirmar.test(insertados))) {
+            throw new SQLException("No se pudieron registrar los contratos insertados en los datos derivados.");
+        }
+        conn.commit();
+    }
+
+    /**
+     * Asigna los valores de un contrato a los parámetros de la sentencia de inserción.
+     */
+    private void asignarParametrosInsercion(PreparedStatement pstmt, Contrato contrato) throws SQLException {
+        pstmt.setDate(1, contrato.getFecha_firma());
+        pstmt.setDate(2, contrato.getFecha_inicio());
+        pstmt.setDate(3, contrato.getFecha_fin());
+        pstmt.setString(4, contrato.getEmpresa());
+        pstmt.setString(5, contrato.getEmpleado());
+        pstmt.setString(6, contrato.getFunciones());
+        pstmt.setDouble(7, contrato.getMonto());
+        pstmt.setString(8, contrato.getFrecuencia_de_pago());
+        pstmt.setString(9, contrato.getUsuarioUsername());
+    }
+
     /**
      * Busca y recupera un contrato de la base de datos por su ID.
      *
      * @param id El ID del contrato a buscar.
      * @return El objeto {@link Contrato} si se encuentra, o {@code null} si no existe.
      */
+    @SuppressWarnings("try")
     public Contrato getContratoById(int id) {
-        String sql = "SELECT id, fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username FROM Contrato WHERE id = ?";
+        String sql = SQL_POR_ID;
         Contrato contrato = null;
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_CONTRATO_BY_ID.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
 
             try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta de selección
                 if (rs.next()) { // Si se encuentra un resultado
-                    contrato = new Contrato();
-                    contrato.setId(rs.getInt("id"));
-                    contrato.setFecha_firma(rs.getDate("fecha_firma"));
-                    contrato.setFecha_inicio(rs.getDate("fecha_inicio"));
-                    contrato.setFecha_fin(rs.getDate("fecha_fin"));
-                    contrato.setEmpresa(rs.getString("empresa"));
-                    contrato.setEmpleado(rs.getString("empleado"));
-                    contrato.setFunciones(rs.getString("funciones"));
-                    contrato.setMonto(rs.getDouble("monto"));
-                    contrato.setFrecuencia_de_pago(rs.getString("frecuencia_de_pago"));
-                    contrato.setUsuarioUsername(rs.getString("usuario_username"));
+                    contrato = mapearContrato(rs);
                 }
             }
         } catch (SQLException e) {
@@ -96,31 +282,100 @@ public class ContratoRepository {
         return contrato;
     }
 
+    /**
+     * Busca un contrato por su ID y bloquea su fila hasta el final de la transacción en curso
+     * ({@code SELECT ... FOR UPDATE}). Solo tiene efecto dentro de {@link DatabaseConnection#enTransaccion};
+     * sirve para leer el estado anterior de un contrato que se va a modificar sin que otra transacción lo cambie antes.
+     *
+     * @param id El ID del contrato a buscar.
+     * @return El objeto {@link Contrato} si se encuentra, o {@code null} si no existe.
+     */
+    @SuppressWarnings("try")
+    public Contrato getContratoByIdForUpdate(int id) {
+        String sql = SQL_POR_ID_FOR_UPDATE;
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_CONTRATO_BY_ID_FOR_UPDATE.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapearContrato(rs);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener y bloquear contrato por ID: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el nombre de usuario dueño de un contrato, sin cargar el resto de columnas.
+     *
+     * @param id El ID del contrato.
+     * @return El username del dueño, o {@code null} si el contrato no existe.
+     */
+    @SuppressWarnings("try")
+    public String getUsuarioUsernameByContratoId(int id) {
+        String sql = SQL_DUENO_POR_ID;
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_USUARIO_USERNAME_BY_CONTRATO_ID.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("usuario_username");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener el dueño del contrato: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Cuenta cuántos contratos tienen cada valor distinto de una columna de texto, sin cargar los contratos.
+     *
+     * @param columna La columna a agrupar: {@code "empresa"} o {@code "empleado"}.
+     * @return Un mapa de cada valor distinto a su número de contratos, o {@code null} si ocurrió un error de base de datos.
+     * @throws IllegalArgumentException Si la columna no es una de las permitidas.
+     */
+    @SuppressWarnings("try")
+    public Map<String, Long> getConteoValores(String columna) {
+        String sql = sqlConteoValores(columna);
+        Map<String, Long> conteos = new HashMap<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_CONTEO_VALORES.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                conteos.put(rs.getString(1), rs.getLong(2));
+            }
+            return conteos;
+        } catch (SQLException e) {
+            System.err.println("Error al contar los valores de " + columna + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
     /**
      * Recupera una lista de todos los contratos de la base de datos.
      *
      * @return Una {@link List} de objetos {@link Contrato}. Retorna una lista vacía si no hay contratos.
      */
+    @SuppressWarnings("try")
     public List<Contrato> getAllContratos() {
-        String sql = "SELECT id, fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username FROM Contrato";
+        String sql = SELECT_CONTRATO;
         List<Contrato> contratos = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_ALL_CONTRATOS.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta de selección
 
             while (rs.next()) { // Itera sobre cada fila del resultado
-                Contrato contrato = new Contrato();
-                contrato.setId(rs.getInt("id"));
-                contrato.setFecha_firma(rs.getDate("fecha_firma"));
-                contrato.setFecha_inicio(rs.getDate("fecha_inicio"));
-                contrato.setFecha_fin(rs.getDate("fecha_fin"));
-                contrato.setEmpresa(rs.getString("empresa"));
-                contrato.setEmpleado(rs.getString("empleado"));
-                contrato.setFunciones(rs.getString("funciones"));
-                contrato.setMonto(rs.getDouble("monto"));
-                contrato.setFrecuencia_de_pago(rs.getString("frecuencia_de_pago"));
-                contrato.setUsuarioUsername(rs.getString("usuario_username"));
-                contratos.add(contrato); // Añade el contrato a la lista
+                contratos.add(mapearContrato(rs)); // Añade el contrato a la lista
             }
         } catch (SQLException e) {
             System.err.println("Error al obtener todos los contratos: " + e.getMessage());
@@ -133,59 +388,242 @@ public class ContratoRepository {
      * Recupera una lista de contratos asociados a un nombre de usuario específico.
      *
      * @param username El nombre de usuario del cual se quieren obtener los contratos.
-     * @return Una {@link List} de objetos {@link Contrato} asociados al usuario.
+     * @return Una {@link List} de objetos {@link Contrato} asociados al usuario, o {@code null} si ocurrió un error.
      */
+    @SuppressWarnings("try")
     public List<Contrato> getContratosByUsuario(String username) {
-        String sql = "SELECT id, fecha_firma, fecha_inicio, fecha_fin, empresa, empleado, funciones, monto, frecuencia_de_pago, usuario_username FROM Contrato WHERE usuario_username = ?";
+        String sql = SQL_POR_USUARIO;
         List<Contrato> contratos = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_CONTRATOS_BY_USUARIO.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Contrato contrato = new Contrato();
-                    contrato.setId(rs.getInt("id"));
-                    contrato.setFecha_firma(rs.getDate("fecha_firma"));
-                    contrato.setFecha_inicio(rs.getDate("fecha_inicio"));
-                    contrato.setFecha_fin(rs.getDate("fecha_fin"));
-                    contrato.setEmpresa(rs.getString("empresa"));
-                    contrato.setEmpleado(rs.getString("empleado"));
-                    contrato.setFunciones(rs.getString("funciones"));
-                    contrato.setMonto(rs.getDouble("monto"));
-                    contrato.setFrecuencia_de_pago(rs.getString("frecuencia_de_pago"));
-                    contrato.setUsuarioUsername(rs.getString("usuario_username"));
-                    contratos.add(contrato);
+                    contratos.add(mapearContrato(rs));
                 }
             }
         } catch (SQLException e) {
             System.err.println("Error al obtener contratos por usuario: " + e.getMessage());
             e.printStackTrace();
+            return null; // No es una lista vacía: quien la cachea no debe guardarla
+        }
+        return contratos;
+    }
+
+    /**
+     * Recupera los contratos de un usuario y bloquea sus filas hasta el final de la transacción en curso
+     * ({@code SELECT ... FOR UPDATE}). El bloqueo también impide insertar nuevos contratos para el usuario
+     * mientras dura la transacción. Solo tiene efecto dentro de {@link DatabaseConnection#enTransaccion}.
+     *
+     * @param username El nombre de usuario dueño de los contratos.
+     * @return Una {@link List} de objetos {@link Contrato} asociados al usuario, o {@code null} si ocurrió un error.
+     */
+    @SuppressWarnings("try")
+    public List<Contrato> getContratosByUsuarioForUpdate(String username) {
+        String sql = SQL_POR_USUARIO_FOR_UPDATE;
+        List<Contrato> contratos = new ArrayList<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_CONTRATOS_BY_USUARIO_FOR_UPDATE.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, username);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    contratos.add(mapearContrato(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener y bloquear contratos por usuario: " + e.getMessage());
+            e.printStackTrace();
+            return null;
         }
         return contratos;
     }
 
     /**
-     * Actualiza la información de un contrato existente en la base de datos.
+     * Recupera una página de contratos usando paginación por cursor (keyset) sobre el ID.
+     * En lugar de usar OFFSET, que obliga a MySQL a recorrer todas las filas anteriores,
+     * se filtra por {@code id > cursor} (o {@code id < cursor} hacia atrás) y se limita el número de filas.
+     *
+     * @param username   El nombre de usuario dueño de los contratos, o {@code null} para no filtrar por usuario.
+     * @param cursorId   ID de referencia; se devuelven los contratos posteriores (o anteriores) a él. Usar 0 para la primera página.
+     * @param haciaAtras {@code true} para obtener los contratos con ID menor al cursor, en orden descendente.
+     * @param limite     Número máximo de contratos a devolver.
+     * @return Una {@link List} de contratos ordenada por ID (ascendente, o descendente si {@code haciaAtras}),
+     *         o {@code null} si ocurrió un error.
+     */
+    @SuppressWarnings("try")
+    public List<Contrato> getContratosPagina(String username, int cursorId, boolean haciaAtras, int limite) {
+        String sql = sqlPagina(username != null, haciaAtras);
+        List<Contrato> contratos = new ArrayList<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_CONTRATOS_PAGINA.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int indice = 1;
+            if (username != null) {
+                pstmt.setString(indice++, username);
+            }
+            pstmt.setInt(indice++, cursorId);
+            pstmt.setInt(indice, limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    contratos.add(mapearContrato(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de contratos: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        return contratos;
+    }
+
+    /**
+     * Recorre los contratos de la base de datos en modo streaming, entregando cada fila al {@code handler}
+     * sin construir una lista. Usa un {@link ResultSet} de solo avance y solo lectura con el tamaño de fetch
+     * de streaming, de modo que la memoria usada no depende del número de filas.
+     * El objeto {@link Contrato} entregado se reutiliza entre filas.
+     *
+     * @param username El nombre de usuario dueño de los contratos, o {@code null} para recorrer todos.
+     * @param handler  Función que procesa cada contrato.
+     * @return {@code true} si se recorrieron todas las filas, {@code false} si ocurrió un error de base de datos.
+     * @throws IOException Si el {@code handler} falla al escribir una fila (por ejemplo, el cliente cerró la conexión).
+     */
+    @SuppressWarnings("try")
+    public boolean streamContratos(String username, RowHandler<Contrato> handler) throws IOException {
+        String sql = sqlStream(username != null);
+        try (LatencyHistogram.Medicion medicion = LATENCIA_STREAM_CONTRATOS.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(FETCH_SIZE_STREAMING);
+            if (username != null) {
+                pstmt.setString(1, username);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Contrato contrato = new Contrato(); // Se reutiliza la misma instancia para cada fila
+                while (rs.next()) {
+                    mapearContrato(rs, contrato);
+                    handler.procesar(contrato);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer contratos en streaming: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Recorre en streaming una página de contratos (paginación por cursor sobre el ID) leyendo solo las columnas
+     * indicadas, además del ID. Las demás propiedades del {@link Contrato} entregado no tienen valor definido.
+     * Pensado para la API JSON, donde el cliente elige los campos: no lee ni transfiere las columnas que no se piden.
+     *
+     * @param username  El nombre de usuario dueño de los contratos, o {@code null} para no filtrar por usuario.
+     * @param despuesDe ID de referencia; se recorren los contratos con ID mayor, en orden ascendente. 0 para el inicio.
+     * @param limite    Número máximo de contratos a recorrer.
+     * @param columnas  Máscara de columnas a leer (ver {@link #indiceColumna(String)}).
+     * @param handler   Función que procesa cada contrato (el objeto se reutiliza entre filas).
+     * @return {@code true} si se recorrió la página, {@code false} si ocurrió un error de base de datos.
+     * @throws IOException Si el {@code handler} falla al escribir una fila.
+     */
+    @SuppressWarnings("try")
+    public boolean streamContratosPagina(String username, int despuesDe, int limite, int columnas,
+                                         RowHandler<Contrato> handler) throws IOException {
+        if (columnas < 0 || columnas > TODAS_LAS_COLUMNAS) {
+            throw new IllegalArgumentException("Máscara de columnas inválida: " + columnas);
+        }
+        try (LatencyHistogram.Medicion medicion = LATENCIA_STREAM_CONTRATOS_PAGINA.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sqlPaginaColumnas(columnas, username != null))) {
+            int indice = 1;
+            if (username != null) {
+                pstmt.setString(indice++, username);
+            }
+            pstmt.setInt(indice++, despuesDe);
+            pstmt.setInt(indice, limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Contrato contrato = new Contrato(); // Se reutiliza la misma instancia para cada fila
+                while (rs.next()) {
+                    contrato.setId(rs.getInt(1));
+                    int posicion = 2;
+                    for (int i = 0; i < COLUMNAS_ACTUALIZABLES.length; i++) {
+                        if ((columnas & (1 << i)) != 0) {
+                            leerColumna(rs, posicion++, i, contrato);
+                        }
+                    }
+                    handler.procesar(contrato);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer página de contratos: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @param nombre Nombre de una columna de la tabla Contrato.
+     * @return La posición de la columna en las máscaras de columnas (bit {@code 1 << posicion}), o -1 si no es una
+     *         columna de la tabla o es {@code id}, que no forma parte de las máscaras.
+     */
+    public static int indiceColumna(String nombre) {
+        for (int i = 0; i < COLUMNAS_ACTUALIZABLES.length; i++) {
+            if (COLUMNAS_ACTUALIZABLES[i].equals(nombre)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param indice Posición de una columna en las máscaras de columnas.
+     * @return El nombre de la columna.
+     */
+    public static String nombreColumna(int indice) {
+        return COLUMNAS_ACTUALIZABLES[indice];
+    }
+
+    /**
+     * Actualiza la información de un contrato existente en la base de datos, escribiendo todas sus columnas.
      *
      * @param contrato El objeto {@link Contrato} con la información actualizada.
      * @return {@code true} si la actualización fue exitosa, {@code false} en caso contrario.
      */
     public boolean updateContrato(Contrato contrato) {
-        String sql = "UPDATE Contrato SET fecha_firma = ?, fecha_inicio = ?, fecha_fin = ?, empresa = ?, empleado = ?, funciones = ?, monto = ?, frecuencia_de_pago = ?, usuario_username = ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        return updateContrato(contrato, TODAS_LAS_COLUMNAS);
+    }
+
+    /**
+     * Actualiza solo algunas columnas de un contrato existente. Escribir únicamente las columnas que cambiaron
+     * evita reescribir textos largos como {@code funciones} y reduce el volumen del redo log y del binlog.
+     *
+     * @param contrato El objeto {@link Contrato} con la información actualizada; las columnas fuera de la máscara se ignoran.
+     * @param columnas Máscara de columnas a escribir, como la que devuelve {@link #columnasModificadas(Contrato, Contrato)}.
+     * @return {@code true} si la actualización fue exitosa, {@code false} en caso contrario (incluida una máscara vacía).
+     */
+    @SuppressWarnings("try")
+    public boolean updateContrato(Contrato contrato, int columnas) {
+        if ((columnas & TODAS_LAS_COLUMNAS) == 0) {
+            return false;
+        }
+        try (LatencyHistogram.Medicion medicion = LATENCIA_UPDATE_CONTRATO.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sqlActualizar(columnas & TODAS_LAS_COLUMNAS))) {
 
-            pstmt.setDate(1, contrato.getFecha_firma());
-            pstmt.setDate(2, contrato.getFecha_inicio());
-            pstmt.setDate(3, contrato.getFecha_fin());
-            pstmt.setString(4, contrato.getEmpresa());
-            pstmt.setString(5, contrato.getEmpleado());
-            pstmt.setString(6, contrato.getFunciones());
-            pstmt.setDouble(7, contrato.getMonto());
-            pstmt.setString(8, contrato.getFrecuencia_de_pago());
-            pstmt.setString(9, contrato.getUsuarioUsername());
-            pstmt.setInt(10, contrato.getId()); // El ID es usado en la cláusula WHERE para identificar el contrato a actualizar
+            int parametro = 1;
+            for (int i = 0; i < COLUMNAS_ACTUALIZABLES.length; i++) {
+                if ((columnas & (1 << i)) != 0) {
+                    asignarColumna(pstmt, parametro++, i, contrato);
+                }
+            }
+            pstmt.setInt(parametro, contrato.getId()); // El ID es usado en la cláusula WHERE para identificar el contrato a actualizar
 
             int rowsAffected = pstmt.executeUpdate(); // Ejecuta la consulta de actualización
             return rowsAffected > 0;
@@ -196,15 +634,252 @@ public class ContratoRepository {
         }
     }
 
+    /**
+     * Compara dos versiones de un contrato columna por columna.
+     *
+     * @param anterior La versión guardada del contrato.
+     * @param nuevo    La versión a guardar.
+     * @return La máscara de las columnas que difieren, para {@link #updateContrato(Contrato, int)}; {@code 0} si son iguales.
+     */
+    public static int columnasModificadas(Contrato anterior, Contrato nuevo) {
+        int columnas = 0;
+        if (!Objects.equals(anterior.getFecha_firma(), nuevo.getFecha_firma())) {
+            columnas |= 1;
+        }
+        if (!Objects.equals(anterior.getFecha_inicio(), nuevo.getFecha_inicio())) {
+            columnas |= 1 << 1;
+        }
+        if (!Objects.equals(anterior.getFecha_fin(), nuevo.getFecha_fin())) {
+            columnas |= 1 << 2;
+        }
+        if (!Objects.equals(anterior.getEmpresa(), nuevo.getEmpresa())) {
+            columnas |= 1 << 3;
+        }
+        if (!Objects.equals(anterior.getEmpleado(), nuevo.getEmpleado())) {
+            columnas |= 1 << 4;
+        }
+        if (!Objects.equals(anterior.getFunciones(), nuevo.getFunciones())) {
+            columnas |= 1 << 5;
+        }
+        if (Double.compare(anterior.getMonto(), nuevo.getMonto()) != 0) {
+            columnas |= 1 << 6;
+        }
+        if (!Objects.equals(anterior.getFrecuencia_de_pago(), nuevo.getFrecuencia_de_pago())) {
+            columnas |= 1 << 7;
+        }
+        if (!Objects.equals(anterior.getUsuarioUsername(), nuevo.getUsuarioUsername())) {
+            columnas |= 1 << 8;
+        }
+        return columnas;
+    }
+
+    /**
+     * Devuelve la sentencia UPDATE de {@link #updateContrato(Contrato, int)} para una máscara de columnas,
+     * generándola si es la primera vez que se usa.
+     *
+     * @param columnas Máscara de columnas a escribir, no vacía.
+     * @return La sentencia, con un parámetro por columna y el ID al final.
+     */
+    public static String sqlActualizar(int columnas) {
+        String sql = SQL_ACTUALIZAR.get(columnas);
+        if (sql == null) {
+            StringJoiner asignaciones = new StringJoiner(", ", "UPDATE Contrato SET ", " WHERE id = ?");
+            for (int i = 0; i < COLUMNAS_ACTUALIZABLES.length; i++) {
+                if ((columnas & (1 << i)) != 0) {
+                    asignaciones.add(COLUMNAS_ACTUALIZABLES[i] + " = ?");
+                }
+            }
+            sql = asignaciones.toString();
+            // Si otro hilo la generó a la vez, ambas sentencias son iguales y se conserva la primera
+            SQL_ACTUALIZAR.compareAndSet(columnas, null, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Devuelve la sentencia SELECT de {@link #streamContratosPagina} de una máscara de columnas, generándola si es
+     * la primera vez que se usa.
+     *
+     * @param columnas   Máscara de columnas a leer.
+     * @param porUsuario {@code true} si filtra por usuario (primer parámetro).
+     * @return La sentencia; sus últimos parámetros son el cursor y el límite.
+     */
+    public static String sqlPaginaColumnas(int columnas, boolean porUsuario) {
+        int posicion = porUsuario ? TODAS_LAS_COLUMNAS + 1 + columnas : columnas;
+        String sql = SQL_PAGINA_COLUMNAS.get(posicion);
+        if (sql == null) {
+            StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM Contrato WHERE ");
+            select.add("id");
+            for (int i = 0; i < COLUMNAS_ACTUALIZABLES.length; i++) {
+                if ((columnas & (1 << i)) != 0) {
+                    select.add(COLUMNAS_ACTUALIZABLES[i]);
+                }
+            }
+            sql = select + (porUsuario ? "usuario_username = ? AND " : "") + "id > ? ORDER BY id ASC LIMIT ?";
+            SQL_PAGINA_COLUMNAS.compareAndSet(posicion, null, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * @param columna {@code "empresa"} o {@code "empleado"}.
+     * @return La sentencia de {@link #getConteoValores(String)}.
+     * @throws IllegalArgumentException Si la columna no es una de las permitidas.
+     */
+    public static String sqlConteoValores(String columna) {
+        if (!columna.equals("empresa") && !columna.equals("empleado")) {
+            throw new IllegalArgumentException("Columna no permitida: " + columna);
+        }
+        return "SELECT " + columna + ", COUNT(*) FROM Contrato WHERE " + columna + " IS NOT NULL GROUP BY " + columna;
+    }
+
+    /**
+     * @param porUsuario {@code true} si filtra por usuario (primer parámetro).
+     * @param haciaAtras {@code true} para la página anterior al cursor.
+     * @return La sentencia de {@link #getContratosPagina}; sus últimos parámetros son el cursor y el límite.
+     */
+    public static String sqlPagina(boolean porUsuario, boolean haciaAtras) {
+        return SELECT_CONTRATO + " WHERE " + (porUsuario ? "usuario_username = ? AND " : "")
+                + (haciaAtras ? "id < ? ORDER BY id DESC" : "id > ? ORDER BY id ASC") + " LIMIT ?";
+    }
+
+    /**
+     * @param porUsuario {@code true} si filtra por usuario (único parámetro).
+     * @return La sentencia de {@link #streamContratos}.
+     */
+    public static String sqlStream(boolean porUsuario) {
+        return SELECT_CONTRATO + (porUsuario ? " WHERE usuario_username = ?" : "") + " ORDER BY id";
+    }
+
+    /**
+     * @param filtro El filtro del lote.
+     * @param ids    Los IDs del lote si el filtro es por IDs, o {@code null}.
+     * @return La sentencia de {@link #getContratosLoteForUpdate}: los parámetros del filtro, el cursor y el límite.
+     */
+    public static String sqlLoteForUpdate(FiltroContratos filtro, List<Integer> ids) {
+        return SELECT_CONTRATO + condicionFiltro(filtro, ids) + " AND id > ? ORDER BY id ASC LIMIT ? FOR UPDATE";
+    }
+
+    /**
+     * @param filtro Los contratos a contar.
+     * @return La sentencia de {@link #contarContratos}, con los parámetros del filtro.
+     */
+    public static String sqlContar(FiltroContratos filtro) {
+        return "SELECT COUNT(*) FROM Contrato" + condicionFiltro(filtro, filtro.getIds());
+    }
+
+    /**
+     * @param cantidad Número de IDs.
+     * @return La sentencia de {@link #deleteContratos}.
+     */
+    public static String sqlEliminarVarios(int cantidad) {
+        return "DELETE FROM Contrato WHERE id IN (" + marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad Número de IDs.
+     * @return La sentencia de {@link #reasignarContratos}: el nuevo usuario y los IDs.
+     */
+    public static String sqlReasignar(int cantidad) {
+        return "UPDATE Contrato SET usuario_username = ? WHERE id IN (" + marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param conCursor {@code false} para el primer lote.
+     * @return La sentencia de {@link #getVencimientosLote}.
+     */
+    public static String sqlVencimientosLote(boolean conCursor) {
+        return "SELECT id, fecha_fin, usuario_username FROM Contrato WHERE fecha_fin BETWEEN ? AND ?"
+                + (conCursor ? " AND (fecha_fin > ? OR (fecha_fin = ? AND id > ?))" : "")
+                + " ORDER BY fecha_fin, id LIMIT ?";
+    }
+
+    /**
+     * Copia en el contrato el valor de la columna actualizable número {@code columna}, leída en la posición
+     * {@code posicion} del {@link ResultSet}.
+     */
+    private static void leerColumna(ResultSet rs, int posicion, int columna, Contrato contrato) throws SQLException {
+        switch (columna) {
+            case 0:
+                contrato.setFecha_firma(rs.getDate(posicion));
+                break;
+            case 1:
+                contrato.setFecha_inicio(rs.getDate(posicion));
+                break;
+            case 2:
+                contrato.setFecha_fin(rs.getDate(posicion));
+                break;
+            case 3:
+                contrato.setEmpresa(rs.getString(posicion));
+                break;
+            case 4:
+                contrato.setEmpleado(rs.getString(posicion));
+                break;
+            case 5:
+                contrato.setFunciones(rs.getString(posicion));
+                break;
+            case 6:
+                contrato.setMonto(rs.getDouble(posicion));
+                break;
+            case 7:
+                contrato.setFrecuencia_de_pago(rs.getString(posicion));
+                break;
+            case 8:
+                contrato.setUsuarioUsername(rs.getString(posicion));
+                break;
+            default:
+                throw new IllegalArgumentException("Columna desconocida: " + columna);
+        }
+    }
+
+    /**
+     * Asigna a un parámetro de la sentencia el valor de la columna actualizable número {@code columna}.
+     */
+    private static void asignarColumna(PreparedStatement pstmt, int parametro, int columna, Contrato contrato) throws SQLException {
+        switch (columna) {
+            case 0:
+                pstmt.setDate(parametro, contrato.getFecha_firma());
+                break;
+            case 1:
+                pstmt.setDate(parametro, contrato.getFecha_inicio());
+                break;
+            case 2:
+                pstmt.setDate(parametro, contrato.getFecha_fin());
+                break;
+            case 3:
+                pstmt.setString(parametro, contrato.getEmpresa());
+                break;
+            case 4:
+                pstmt.setString(parametro, contrato.getEmpleado());
+                break;
+            case 5:
+                pstmt.setString(parametro, contrato.getFunciones());
+                break;
+            case 6:
+                pstmt.setDouble(parametro, contrato.getMonto());
+                break;
+            case 7:
+                pstmt.setString(parametro, contrato.getFrecuencia_de_pago());
+                break;
+            case 8:
+                pstmt.setString(parametro, contrato.getUsuarioUsername());
+                break;
+            default:
+                throw new IllegalArgumentException("Columna desconocida: " + columna);
+        }
+    }
+
     /**
      * Elimina un contrato de la base de datos por su ID.
      *
      * @param id El ID del contrato a eliminar.
      * @return {@code true} si la eliminación fue exitosa, {@code false} en caso contrario.
      */
+    @SuppressWarnings("try")
     public boolean deleteContrato(int id) {
-        String sql = "DELETE FROM Contrato WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = SQL_ELIMINAR;
+        try (LatencyHistogram.Medicion medicion = LATENCIA_DELETE_CONTRATO.medir();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
 
@@ -216,5 +891,251 @@ public class ContratoRepository {
             return false;
         }
     }
-}
 
+    /**
+     * Lee y bloquea ({@code SELECT ... FOR UPDATE}) el siguiente lote de contratos de un filtro, por cursor sobre el ID.
+     * Pensado para las operaciones masivas, que procesan cada lote en su propia transacción corta: solo se bloquean
+     * las filas del lote. Solo bloquea dentro de {@link DatabaseConnection#enTransaccion}.
+     *
+     * @param filtro    Los contratos a recorrer.
+     * @param despuesDe ID del último contrato del lote anterior, o 0 para el primero.
+     * @param limite    Número máximo de contratos del lote.
+     * @return Los contratos del lote ordenados por ID (vacío si no quedan), o {@code null} si ocurrió un error.
+     */
+    @SuppressWarnings("try")
+    public List<Contrato> getContratosLoteForUpdate(FiltroContratos filtro, int despuesDe, int limite) {
+        List<Integer> ids = filtro.getIds() != null ? filtro.idsDespuesDe(despuesDe, limite) : null;
+        if (ids != null && ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = sqlLoteForUpdate(filtro, ids);
+        List<Contrato> contratos = new ArrayList<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_LOTE_FOR_UPDATE.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int indice = asignarParametrosFiltro(pstmt, filtro, ids);
+            pstmt.setInt(indice++, despuesDe);
+            pstmt.setInt(indice, limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    contratos.add(mapearContrato(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener y bloquear un lote de contratos: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        return contratos;
+    }
+
+    /**
+     * Cuenta los contratos que selecciona un filtro, para informar el avance de una operación masiva.
+     *
+     * @param filtro Los contratos a contar.
+     * @return El número de contratos, o -1 si ocurrió un error.
+     */
+    @SuppressWarnings("try")
+    public long contarContratos(FiltroContratos filtro) {
+        if (filtro.getIds() != null && filtro.getIds().isEmpty()) {
+            return 0;
+        }
+        String sql = sqlContar(filtro);
+        try (LatencyHistogram.Medicion medicion = LATENCIA_CONTAR_CONTRATOS.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            asignarParametrosFiltro(pstmt, filtro, filtro.getIds());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al contar contratos: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Elimina varios contratos con una sola sentencia {@code DELETE ... WHERE id IN (...)}.
+     * El llamador acota el tamaño de la lista (y con ella la duración de los bloqueos).
+     *
+     * @param ids Los IDs de los contratos a eliminar.
+     * @return El número de contratos eliminados, o -1 si ocurrió un error.
+     */
+    @SuppressWarnings("try")
+    public int deleteContratos(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = sqlEliminarVarios(ids.size());
+        try (LatencyHistogram.Medicion medicion = LATENCIA_DELETE_CONTRATOS.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 1, ids.get(i));
+            }
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error al eliminar contratos: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Asigna varios contratos a otro usuario con una sola sentencia {@code UPDATE ... WHERE id IN (...)}.
+     * El llamador acota el tamaño de la lista (y con ella la duración de los bloqueos).
+     *
+     * @param ids           Los IDs de los contratos a reasignar.
+     * @param nuevoUsername El usuario que pasa a ser dueño de los contratos.
+     * @return El número de contratos reasignados, o -1 si ocurrió un error (por ejemplo, si el usuario no existe).
+     */
+    @SuppressWarnings("try")
+    public int reasignarContratos(List<Integer> ids, String nuevoUsername) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = sqlReasignar(ids.size());
+        try (LatencyHistogram.Medicion medicion = LATENCIA_REASIGNAR_CONTRATOS.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, nuevoUsername);
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 2, ids.get(i));
+            }
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error al reasignar contratos: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Lee el siguiente lote de contratos con fecha de fin en un rango, por cursor sobre {@code (fecha_fin, id)}.
+     * La consulta se resuelve con el índice {@code idx_contrato_fin} (rango de fechas y orden del cursor) sin leer
+     * las filas, así que cada lote cuesta lo mismo aunque la tabla crezca.
+     *
+     * @param desde        Primera fecha de fin del rango (inclusive).
+     * @param hasta        Última fecha de fin del rango (inclusive).
+     * @param despuesDeFin Fecha de fin del último contrato del lote anterior, o {@code null} para el primer lote.
+     * @param despuesDeId  ID del último contrato del lote anterior (se ignora en el primer lote).
+     * @param limite       Número máximo de contratos del lote.
+     * @return Los contratos del lote ordenados por fecha de fin e ID, solo con {@code id}, {@code fecha_fin} y
+     * {@code usuario_username} (vacío si no quedan), o {@code null} si ocurrió un error.
+     */
+    @SuppressWarnings("try")
+    public List<Contrato> getVencimientosLote(Date desde, Date hasta, Date despuesDeFin, int despuesDeId, int limite) {
+        String sql = sqlVencimientosLote(despuesDeFin != null);
+        List<Contrato> contratos = new ArrayList<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_VENCIMIENTOS_LOTE.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int indice = 1;
+            pstmt.setDate(indice++, desde);
+            pstmt.setDate(indice++, hasta);
+            if (despuesDeFin != null) {
+                pstmt.setDate(indice++, despuesDeFin);
+                pstmt.setDate(indice++, despuesDeFin);
+                pstmt.setInt(indice++, despuesDeId);
+            }
+            pstmt.setInt(indice, limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Contrato contrato = new Contrato();
+                    contrato.setId(rs.getInt("id"));
+                    contrato.setFecha_fin(rs.getDate("fecha_fin"));
+                    contrato.setUsuarioUsername(rs.getString("usuario_username"));
+                    contratos.add(contrato);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener un lote de contratos por vencer: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        return contratos;
+    }
+
+    /**
+     * Condición {@code WHERE} de un filtro de contratos. Con {@code ids} se limita a esos IDs.
+     */
+    private static String condicionFiltro(FiltroContratos filtro, List<Integer> ids) {
+        StringBuilder sql = new StringBuilder(" WHERE usuario_username = ?");
+        if (ids != null) {
+            sql.append(" AND id IN (").append(marcadores(ids.size())).append(')');
+        }
+        if (filtro.getEmpresa() != null) {
+            sql.append(" AND empresa = ?");
+        }
+        if (filtro.getFinAntesDe() != null) {
+            sql.append(" AND fecha_fin < ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Asigna los parámetros de {@link #condicionFiltro}.
+     *
+     * @return El índice del siguiente parámetro.
+     */
+    private static int asignarParametrosFiltro(PreparedStatement pstmt, FiltroContratos filtro, List<Integer> ids) throws SQLException {
+        int indice = 1;
+        pstmt.setString(indice++, filtro.getUsername());
+        if (ids != null) {
+            for (Integer id : ids) {
+                pstmt.setInt(indice++, id);
+            }
+        }
+        if (filtro.getEmpresa() != null) {
+            pstmt.setString(indice++, filtro.getEmpresa());
+        }
+        if (filtro.getFinAntesDe() != null) {
+            pstmt.setDate(indice++, filtro.getFinAntesDe());
+        }
+        return indice;
+    }
+
+    private static String marcadores(int cantidad) {
+        StringJoiner marcadores = new StringJoiner(", ");
+        for (int i = 0; i < cantidad; i++) {
+            marcadores.add("?");
+        }
+        return marcadores.toString();
+    }
+
+    /**
+     * Construye un objeto {@link Contrato} a partir de la fila actual de un {@link ResultSet}.
+     *
+     * @param rs El resultado posicionado en la fila a leer.
+     * @return El contrato con los datos de la fila.
+     * @throws SQLException Si ocurre un error al leer las columnas.
+     */
+    private Contrato mapearContrato(ResultSet rs) throws SQLException {
+        return mapearContrato(rs, new Contrato());
+    }
+
+    /**
+     * Copia la fila actual de un {@link ResultSet} en un objeto {@link Contrato} existente.
+     *
+     * @param rs       El resultado posicionado en la fila a leer.
+     * @param contrato El contrato donde se copian los datos.
+     * @return El mismo contrato recibido.
+     * @throws SQLException Si ocurre un error al leer las columnas.
+     */
+    private Contrato mapearContrato(ResultSet rs, Contrato contrato) throws SQLException {
+        contrato.setId(rs.getInt("id"));
+        contrato.setFecha_firma(rs.getDate("fecha_firma"));
+        contrato.setFecha_inicio(rs.getDate("fecha_inicio"));
+        contrato.setFecha_fin(rs.getDate("fecha_fin"));
+        contrato.setEmpresa(rs.getString("empresa"));
+        contrato.setEmpleado(rs.getString("empleado"));
+        contrato.setFunciones(rs.getString("funciones"));
+        contrato.setMonto(rs.getDouble("monto"));
+        contrato.setFrecuencia_de_pago(rs.getString("frecuencia_de_pago"));
+        contrato.setUsuarioUsername(rs.getString("usuario_username"));
+        return contrato;
+    }
+}
@@ -0,0 +1,88 @@
+package main.java.models.repositories;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Selección de los contratos de un usuario para las operaciones masivas (eliminación y reasignación): una lista
+ * de IDs, o un filtro por empresa y por fecha de fin. Siempre se limita a los contratos de {@code username}.
+ * Es inmutable, para poder usarla desde el hilo que ejecuta la operación.
+ */
+public final class FiltroContratos {
+
+    private final String username;
+    private final List<Integer> ids; // Ordenados y sin repetidos, o null si se filtra por empresa/fecha
+    private final String empresa;
+    private final Date finAntesDe;
+
+    private FiltroContratos(String username, List<Integer> ids, String empresa, Date finAntesDe) {
+        if (username == null) {
+            throw new IllegalArgumentException("El filtro de contratos requiere un usuario.");
+        }
+        this.username = username;
+        this.ids = ids;
+        this.empresa = empresa;
+        this.finAntesDe = finAntesDe;
+    }
+
+    /**
+     * Selecciona los contratos de la lista que pertenecen al usuario. Los IDs de otros usuarios se ignoran.
+     *
+     * @param username El usuario dueño de los contratos.
+     * @param ids      Los IDs de los contratos.
+     * @return El filtro.
+     */
+    public static FiltroContratos porIds(String username, Collection<Integer> ids) {
+        return new FiltroContratos(username, Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(ids))), null, null);
+    }
+
+    /**
+     * Selecciona los contratos del usuario, opcionalmente solo los de una empresa y/o los que terminan antes de
+     * una fecha.
+     *
+     * @param username   El usuario dueño de los contratos.
+     * @param empresa    La empresa, o {@code null} para todas.
+     * @param finAntesDe Fecha límite (exclusiva) de la fecha de fin, o {@code null} para no filtrar por fecha.
+     * @return El filtro.
+     */
+    public static FiltroContratos porUsuario(String username, String empresa, Date finAntesDe) {
+        return new FiltroContratos(username, null, empresa, finAntesDe);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return Los IDs seleccionados, en orden ascendente, o {@code null} si el filtro no es por IDs.
+     */
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    public String getEmpresa() {
+        return empresa;
+    }
+
+    public Date getFinAntesDe() {
+        return finAntesDe;
+    }
+
+    /**
+     * Siguiente tramo de la lista de IDs. Las operaciones masivas avanzan por tramos de la lista, no por las filas
+     * encontradas, porque algunos IDs pueden no existir o ser de otro usuario.
+     *
+     * @param despuesDe ID de referencia.
+     * @param limite    Número máximo de IDs.
+     * @return Los primeros {@code limite} IDs de la lista mayores que {@code despuesDe} (solo en filtros por IDs).
+     */
+    public List<Integer> idsDespuesDe(int despuesDe, int limite) {
+        int desde = Collections.binarySearch(ids, despuesDe);
+        desde = desde >= 0 ? desde + 1 : -desde - 1;
+        return ids.subList(desde, Math.min(ids.size(), desde + limite));
+    }
+}
@@ -0,0 +1,60 @@
+package main.java.models.repositories;
+
+import main.java.models.entities.Contrato;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Clase que maneja el acceso a la tabla 'NotificacionVencimiento', la bandeja de salida de los avisos de vencimiento
+ * de contratos. Los avisos los crea la tarea diaria de vencimientos y los envía (marcando {@code enviada_en}) un
+ * proceso externo.
+ * <p>
+ * La clave única {@code (contrato_id, fecha_fin)} hace idempotente la creación: agregar otra vez el aviso de un
+ * contrato con la misma fecha de fin no tiene efecto.
+ */
+public class NotificacionVencimientoRepository {
+
+    private static final LatencyHistogram LATENCIA_CREAR_AVISOS = MetricsRegistry.repositorio("NotificacionVencimientoRepository", "crearAvisos");
+
+    /**
+     * Agrega los avisos de un lote de contratos con una sola sentencia {@code INSERT IGNORE} de varias filas.
+     * Los contratos que ya tienen aviso para su fecha de fin se omiten.
+     * El llamador acota el tamaño del lote.
+     *
+     * @param contratos Contratos por vencer, con {@code id}, {@code fecha_fin} y {@code usuario_username}.
+     * @return El número de avisos nuevos, o -1 si ocurrió un error.
+     */
+    @SuppressWarnings("try")
+    public int crearAvisos(List<Contrato> contratos) {
+        if (contratos.isEmpty()) {
+            return 0;
+        }
+        StringJoiner filas = new StringJoiner(", ");
+        for (int i = 0; i < contratos.size(); i++) {
+            filas.add("(?, ?, ?)");
+        }
+        String sql = "INSERT IGNORE INTO NotificacionVencimiento (contrato_id, usuario_username, fecha_fin) VALUES " + filas;
+        try (LatencyHistogram.Medicion medicion = LATENCIA_CREAR_AVISOS.medir();
+             Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int indice = 1;
+            for (Contrato contrato : contratos) {
+                pstmt.setInt(indice++, contrato.getId());
+                pstmt.setString(indice++, contrato.getUsuarioUsername());
+                pstmt.setDate(indice++, contrato.getFecha_fin());
+            }
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error al crear avisos de vencimiento: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+}
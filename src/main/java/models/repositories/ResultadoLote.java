@@ -0,0 +1,91 @@
+package main.java.models.repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Resultado de una operación por lotes (por ejemplo, la inserción masiva de contratos).
+ * Lleva la cuenta de las filas procesadas con éxito y el detalle de las filas que fallaron.
+ * Para acotar la memoria, solo se guarda el detalle de los primeros {@link #MAX_ERRORES_DETALLADOS} errores;
+ * el resto solo se cuenta.
+ */
+public class ResultadoLote {
+
+    public static final int MAX_ERRORES_DETALLADOS = 1000;
+
+    private int exitosos;
+    private int totalErrores;
+    private final List<ErrorFila> errores = new ArrayList<>();
+
+    /**
+     * Suma filas procesadas con éxito.
+     *
+     * @param cantidad Número de filas.
+     */
+    public void sumarExitosos(int cantidad) {
+        exitosos += cantidad;
+    }
+
+    /**
+     * Registra el error de una fila.
+     *
+     * @param fila    Número o posición de la fila que falló.
+     * @param mensaje Descripción del error.
+     */
+    public void agregarError(long fila, String mensaje) {
+        totalErrores++;
+        if (errores.size() < MAX_ERRORES_DETALLADOS) {
+            errores.add(new ErrorFila(fila, mensaje));
+        }
+    }
+
+    /**
+     * Acumula en este resultado los datos de otro, desplazando las posiciones de fila de sus errores.
+     *
+     * @param otro      El resultado a acumular.
+     * @param traductor Convierte la posición de fila de {@code otro} a la numeración de este resultado.
+     */
+    public void acumular(ResultadoLote otro, LongUnaryOperator traductor) {
+        exitosos += otro.exitosos;
+        for (ErrorFila error : otro.errores) {
+            agregarError(traductor.applyAsLong(error.getFila()), error.getMensaje());
+        }
+        // Errores que el otro resultado solo contó, sin detalle
+        totalErrores += otro.totalErrores - otro.errores.size();
+    }
+
+    public int getExitosos() {
+        return exitosos;
+    }
+
+    public int getTotalErrores() {
+        return totalErrores;
+    }
+
+    public List<ErrorFila> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+
+    /**
+     * Error ocurrido al procesar una fila de un lote.
+     */
+    public static class ErrorFila {
+        private final long fila;
+        private final String mensaje;
+
+        public ErrorFila(long fila, String mensaje) {
+            this.fila = fila;
+            this.mensaje = mensaje;
+        }
+
+        public long getFila() {
+            return fila;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package main.java.models.repositories;
+
+import main.java.models.entities.Contrato;
+import main.java.models.entities.ResumenMes;
+import main.java.models.entities.ResumenMonto;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Clase que maneja el acceso a las tablas de resumen de contratos:
+ * 'ResumenEmpresa', 'ResumenFrecuencia' y 'ResumenUsuario' (monto total y número de contratos por grupo)
+ * y 'ResumenVigentesMes' (contratos vigentes en cada mes).
+ * <p>
+ * Los resúmenes se mantienen de forma incremental: cada alta, modificación o baja de un contrato suma o resta
+ * su aporte con {@code INSERT ... ON DUPLICATE KEY UPDATE}. Para que el resumen no se desvíe de la tabla Contrato,
+ * {@link #registrarCambios(Collection, Collection)} debe ejecutarse en la misma transacción que la escritura del
+ * contrato (ver {@link DatabaseConnection#enTransaccion}). {@link #reconstruir()} recalcula todo desde cero.
+ * Las consultas de los reportes pueden leerse de una réplica ({@link DatabaseConnection#getReadConnection()}).
+ */
+public class ResumenContratoRepository {
+
+    // Máximo de meses de vigencia que se cuentan por contrato, para acotar el trabajo con fechas de fin absurdas.
+    // La migración V3 aplica el mismo límite al calcular el resumen inicial.
+    private static final int MAX_MESES_VIGENCIA = 1200;
+
+    private static final String[] TABLAS = {"ResumenEmpresa", "ResumenFrecuencia", "ResumenUsuario", "ResumenVigentesMes"};
+
+    private static final String SQL_SUMAR_EMPRESA = sqlSumarMonto("ResumenEmpresa", "empresa");
+    private static final String SQL_SUMAR_FRECUENCIA = sqlSumarMonto("ResumenFrecuencia", "frecuencia_de_pago");
+    private static final String SQL_SUMAR_USUARIO = sqlSumarMonto("ResumenUsuario", "usuario_username");
+    /**
+     * Consulta de {@link #getVigentesPorMes(Date, Date)}, pública para que ExplainPlanVerifier la compruebe.
+     */
+    public static final String SQL_VIGENTES_POR_MES = "SELECT mes, cantidad FROM ResumenVigentesMes WHERE mes BETWEEN ? AND ? AND cantidad > 0 ORDER BY mes";
+
+    private static final String SQL_SUMAR_MES = "INSERT INTO ResumenVigentesMes (mes, cantidad) VALUES (?, ?)"
+            + " ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad)";
+
+    // Latencia de cada método, exportada en /metrics
+    private static final LatencyHistogram LATENCIA_REGISTRAR_CAMBIOS = MetricsRegistry.repositorio("ResumenContratoRepository", "registrarCambios");
+    private static final LatencyHistogram LATENCIA_GET_RESUMEN = MetricsRegistry.repositorio("ResumenContratoRepository", "getResumen");
+    private static final LatencyHistogram LATENCIA_GET_VIGENTES_POR_MES = MetricsRegistry.repositorio("ResumenContratoRepository", "getVigentesPorMes");
+    private static final LatencyHistogram LATENCIA_RECONSTRUIR = MetricsRegistry.repositorio("ResumenContratoRepository", "reconstruir");
+
+    /**
+     * Actualiza los resúmenes restando el aporte de los contratos que dejan de existir (o su versión anterior)
+     * y sumando el de los contratos nuevos (o su versión nueva). Los aportes que se compensan no se escriben.
+     *
+     * @param bajas Contratos eliminados, o la versión anterior de los modificados.
+     * @param altas Contratos creados, o la versión nueva de los modificados.
+     * @return {@code true} si los resúmenes se actualizaron, {@code false} en caso de error.
+     */
+    @SuppressWarnings("try")
+    public boolean registrarCambios(Collection<Contrato> bajas, Collection<Contrato> altas) {
+        Deltas deltas = new Deltas();
+        for (Contrato contrato : bajas) {
+            deltas.agregar(contrato, -1);
+        }
+        for (Contrato contrato : altas) {
+            deltas.agregar(contrato, 1);
+        }
+        if (deltas.estaVacio()) {
+            return true;
+        }
+        try (LatencyHistogram.Medicion medicion = LATENCIA_REGISTRAR_CAMBIOS.medir();
+             Connection conn = DatabaseConnection.getConnection()) {
+            aplicar(conn, deltas);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error al actualizar los resúmenes de contratos: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @return El monto total y el número de contratos por empresa, de mayor a menor monto.
+     */
+    public List<ResumenMonto> getResumenPorEmpresa() {
+        return getResumen("SELECT empresa, total_monto, cantidad FROM ResumenEmpresa WHERE cantidad > 0 ORDER BY total_monto DESC");
+    }
+
+    /**
+     * @return El monto total y el número de contratos por frecuencia de pago, de mayor a menor monto.
+     */
+    public List<ResumenMonto> getResumenPorFrecuencia() {
+        return getResumen("SELECT frecuencia_de_pago, total_monto, cantidad FROM ResumenFrecuencia WHERE cantidad > 0 ORDER BY total_monto DESC");
+    }
+
+    /**
+     * @return El monto total y el número de contratos por usuario, de mayor a menor monto.
+     *         Los contratos sin usuario aparecen con la clave vacía.
+     */
+    public List<ResumenMonto> getResumenPorUsuario() {
+        return getResumen("SELECT usuario_username, total_monto, cantidad FROM ResumenUsuario WHERE cantidad > 0 ORDER BY total_monto DESC");
+    }
+
+    /**
+     * Recupera el número de contratos vigentes por mes en un rango.
+     *
+     * @param desde Primer mes del rango (primer día del mes).
+     * @param hasta Último mes del rango (primer día del mes).
+     * @return Los meses del rango con al menos un contrato vigente, en orden cronológico.
+     */
+    @SuppressWarnings("try")
+    public List<ResumenMes> getVigentesPorMes(Date desde, Date hasta) {
+        String sql = SQL_VIGENTES_POR_MES;
+        List<ResumenMes> meses = new ArrayList<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_VIGENTES_POR_MES.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, desde);
+            pstmt.setDate(2, hasta);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    meses.add(new ResumenMes(rs.getDate("mes"), rs.getLong("cantidad")));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener los contratos vigentes por mes: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return meses;
+    }
+
+    /**
+     * Recalcula todos los resúmenes a partir de la tabla Contrato. Sirve para repararlos si se desviaron
+     * (por ejemplo, tras cambios hechos directamente en la base de datos). Debe ejecutarse en una transacción
+     * para que los resúmenes no queden vacíos a la vista de otras conexiones mientras se recalculan.
+     *
+     * @return {@code true} si se recalcularon, {@code false} en caso de error.
+     */
+    @SuppressWarnings("try")
+    public boolean reconstruir() {
+        String[] sentencias = {
+                "INSERT INTO ResumenEmpresa (empresa, total_monto, cantidad)"
+                        + " SELECT empresa, SUM(monto), COUNT(*) FROM Contrato GROUP BY empresa",
+                "INSERT INTO ResumenFrecuencia (frecuencia_de_pago, total_monto, cantidad)"
+                        + " SELECT frecuencia_de_pago, SUM(monto), COUNT(*) FROM Contrato GROUP BY frecuencia_de_pago",
+                "INSERT INTO ResumenUsuario (usuario_username, total_monto, cantidad)"
+                        + " SELECT COALESCE(usuario_username, ''), SUM(monto), COUNT(*) FROM Contrato GROUP BY COALESCE(usuario_username, '')"
+        };
+        try (LatencyHistogram.Medicion medicion = LATENCIA_RECONSTRUIR.medir();
+             Connection conn = DatabaseConnection.getConnection()) {
+            for (String tabla : TABLAS) {
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + tabla)) {
+                    pstmt.executeUpdate();
+                }
+            }
+            for (String sql : sentencias) {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.executeUpdate();
+                }
+            }
+            // Los meses de vigencia se expanden en Java; se agrupa antes por par de fechas para leer menos filas
+            Deltas meses = new Deltas();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT fecha_inicio, fecha_fin, COUNT(*) AS cantidad FROM Contrato GROUP BY fecha_inicio, fecha_fin");
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    meses.agregarMeses(rs.getDate("fecha_inicio"), rs.getDate("fecha_fin"), rs.getLong("cantidad"));
+                }
+            }
+            aplicar(conn, meses);
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error al reconstruir los resúmenes de contratos: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @SuppressWarnings("try")
+    private List<ResumenMonto> getResumen(String sql) {
+        List<ResumenMonto> resumen = new ArrayList<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_RESUMEN.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                resumen.add(new ResumenMonto(rs.getString(1), rs.getBigDecimal(2), rs.getLong(3)));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener el resumen de contratos: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return resumen;
+    }
+
+    /**
+     * Escribe los aportes acumulados, un lote por tabla. Las claves se escriben en orden para que dos
+     * transacciones concurrentes bloqueen las filas de resumen en el mismo orden y no se produzcan deadlocks.
+     */
+    private void aplicar(Connection conn, Deltas deltas) throws SQLException {
+        sumarMontos(conn, SQL_SUMAR_EMPRESA, deltas.porEmpresa);
+        sumarMontos(conn, SQL_SUMAR_FRECUENCIA, deltas.porFrecuencia);
+        sumarMontos(conn, SQL_SUMAR_USUARIO, deltas.porUsuario);
+        if (!deltas.porMes.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(SQL_SUMAR_MES)) {
+                for (Map.Entry<YearMonth, Long> entrada : deltas.porMes.entrySet()) {
+                    if (entrada.getValue() != 0) {
+                        pstmt.setDate(1, Date.valueOf(entrada.getKey().atDay(1)));
+                        pstmt.setLong(2, entrada.getValue());
+                        pstmt.addBatch();
+                    }
+                }
+                pstmt.executeBatch();
+            }
+        }
+    }
+
+    private void sumarMontos(Connection conn, String sql, Map<String, Aporte> aportes) throws SQLException {
+        if (aportes.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<String, Aporte> entrada : aportes.entrySet()) {
+                Aporte aporte = entrada.getValue();
+                if (aporte.cantidad != 0 || aporte.monto.signum() != 0) {
+                    pstmt.setString(1, entrada.getKey());
+                    pstmt.setBigDecimal(2, aporte.monto);
+                    pstmt.setLong(3, aporte.cantidad);
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static String sqlSumarMonto(String tabla, String columna) {
+        return "INSERT INTO " + tabla + " (" + columna + ", total_monto, cantidad) VALUES (?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE total_monto = total_monto + VALUES(total_monto), cantidad = cantidad + VALUES(cantidad)";
+    }
+
+    /**
+     * Aportes acumulados a cada fila de resumen. Las claves se guardan ordenadas (TreeMap).
+     */
+    private static final class Deltas {
+        private final TreeMap<String, Aporte> porEmpresa = new TreeMap<>();
+        private final TreeMap<String, Aporte> porFrecuencia = new TreeMap<>();
+        private final TreeMap<String, Aporte> porUsuario = new TreeMap<>();
+        private final TreeMap<YearMonth, Long> porMes = new TreeMap<>();
+
+        private void agregar(Contrato contrato, int signo) {
+            BigDecimal monto = BigDecimal.valueOf(contrato.getMonto()).setScale(2, RoundingMode.HALF_UP);
+            if (signo < 0) {
+                monto = monto.negate();
+            }
+            porEmpresa.computeIfAbsent(Objects.toString(contrato.getEmpresa(), ""), k -> new Aporte()).sumar(monto, signo);
+            porFrecuencia.computeIfAbsent(Objects.toString(contrato.getFrecuencia_de_pago(), ""), k -> new Aporte()).sumar(monto, signo);
+            porUsuario.computeIfAbsent(Objects.toString(contrato.getUsuarioUsername(), ""), k -> new Aporte()).sumar(monto, signo);
+            agregarMeses(contrato.getFecha_inicio(), contrato.getFecha_fin(), signo);
+        }
+
+        /**
+         * Suma {@code cantidad} a cada mes entre el de inicio y el de fin (ambos incluidos).
+         */
+        private void agregarMeses(Date inicio, Date fin, long cantidad) {
+            if (inicio == null || fin == null || inicio.after(fin)) {
+                return;
+            }
+            YearMonth mes = YearMonth.from(inicio.toLocalDate());
+            YearMonth ultimo = YearMonth.from(fin.toLocalDate());
+            for (int i = 0; i < MAX_MESES_VIGENCIA && !mes.isAfter(ultimo); i++, mes = mes.plusMonths(1)) {
+                porMes.merge(mes, cantidad, Long::sum);
+            }
+        }
+
+        private boolean estaVacio() {
+            return porEmpresa.isEmpty() && porMes.isEmpty();
+        }
+    }
+
+    private static final class Aporte {
+        private BigDecimal monto = BigDecimal.ZERO;
+        private long cantidad;
+
+        private void sumar(BigDecimal montoContrato, int signo) {
+            monto = monto.add(montoContrato);
+            cantidad += signo;
+        }
+    }
+}
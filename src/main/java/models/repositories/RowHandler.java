@@ -0,0 +1,23 @@
+package main.java.models.repositories;
+
+import java.io.IOException;
+
+/**
+ * Función que procesa una fila a la vez mientras un repositorio recorre un resultado en modo streaming.
+ * Permite escribir los datos directamente a su destino (por ejemplo, la respuesta HTTP)
+ * sin acumularlos en una lista.
+ *
+ * @param <T> Tipo del objeto que representa cada fila.
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+
+    /**
+     * Procesa una fila. El objeto recibido puede ser reutilizado por el repositorio para la fila siguiente,
+     * por lo que no debe guardarse una referencia a él.
+     *
+     * @param fila El objeto con los datos de la fila actual.
+     * @throws IOException Si ocurre un error al escribir la fila en su destino.
+     */
+    void procesar(T fila) throws IOException;
+}
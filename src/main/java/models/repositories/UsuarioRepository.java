@@ -2,31 +2,63 @@ package main.java.models.repositories;
 
 import main.java.models.entities.Usuario;
 import main.java.utils.DatabaseConnection;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.StringJoiner;
 
 /**
  * Clase que maneja las operaciones de acceso a datos (CRUD) para la entidad {@link Usuario}.
  * Se comunica directamente con la base de datos.
  *  Esta clase proporciona métodos para crear, leer, actualizar y eliminar usuarios.
+ * Los listados de usuarios pueden leerse de una réplica ({@link DatabaseConnection#getReadConnection()});
+ * la búsqueda por username, que usan el login y las validaciones, lee siempre del primario.
  */
 public class UsuarioRepository {
 
+    // Latencia de cada método, exportada en /metrics
+    private static final LatencyHistogram LATENCIA_CREATE_USUARIO = MetricsRegistry.repositorio("UsuarioRepository", "createUsuario");
+    private static final LatencyHistogram LATENCIA_GET_USUARIO_BY_USERNAME = MetricsRegistry.repositorio("UsuarioRepository", "getUsuarioByUsername");
+    private static final LatencyHistogram LATENCIA_GET_ALL_USUARIOS = MetricsRegistry.repositorio("UsuarioRepository", "getAllUsuarios");
+    private static final LatencyHistogram LATENCIA_GET_USUARIOS_PAGINA = MetricsRegistry.repositorio("UsuarioRepository", "getUsuariosPagina");
+    private static final LatencyHistogram LATENCIA_STREAM_USUARIOS_PAGINA = MetricsRegistry.repositorio("UsuarioRepository", "streamUsuariosPagina");
+    private static final LatencyHistogram LATENCIA_UPDATE_USUARIO = MetricsRegistry.repositorio("UsuarioRepository", "updateUsuario");
+    private static final LatencyHistogram LATENCIA_DELETE_USUARIO = MetricsRegistry.repositorio("UsuarioRepository", "deleteUsuario");
+
+    // Columnas que streamUsuariosPagina puede leer además de username. El bit i de una máscara corresponde a
+    // COLUMNAS_PUBLICAS[i]. La contraseña no está: nunca sale de la base de datos por un listado.
+    private static final String[] COLUMNAS_PUBLICAS = {"nombre", "email"};
+
+    /**
+     * Máscara con todas las columnas públicas, para {@link #streamUsuariosPagina}.
+     */
+    public static final int TODAS_LAS_COLUMNAS_PUBLICAS = (1 << COLUMNAS_PUBLICAS.length) - 1;
+
+    // Sentencias SQL. Las de consulta y borrado son públicas (o se generan con los métodos sql* públicos) para que
+    // ExplainPlanVerifier compruebe con EXPLAIN exactamente las que ejecuta el repositorio.
+    private static final String SELECT_USUARIO = "SELECT username, password, nombre, email FROM Usuario";
+    public static final String SQL_POR_USERNAME = SELECT_USUARIO + " WHERE username = ?";
+    public static final String SQL_ELIMINAR = "DELETE FROM Usuario WHERE username = ?";
+
     /**
      * Inserta un nuevo usuario en la base de datos.
      *
      * @param usuario El objeto {@link Usuario} a insertar.
      * @return {@code true} si la inserción fue exitosa, {@code false} en caso contrario.
      */
+    @SuppressWarnings("try")
     public boolean createUsuario(Usuario usuario) {
         String sql = "INSERT INTO Usuario (username, password, nombre, email) VALUES (?, ?, ?, ?)";
         // Uso de try-with-resources para asegurar que Connection y PreparedStatement se cierren automáticamente
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_CREATE_USUARIO.medir();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, usuario.getUsername());
             pstmt.setString(2, usuario.getPassword()); // NOTA: En un sistema real, la contraseña debería ser hasheada.
@@ -48,20 +80,18 @@ public class UsuarioRepository {
      * @param username El nombre de usuario del usuario a buscar.
      * @return El objeto {@link Usuario} si se encuentra, o {@code null} si no existe.
      */
+    @SuppressWarnings("try")
     public Usuario getUsuarioByUsername(String username) {
-        String sql = "SELECT username, password, nombre, email FROM Usuario WHERE username = ?";
+        String sql = SQL_POR_USERNAME;
         Usuario usuario = null;
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_USUARIO_BY_USERNAME.medir();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
 
             try (ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta de selección
                 if (rs.next()) { // Si se encuentra un resultado
-                    usuario = new Usuario();
-                    usuario.setUsername(rs.getString("username"));
-                    usuario.setPassword(rs.getString("password"));
-                    usuario.setNombre(rs.getString("nombre"));
-                    usuario.setEmail(rs.getString("email"));
+                    usuario = mapearUsuario(rs);
                 }
             }
         } catch (SQLException e) {
@@ -76,20 +106,17 @@ public class UsuarioRepository {
      *
      * @return Una {@link List} de objetos {@link Usuario}. Retorna una lista vacía si no hay usuarios.
      */
+    @SuppressWarnings("try")
     public List<Usuario> getAllUsuarios() {
-        String sql = "SELECT username, password, nombre, email FROM Usuario";
+        String sql = SELECT_USUARIO;
         List<Usuario> usuarios = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_ALL_USUARIOS.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) { // Ejecuta la consulta de selección
 
             while (rs.next()) { // Itera sobre cada fila del resultado
-                Usuario usuario = new Usuario();
-                usuario.setUsername(rs.getString("username"));
-                usuario.setPassword(rs.getString("password"));
-                usuario.setNombre(rs.getString("nombre"));
-                usuario.setEmail(rs.getString("email"));
-                usuarios.add(usuario); // Añade el usuario a la lista
+                usuarios.add(mapearUsuario(rs)); // Añade el usuario a la lista
             }
         } catch (SQLException e) {
             System.err.println("Error al obtener todos los usuarios: " + e.getMessage());
@@ -98,15 +125,122 @@ public class UsuarioRepository {
         return usuarios;
     }
 
+    /**
+     * Recupera una página de usuarios usando paginación por cursor (keyset) sobre el nombre de usuario.
+     *
+     * @param cursor     Nombre de usuario de referencia, o {@code null} para la primera página.
+     * @param haciaAtras {@code true} para obtener los usuarios anteriores al cursor, en orden descendente.
+     * @param limite     Número máximo de usuarios a devolver.
+     * @return Una {@link List} de usuarios ordenada por username (ascendente, o descendente si {@code haciaAtras}).
+     */
+    @SuppressWarnings("try")
+    public List<Usuario> getUsuariosPagina(String cursor, boolean haciaAtras, int limite) {
+        String sql = sqlPagina(cursor != null, haciaAtras);
+        List<Usuario> usuarios = new ArrayList<>();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_GET_USUARIOS_PAGINA.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int indice = 1;
+            if (cursor != null) {
+                pstmt.setString(indice++, cursor);
+            }
+            pstmt.setInt(indice, limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    usuarios.add(mapearUsuario(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener página de usuarios: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return usuarios;
+    }
+
+    /**
+     * Recorre en streaming una página de usuarios (paginación por cursor sobre el username) leyendo solo las columnas
+     * públicas indicadas, además del username. La contraseña nunca se lee.
+     *
+     * @param despuesDe Username de referencia; se recorren los usuarios posteriores, en orden ascendente.
+     *                  {@code null} para el inicio.
+     * @param limite    Número máximo de usuarios a recorrer.
+     * @param columnas  Máscara de columnas a leer (ver {@link #indiceColumnaPublica(String)}).
+     * @param handler   Función que procesa cada usuario (el objeto se reutiliza entre filas).
+     * @return {@code true} si se recorrió la página, {@code false} si ocurrió un error de base de datos.
+     * @throws IOException Si el {@code handler} falla al escribir una fila.
+     */
+    @SuppressWarnings("try")
+    public boolean streamUsuariosPagina(String despuesDe, int limite, int columnas, RowHandler<Usuario> handler) throws IOException {
+        if (columnas < 0 || columnas > TODAS_LAS_COLUMNAS_PUBLICAS) {
+            throw new IllegalArgumentException("Máscara de columnas inválida: " + columnas);
+        }
+        String sql = sqlPaginaColumnas(columnas, despuesDe != null);
+
+        try (LatencyHistogram.Medicion medicion = LATENCIA_STREAM_USUARIOS_PAGINA.medir();
+             Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int indice = 1;
+            if (despuesDe != null) {
+                pstmt.setString(indice++, despuesDe);
+            }
+            pstmt.setInt(indice, limite);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Usuario usuario = new Usuario(); // Se reutiliza la misma instancia para cada fila
+                while (rs.next()) {
+                    usuario.setUsername(rs.getString(1));
+                    int posicion = 2;
+                    if ((columnas & 1) != 0) {
+                        usuario.setNombre(rs.getString(posicion++));
+                    }
+                    if ((columnas & 2) != 0) {
+                        usuario.setEmail(rs.getString(posicion));
+                    }
+                    handler.procesar(usuario);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error al recorrer página de usuarios: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @param nombre Nombre de una columna de la tabla Usuario.
+     * @return La posición de la columna en las máscaras de {@link #streamUsuariosPagina}, o -1 si no es una columna
+     *         pública ({@code username} siempre se lee; {@code password} nunca).
+     */
+    public static int indiceColumnaPublica(String nombre) {
+        for (int i = 0; i < COLUMNAS_PUBLICAS.length; i++) {
+            if (COLUMNAS_PUBLICAS[i].equals(nombre)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param indice Posición de una columna pública en las máscaras de columnas.
+     * @return El nombre de la columna.
+     */
+    public static String nombreColumnaPublica(int indice) {
+        return COLUMNAS_PUBLICAS[indice];
+    }
+
     /**
      * Actualiza la información de un usuario existente en la base de datos.
      *
      * @param usuario El objeto {@link Usuario} con la información actualizada.
      * @return {@code true} si la actualización fue exitosa, {@code false} en caso contrario.
      */
+    @SuppressWarnings("try")
     public boolean updateUsuario(Usuario usuario) {
         String sql = "UPDATE Usuario SET password = ?, nombre = ?, email = ? WHERE username = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (LatencyHistogram.Medicion medicion = LATENCIA_UPDATE_USUARIO.medir();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, usuario.getPassword()); // NOTA: En un sistema real, la contraseña debería ser hasheada.
             pstmt.setString(2, usuario.getNombre());
@@ -128,9 +262,11 @@ public class UsuarioRepository {
      * @param username El nombre de usuario del usuario a eliminar.
      * @return {@code true} si la eliminación fue exitosa, {@code false} en caso contrario.
      */
+    @SuppressWarnings("try")
     public boolean deleteUsuario(String username) {
-        String sql = "DELETE FROM Usuario WHERE username = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = SQL_ELIMINAR;
+        try (LatencyHistogram.Medicion medicion = LATENCIA_DELETE_USUARIO.medir();
+             Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, username);
 
@@ -142,4 +278,46 @@ public class UsuarioRepository {
             return false;
         }
     }
+
+    /**
+     * @param conCursor  {@code false} para la primera página.
+     * @param haciaAtras {@code true} para la página anterior al cursor.
+     * @return La sentencia de {@link #getUsuariosPagina}: el cursor, si hay, y el límite.
+     */
+    public static String sqlPagina(boolean conCursor, boolean haciaAtras) {
+        return SELECT_USUARIO + (conCursor ? (haciaAtras ? " WHERE username < ?" : " WHERE username > ?") : "")
+                + (haciaAtras ? " ORDER BY username DESC" : " ORDER BY username ASC") + " LIMIT ?";
+    }
+
+    /**
+     * @param columnas  Máscara de columnas públicas a leer.
+     * @param conCursor {@code false} para la primera página.
+     * @return La sentencia de {@link #streamUsuariosPagina}: el cursor, si hay, y el límite.
+     */
+    public static String sqlPaginaColumnas(int columnas, boolean conCursor) {
+        StringJoiner select = new StringJoiner(", ", "SELECT ", " FROM Usuario");
+        select.add("username");
+        for (int i = 0; i < COLUMNAS_PUBLICAS.length; i++) {
+            if ((columnas & (1 << i)) != 0) {
+                select.add(COLUMNAS_PUBLICAS[i]);
+            }
+        }
+        return select + (conCursor ? " WHERE username > ?" : "") + " ORDER BY username ASC LIMIT ?";
+    }
+
+    /**
+     * Construye un objeto {@link Usuario} a partir de la fila actual de un {@link ResultSet}.
+     *
+     * @param rs El resultado posicionado en la fila a leer.
+     * @return El usuario con los datos de la fila.
+     * @throws SQLException Si ocurre un error al leer las columnas.
+     */
+    private Usuario mapearUsuario(ResultSet rs) throws SQLException {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(rs.getString("username"));
+        usuario.setPassword(rs.getString("password"));
+        usuario.setNombre(rs.getString("nombre"));
+        usuario.setEmail(rs.getString("email"));
+        return usuario;
+    }
 }
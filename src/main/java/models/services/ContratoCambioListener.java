@@ -0,0 +1,37 @@
+package main.java.models.services;
+
+import main.java.models.entities.Contrato;
+
+/**
+ * Recibe los cambios de contratos confirmados en la base de datos, para mantener al día estructuras
+ * derivadas en memoria (índices, instantáneas analíticas...). Se registra con
+ * {@link ContratoService#registrarListener(ContratoCambioListener)}.
+ * <p>
+ * Los métodos se llaman después de confirmar la transacción, en el hilo que hizo el cambio, así que deben ser
+ * rápidos y seguros para hilos. Los contratos recibidos no deben modificarse ni guardarse: si se necesitan
+ * después, se copian sus datos.
+ */
+public interface ContratoCambioListener {
+
+    /**
+     * Se llama tras crear un contrato.
+     *
+     * @param contrato El contrato creado, con su ID asignado.
+     */
+    void contratoCreado(Contrato contrato);
+
+    /**
+     * Se llama tras actualizar un contrato.
+     *
+     * @param anterior El contrato como estaba antes del cambio.
+     * @param nuevo    El contrato actualizado.
+     */
+    void contratoActualizado(Contrato anterior, Contrato nuevo);
+
+    /**
+     * Se llama tras eliminar un contrato, también cuando se elimina en cascada al eliminar su usuario.
+     *
+     * @param eliminado El contrato como estaba antes de eliminarlo.
+     */
+    void contratoEliminado(Contrato eliminado);
+}
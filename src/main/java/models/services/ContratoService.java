@@ -2,8 +2,39 @@ package main.java.models.services;
 
 import main.java.models.entities.Contrato;
 import main.java.models.repositories.ContratoRepository;
+import main.java.models.repositories.FiltroContratos;
+import main.java.models.repositories.ResultadoLote;
+import main.java.models.repositories.ResumenContratoRepository;
+import main.java.models.repositories.RowHandler;
+import main.java.utils.AppConfig;
+import main.java.utils.ConnectionPool;
+import main.java.utils.ContextoPeticion;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.InvertedIndex;
+import main.java.utils.Pagina;
+import main.java.utils.RadixTrie;
+import main.java.utils.TtlCache;
+import main.java.utils.VersionRegistry;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Clase de servicio que encapsula la lógica de negocio para la entidad {@link Contrato}.
@@ -12,13 +43,76 @@ import java.util.List;
  * Esta clase puede incluir validaciones de negocio y transformaciones de datos antes de interactuar con el repositorio.
  */
 public class ContratoService {
+
+    // Caché de listados de contratos por usuario, compartida por todas las instancias del servicio.
+    // Se acota por el número total de contratos guardados (de todos los usuarios) y desaloja los listados
+    // menos usados recientemente. Las escrituras invalidan solo los listados del usuario afectado.
+    private static final TtlCache<ClaveListado, List<Contrato>> CACHE_LISTADOS = new TtlCache<>("listadosContratos",
+            AppConfig.getLong("sgc.cache.contratos.maxFilas", 200_000),
+            AppConfig.getLong("sgc.cache.contratos.ttlMs", 600_000),
+            lista -> lista.size() + 1);
+
+    // Las escrituras de contratos toman el bloqueo de lectura y la reconstrucción de los resúmenes el de escritura,
+    // para que una reconstrucción no se mezcle con aportes incrementales de transacciones en curso.
+    static final ReentrantReadWriteLock BLOQUEO_RESUMENES = new ReentrantReadWriteLock();
+
+    // Resultados que se pueden saltar en una búsqueda: acota el montículo de mejores resultados por petición
+    public static final int MAXIMO_DESPLAZAMIENTO_BUSQUEDA = 10_000;
+
+    // Filas que se pueden recorrer en una sola página de la API JSON
+    public static final int TAMANO_MAXIMO_RECORRIDO = 1_000;
+
+    // Operaciones masivas: se ejecutan de a una en un hilo propio, por lotes de sgc.contratos.masivo.lote contratos,
+    // cada uno en su propia transacción, con una pausa entre lotes que se alarga si hay peticiones esperando conexión
+    private static final int TAMANO_LOTE_MASIVO = AppConfig.getInt("sgc.contratos.masivo.lote", 500);
+    private static final long PAUSA_LOTE_MASIVO_MS = AppConfig.getLong("sgc.contratos.masivo.pausaMs", 20);
+    private static final int MAXIMO_ESPERAS_POOL = 50; // Pausas extra como mucho por lote, con el pool saturado
+    private static final long RETENCION_OPERACIONES_MS = 3_600_000; // Operaciones terminadas consultables durante 1 h
+    private static final ExecutorService EJECUTOR_MASIVO = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "sgc-contratos-masivo");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private static final ConcurrentHashMap<Long, OperacionMasiva> OPERACIONES = new ConcurrentHashMap<>();
+
+    // Listeners notificados tras cada cambio confirmado de contratos
+    private static final List<ContratoCambioListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    // Índice de vigencias por usuario (árboles de intervalos), mantenido al día con los cambios de contratos
+    private static final IndiceVigencias INDICE_VIGENCIAS = new IndiceVigencias(new ContratoRepository());
+
+    // Índice de texto completo por usuario (funciones, empresa y empleado), mantenido igual que el de vigencias
+    private static final IndiceTextoCompleto INDICE_TEXTO = new IndiceTextoCompleto(new ContratoRepository());
+
+    // Valores distintos de empresa y empleado con su número de contratos, para las sugerencias de los formularios
+    private static final DiccionarioSugerencias DICCIONARIO_SUGERENCIAS = new DiccionarioSugerencias(new ContratoRepository());
+
+    // Versión de los contratos de cada usuario, para las respuestas condicionales de los listados
+    private static final VersionesContratos VERSIONES = new VersionesContratos();
+
+    static {
+        registrarListener(VERSIONES);
+        registrarListener(INDICE_VIGENCIAS);
+        registrarListener(INDICE_TEXTO);
+        registrarListener(DICCIONARIO_SUGERENCIAS);
+    }
+
+    /**
+     * Campos de contrato con sugerencias de valores ya usados.
+     */
+    public enum CampoSugerencia {
+        EMPRESA, EMPLEADO
+    }
+
     private ContratoRepository contratoRepository;
+    private ResumenContratoRepository resumenRepository;
 
     /**
-     * Constructor del servicio de contrato. Inicializa el repositorio de contrato.
+     * Constructor del servicio de contrato. Inicializa los repositorios de contratos y de resúmenes.
      */
     public ContratoService() {
         this.contratoRepository = new ContratoRepository();
+        this.resumenRepository = new ResumenContratoRepository();
     }
 
     /**
@@ -31,11 +125,83 @@ public class ContratoService {
      */
     public boolean crearContrato(Contrato contrato) {
         // Ejemplo de validación de negocio: asegurar que las fechas son coherentes
-        if (contrato.getFecha_inicio().after(contrato.getFecha_fin())) {
-            System.err.println("Error en ContratoService: La fecha de inicio no puede ser posterior a la fecha de fin.");
+        String error = validarContrato(contrato);
+        if (error != null) {
+            System.err.println("Error en ContratoService: " + error);
             return false;
         }
-        return contratoRepository.createContrato(contrato);
+        // El contrato y su aporte a los resúmenes se guardan en la misma transacción
+        boolean creado = conResumenes(() -> contratoRepository.createContrato(contrato)
+                && resumenRepository.registrarCambios(Collections.emptyList(), Collections.singletonList(contrato)));
+        if (creado) {
+            invalidarListados(contrato.getUsuarioUsername());
+            notificar(listener -> listener.contratoCreado(contrato));
+        } else {
+            contrato.setId(0); // Si se generó un ID, se perdió al deshacer la transacción
+        }
+        return creado;
+    }
+
+    /**
+     * Crea varios contratos de una vez usando inserción por lotes.
+     * Cada contrato se valida con las mismas reglas que {@link #crearContrato(Contrato)};
+     * los que no pasan la validación se reportan como error y no se envían a la base de datos.
+     *
+     * @param contratos Los contratos a crear.
+     * @return Un {@link ResultadoLote} con el número de contratos creados y los errores por fila,
+     *         donde la fila es la posición (desde 0) del contrato en la lista recibida.
+     */
+    public ResultadoLote crearContratos(List<Contrato> contratos) {
+        ResultadoLote resultado = new ResultadoLote();
+        List<Contrato> validos = new ArrayList<>(contratos.size());
+        List<Integer> posiciones = new ArrayList<>(contratos.size()); // Posición original de cada contrato válido
+        for (int i = 0; i < contratos.size(); i++) {
+            String error = validarContrato(contratos.get(i));
+            if (error != null) {
+                resultado.agregarError(i, error);
+            } else {
+                validos.add(contratos.get(i));
+                posiciones.add(i);
+            }
+        }
+        ResultadoLote insercion;
+        BLOQUEO_RESUMENES.readLock().lock();
+        try {
+            // Cada bloque insertado suma su aporte a los resúmenes antes de confirmarse
+            insercion = contratoRepository.createContratos(validos,
+                    insertados -> resumenRepository.registrarCambios(Collections.emptyList(), insertados));
+        } finally {
+            BLOQUEO_RESUMENES.readLock().unlock();
+        }
+        resultado.acumular(insercion, fila -> fila < 0 ? fila : posiciones.get((int) fila));
+        if (insercion.getExitosos() > 0) {
+            ContextoPeticion.registrarEscritura(); // La inserción por lotes confirma sus propias transacciones
+            Set<String> usuarios = new HashSet<>();
+            for (Contrato contrato : validos) {
+                usuarios.add(contrato.getUsuarioUsername());
+                if (contrato.getId() > 0) { // Las filas que fallaron quedan sin ID
+                    notificar(listener -> listener.contratoCreado(contrato));
+                }
+            }
+            usuarios.forEach(this::invalidarListados);
+        }
+        return resultado;
+    }
+
+    /**
+     * Aplica las reglas de negocio de un contrato antes de guardarlo.
+     *
+     * @param contrato El contrato a validar.
+     * @return Un mensaje describiendo el problema, o {@code null} si el contrato es válido.
+     */
+    public String validarContrato(Contrato contrato) {
+        if (contrato.getFecha_inicio() == null || contrato.getFecha_fin() == null) {
+            return "Las fechas de inicio y fin son obligatorias.";
+        }
+        if (contrato.getFecha_inicio().after(contrato.getFecha_fin())) {
+            return "La fecha de inicio no puede ser posterior a la fecha de fin.";
+        }
+        return null;
     }
 
     /**
@@ -62,25 +228,271 @@ public class ContratoService {
      * Esto permite filtrar los contratos por el usuario que los gestiona.
      *
      * @param username El nombre de usuario del cual se quieren obtener los contratos.
-     * @return Una {@link List} de objetos {@link Contrato} asociados al usuario.
+     * @return Una {@link List} de objetos {@link Contrato} asociados al usuario, o {@code null} si ocurrió un error
+     *         de base de datos (en ese caso no se cachea nada).
      */
     public List<Contrato> obtenerContratosPorUsuario(String username) {
-        return contratoRepository.getContratosByUsuario(username);
+        // El listado se cachea como lista inmutable; se recarga tras cualquier escritura sobre los contratos del usuario
+        return CACHE_LISTADOS.obtener(new ClaveListado(username, 0, false, ClaveListado.SIN_LIMITE),
+                clave -> cargarDelPrimario(() -> contratoRepository.getContratosByUsuario(username)));
+    }
+
+    /**
+     * Obtiene una página de contratos de un usuario usando paginación por cursor sobre el ID.
+     * Si se indica {@code antesDe}, se obtiene la página anterior a ese ID; si no, la página posterior a {@code despuesDe}.
+     *
+     * @param username  El nombre de usuario dueño de los contratos, o {@code null} para todos los contratos.
+     * @param despuesDe ID del último contrato de la página previa, o {@code null} para la primera página.
+     * @param antesDe   ID del primer contrato de la página siguiente, o {@code null}.
+     * @param tamano    Tamaño de página solicitado; se ajusta al rango permitido.
+     * @return La {@link Pagina} de contratos con los cursores de navegación.
+     */
+    public Pagina<Contrato> obtenerPaginaContratosPorUsuario(String username, Integer despuesDe, Integer antesDe, int tamano) {
+        int limite = Pagina.normalizarTamano(tamano);
+        boolean haciaAtras = antesDe != null;
+        boolean conCursor = haciaAtras || despuesDe != null;
+        int cursor = haciaAtras ? antesDe : (despuesDe != null ? despuesDe : 0);
+        // Se pide una fila extra para saber si existe una página más en esa dirección
+        List<Contrato> filas = CACHE_LISTADOS.obtener(new ClaveListado(username, cursor, haciaAtras, limite + 1),
+                clave -> cargarDelPrimario(() -> contratoRepository.getContratosPagina(username, cursor, haciaAtras, limite + 1)));
+        if (filas == null) {
+            filas = Collections.emptyList(); // Error de base de datos: la página se muestra vacía sin cachearla
+        }
+        return Pagina.desdeFilas(filas, limite, haciaAtras, conCursor, contrato -> String.valueOf(contrato.getId()));
+    }
+
+    /**
+     * Obtiene una página de los contratos de un usuario vigentes en algún día del rango [desde, hasta].
+     * Con {@code desde} igual a {@code hasta}, son los contratos vigentes en esa fecha.
+     * Se resuelve con el índice de vigencias en memoria, sin recorrer todos los contratos.
+     *
+     * @param username  El nombre de usuario dueño de los contratos.
+     * @param desde     Primer día del rango.
+     * @param hasta     Último día del rango (incluido).
+     * @param despuesDe ID del último contrato de la página previa, o {@code null} para la primera página.
+     * @param antesDe   ID del primer contrato de la página siguiente, o {@code null}.
+     * @param tamano    Tamaño de página solicitado; se ajusta al rango permitido.
+     * @return La {@link Pagina} de contratos, ordenados por ID.
+     */
+    public Pagina<Contrato> obtenerPaginaContratosVigentes(String username, LocalDate desde, LocalDate hasta,
+                                                           Integer despuesDe, Integer antesDe, int tamano) {
+        return paginarPorId(INDICE_VIGENCIAS.vigentesEntre(username, desde, hasta), despuesDe, antesDe, tamano);
+    }
+
+    /**
+     * Obtiene una página de los contratos de un usuario que vencen (fecha de fin) entre hoy y dentro de {@code dias} días.
+     *
+     * @param username  El nombre de usuario dueño de los contratos.
+     * @param dias      Número de días desde hoy; 0 para los que vencen hoy.
+     * @param despuesDe ID del último contrato de la página previa, o {@code null} para la primera página.
+     * @param antesDe   ID del primer contrato de la página siguiente, o {@code null}.
+     * @param tamano    Tamaño de página solicitado; se ajusta al rango permitido.
+     * @return La {@link Pagina} de contratos, ordenados por ID.
+     */
+    public Pagina<Contrato> obtenerPaginaContratosQueVencen(String username, int dias,
+                                                            Integer despuesDe, Integer antesDe, int tamano) {
+        LocalDate hoy = LocalDate.now();
+        return paginarPorId(INDICE_VIGENCIAS.vencenEntre(username, hoy, hoy.plusDays(dias)), despuesDe, antesDe, tamano);
+    }
+
+    /**
+     * Busca entre los contratos de un usuario los que contienen todos los términos de la consulta en sus funciones,
+     * empresa o empleado, sin distinguir mayúsculas ni tildes. Los resultados se ordenan por relevancia (BM25)
+     * con el índice de texto completo en memoria, sin consultar la base de datos salvo para cargarlo.
+     *
+     * @param username       El nombre de usuario dueño de los contratos.
+     * @param consulta       Texto de la búsqueda.
+     * @param desplazamiento Número de resultados a saltar; se acota a {@link #MAXIMO_DESPLAZAMIENTO_BUSQUEDA}.
+     * @param tamano         Tamaño de página solicitado; se ajusta al rango permitido.
+     * @return Los contratos de la página, de mayor a menor relevancia, con su puntaje y el total encontrado.
+     */
+    public InvertedIndex.Resultados<Contrato> buscarContratos(String username, String consulta, int desplazamiento, int tamano) {
+        int desde = Math.min(Math.max(0, desplazamiento), MAXIMO_DESPLAZAMIENTO_BUSQUEDA);
+        return INDICE_TEXTO.buscar(username, consulta, desde, Pagina.normalizarTamano(tamano));
+    }
+
+    /**
+     * Sugiere valores ya usados de empresa o empleado que empiezan con {@code prefijo}, sin distinguir tildes
+     * ni mayúsculas, ordenados por número de contratos. Se responde desde el diccionario en memoria.
+     *
+     * @param campo   El campo a sugerir.
+     * @param prefijo Lo escrito hasta el momento.
+     * @param limite  Número máximo de sugerencias.
+     * @return Las sugerencias con su texto más usado y su número de contratos.
+     */
+    public List<RadixTrie.Sugerencia> sugerirValores(CampoSugerencia campo, String prefijo, int limite) {
+        return DICCIONARIO_SUGERENCIAS.sugerir(campo, prefijo, limite);
+    }
+
+    /**
+     * Carga el diccionario de sugerencias de empresa y empleado si aún no está cargado.
+     * Pensado para llamarse al iniciar la aplicación; si no, se carga con la primera sugerencia.
+     */
+    public static void precargarSugerencias() {
+        DICCIONARIO_SUGERENCIAS.cargar();
+    }
+
+    /**
+     * Aplica la misma paginación por cursor sobre el ID que {@link #obtenerPaginaContratosPorUsuario}
+     * a una lista de contratos ya ordenada por ID.
+     */
+    private Pagina<Contrato> paginarPorId(List<Contrato> contratos, Integer despuesDe, Integer antesDe, int tamano) {
+        int limite = Pagina.normalizarTamano(tamano);
+        boolean haciaAtras = antesDe != null;
+        List<Contrato> filas = new ArrayList<>(limite + 1);
+        if (haciaAtras) {
+            for (int i = contratos.size() - 1; i >= 0 && filas.size() <= limite; i--) {
+                if (contratos.get(i).getId() < antesDe) {
+                    filas.add(contratos.get(i));
+                }
+            }
+        } else {
+            for (int i = 0; i < contratos.size() && filas.size() <= limite; i++) {
+                if (despuesDe == null || contratos.get(i).getId() > despuesDe) {
+                    filas.add(contratos.get(i));
+                }
+            }
+        }
+        return Pagina.desdeFilas(filas, limite, haciaAtras, haciaAtras || despuesDe != null, contrato -> String.valueOf(contrato.getId()));
+    }
+
+    /**
+     * Recorre los contratos de un usuario en streaming, entregando cada uno al {@code handler} sin cargarlos en memoria.
+     * Pensado para exportaciones completas, donde el número de filas puede ser muy grande.
+     *
+     * @param username El nombre de usuario dueño de los contratos, o {@code null} para todos los contratos.
+     * @param handler  Función que procesa cada contrato (el objeto se reutiliza entre filas).
+     * @return {@code true} si se recorrieron todos los contratos, {@code false} si ocurrió un error de base de datos.
+     * @throws IOException Si el {@code handler} falla al escribir un contrato.
+     */
+    public boolean exportarContratosPorUsuario(String username, RowHandler<Contrato> handler) throws IOException {
+        return contratoRepository.streamContratos(username, handler);
     }
 
     /**
-     * Actualiza la información de un contrato existente.
+     * Recorre en streaming una página de contratos de un usuario (paginación por cursor sobre el ID), leyendo de la
+     * base de datos solo las columnas indicadas. Se lee del primario, igual que los listados en caché, para que la
+     * página corresponda a la versión de {@link #obtenerVersionContratos(String)}.
+     *
+     * @param username  El nombre de usuario dueño de los contratos.
+     * @param despuesDe ID del último contrato de la página previa, o {@code null} para la primera página.
+     * @param tamano    Número máximo de contratos; se ajusta a {@link #TAMANO_MAXIMO_RECORRIDO}.
+     * @param columnas  Máscara de columnas a leer (ver {@link ContratoRepository#indiceColumna(String)}).
+     * @param handler   Función que procesa cada contrato (el objeto se reutiliza entre filas).
+     * @return {@code true} si se recorrió la página, {@code false} si ocurrió un error de base de datos.
+     * @throws IOException Si el {@code handler} falla al escribir un contrato.
+     */
+    @SuppressWarnings("try")
+    public boolean recorrerPaginaContratos(String username, Integer despuesDe, int tamano, int columnas,
+                                           RowHandler<Contrato> handler) throws IOException {
+        int limite = Math.max(1, Math.min(tamano, TAMANO_MAXIMO_RECORRIDO));
+        try (DatabaseConnection.AmbitoPrimario primario = DatabaseConnection.leerDelPrimario()) {
+            return contratoRepository.streamContratosPagina(username, despuesDe != null ? despuesDe : 0, limite,
+                    columnas, handler);
+        }
+    }
+
+    /**
+     * Actualiza la información de un contrato existente con todos los campos de {@code contrato}.
+     * Solo se escriben en la base de datos las columnas que cambiaron.
      *
      * @param contrato El objeto {@link Contrato} con la información actualizada.
-     * @return {@code true} si el contrato fue actualizado exitosamente, {@code false} en caso contrario.
+     * @return {@code true} si el contrato fue actualizado exitosamente (o ya tenía esos datos), {@code false} en caso contrario.
      */
     public boolean actualizarContrato(Contrato contrato) {
         // Ejemplo de validación de negocio antes de actualizar
-        if (contrato.getFecha_inicio().after(contrato.getFecha_fin())) {
-            System.err.println("Error en ContratoService: La fecha de inicio no puede ser posterior a la fecha de fin durante la actualización.");
+        String error = validarContrato(contrato);
+        if (error != null) {
+            System.err.println("Error en ContratoService durante la actualización: " + error);
             return false;
         }
-        return contratoRepository.updateContrato(contrato);
+        return actualizarContrato(contrato.getId(), actual -> {
+            actual.setFecha_firma(contrato.getFecha_firma());
+            actual.setFecha_inicio(contrato.getFecha_inicio());
+            actual.setFecha_fin(contrato.getFecha_fin());
+            actual.setEmpresa(contrato.getEmpresa());
+            actual.setEmpleado(contrato.getEmpleado());
+            actual.setFunciones(contrato.getFunciones());
+            actual.setMonto(contrato.getMonto());
+            actual.setFrecuencia_de_pago(contrato.getFrecuencia_de_pago());
+            actual.setUsuarioUsername(contrato.getUsuarioUsername());
+        });
+    }
+
+    /**
+     * Actualiza parcialmente un contrato: aplica {@code cambios} sobre su versión guardada, valida el resultado
+     * y escribe solo las columnas que cambiaron. Si no cambió ninguna, no se envía ningún UPDATE, no se tocan los
+     * resúmenes y no se notifica a los listeners.
+     * <p>
+     * La comparación se hace sobre la versión leída con bloqueo, la única que se lee. Para evitar también esa lectura
+     * cuando el formulario se envía sin cambios, el llamador compara antes lo enviado con {@link #huella(Contrato)}
+     * de la versión que cargó el formulario.
+     *
+     * @param id      El ID del contrato a actualizar.
+     * @param cambios Modifica una copia de la versión guardada (bloqueada hasta el final de la transacción). Puede
+     *                aplicarse más de una vez, así que solo debe asignar valores.
+     * @return {@code true} si el contrato fue actualizado exitosamente (o ya tenía esos datos), {@code false} en caso contrario.
+     */
+    public boolean actualizarContrato(int id, Consumer<Contrato> cambios) {
+        // Se bloquea la fila para leer la versión anterior: su aporte a los resúmenes se resta y se suma el de la nueva
+        Contrato[] anterior = new Contrato[1];
+        Contrato[] nuevo = new Contrato[1];
+        int[] columnas = new int[1];
+        boolean actualizado = conResumenes(() -> {
+            anterior[0] = contratoRepository.getContratoByIdForUpdate(id);
+            if (anterior[0] == null) {
+                return false;
+            }
+            nuevo[0] = copiar(anterior[0]);
+            cambios.accept(nuevo[0]);
+            nuevo[0].setId(id);
+            String error = validarContrato(nuevo[0]);
+            if (error != null) {
+                System.err.println("Error en ContratoService durante la actualización: " + error);
+                return false;
+            }
+            columnas[0] = ContratoRepository.columnasModificadas(anterior[0], nuevo[0]);
+            if (columnas[0] == 0) {
+                return true; // Nada que escribir
+            }
+            return contratoRepository.updateContrato(nuevo[0], columnas[0])
+                    && resumenRepository.registrarCambios(Collections.singletonList(anterior[0]), Collections.singletonList(nuevo[0]));
+        });
+        if (actualizado && columnas[0] != 0) {
+            // El contrato puede cambiar de dueño: se invalidan los listados del dueño anterior y del nuevo
+            invalidarListados(anterior[0].getUsuarioUsername());
+            invalidarListados(nuevo[0].getUsuarioUsername());
+            notificar(listener -> listener.contratoActualizado(anterior[0], nuevo[0]));
+        }
+        return actualizado;
+    }
+
+    /**
+     * Calcula una huella de los datos de un contrato (todas sus columnas salvo el ID), para saber sin consultar la
+     * base de datos si un formulario de edición se envió con los mismos datos que tenía al cargarse.
+     *
+     * @param contrato El contrato.
+     * @return La huella (SHA-256 en hexadecimal); dos contratos con los mismos datos tienen la misma huella.
+     */
+    public static String huella(Contrato contrato) {
+        StringBuilder datos = new StringBuilder();
+        for (Object valor : new Object[]{contrato.getFecha_firma(), contrato.getFecha_inicio(), contrato.getFecha_fin(),
+                contrato.getEmpresa(), contrato.getEmpleado(), contrato.getFunciones(), contrato.getMonto(),
+                contrato.getFrecuencia_de_pago(), contrato.getUsuarioUsername()}) {
+            // Cada valor va precedido de su largo, para que ningún par de contratos distintos forme el mismo texto
+            String texto = valor != null ? valor.toString() : "";
+            datos.append(valor != null ? texto.length() : -1).append(':').append(texto);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(datos.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e); // Toda JVM debe incluirlo
+        }
     }
 
     /**
@@ -90,6 +502,356 @@ public class ContratoService {
      * @return {@code true} si el contrato fue eliminado exitosamente, {@code false} en caso contrario.
      */
     public boolean eliminarContrato(int id) {
-        return contratoRepository.deleteContrato(id);
+        Contrato[] eliminadoContrato = new Contrato[1];
+        boolean eliminado = conResumenes(() -> {
+            eliminadoContrato[0] = contratoRepository.getContratoByIdForUpdate(id);
+            return eliminadoContrato[0] != null
+                    && contratoRepository.deleteContrato(id)
+                    && resumenRepository.registrarCambios(Collections.singletonList(eliminadoContrato[0]), Collections.emptyList());
+        });
+        if (eliminado) {
+            invalidarListados(eliminadoContrato[0].getUsuarioUsername());
+            notificar(listener -> listener.contratoEliminado(eliminadoContrato[0]));
+        }
+        return eliminado;
+    }
+
+    /**
+     * Elimina en segundo plano los contratos que selecciona el filtro, por lotes. Cada lote es una transacción
+     * corta con una sola sentencia {@code DELETE ... WHERE id IN (...)}, que también actualiza los resúmenes;
+     * entre lotes se invalidan los listados, se notifica a los listeners y se hace una pausa.
+     *
+     * @param filtro      Los contratos a eliminar (siempre de un único usuario).
+     * @param solicitante El usuario que inicia la operación.
+     * @return La operación, para consultar su avance.
+     */
+    public OperacionMasiva eliminarContratos(FiltroContratos filtro, String solicitante) {
+        OperacionMasiva operacion = new OperacionMasiva(OperacionMasiva.Tipo.ELIMINAR, solicitante);
+        return encolar(operacion, () -> ejecutarPorLotes(operacion, filtro, lote -> {
+            List<Integer> ids = idsDe(lote);
+            return contratoRepository.deleteContratos(ids) == ids.size()
+                    && resumenRepository.registrarCambios(lote, Collections.emptyList());
+        }, lote -> {
+            invalidarListados(filtro.getUsername());
+            for (Contrato eliminado : lote) {
+                notificar(listener -> listener.contratoEliminado(eliminado));
+            }
+        }));
+    }
+
+    /**
+     * Asigna en segundo plano a otro usuario los contratos que selecciona el filtro, por lotes, igual que
+     * {@link #eliminarContratos(FiltroContratos, String)}. Sirve, por ejemplo, para traspasar los contratos
+     * de un empleado que deja la empresa.
+     *
+     * @param filtro        Los contratos a reasignar (siempre de un único usuario).
+     * @param nuevoUsername El usuario que pasa a ser dueño de los contratos (debe existir).
+     * @param solicitante   El usuario que inicia la operación.
+     * @return La operación, para consultar su avance.
+     */
+    public OperacionMasiva reasignarContratos(FiltroContratos filtro, String nuevoUsername, String solicitante) {
+        OperacionMasiva operacion = new OperacionMasiva(OperacionMasiva.Tipo.REASIGNAR, solicitante);
+        List<List<Contrato>> reasignados = new ArrayList<>(1);
+        return encolar(operacion, () -> ejecutarPorLotes(operacion, filtro, lote -> {
+            List<Contrato> nuevos = new ArrayList<>(lote.size());
+            for (Contrato contrato : lote) {
+                Contrato nuevo = copiar(contrato);
+                nuevo.setUsuarioUsername(nuevoUsername);
+                nuevos.add(nuevo);
+            }
+            reasignados.clear();
+            reasignados.add(nuevos);
+            List<Integer> ids = idsDe(lote);
+            return contratoRepository.reasignarContratos(ids, nuevoUsername) == ids.size()
+                    && resumenRepository.registrarCambios(lote, nuevos);
+        }, lote -> {
+            invalidarListados(filtro.getUsername());
+            invalidarListados(nuevoUsername);
+            List<Contrato> nuevos = reasignados.get(0);
+            for (int i = 0; i < lote.size(); i++) {
+                Contrato anterior = lote.get(i);
+                Contrato nuevo = nuevos.get(i);
+                notificar(listener -> listener.contratoActualizado(anterior, nuevo));
+            }
+        }));
+    }
+
+    /**
+     * Busca una operación masiva en curso o terminada hace menos de una hora.
+     *
+     * @param id El ID de la operación.
+     * @return La operación, o {@code null} si no existe.
+     */
+    public static OperacionMasiva obtenerOperacion(long id) {
+        return OPERACIONES.get(id);
+    }
+
+    /**
+     * Cancela las operaciones masivas pendientes y detiene su hilo. La operación en curso termina su lote
+     * y queda cancelada. Se llama al detener la aplicación.
+     */
+    public static void shutdownOperacionesMasivas() {
+        for (OperacionMasiva operacion : OPERACIONES.values()) {
+            operacion.cancelar();
+        }
+        EJECUTOR_MASIVO.shutdownNow();
+    }
+
+    private static OperacionMasiva encolar(OperacionMasiva operacion, Runnable tarea) {
+        long ahora = System.currentTimeMillis();
+        OPERACIONES.values().removeIf(o -> o.isTerminada() && ahora - o.getTerminada() > RETENCION_OPERACIONES_MS);
+        OPERACIONES.put(operacion.getId(), operacion);
+        try {
+            EJECUTOR_MASIVO.execute(ContextoPeticion.propagar(tarea)); // El solicitante queda como actor en la auditoría
+        } catch (RejectedExecutionException e) {
+            operacion.terminar(OperacionMasiva.Estado.FALLIDA, "La aplicación se está deteniendo.");
+        }
+        return operacion;
+    }
+
+    /**
+     * Recorre el filtro por lotes: cada lote se lee y se bloquea con {@code FOR UPDATE}, se procesa y se confirma en
+     * una transacción propia, de modo que ninguna transacción bloquea más de {@link #TAMANO_LOTE_MASIVO} filas.
+     * Si un lote falla, se deshace solo ese lote y la operación termina como fallida; los anteriores se mantienen.
+     *
+     * @param operacion   La operación cuyo avance se registra.
+     * @param filtro      Los contratos a procesar.
+     * @param trabajo     Escritura del lote, dentro de la transacción; devuelve {@code false} para deshacerla.
+     * @param confirmado  Acciones tras confirmar el lote (invalidaciones y notificaciones).
+     */
+    private void ejecutarPorLotes(OperacionMasiva operacion, FiltroContratos filtro, TrabajoLote trabajo,
+                                  Consumer<List<Contrato>> confirmado) {
+        operacion.iniciar(contratoRepository.contarContratos(filtro));
+        boolean porIds = filtro.getIds() != null;
+        int cursor = 0;
+        try {
+            while (!operacion.isCancelacionSolicitada()) {
+                List<List<Contrato>> leido = new ArrayList<>(1);
+                int desde = cursor;
+                // Con una lista de IDs, el lote es el siguiente tramo de la lista aunque falten algunas de sus filas
+                List<Integer> solicitados = porIds ? filtro.idsDespuesDe(desde, TAMANO_LOTE_MASIVO) : null;
+                if (solicitados != null && solicitados.isEmpty()) {
+                    break;
+                }
+                boolean confirmada = conResumenes(() -> {
+                    List<Contrato> lote = contratoRepository.getContratosLoteForUpdate(filtro, desde, TAMANO_LOTE_MASIVO);
+                    if (lote == null) {
+                        return false;
+                    }
+                    leido.add(lote);
+                    return lote.isEmpty() || trabajo.aplicar(lote);
+                });
+                if (!confirmada) {
+                    operacion.terminar(OperacionMasiva.Estado.FALLIDA, "Error de base de datos en el lote "
+                            + (operacion.getLotes() + 1) + "; los lotes anteriores quedaron guardados.");
+                    return;
+                }
+                List<Contrato> lote = leido.get(0);
+                if (!lote.isEmpty()) {
+                    confirmado.accept(lote);
+                    operacion.registrarLote(lote.size());
+                }
+                if (porIds) {
+                    cursor = solicitados.get(solicitados.size() - 1);
+                    if (solicitados.size() < TAMANO_LOTE_MASIVO) {
+                        break; // Era el último tramo de la lista
+                    }
+                } else {
+                    if (lote.size() < TAMANO_LOTE_MASIVO) {
+                        break;
+                    }
+                    cursor = lote.get(lote.size() - 1).getId();
+                }
+                pausarEntreLotes(PAUSA_LOTE_MASIVO_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            operacion.cancelar();
+        } catch (RuntimeException e) {
+            System.err.println("Error en la operación masiva " + operacion.getId() + ": " + e.getMessage());
+            e.printStackTrace();
+            operacion.terminar(OperacionMasiva.Estado.FALLIDA, "Error inesperado: " + e.getMessage());
+            return;
+        }
+        operacion.terminar(operacion.isCancelacionSolicitada() ? OperacionMasiva.Estado.CANCELADA
+                : OperacionMasiva.Estado.COMPLETADA, null);
+    }
+
+    /**
+     * Pausa entre lotes de un trabajo en segundo plano, para dejar pasar el tráfico interactivo. Mientras haya
+     * peticiones esperando una conexión del pool, se sigue esperando (como mucho {@link #MAXIMO_ESPERAS_POOL} pausas).
+     *
+     * @param pausaMs Duración de cada pausa.
+     * @throws InterruptedException Si la aplicación se detiene durante la pausa.
+     */
+    static void pausarEntreLotes(long pausaMs) throws InterruptedException {
+        ConnectionPool pool = DatabaseConnection.getPool();
+        int esperas = 0;
+        do {
+            Thread.sleep(pausaMs);
+        } while (pool.getHilosEsperando() > 0 && ++esperas < MAXIMO_ESPERAS_POOL);
+    }
+
+    private static List<Integer> idsDe(List<Contrato> contratos) {
+        List<Integer> ids = new ArrayList<>(contratos.size());
+        for (Contrato contrato : contratos) {
+            ids.add(contrato.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Escritura de un lote de una operación masiva, dentro de su transacción.
+     */
+    private interface TrabajoLote {
+        boolean aplicar(List<Contrato> lote);
+    }
+
+    /**
+     * Obtiene la versión actual de los contratos de un usuario, que cambia con cada alta, modificación o baja
+     * confirmada de uno de sus contratos. Sirve para responder a peticiones condicionales sin consultar la base de datos.
+     *
+     * @param username El usuario dueño de los contratos, o {@code null} para la versión de todos los contratos.
+     * @return La versión y el momento del último cambio.
+     */
+    public VersionRegistry.Marca obtenerVersionContratos(String username) {
+        return VERSIONES.getMarca(username);
+    }
+
+    /**
+     * Obtiene la caché de índices de vigencia por usuario, por ejemplo para consultar sus contadores.
+     *
+     * @return La caché compartida de índices de vigencia.
+     */
+    public static TtlCache<String, ?> getCacheVigencias() {
+        return INDICE_VIGENCIAS.getCache();
+    }
+
+    /**
+     * Obtiene la caché de índices de texto completo por usuario, por ejemplo para consultar sus contadores.
+     *
+     * @return La caché compartida de índices de texto completo.
+     */
+    public static TtlCache<String, ?> getCacheBusqueda() {
+        return INDICE_TEXTO.getCache();
+    }
+
+    /**
+     * Registra un listener que será notificado de cada contrato creado, actualizado o eliminado.
+     *
+     * @param listener El listener a registrar.
+     */
+    public static void registrarListener(ContratoCambioListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Quita un listener registrado con {@link #registrarListener(ContratoCambioListener)}.
+     *
+     * @param listener El listener a quitar.
+     */
+    public static void quitarListener(ContratoCambioListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Notifica un cambio ya confirmado a todos los listeners. El fallo de un listener no afecta a los demás
+     * ni a la operación, que ya está guardada.
+     */
+    static void notificar(Consumer<ContratoCambioListener> evento) {
+        for (ContratoCambioListener listener : LISTENERS) {
+            try {
+                evento.accept(listener);
+            } catch (RuntimeException e) {
+                System.err.println("Error en un listener de cambios de contratos: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la caché de listados de contratos, por ejemplo para consultar sus contadores de aciertos y fallos.
+     *
+     * @return La caché compartida de listados.
+     */
+    public static TtlCache<ClaveListado, List<Contrato>> getCacheListados() {
+        return CACHE_LISTADOS;
+    }
+
+    /**
+     * Ejecuta una escritura de contratos y la actualización de los resúmenes en una sola transacción.
+     * Mientras tanto se mantiene el bloqueo de lectura de los resúmenes, para no interferir con una reconstrucción.
+     */
+    private boolean conResumenes(DatabaseConnection.TrabajoTransaccional trabajo) {
+        BLOQUEO_RESUMENES.readLock().lock();
+        try {
+            return DatabaseConnection.enTransaccion(trabajo);
+        } finally {
+            BLOQUEO_RESUMENES.readLock().unlock();
+        }
+    }
+
+    private static Contrato copiar(Contrato c) {
+        return new Contrato(c.getId(), c.getFecha_firma(), c.getFecha_inicio(), c.getFecha_fin(), c.getEmpresa(),
+                c.getEmpleado(), c.getFunciones(), c.getMonto(), c.getFrecuencia_de_pago(), c.getUsuarioUsername());
+    }
+
+    /**
+     * Carga un listado para la caché leyendo del primario: si se leyera de una réplica atrasada, un listado recargado
+     * justo después de una invalidación podría quedar cacheado sin la escritura que la provocó.
+     * Devuelve {@code null} si la consulta falló, para que {@link TtlCache} no guarde nada y la próxima petición reintente.
+     */
+    @SuppressWarnings("try")
+    private static List<Contrato> cargarDelPrimario(Supplier<List<Contrato>> consulta) {
+        try (DatabaseConnection.AmbitoPrimario primario = DatabaseConnection.leerDelPrimario()) {
+            List<Contrato> contratos = consulta.get();
+            return contratos != null ? Collections.unmodifiableList(contratos) : null;
+        }
+    }
+
+    /**
+     * Invalida los listados cacheados de un usuario, y los listados sin filtro de usuario, que también lo incluyen.
+     *
+     * @param username El usuario cuyos contratos cambiaron.
+     */
+    private void invalidarListados(String username) {
+        CACHE_LISTADOS.invalidarSi(clave -> clave.username == null || Objects.equals(clave.username, username));
+    }
+
+    /**
+     * Clave de un listado cacheado: el usuario y los parámetros de la consulta que lo produjo.
+     */
+    public static final class ClaveListado {
+        private static final int SIN_LIMITE = -1; // Listado completo, sin paginar
+
+        private final String username;
+        private final int cursor;
+        private final boolean haciaAtras;
+        private final int limite;
+
+        private ClaveListado(String username, int cursor, boolean haciaAtras, int limite) {
+            this.username = username;
+            this.cursor = cursor;
+            this.haciaAtras = haciaAtras;
+            this.limite = limite;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClaveListado)) {
+                return false;
+            }
+            ClaveListado otra = (ClaveListado) o;
+            return cursor == otra.cursor && haciaAtras == otra.haciaAtras && limite == otra.limite
+                    && Objects.equals(username, otra.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, cursor, haciaAtras, limite);
+        }
     }
 }
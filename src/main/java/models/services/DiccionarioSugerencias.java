@@ -0,0 +1,214 @@
+package main.java.models.services;
+
+import main.java.models.entities.Contrato;
+import main.java.models.repositories.ContratoRepository;
+import main.java.utils.AppConfig;
+import main.java.utils.LatencyHistogram;
+import main.java.utils.MetricsRegistry;
+import main.java.utils.RadixTrie;
+import main.java.utils.SpanishTokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Diccionario en memoria de los valores distintos de empresa y empleado, con su número de contratos,
+ * para sugerir valores ya usados mientras se escribe.
+ * <p>
+ * Cada campo se guarda en un {@link RadixTrie} indexado por el texto normalizado (sin tildes, mayúsculas ni
+ * espacios repetidos), así que "ACME  S.A." y "Acme S.A." son la misma clave y se sugiere la forma más usada.
+ * Se carga una sola vez de la base de datos con un conteo agrupado y, como {@link ContratoCambioListener},
+ * suma y resta cada cambio confirmado. Las sugerencias nunca consultan la base de datos.
+ * <p>
+ * Los cambios recibidos mientras corre la carga se aplican al terminarla. Un cambio confirmado justo antes de
+ * la consulta de conteo puede contarse dos veces; eso solo altera el orden de las sugerencias, no cuáles existen.
+ */
+class DiccionarioSugerencias implements ContratoCambioListener {
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    // Tras una carga fallida, las sugerencias esperan este tiempo antes de reintentar, para no consultar la base en cada tecla
+    private static final long ESPERA_REINTENTO_MS = AppConfig.getLong("sgc.sugerencias.reintentoMs", 30_000);
+
+    private static final LatencyHistogram LATENCIA_SUGERENCIA = MetricsRegistry.histograma(
+            "sgc_suggest_query_seconds", "Duración de las búsquedas de sugerencias de empresa y empleado.");
+
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final AtomicBoolean cargando = new AtomicBoolean();
+    private final ContratoRepository contratoRepository;
+    private RadixTrie empresas = new RadixTrie();
+    private RadixTrie empleados = new RadixTrie();
+    private List<Contrato[]> pendientes; // Cambios (anterior, nuevo) recibidos durante la carga; null fuera de ella
+    private volatile boolean cargado;
+    private volatile long ultimoFallo;
+
+    DiccionarioSugerencias(ContratoRepository contratoRepository) {
+        this.contratoRepository = contratoRepository;
+        MetricsRegistry.gauge("sgc_suggest_values", "Valores distintos en el diccionario de sugerencias.",
+                () -> getTamano(ContratoService.CampoSugerencia.EMPRESA), "campo", "empresa");
+        MetricsRegistry.gauge("sgc_suggest_values", "Valores distintos en el diccionario de sugerencias.",
+                () -> getTamano(ContratoService.CampoSugerencia.EMPLEADO), "campo", "empleado");
+    }
+
+    /**
+     * Carga el diccionario desde la base de datos si aún no está cargado. Si otro hilo ya lo está cargando, no espera.
+     *
+     * @return {@code true} si el diccionario quedó cargado.
+     */
+    boolean cargar() {
+        if (cargado) {
+            return true;
+        }
+        if (!cargando.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            bloqueo.writeLock().lock();
+            try {
+                pendientes = new ArrayList<>();
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+            Map<String, Long> conteoEmpresas = contratoRepository.getConteoValores("empresa");
+            Map<String, Long> conteoEmpleados = contratoRepository.getConteoValores("empleado");
+
+            bloqueo.writeLock().lock();
+            try {
+                if (conteoEmpresas == null || conteoEmpleados == null) {
+                    pendientes = null;
+                    ultimoFallo = System.currentTimeMillis();
+                    return false;
+                }
+                empresas = construir(conteoEmpresas);
+                empleados = construir(conteoEmpleados);
+                for (Contrato[] cambio : pendientes) {
+                    aplicar(cambio[0], cambio[1]);
+                }
+                pendientes = null;
+                cargado = true;
+                return true;
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+        } finally {
+            cargando.set(false);
+        }
+    }
+
+    /**
+     * Busca los valores usados de un campo que empiezan con {@code prefijo}, sin distinguir tildes ni mayúsculas.
+     * Si el diccionario todavía no está cargado, intenta cargarlo (como mucho una vez cada
+     * {@code sgc.sugerencias.reintentoMs} tras un fallo); mientras otro hilo lo carga, no sugiere nada.
+     *
+     * @return Las sugerencias, de mayor a menor número de contratos.
+     */
+    @SuppressWarnings("try")
+    List<RadixTrie.Sugerencia> sugerir(ContratoService.CampoSugerencia campo, String prefijo, int limite) {
+        if (!cargado && (System.currentTimeMillis() - ultimoFallo < ESPERA_REINTENTO_MS || !cargar())) {
+            return new ArrayList<>();
+        }
+        try (LatencyHistogram.Medicion medicion = LATENCIA_SUGERENCIA.medir()) {
+            String clave = normalizar(prefijo);
+            bloqueo.readLock().lock();
+            try {
+                return trie(campo).buscarPrefijo(clave, limite);
+            } finally {
+                bloqueo.readLock().unlock();
+            }
+        }
+    }
+
+    private int getTamano(ContratoService.CampoSugerencia campo) {
+        bloqueo.readLock().lock();
+        try {
+            return trie(campo).getTamano();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    // --- ContratoCambioListener ---
+
+    @Override
+    public void contratoCreado(Contrato contrato) {
+        registrar(null, contrato);
+    }
+
+    @Override
+    public void contratoActualizado(Contrato anterior, Contrato nuevo) {
+        if (!Objects.equals(anterior.getEmpresa(), nuevo.getEmpresa()) || !Objects.equals(anterior.getEmpleado(), nuevo.getEmpleado())) {
+            registrar(anterior, nuevo);
+        }
+    }
+
+    @Override
+    public void contratoEliminado(Contrato eliminado) {
+        registrar(eliminado, null);
+    }
+
+    private void registrar(Contrato anterior, Contrato nuevo) {
+        bloqueo.writeLock().lock();
+        try {
+            if (pendientes != null) {
+                pendientes.add(new Contrato[]{copiar(anterior), copiar(nuevo)});
+            } else if (cargado) {
+                aplicar(anterior, nuevo);
+            }
+            // Sin cargar ni carga en curso no hay nada que actualizar: la carga leerá el estado confirmado
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    private void aplicar(Contrato anterior, Contrato nuevo) {
+        if (anterior != null) {
+            sumar(empresas, anterior.getEmpresa(), -1);
+            sumar(empleados, anterior.getEmpleado(), -1);
+        }
+        if (nuevo != null) {
+            sumar(empresas, nuevo.getEmpresa(), 1);
+            sumar(empleados, nuevo.getEmpleado(), 1);
+        }
+    }
+
+    private static RadixTrie construir(Map<String, Long> conteos) {
+        RadixTrie trie = new RadixTrie();
+        for (Map.Entry<String, Long> conteo : conteos.entrySet()) {
+            sumar(trie, conteo.getKey(), conteo.getValue());
+        }
+        return trie;
+    }
+
+    private static void sumar(RadixTrie trie, String valor, long delta) {
+        if (valor == null) {
+            return;
+        }
+        String forma = ESPACIOS.matcher(valor.trim()).replaceAll(" ");
+        if (!forma.isEmpty()) {
+            trie.sumar(normalizar(forma), forma, delta);
+        }
+    }
+
+    private static String normalizar(String texto) {
+        return SpanishTokenizer.normalizar(ESPACIOS.matcher(texto.trim()).replaceAll(" "));
+    }
+
+    private RadixTrie trie(ContratoService.CampoSugerencia campo) {
+        return campo == ContratoService.CampoSugerencia.EMPRESA ? empresas : empleados;
+    }
+
+    private static Contrato copiar(Contrato c) {
+        if (c == null) {
+            return null;
+        }
+        Contrato copia = new Contrato();
+        copia.setEmpresa(c.getEmpresa());
+        copia.setEmpleado(c.getEmpleado());
+        return copia;
+    }
+}
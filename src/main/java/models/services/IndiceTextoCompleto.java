@@ -0,0 +1,174 @@
+package main.java.models.services;
+
+import main.java.models.entities.Contrato;
+import main.java.models.repositories.ContratoRepository;
+import main.java.utils.AppConfig;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.InvertedIndex;
+import main.java.utils.TtlCache;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de texto completo de los contratos de cada usuario, sobre los campos funciones, empresa y empleado.
+ * <p>
+ * Por usuario se mantiene un {@link InvertedIndex} con ranking BM25, en el que la empresa y el empleado pesan
+ * más que las funciones. Igual que {@link IndiceVigencias}, el índice de un usuario se carga de la base de datos
+ * la primera vez que se busca y se guarda en una {@link TtlCache} acotada por el número total de contratos
+ * indexados; como {@link ContratoCambioListener}, aplica cada cambio confirmado a los índices ya cargados.
+ * Las búsquedas de un mismo usuario corren en paralelo; los cambios esperan a que terminen.
+ */
+class IndiceTextoCompleto implements ContratoCambioListener {
+
+    // Pesos de los campos, en el orden en que se indexan: funciones, empresa, empleado
+    private static final float PESO_FUNCIONES = 1f;
+    private static final float PESO_EMPRESA = 2f;
+    private static final float PESO_EMPLEADO = 2f;
+
+    private final TtlCache<String, IndiceUsuario> indices = new TtlCache<>("indiceTextoCompleto",
+            AppConfig.getLong("sgc.cache.busqueda.maxFilas", 200_000),
+            AppConfig.getLong("sgc.cache.busqueda.ttlMs", 1_800_000),
+            indice -> indice.getTamano() + 1);
+
+    private final ContratoRepository contratoRepository;
+
+    IndiceTextoCompleto(ContratoRepository contratoRepository) {
+        this.contratoRepository = contratoRepository;
+    }
+
+    /**
+     * Busca entre los contratos de un usuario los que contienen todos los términos de la consulta.
+     *
+     * @return Los contratos de la página pedida, de mayor a menor relevancia, y el total encontrado; sin resultados
+     *         si el índice no se pudo cargar.
+     */
+    InvertedIndex.Resultados<Contrato> buscar(String username, String consulta, int desplazamiento, int limite) {
+        IndiceUsuario indice = obtener(username);
+        return indice != null ? indice.buscar(consulta, desplazamiento, limite) : InvertedIndex.Resultados.vacio(desplazamiento);
+    }
+
+    TtlCache<String, IndiceUsuario> getCache() {
+        return indices;
+    }
+
+    /**
+     * @return El índice del usuario, o {@code null} si no se pudo cargar (no se cachea: la próxima búsqueda reintenta).
+     */
+    @SuppressWarnings("try")
+    private IndiceUsuario obtener(String username) {
+        return indices.obtener(username, clave -> {
+            List<Contrato> contratos;
+            // Del primario: el índice se mantiene con los cambios notificados y una réplica atrasada perdería alguno
+            try (DatabaseConnection.AmbitoPrimario primario = DatabaseConnection.leerDelPrimario()) {
+                contratos = contratoRepository.getContratosByUsuario(clave);
+            }
+            if (contratos == null) {
+                return null; // Error de base de datos: un índice vacío quedaría cacheado hasta expirar
+            }
+            IndiceUsuario indice = new IndiceUsuario();
+            for (Contrato contrato : contratos) {
+                indice.guardar(contrato);
+            }
+            return indice;
+        });
+    }
+
+    // --- ContratoCambioListener ---
+
+    @Override
+    public void contratoCreado(Contrato contrato) {
+        guardar(copiar(contrato));
+    }
+
+    @Override
+    public void contratoActualizado(Contrato anterior, Contrato nuevo) {
+        if (!Objects.equals(anterior.getUsuarioUsername(), nuevo.getUsuarioUsername())) {
+            eliminar(anterior);
+        }
+        guardar(copiar(nuevo));
+    }
+
+    @Override
+    public void contratoEliminado(Contrato eliminado) {
+        eliminar(eliminado);
+    }
+
+    private void guardar(Contrato contrato) {
+        String username = contrato.getUsuarioUsername();
+        if (username == null) {
+            return;
+        }
+        IndiceUsuario indice = indices.get(username);
+        if (indice != null) {
+            indice.guardar(contrato);
+        } else {
+            // Si hay una carga en curso, se descarta en lugar de guardar un índice que quizás no vio este cambio
+            indices.invalidar(username);
+        }
+    }
+
+    private void eliminar(Contrato contrato) {
+        String username = contrato.getUsuarioUsername();
+        if (username == null) {
+            return;
+        }
+        IndiceUsuario indice = indices.get(username);
+        if (indice != null) {
+            indice.eliminar(contrato.getId());
+        } else {
+            indices.invalidar(username);
+        }
+    }
+
+    private static Contrato copiar(Contrato c) {
+        return new Contrato(c.getId(), c.getFecha_firma(), c.getFecha_inicio(), c.getFecha_fin(), c.getEmpresa(),
+                c.getEmpleado(), c.getFunciones(), c.getMonto(), c.getFrecuencia_de_pago(), c.getUsuarioUsername());
+    }
+
+    /**
+     * Índice de los contratos de un usuario. Guardar reemplaza por ID, así que aplicar un cambio
+     * que la carga ya había leído no altera el resultado.
+     */
+    static final class IndiceUsuario {
+        private final InvertedIndex<Contrato> indice = new InvertedIndex<>(PESO_FUNCIONES, PESO_EMPRESA, PESO_EMPLEADO);
+        private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+
+        private void guardar(Contrato contrato) {
+            bloqueo.writeLock().lock();
+            try {
+                indice.guardar(contrato.getId(), contrato, contrato.getFunciones(), contrato.getEmpresa(), contrato.getEmpleado());
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+        }
+
+        private void eliminar(int id) {
+            bloqueo.writeLock().lock();
+            try {
+                indice.eliminar(id);
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+        }
+
+        private InvertedIndex.Resultados<Contrato> buscar(String consulta, int desplazamiento, int limite) {
+            bloqueo.readLock().lock();
+            try {
+                return indice.buscar(consulta, desplazamiento, limite);
+            } finally {
+                bloqueo.readLock().unlock();
+            }
+        }
+
+        private int getTamano() {
+            bloqueo.readLock().lock();
+            try {
+                return indice.getTamano();
+            } finally {
+                bloqueo.readLock().unlock();
+            }
+        }
+    }
+}
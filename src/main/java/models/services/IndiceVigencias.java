@@ -0,0 +1,196 @@
+package main.java.models.services;
+
+import main.java.models.entities.Contrato;
+import main.java.models.repositories.ContratoRepository;
+import main.java.utils.AppConfig;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.IntervalTree;
+import main.java.utils.TtlCache;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Índice en memoria de los períodos de vigencia de los contratos de cada usuario, para responder
+ * "qué contratos están vigentes en una fecha (o rango)" y "qué contratos vencen en los próximos días"
+ * en tiempo logarítmico, sin leer todos los contratos.
+ * <p>
+ * Por usuario se mantienen dos {@link IntervalTree}: uno con el intervalo [fecha_inicio, fecha_fin] de cada
+ * contrato y otro con el punto fecha_fin, para las consultas por fecha de vencimiento. El índice de un usuario
+ * se carga de la base de datos la primera vez que se consulta y se guarda en una {@link TtlCache} acotada por
+ * el número total de contratos indexados. Como {@link ContratoCambioListener}, aplica cada cambio confirmado
+ * a los índices ya cargados.
+ */
+class IndiceVigencias implements ContratoCambioListener {
+
+    private final TtlCache<String, IndiceUsuario> indices = new TtlCache<>("indiceVigencias",
+            AppConfig.getLong("sgc.cache.vigencias.maxFilas", 200_000),
+            AppConfig.getLong("sgc.cache.vigencias.ttlMs", 1_800_000),
+            indice -> indice.getTamano() + 1);
+
+    private final ContratoRepository contratoRepository;
+
+    IndiceVigencias(ContratoRepository contratoRepository) {
+        this.contratoRepository = contratoRepository;
+    }
+
+    /**
+     * Busca los contratos de un usuario vigentes en algún día de [desde, hasta].
+     *
+     * @return Los contratos encontrados, ordenados por ID; vacío si el índice no se pudo cargar.
+     */
+    List<Contrato> vigentesEntre(String username, LocalDate desde, LocalDate hasta) {
+        IndiceUsuario indice = obtener(username);
+        return indice != null ? indice.vigentesEntre(diaEpoca(desde), diaEpoca(hasta)) : new ArrayList<>();
+    }
+
+    /**
+     * Busca los contratos de un usuario cuya fecha de fin está en [desde, hasta].
+     *
+     * @return Los contratos encontrados, ordenados por ID; vacío si el índice no se pudo cargar.
+     */
+    List<Contrato> vencenEntre(String username, LocalDate desde, LocalDate hasta) {
+        IndiceUsuario indice = obtener(username);
+        return indice != null ? indice.vencenEntre(diaEpoca(desde), diaEpoca(hasta)) : new ArrayList<>();
+    }
+
+    TtlCache<String, IndiceUsuario> getCache() {
+        return indices;
+    }
+
+    /**
+     * @return El índice del usuario, o {@code null} si no se pudo cargar (no se cachea: la próxima consulta reintenta).
+     */
+    @SuppressWarnings("try")
+    private IndiceUsuario obtener(String username) {
+        return indices.obtener(username, clave -> {
+            List<Contrato> contratos;
+            // Del primario: el índice se mantiene con los cambios notificados y una réplica atrasada perdería alguno
+            try (DatabaseConnection.AmbitoPrimario primario = DatabaseConnection.leerDelPrimario()) {
+                contratos = contratoRepository.getContratosByUsuario(clave);
+            }
+            if (contratos == null) {
+                return null; // Error de base de datos: un índice vacío quedaría cacheado hasta expirar
+            }
+            IndiceUsuario indice = new IndiceUsuario();
+            for (Contrato contrato : contratos) {
+                indice.guardar(contrato);
+            }
+            return indice;
+        });
+    }
+
+    // --- ContratoCambioListener ---
+
+    @Override
+    public void contratoCreado(Contrato contrato) {
+        guardar(copiar(contrato));
+    }
+
+    @Override
+    public void contratoActualizado(Contrato anterior, Contrato nuevo) {
+        if (!Objects.equals(anterior.getUsuarioUsername(), nuevo.getUsuarioUsername())) {
+            eliminar(anterior);
+        }
+        guardar(copiar(nuevo));
+    }
+
+    @Override
+    public void contratoEliminado(Contrato eliminado) {
+        eliminar(eliminado);
+    }
+
+    private void guardar(Contrato contrato) {
+        String username = contrato.getUsuarioUsername();
+        if (username == null) {
+            return;
+        }
+        IndiceUsuario indice = indices.get(username);
+        if (indice != null) {
+            indice.guardar(contrato);
+        } else {
+            // Si hay una carga en curso, se descarta en lugar de guardar un índice que quizás no vio este cambio
+            indices.invalidar(username);
+        }
+    }
+
+    private void eliminar(Contrato contrato) {
+        String username = contrato.getUsuarioUsername();
+        if (username == null) {
+            return;
+        }
+        IndiceUsuario indice = indices.get(username);
+        if (indice != null) {
+            indice.eliminar(contrato.getId());
+        } else {
+            indices.invalidar(username);
+        }
+    }
+
+    private static Contrato copiar(Contrato c) {
+        return new Contrato(c.getId(), c.getFecha_firma(), c.getFecha_inicio(), c.getFecha_fin(), c.getEmpresa(),
+                c.getEmpleado(), c.getFunciones(), c.getMonto(), c.getFrecuencia_de_pago(), c.getUsuarioUsername());
+    }
+
+    private static int diaEpoca(LocalDate fecha) {
+        return (int) fecha.toEpochDay();
+    }
+
+    private static int diaEpoca(Date fecha) {
+        return (int) fecha.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Índice de los contratos de un usuario. Los cambios son idempotentes (guardar o quitar por ID),
+     * así que aplicar un cambio que la carga ya había leído no altera el resultado.
+     */
+    static final class IndiceUsuario {
+        private final Map<Integer, Contrato> porId = new HashMap<>();
+        private final IntervalTree<Contrato> vigencias = new IntervalTree<>();
+        private final IntervalTree<Contrato> vencimientos = new IntervalTree<>();
+
+        private synchronized void guardar(Contrato contrato) {
+            if (contrato.getFecha_inicio() == null || contrato.getFecha_fin() == null) {
+                return;
+            }
+            eliminar(contrato.getId());
+            int inicio = diaEpoca(contrato.getFecha_inicio());
+            int fin = Math.max(inicio, diaEpoca(contrato.getFecha_fin()));
+            porId.put(contrato.getId(), contrato);
+            vigencias.insertar(inicio, fin, contrato.getId(), contrato);
+            vencimientos.insertar(fin, fin, contrato.getId(), contrato);
+        }
+
+        private synchronized void eliminar(int id) {
+            Contrato anterior = porId.remove(id);
+            if (anterior != null) {
+                vigencias.eliminar(diaEpoca(anterior.getFecha_inicio()), id);
+                vencimientos.eliminar(Math.max(diaEpoca(anterior.getFecha_inicio()), diaEpoca(anterior.getFecha_fin())), id);
+            }
+        }
+
+        private synchronized List<Contrato> vigentesEntre(int desde, int hasta) {
+            List<Contrato> resultado = new ArrayList<>();
+            vigencias.buscarSuperpuestos(desde, hasta, resultado::add);
+            resultado.sort(Comparator.comparingInt(Contrato::getId));
+            return resultado;
+        }
+
+        private synchronized List<Contrato> vencenEntre(int desde, int hasta) {
+            List<Contrato> resultado = new ArrayList<>();
+            vencimientos.buscarSuperpuestos(desde, hasta, resultado::add);
+            resultado.sort(Comparator.comparingInt(Contrato::getId));
+            return resultado;
+        }
+
+        private synchronized int getTamano() {
+            return porId.size();
+        }
+    }
+}
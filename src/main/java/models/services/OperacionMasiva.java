@@ -0,0 +1,133 @@
+package main.java.models.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Avance de una operación masiva sobre contratos (eliminación o reasignación), que se ejecuta en segundo plano
+ * por lotes. La actualiza el hilo que la ejecuta y la consultan las peticiones de progreso, así que sus
+ * campos son seguros para leerse desde otros hilos.
+ */
+public final class OperacionMasiva {
+
+    private static final AtomicLong SECUENCIA = new AtomicLong();
+
+    /**
+     * Tipo de operación.
+     */
+    public enum Tipo {
+        ELIMINAR, REASIGNAR
+    }
+
+    /**
+     * Estado de la operación. Solo {@code EN_COLA} y {@code EN_CURSO} pueden cambiar.
+     */
+    public enum Estado {
+        EN_COLA, EN_CURSO, COMPLETADA, FALLIDA, CANCELADA
+    }
+
+    private final long id;
+    private final Tipo tipo;
+    private final String solicitante;
+    private final long creada;
+    private volatile Estado estado = Estado.EN_COLA;
+    private volatile long total = -1;
+    private final AtomicLong procesados = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private volatile String error;
+    private volatile long terminada;
+    private volatile boolean cancelacionSolicitada;
+
+    OperacionMasiva(Tipo tipo, String solicitante) {
+        this.id = SECUENCIA.incrementAndGet();
+        this.tipo = tipo;
+        this.solicitante = solicitante;
+        this.creada = System.currentTimeMillis();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * @return El usuario que inició la operación; solo él puede consultarla.
+     */
+    public String getSolicitante() {
+        return solicitante;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * @return Número de contratos seleccionados al empezar, o -1 si aún no se contaron.
+     *         Es una estimación: pueden cambiar contratos mientras avanza la operación.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public long getProcesados() {
+        return procesados.get();
+    }
+
+    /**
+     * @return Número de lotes (transacciones) confirmados.
+     */
+    public long getLotes() {
+        return lotes.get();
+    }
+
+    /**
+     * @return El motivo del fallo, o {@code null}.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public long getCreada() {
+        return creada;
+    }
+
+    /**
+     * @return El momento en que terminó (System.currentTimeMillis), o 0 si no terminó.
+     */
+    public long getTerminada() {
+        return terminada;
+    }
+
+    public boolean isTerminada() {
+        return estado != Estado.EN_COLA && estado != Estado.EN_CURSO;
+    }
+
+    /**
+     * Pide detener la operación. Los lotes ya confirmados se mantienen; se detiene antes del siguiente lote.
+     */
+    public void cancelar() {
+        cancelacionSolicitada = true;
+    }
+
+    boolean isCancelacionSolicitada() {
+        return cancelacionSolicitada;
+    }
+
+    void iniciar(long total) {
+        this.total = total;
+        this.estado = Estado.EN_CURSO;
+    }
+
+    void registrarLote(int contratos) {
+        procesados.addAndGet(contratos);
+        lotes.incrementAndGet();
+    }
+
+    void terminar(Estado estadoFinal, String error) {
+        this.error = error;
+        this.terminada = System.currentTimeMillis();
+        this.estado = estadoFinal;
+    }
+}
@@ -0,0 +1,106 @@
+package main.java.models.services;
+
+import main.java.models.analytics.Agregado;
+import main.java.models.analytics.ContratoSnapshot;
+import main.java.models.entities.ResumenMes;
+import main.java.models.entities.ResumenMonto;
+import main.java.models.repositories.ResumenContratoRepository;
+import main.java.utils.DatabaseConnection;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Clase de servicio para los reportes de contratos.
+ * Los reportes se leen de las tablas de resumen que {@link ContratoService} mantiene al día en cada escritura,
+ * por lo que su costo no depende del número de contratos. Las consultas analíticas ad hoc (rangos de fechas
+ * arbitrarios) se resuelven sobre la instantánea en memoria {@link ContratoSnapshot}, sin consultar MySQL.
+ */
+public class ReporteService {
+
+    private ResumenContratoRepository resumenRepository;
+
+    /**
+     * Constructor del servicio de reportes. Inicializa el repositorio de resúmenes.
+     */
+    public ReporteService() {
+        this.resumenRepository = new ResumenContratoRepository();
+    }
+
+    /**
+     * @return El monto total y el número de contratos por empresa.
+     */
+    public List<ResumenMonto> obtenerResumenPorEmpresa() {
+        return resumenRepository.getResumenPorEmpresa();
+    }
+
+    /**
+     * @return El monto total y el número de contratos por frecuencia de pago.
+     */
+    public List<ResumenMonto> obtenerResumenPorFrecuencia() {
+        return resumenRepository.getResumenPorFrecuencia();
+    }
+
+    /**
+     * @return El monto total y el número de contratos por usuario.
+     */
+    public List<ResumenMonto> obtenerResumenPorUsuario() {
+        return resumenRepository.getResumenPorUsuario();
+    }
+
+    /**
+     * Obtiene el número de contratos vigentes en cada mes de un rango.
+     *
+     * @param desde Primer mes del rango.
+     * @param hasta Último mes del rango (incluido).
+     * @return Los meses con contratos vigentes, en orden cronológico.
+     */
+    public List<ResumenMes> obtenerVigentesPorMes(YearMonth desde, YearMonth hasta) {
+        return resumenRepository.getVigentesPorMes(Date.valueOf(desde.atDay(1)), Date.valueOf(hasta.atDay(1)));
+    }
+
+    /**
+     * Calcula el número de contratos y el total, promedio, mínimo y máximo del monto en un rango de fechas,
+     * opcionalmente por grupo, sobre la instantánea analítica de contratos.
+     *
+     * @param campo     La fecha por la que se filtra.
+     * @param desde     Primer día del rango, o {@code null} para no acotar.
+     * @param hasta     Último día del rango (incluido), o {@code null} para no acotar.
+     * @param dimension La columna por la que se agrupa, o {@code null} para un único total.
+     * @return Un agregado por grupo (o uno solo si no se agrupa), o {@code null} si la instantánea no está disponible.
+     */
+    public List<Agregado> consultarAnalitica(ContratoSnapshot.CampoFecha campo, LocalDate desde, LocalDate hasta,
+                                             ContratoSnapshot.Dimension dimension) {
+        ContratoSnapshot snapshot = ContratoSnapshot.getInstancia();
+        if (dimension == null) {
+            Agregado total = snapshot.totales(campo, desde, hasta);
+            return total == null ? null : Collections.singletonList(total);
+        }
+        return snapshot.agrupar(dimension, campo, desde, hasta);
+    }
+
+    /**
+     * @return El número de contratos en la instantánea analítica.
+     */
+    public long contarContratosAnalitica() {
+        return ContratoSnapshot.getInstancia().getFilas();
+    }
+
+    /**
+     * Recalcula todos los resúmenes a partir de la tabla de contratos, en una sola transacción.
+     * Mientras dura, las escrituras de contratos esperan, para que ningún aporte incremental se pierda o se cuente dos veces.
+     *
+     * @return {@code true} si los resúmenes se reconstruyeron, {@code false} en caso de error.
+     */
+    public boolean reconstruirResumenes() {
+        ContratoService.BLOQUEO_RESUMENES.writeLock().lock();
+        try {
+            return DatabaseConnection.enTransaccion(resumenRepository::reconstruir);
+        } finally {
+            ContratoService.BLOQUEO_RESUMENES.writeLock().unlock();
+        }
+    }
+}
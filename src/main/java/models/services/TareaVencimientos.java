@@ -0,0 +1,127 @@
+package main.java.models.services;
+
+import main.java.models.entities.Contrato;
+import main.java.models.repositories.ContratoRepository;
+import main.java.models.repositories.NotificacionVencimientoRepository;
+import main.java.utils.AppConfig;
+import main.java.utils.MetricsRegistry;
+import main.java.utils.PlanificadorTareas;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tarea diaria que deja en la bandeja de salida ('NotificacionVencimiento') un aviso por cada contrato cuya fecha de
+ * fin cae entre hoy y los próximos {@code sgc.vencimientos.diasAviso} días (30 por defecto).
+ * <p>
+ * Recorre ese rango por lotes de {@code sgc.vencimientos.lote} contratos, con cursor {@code (fecha_fin, id)} sobre el
+ * índice {@code idx_contrato_fin} (de una réplica si hay), y escribe los avisos de cada lote con una sola sentencia.
+ * Es idempotente: un contrato tiene un único aviso por fecha de fin, así que repetir la tarea (al reiniciar, desde
+ * otra instancia o porque el contrato sigue en el rango al día siguiente) no duplica avisos. Si un lote falla, la
+ * ejecución termina como fallida; los avisos ya escritos se mantienen y la siguiente ejecución completa el resto.
+ * <p>
+ * Para no competir con el tráfico interactivo, entre lotes hace una pausa de {@code sgc.vencimientos.pausaMs} que se
+ * alarga mientras haya peticiones esperando una conexión del pool.
+ */
+public class TareaVencimientos implements PlanificadorTareas.Tarea {
+
+    public static final String NOMBRE = "vencimientos";
+
+    private static final boolean HABILITADA = AppConfig.getBoolean("sgc.vencimientos.enabled", true);
+    private static final String HORA_POR_DEFECTO = "02:00";
+    private static final int DIAS_AVISO = AppConfig.getInt("sgc.vencimientos.diasAviso", 30);
+    private static final int TAMANO_LOTE = AppConfig.getInt("sgc.vencimientos.lote", 500);
+    private static final long PAUSA_LOTE_MS = AppConfig.getLong("sgc.vencimientos.pausaMs", 50);
+    private static final long RETRASO_INICIAL_MS = AppConfig.getLong("sgc.vencimientos.alIniciarMs", 60_000);
+
+    private static final LongAdder REVISADOS = MetricsRegistry.contador("sgc_expiry_contracts_scanned_total",
+            "Contratos por vencer revisados por la tarea de vencimientos.");
+    private static final LongAdder AVISOS = MetricsRegistry.contador("sgc_expiry_notifications_created_total",
+            "Avisos de vencimiento nuevos escritos en la bandeja de salida.");
+
+    private final ContratoRepository contratoRepository;
+    private final NotificacionVencimientoRepository notificacionRepository;
+
+    /**
+     * Constructor. Inicializa los repositorios de contratos y de avisos.
+     */
+    public TareaVencimientos() {
+        this.contratoRepository = new ContratoRepository();
+        this.notificacionRepository = new NotificacionVencimientoRepository();
+    }
+
+    /**
+     * Programa la tarea todos los días a la hora {@code sgc.vencimientos.hora} (HH:MM, por defecto 02:00) y una vez
+     * {@code sgc.vencimientos.alIniciarMs} ms después de iniciar la aplicación (un valor negativo lo desactiva),
+     * para no perder el día si la aplicación estaba detenida a esa hora. Sin efecto con
+     * {@code sgc.vencimientos.enabled=false}.
+     */
+    public static void programar() {
+        if (!HABILITADA) {
+            return;
+        }
+        String valor = AppConfig.getString("sgc.vencimientos.hora", HORA_POR_DEFECTO);
+        LocalTime hora;
+        try {
+            hora = LocalTime.parse(valor);
+        } catch (DateTimeParseException e) {
+            System.err.println("sgc.vencimientos.hora inválida (" + valor + "); se usa " + HORA_POR_DEFECTO + ".");
+            hora = LocalTime.parse(HORA_POR_DEFECTO);
+        }
+        TareaVencimientos tarea = new TareaVencimientos();
+        PlanificadorTareas.programarDiaria(NOMBRE, hora, tarea);
+        if (RETRASO_INICIAL_MS >= 0) {
+            PlanificadorTareas.programarUnaVez(NOMBRE, RETRASO_INICIAL_MS, tarea);
+        }
+    }
+
+    /**
+     * Recorre los contratos por vencer y escribe sus avisos pendientes.
+     *
+     * @return {@code true} si se recorrió todo el rango, {@code false} si falló un lote.
+     * @throws InterruptedException Si la aplicación se detiene durante una pausa entre lotes.
+     */
+    @Override
+    public boolean ejecutar() throws InterruptedException {
+        LocalDate hoy = LocalDate.now();
+        Date desde = Date.valueOf(hoy);
+        Date hasta = Date.valueOf(hoy.plusDays(DIAS_AVISO));
+        Date cursorFin = null;
+        int cursorId = 0;
+        long revisados = 0;
+        long nuevos = 0;
+        while (true) {
+            List<Contrato> lote = contratoRepository.getVencimientosLote(desde, hasta, cursorFin, cursorId, TAMANO_LOTE);
+            if (lote == null) {
+                System.err.println("Tarea de vencimientos interrumpida tras " + revisados + " contratos por un error al leerlos.");
+                return false;
+            }
+            if (lote.isEmpty()) {
+                break;
+            }
+            int creados = notificacionRepository.crearAvisos(lote);
+            if (creados < 0) {
+                System.err.println("Tarea de vencimientos interrumpida tras " + revisados + " contratos por un error al escribir los avisos.");
+                return false;
+            }
+            revisados += lote.size();
+            nuevos += creados;
+            REVISADOS.add(lote.size());
+            AVISOS.add(creados);
+            Contrato ultimo = lote.get(lote.size() - 1);
+            cursorFin = ultimo.getFecha_fin();
+            cursorId = ultimo.getId();
+            if (lote.size() < TAMANO_LOTE) {
+                break;
+            }
+            ContratoService.pausarEntreLotes(PAUSA_LOTE_MS);
+        }
+        System.out.println("Tarea de vencimientos: " + revisados + " contratos vencen entre " + desde + " y " + hasta
+                + "; " + nuevos + " avisos nuevos.");
+        return true;
+    }
+}
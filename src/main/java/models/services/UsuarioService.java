@@ -1,8 +1,21 @@
 package main.java.models.services;
 
+import main.java.models.entities.Contrato;
 import main.java.models.entities.Usuario;
+import main.java.models.repositories.ContratoRepository;
+import main.java.models.repositories.ResumenContratoRepository;
+import main.java.models.repositories.RowHandler;
 import main.java.models.repositories.UsuarioRepository;
+import main.java.utils.AppConfig;
+import main.java.utils.ContextoPeticion;
+import main.java.utils.DatabaseConnection;
+import main.java.utils.Pagina;
+import main.java.utils.TtlCache;
+import main.java.utils.VersionRegistry;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -12,13 +25,29 @@ import java.util.List;
  * Esta clase puede incluir validaciones de negocio y transformaciones de datos antes de interactuar con el repositorio.
  */
 public class UsuarioService {
+
+    // Caché de usuarios por username, compartida por todas las instancias del servicio.
+    // Evita consultar MySQL en cada inicio de sesión y en cada búsqueda por username.
+    private static final TtlCache<String, Usuario> CACHE_USUARIOS = new TtlCache<>("usuarios",
+            AppConfig.getInt("sgc.cache.usuarios.max", 10_000),
+            AppConfig.getLong("sgc.cache.usuarios.ttlMs", 300_000));
+
+    // Versión del listado de usuarios, incrementada tras cada alta, modificación o baja
+    private static final VersionRegistry VERSIONES = new VersionRegistry();
+    private static final String CLAVE_USUARIOS = "usuarios";
+
     private UsuarioRepository usuarioRepository;
+    private ContratoRepository contratoRepository;
+    private ResumenContratoRepository resumenRepository;
 
     /**
-     * Constructor del servicio de usuario. Inicializa el repositorio de usuario.
+     * Constructor del servicio de usuario. Inicializa el repositorio de usuario y los de contratos,
+     * necesarios porque eliminar un usuario elimina en cascada sus contratos.
      */
     public UsuarioService() {
         this.usuarioRepository = new UsuarioRepository();
+        this.contratoRepository = new ContratoRepository();
+        this.resumenRepository = new ResumenContratoRepository();
     }
 
     /**
@@ -30,12 +59,20 @@ public class UsuarioService {
      */
     public boolean crearUsuario(Usuario usuario) {
         // Validación de negocio: Verificar si el nombre de usuario ya está en uso.
-        if (usuarioRepository.getUsuarioByUsername(usuario.getUsername()) != null) {
+        // Solo se consulta la caché; si el usuario existe pero no está en caché,
+        // la clave primaria de la tabla hace fallar la inserción sin una consulta adicional.
+        if (usuario.getUsername() != null && CACHE_USUARIOS.get(usuario.getUsername()) != null) {
             System.out.println("Error en UsuarioService: El nombre de usuario '" + usuario.getUsername() + "' ya existe.");
             return false; // El usuario ya existe, no se puede crear.
         }
         // Si no existe, procede a crear el usuario en la base de datos.
-        return usuarioRepository.createUsuario(usuario);
+        boolean creado = usuarioRepository.createUsuario(usuario);
+        if (creado) {
+            ContextoPeticion.registrarEscritura();
+            CACHE_USUARIOS.invalidar(usuario.getUsername());
+            VERSIONES.incrementar(CLAVE_USUARIOS);
+        }
+        return creado;
     }
 
     /**
@@ -45,7 +82,7 @@ public class UsuarioService {
      * @return El objeto {@link Usuario} encontrado, o {@code null} si no existe.
      */
     public Usuario obtenerUsuarioPorUsername(String username) {
-        return usuarioRepository.getUsuarioByUsername(username);
+        return buscarUsuario(username);
     }
 
     /**
@@ -57,6 +94,23 @@ public class UsuarioService {
         return usuarioRepository.getAllUsuarios();
     }
 
+    /**
+     * Obtiene una página de usuarios usando paginación por cursor sobre el nombre de usuario.
+     * Si se indica {@code antesDe}, se obtiene la página anterior a ese username; si no, la página posterior a {@code despuesDe}.
+     *
+     * @param despuesDe Username del último usuario de la página previa, o {@code null} para la primera página.
+     * @param antesDe   Username del primer usuario de la página siguiente, o {@code null}.
+     * @param tamano    Tamaño de página solicitado; se ajusta al rango permitido.
+     * @return La {@link Pagina} de usuarios con los cursores de navegación.
+     */
+    public Pagina<Usuario> obtenerPaginaUsuarios(String despuesDe, String antesDe, int tamano) {
+        int limite = Pagina.normalizarTamano(tamano);
+        boolean haciaAtras = antesDe != null;
+        String cursor = haciaAtras ? antesDe : despuesDe;
+        List<Usuario> filas = usuarioRepository.getUsuariosPagina(cursor, haciaAtras, limite + 1);
+        return Pagina.desdeFilas(filas, limite, haciaAtras, cursor != null, Usuario::getUsername);
+    }
+
     /**
      * Actualiza la información de un usuario existente.
      *
@@ -66,7 +120,13 @@ public class UsuarioService {
     public boolean actualizarUsuario(Usuario usuario) {
         // Aquí se podrían añadir más validaciones de negocio antes de actualizar,
         // por ejemplo, verificar que el email no sea duplicado si se permitiera cambiar el username.
-        return usuarioRepository.updateUsuario(usuario);
+        boolean actualizado = usuarioRepository.updateUsuario(usuario);
+        if (actualizado) {
+            ContextoPeticion.registrarEscritura();
+        }
+        CACHE_USUARIOS.invalidar(usuario.getUsername()); // También si falló: el estado en la base de datos es incierto
+        VERSIONES.incrementar(CLAVE_USUARIOS);
+        return actualizado;
     }
 
     /**
@@ -76,7 +136,34 @@ public class UsuarioService {
      * @return {@code true} si el usuario fue eliminado exitosamente, {@code false} en caso contrario.
      */
     public boolean eliminarUsuario(String username) {
-        return usuarioRepository.deleteUsuario(username);
+        // La clave foránea elimina en cascada los contratos del usuario: se bloquean y se leen antes,
+        // para restar su aporte a los resúmenes en la misma transacción
+        boolean eliminado;
+        List<List<Contrato>> eliminados = new ArrayList<>(1);
+        ContratoService.BLOQUEO_RESUMENES.readLock().lock();
+        try {
+            eliminado = DatabaseConnection.enTransaccion(() -> {
+                List<Contrato> contratos = contratoRepository.getContratosByUsuarioForUpdate(username);
+                eliminados.add(contratos);
+                return contratos != null
+                        && usuarioRepository.deleteUsuario(username)
+                        && resumenRepository.registrarCambios(contratos, Collections.emptyList());
+            });
+        } finally {
+            ContratoService.BLOQUEO_RESUMENES.readLock().unlock();
+        }
+        if (eliminado) {
+            for (Contrato contrato : eliminados.get(0)) {
+                ContratoService.notificar(listener -> listener.contratoEliminado(contrato));
+            }
+        }
+        if (username != null) {
+            CACHE_USUARIOS.invalidar(username);
+        }
+        if (eliminado) {
+            VERSIONES.incrementar(CLAVE_USUARIOS);
+        }
+        return eliminado;
     }
 
     /**
@@ -87,7 +174,7 @@ public class UsuarioService {
      * @return El objeto {@link Usuario} si las credenciales son válidas, o {@code null} si no lo son.
      */
     public Usuario validarCredenciales(String username, String password) {
-        Usuario usuario = usuarioRepository.getUsuarioByUsername(username);
+        Usuario usuario = buscarUsuario(username);
         // En un sistema real, se compararía el hash de la contraseña almacenada con el hash de la contraseña proporcionada.
         // Aquí, por simplicidad, se compara directamente la cadena de texto.
         if (usuario != null && usuario.getPassword().equals(password)) {
@@ -95,4 +182,65 @@ public class UsuarioService {
         }
         return null; // Credenciales inválidas
     }
+
+    /**
+     * Recorre en streaming una página de usuarios (paginación por cursor sobre el username), leyendo de la base de
+     * datos solo las columnas públicas indicadas. La contraseña nunca se lee.
+     *
+     * @param despuesDe Username del último usuario de la página previa, o {@code null} para la primera página.
+     * @param tamano    Número máximo de usuarios; se ajusta a {@link ContratoService#TAMANO_MAXIMO_RECORRIDO}.
+     * @param columnas  Máscara de columnas a leer (ver {@link UsuarioRepository#indiceColumnaPublica(String)}).
+     * @param handler   Función que procesa cada usuario (el objeto se reutiliza entre filas).
+     * @return {@code true} si se recorrió la página, {@code false} si ocurrió un error de base de datos.
+     * @throws IOException Si el {@code handler} falla al escribir un usuario.
+     */
+    public boolean recorrerPaginaUsuarios(String despuesDe, int tamano, int columnas, RowHandler<Usuario> handler)
+            throws IOException {
+        int limite = Math.max(1, Math.min(tamano, ContratoService.TAMANO_MAXIMO_RECORRIDO));
+        return usuarioRepository.streamUsuariosPagina(despuesDe, limite, columnas, handler);
+    }
+
+    /**
+     * Obtiene la versión actual del listado de usuarios, que cambia con cada alta, modificación o baja de un usuario.
+     * Sirve para responder a peticiones condicionales sin consultar la base de datos.
+     *
+     * @return La versión y el momento del último cambio, o {@code null} si el listado se leería de una réplica que
+     *         quizá aún no tiene el último cambio.
+     */
+    public VersionRegistry.Marca obtenerVersionUsuarios() {
+        VersionRegistry.Marca marca = VERSIONES.getMarca(CLAVE_USUARIOS);
+        // Una página leída de una réplica atrasada quedaría guardada en el navegador con la versión nueva
+        if (DatabaseConnection.puedeLeerDeReplica()
+                && System.currentTimeMillis() - marca.getInstante() < DatabaseConnection.LECTURA_PROPIA_MS) {
+            return null;
+        }
+        return marca;
+    }
+
+    /**
+     * Obtiene la caché de usuarios, por ejemplo para consultar sus contadores de aciertos y fallos.
+     *
+     * @return La caché compartida de usuarios.
+     */
+    public static TtlCache<String, Usuario> getCacheUsuarios() {
+        return CACHE_USUARIOS;
+    }
+
+    /**
+     * Busca un usuario primero en la caché y, si no está, en la base de datos.
+     * Devuelve una copia para que quien la reciba (por ejemplo, la sesión HTTP) no modifique el objeto cacheado.
+     *
+     * @param username El nombre de usuario a buscar.
+     * @return Una copia del usuario, o {@code null} si no existe.
+     */
+    private Usuario buscarUsuario(String username) {
+        if (username == null) {
+            return null;
+        }
+        Usuario usuario = CACHE_USUARIOS.obtener(username, usuarioRepository::getUsuarioByUsername);
+        if (usuario == null) {
+            return null;
+        }
+        return new Usuario(usuario.getUsername(), usuario.getPassword(), usuario.getNombre(), usuario.getEmail());
+    }
 }
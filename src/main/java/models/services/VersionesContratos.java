@@ -0,0 +1,46 @@
+package main.java.models.services;
+
+import main.java.models.entities.Contrato;
+import main.java.utils.VersionRegistry;
+
+/**
+ * Versión de los contratos de cada usuario, incrementada con cada cambio confirmado, para responder
+ * {@code 304 Not Modified} a los listados que no cambiaron. La clave {@link #TODOS} cambia con cualquier contrato,
+ * para los listados sin filtro de usuario.
+ */
+class VersionesContratos implements ContratoCambioListener {
+
+    static final String TODOS = "";
+
+    private final VersionRegistry versiones = new VersionRegistry();
+
+    VersionRegistry.Marca getMarca(String username) {
+        return versiones.getMarca(username != null ? username : TODOS);
+    }
+
+    @Override
+    public void contratoCreado(Contrato contrato) {
+        incrementar(contrato.getUsuarioUsername());
+    }
+
+    @Override
+    public void contratoActualizado(Contrato anterior, Contrato nuevo) {
+        // Si cambió de dueño, cambian los listados de ambos usuarios
+        incrementar(anterior.getUsuarioUsername());
+        if (nuevo.getUsuarioUsername() != null && !nuevo.getUsuarioUsername().equals(anterior.getUsuarioUsername())) {
+            versiones.incrementar(nuevo.getUsuarioUsername());
+        }
+    }
+
+    @Override
+    public void contratoEliminado(Contrato eliminado) {
+        incrementar(eliminado.getUsuarioUsername());
+    }
+
+    private void incrementar(String username) {
+        if (username != null) {
+            versiones.incrementar(username);
+        }
+        versiones.incrementar(TODOS);
+    }
+}
@@ -0,0 +1,116 @@
+package main.java.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Cola acotada sin bloqueos para varios productores y un único consumidor (anillo de Vyukov).
+ * <p>
+ * Cada casilla del anillo tiene un número de secuencia que indica si está libre para la vuelta actual de los
+ * productores o si ya tiene un elemento para el consumidor. Un productor reserva una posición con un único
+ * {@code compareAndSet} y publica el elemento al actualizar la secuencia de la casilla; nunca espera: si el anillo
+ * está lleno, {@link #ofrecer(Object)} devuelve {@code false} y el llamador decide qué hacer con el elemento.
+ * <p>
+ * {@link #tomar()} y {@link #drenar(Consumer, int)} solo pueden llamarse desde un hilo a la vez.
+ *
+ * @param <T> Tipo de los elementos.
+ */
+public final class AnilloMpsc<T> {
+
+    private final Object[] elementos;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+    private final AtomicLong cola = new AtomicLong(); // Siguiente posición a reservar por los productores
+    private final AtomicLong cabeza = new AtomicLong(); // Siguiente posición a leer; solo la escribe el consumidor
+
+    /**
+     * @param capacidad Número mínimo de elementos; se redondea a la siguiente potencia de dos.
+     */
+    public AnilloMpsc(int capacidad) {
+        if (capacidad < 2 || capacidad > (1 << 30)) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacidad);
+        }
+        int potencia = Integer.highestOneBit(capacidad - 1) << 1;
+        this.elementos = new Object[potencia];
+        this.secuencias = new AtomicLongArray(potencia);
+        this.mascara = potencia - 1;
+        for (int i = 0; i < potencia; i++) {
+            secuencias.set(i, i);
+        }
+    }
+
+    /**
+     * Agrega un elemento sin bloquear.
+     *
+     * @param elemento El elemento (no {@code null}).
+     * @return {@code true} si se agregó, {@code false} si el anillo está lleno.
+     */
+    public boolean ofrecer(T elemento) {
+        long posicion = cola.get();
+        while (true) {
+            int casilla = (int) posicion & mascara;
+            long diferencia = secuencias.getAcquire(casilla) - posicion;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(posicion, posicion + 1)) {
+                    elementos[casilla] = elemento;
+                    secuencias.setRelease(casilla, posicion + 1); // Publica el elemento al consumidor
+                    return true;
+                }
+                posicion = cola.get(); // Otro productor reservó la posición
+            } else if (diferencia < 0) {
+                return false; // La casilla aún tiene el elemento de la vuelta anterior: anillo lleno
+            } else {
+                posicion = cola.get();
+            }
+        }
+    }
+
+    /**
+     * Quita el elemento más antiguo. Solo desde el hilo consumidor.
+     *
+     * @return El elemento, o {@code null} si el anillo está vacío (o el siguiente aún no terminó de publicarse).
+     */
+    @SuppressWarnings("unchecked")
+    public T tomar() {
+        long posicion = cabeza.getPlain();
+        int casilla = (int) posicion & mascara;
+        if (secuencias.getAcquire(casilla) != posicion + 1) {
+            return null;
+        }
+        T elemento = (T) elementos[casilla];
+        elementos[casilla] = null;
+        secuencias.setRelease(casilla, posicion + elementos.length); // Libera la casilla para la vuelta siguiente
+        cabeza.setRelease(posicion + 1);
+        return elemento;
+    }
+
+    /**
+     * Quita hasta {@code maximo} elementos, en orden, y los entrega a {@code destino}. Solo desde el hilo consumidor.
+     *
+     * @param destino Recibe cada elemento.
+     * @param maximo  Número máximo de elementos a quitar.
+     * @return Número de elementos quitados.
+     */
+    public int drenar(Consumer<? super T> destino, int maximo) {
+        int cantidad = 0;
+        T elemento;
+        while (cantidad < maximo && (elemento = tomar()) != null) {
+            destino.accept(elemento);
+            cantidad++;
+        }
+        return cantidad;
+    }
+
+    /**
+     * @return Número aproximado de elementos en el anillo (puede leerse desde cualquier hilo).
+     */
+    public int getTamano() {
+        long tamano = cola.get() - cabeza.get();
+        return (int) Math.max(0, Math.min(tamano, elementos.length));
+    }
+
+    public int getCapacidad() {
+        return elementos.length;
+    }
+}
@@ -0,0 +1,81 @@
+package main.java.utils;
+
+/**
+ * Clase de utilidad para leer la configuración de la aplicación.
+ * Cada clave se busca primero como propiedad del sistema (por ejemplo {@code -Dsgc.db.pool.max=20})
+ * y luego como variable de entorno (por ejemplo {@code SGC_DB_POOL_MAX=20}).
+ * Si no se encuentra en ninguno de los dos lugares se usa el valor por defecto indicado.
+ */
+public final class AppConfig {
+
+    private AppConfig() {
+    }
+
+    /**
+     * Obtiene el valor de una clave de configuración como texto.
+     *
+     * @param clave        La clave en formato de propiedad (ej: "sgc.db.url").
+     * @param valorDefecto Valor a usar si la clave no está definida.
+     * @return El valor configurado, o {@code valorDefecto} si no existe.
+     */
+    public static String getString(String clave, String valorDefecto) {
+        String valor = System.getProperty(clave);
+        if (valor == null) {
+            // Convierte "sgc.db.url" en "SGC_DB_URL" para buscar en las variables de entorno
+            valor = System.getenv(clave.toUpperCase().replace('.', '_'));
+        }
+        return (valor == null || valor.trim().isEmpty()) ? valorDefecto : valor.trim();
+    }
+
+    /**
+     * Obtiene el valor de una clave de configuración como entero.
+     *
+     * @param clave        La clave de configuración.
+     * @param valorDefecto Valor a usar si la clave no está definida o no es un número válido.
+     * @return El valor configurado.
+     */
+    public static int getInt(String clave, int valorDefecto) {
+        String valor = getString(clave, null);
+        if (valor == null) {
+            return valorDefecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Configuración inválida para '" + clave + "': " + valor + ". Se usa " + valorDefecto);
+            return valorDefecto;
+        }
+    }
+
+    /**
+     * Obtiene el valor de una clave de configuración como entero largo.
+     *
+     * @param clave        La clave de configuración.
+     * @param valorDefecto Valor a usar si la clave no está definida o no es un número válido.
+     * @return El valor configurado.
+     */
+    public static long getLong(String clave, long valorDefecto) {
+        String valor = getString(clave, null);
+        if (valor == null) {
+            return valorDefecto;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Configuración inválida para '" + clave + "': " + valor + ". Se usa " + valorDefecto);
+            return valorDefecto;
+        }
+    }
+
+    /**
+     * Obtiene el valor de una clave de configuración como booleano.
+     *
+     * @param clave        La clave de configuración.
+     * @param valorDefecto Valor a usar si la clave no está definida.
+     * @return {@code true} si el valor configurado es "true" (sin importar mayúsculas), o el valor por defecto.
+     */
+    public static boolean getBoolean(String clave, boolean valorDefecto) {
+        String valor = getString(clave, null);
+        return valor == null ? valorDefecto : Boolean.parseBoolean(valor);
+    }
+}
@@ -0,0 +1,451 @@
+package main.java.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de conexiones JDBC acotado.
+ * Mantiene un mínimo de conexiones inactivas listas para usar y nunca abre más del máximo configurado;
+ * si todas están ocupadas, el hilo que pide una conexión espera hasta {@code maxWaitMillis}.
+ * <p>
+ * Las conexiones entregadas son proxies: llamar a {@link Connection#close()} las devuelve al pool
+ * en lugar de cerrar el socket con MySQL. Un hilo de mantenimiento desaloja las conexiones inactivas
+ * por demasiado tiempo y reporta las conexiones prestadas que nunca se devolvieron (fugas).
+ */
+public class ConnectionPool {
+
+    // Si una conexión estuvo inactiva más de este tiempo, se valida con isValid() antes de entregarla.
+    private static final long VALIDAR_TRAS_INACTIVIDAD_MS = 5_000;
+
+    // Tiempo máximo (en segundos) que puede tardar la validación de una conexión.
+    private static final int VALIDACION_TIMEOUT_SEGUNDOS = 2;
+
+    private final String url;
+    private final Properties credenciales;
+    private final int minInactivas;
+    private final int maxConexiones;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition disponible = lock.newCondition();
+    // Pila LIFO: la conexión usada más recientemente se reutiliza primero y las del fondo envejecen y se desalojan.
+    private final Deque<ConexionDelPool> inactivas = new ArrayDeque<>();
+    private final Set<ConexionDelPool> prestadas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final ScheduledExecutorService mantenimiento;
+    private int total; // Conexiones físicas abiertas o en proceso de apertura (protegido por lock)
+    private volatile boolean cerrado;
+
+    /**
+     * Crea el pool e inicia el hilo de mantenimiento.
+     *
+     * @param url                 URL JDBC de la base de datos.
+     * @param usuario             Usuario de la base de datos.
+     * @param password            Contraseña del usuario.
+     * @param minInactivas        Número mínimo de conexiones que se mantienen abiertas.
+     * @param maxConexiones       Número máximo de conexiones abiertas al mismo tiempo.
+     * @param maxWaitMillis       Tiempo máximo de espera por una conexión libre.
+     * @param idleTimeoutMillis   Tiempo tras el cual una conexión inactiva (por encima del mínimo) se cierra.
+     * @param leakDetectionMillis Tiempo tras el cual una conexión prestada se reporta como posible fuga (0 = desactivado).
+     */
+    public ConnectionPool(String url, String usuario, String password, int minInactivas, int maxConexiones,
+                          long maxWaitMillis, long idleTimeoutMillis, long leakDetectionMillis) {
+        if (maxConexiones < 1 || minInactivas < 0 || minInactivas > maxConexiones) {
+            throw new IllegalArgumentException("Configuración de pool inválida: min=" + minInactivas + ", max=" + maxConexiones);
+        }
+        this.url = url;
+        this.credenciales = new Properties();
+        this.credenciales.setProperty("user", usuario);
+        this.credenciales.setProperty("password", password);
+        this.minInactivas = minInactivas;
+        this.maxConexiones = maxConexiones;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakDetectionMillis = leakDetectionMillis;
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "sgc-pool-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1_000, Math.min(30_000, idleTimeoutMillis / 2));
+        this.mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtiene una conexión del pool, abriendo una nueva si no hay inactivas y no se alcanzó el máximo.
+     *
+     * @return Una {@link Connection} cuyo {@code close()} la devuelve al pool.
+     * @throws SQLException Si no se pudo abrir la conexión o se agotó el tiempo de espera.
+     */
+    public Connection getConnection() throws SQLException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (true) {
+            ConexionDelPool conexion;
+            boolean crearNueva = false;
+            lock.lock();
+            try {
+                while (true) {
+                    if (cerrado) {
+                        throw new SQLException("El pool de conexiones está cerrado.");
+                    }
+                    conexion = inactivas.pollFirst();
+                    if (conexion != null) {
+                        break;
+                    }
+                    if (total < maxConexiones) {
+                        total++; // Reserva el cupo; la conexión física se abre fuera del lock
+                        crearNueva = true;
+                        break;
+                    }
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) {
+                        throw new SQLTimeoutException("Tiempo de espera agotado (" + maxWaitMillis
+                                + " ms) esperando una conexión libre. Conexiones en uso: " + prestadas.size() + "/" + maxConexiones);
+                    }
+                    esperando.incrementAndGet();
+                    try {
+                        disponible.awaitNanos(restante);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrumpido mientras se esperaba una conexión libre.", e);
+                    } finally {
+                        esperando.decrementAndGet();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (crearNueva) {
+                conexion = abrirConexion();
+            } else if (!esValida(conexion)) {
+                destruir(conexion);
+                continue; // Se descarta la conexión rota y se intenta con otra
+            }
+            return conexion.prestar();
+        }
+    }
+
+    /**
+     * Cierra todas las conexiones inactivas y detiene el hilo de mantenimiento.
+     * Las conexiones prestadas se cierran físicamente cuando se devuelven.
+     */
+    public void shutdown() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        List<ConexionDelPool> aCerrar;
+        lock.lock();
+        try {
+            aCerrar = new ArrayList<>(inactivas);
+            inactivas.clear();
+            total -= aCerrar.size();
+            disponible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (ConexionDelPool conexion : aCerrar) {
+            cerrarFisica(conexion);
+        }
+        System.out.println("Pool de conexiones cerrado.");
+    }
+
+    /**
+     * Abre las conexiones necesarias para alcanzar el mínimo de inactivas configurado.
+     */
+    public void precalentar() {
+        while (true) {
+            lock.lock();
+            try {
+                if (cerrado || total >= minInactivas) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                devolverAInactivas(abrirConexion());
+            } catch (SQLException e) {
+                System.err.println("Error al abrir conexión para el mínimo del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Número de conexiones prestadas actualmente.
+     */
+    public int getConexionesActivas() {
+        return prestadas.size();
+    }
+
+    /**
+     * @return Número de conexiones abiertas y disponibles en el pool.
+     */
+    public int getConexionesInactivas() {
+        lock.lock();
+        try {
+            return inactivas.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Número de hilos esperando una conexión libre.
+     */
+    public int getHilosEsperando() {
+        return esperando.get();
+    }
+
+    /**
+     * @return Número máximo de conexiones que puede abrir el pool.
+     */
+    public int getMaxConexiones() {
+        return maxConexiones;
+    }
+
+    /**
+     * Abre una conexión física. El cupo en {@code total} ya debe estar reservado;
+     * si la apertura falla, se libera.
+     */
+    private ConexionDelPool abrirConexion() throws SQLException {
+        try {
+            Connection fisica = DriverManager.getConnection(url, credenciales);
+            return new ConexionDelPool(fisica);
+        } catch (SQLException | RuntimeException e) {
+            liberarCupo();
+            throw e;
+        }
+    }
+
+    private boolean esValida(ConexionDelPool conexion) {
+        try {
+            if (System.currentTimeMillis() - conexion.ultimoUso > VALIDAR_TRAS_INACTIVIDAD_MS) {
+                return conexion.fisica.isValid(VALIDACION_TIMEOUT_SEGUNDOS);
+            }
+            return !conexion.fisica.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Recibe una conexión que el código cliente cerró. Restablece su estado y la deja disponible,
+     * o la destruye si quedó inutilizable.
+     */
+    private void devolver(ConexionDelPool conexion) {
+        prestadas.remove(conexion);
+        if (conexion.rota) {
+            destruir(conexion);
+            return;
+        }
+        try {
+            Connection fisica = conexion.fisica;
+            if (fisica.isClosed()) {
+                destruir(conexion);
+                return;
+            }
+            // Deshacer lo que haya dejado pendiente el código cliente antes de que otro hilo la use
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            if (fisica.isReadOnly()) {
+                fisica.setReadOnly(false);
+            }
+            fisica.clearWarnings();
+        } catch (SQLException e) {
+            System.err.println("Error al restablecer una conexión devuelta al pool: " + e.getMessage());
+            destruir(conexion);
+            return;
+        }
+        devolverAInactivas(conexion);
+    }
+
+    private void devolverAInactivas(ConexionDelPool conexion) {
+        conexion.ultimoUso = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (!cerrado) {
+                inactivas.addFirst(conexion);
+                disponible.signal();
+                return;
+            }
+            total--;
+        } finally {
+            lock.unlock();
+        }
+        cerrarFisica(conexion);
+    }
+
+    private void destruir(ConexionDelPool conexion) {
+        cerrarFisica(conexion);
+        liberarCupo();
+    }
+
+    private void liberarCupo() {
+        lock.lock();
+        try {
+            total--;
+            disponible.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cerrarFisica(ConexionDelPool conexion) {
+        try {
+            conexion.fisica.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar conexión física: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tarea periódica: desaloja conexiones inactivas, repone el mínimo y reporta fugas.
+     */
+    private void mantener() {
+        try {
+            long ahora = System.currentTimeMillis();
+            List<ConexionDelPool> desalojadas = new ArrayList<>();
+            lock.lock();
+            try {
+                // Las más antiguas están al final de la pila
+                Iterator<ConexionDelPool> it = inactivas.descendingIterator();
+                while (it.hasNext() && total > minInactivas) {
+                    ConexionDelPool conexion = it.next();
+                    if (ahora - conexion.ultimoUso > idleTimeoutMillis) {
+                        it.remove();
+                        total--;
+                        desalojadas.add(conexion);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (ConexionDelPool conexion : desalojadas) {
+                cerrarFisica(conexion);
+            }
+
+            precalentar();
+
+            if (leakDetectionMillis > 0) {
+                for (ConexionDelPool conexion : prestadas) {
+                    if (!conexion.fugaReportada && ahora - conexion.prestadaEn > leakDetectionMillis) {
+                        conexion.fugaReportada = true;
+                        System.err.println("Posible fuga de conexión: prestada hace " + (ahora - conexion.prestadaEn)
+                                + " ms y no devuelta. Fue obtenida en:");
+                        conexion.origen.printStackTrace();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Una excepción no capturada cancelaría la tarea programada
+            System.err.println("Error en el mantenimiento del pool: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Conexión física administrada por el pool junto con sus metadatos de uso.
+     */
+    private final class ConexionDelPool {
+        private final Connection fisica;
+        private volatile long ultimoUso = System.currentTimeMillis();
+        private volatile long prestadaEn;
+        private volatile Throwable origen;
+        private volatile boolean fugaReportada;
+        private volatile boolean rota;
+
+        private ConexionDelPool(Connection fisica) {
+            this.fisica = fisica;
+        }
+
+        /**
+         * Marca la conexión como prestada y crea un proxy nuevo para este préstamo, de modo que
+         * una referencia vieja a un préstamo anterior no pueda afectar al nuevo dueño.
+         */
+        private Connection prestar() {
+            prestadaEn = System.currentTimeMillis();
+            fugaReportada = false;
+            origen = leakDetectionMillis > 0 ? new Throwable("Conexión obtenida del pool") : null;
+            prestadas.add(this);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Prestamo(this));
+        }
+    }
+
+    /**
+     * Manejador del proxy de un préstamo: intercepta {@code close()} y delega el resto en la conexión física.
+     */
+    private final class Prestamo implements InvocationHandler {
+        private final ConexionDelPool conexion;
+        private volatile boolean devuelta;
+
+        private Prestamo(ConexionDelPool conexion) {
+            this.conexion = conexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        devolver(conexion);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta || conexion.fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionDelPool[" + conexion.fisica + (devuelta ? ", devuelta" : "") + "]";
+                default:
+                    break;
+            }
+            if (devuelta) {
+                throw new SQLException("La conexión ya fue devuelta al pool.");
+            }
+            try {
+                return method.invoke(conexion.fisica, args);
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                // SQLState clase 08: error de conexión; la conexión no debe volver al pool
+                if (causa instanceof SQLException) {
+                    String estado = ((SQLException) causa).getSQLState();
+                    if (estado != null && estado.startsWith("08")) {
+                        conexion.rota = true;
+                    }
+                }
+                throw causa;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package main.java.utils;
+
+/**
+ * Datos de la petición HTTP en curso que necesitan las capas inferiores sin recibirlos como parámetro, por ejemplo
+ * {@link DatabaseConnection} para decidir si una lectura puede ir a una réplica.
+ * <p>
+ * Lo establece {@code ContextoPeticionFilter} al empezar cada petición y se guarda en el hilo que la procesa.
+ * Las tareas que continúan la petición en otro hilo deben envolverse con {@link #propagar(Runnable)}.
+ * Fuera de una petición (hilos de carga en segundo plano, tareas programadas) no hay contexto.
+ */
+public final class ContextoPeticion {
+
+    private static final ThreadLocal<ContextoPeticion> ACTUAL = new ThreadLocal<>();
+
+    private final String usuario;
+    private final boolean leerDelPrimario;
+    // Lo marca registrarEscritura, quizá desde el hilo asíncrono que continúa la petición
+    private volatile boolean escribio;
+
+    /**
+     * @param usuario         Nombre del usuario con sesión iniciada, o {@code null} si no hay sesión.
+     * @param leerDelPrimario {@code true} si todas las lecturas de la petición deben ir al primario,
+     *                        porque la petición puede escribir o la sesión escribió hace poco.
+     */
+    public ContextoPeticion(String usuario, boolean leerDelPrimario) {
+        this.usuario = usuario;
+        this.leerDelPrimario = leerDelPrimario;
+    }
+
+    /**
+     * @return El contexto de la petición que procesa este hilo, o {@code null} si no procesa ninguna.
+     */
+    public static ContextoPeticion actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Establece el contexto del hilo actual.
+     *
+     * @param contexto El contexto, o {@code null} para quitarlo.
+     */
+    public static void establecer(ContextoPeticion contexto) {
+        if (contexto == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(contexto);
+        }
+    }
+
+    /**
+     * Registra que la petición en curso confirmó una escritura en la base de datos: desde ahora sus lecturas van al
+     * primario y, al terminar, {@code ContextoPeticionFilter} marca la sesión para que las siguientes también lo hagan.
+     * Se llama al confirmar la escritura, no según el método HTTP, porque algunas bajas se hacen con enlaces GET.
+     * Fuera de una petición no hace nada.
+     */
+    public static void registrarEscritura() {
+        ContextoPeticion contexto = actual();
+        if (contexto != null) {
+            contexto.escribio = true;
+        }
+    }
+
+    /**
+     * Envuelve una tarea para que se ejecute, en el hilo que sea, con el contexto del hilo que la crea.
+     * Al terminar, el hilo que la ejecutó recupera el contexto que tenía.
+     *
+     * @param tarea La tarea a ejecutar.
+     * @return La tarea envuelta, o la misma tarea si no hay contexto que propagar.
+     */
+    public static Runnable propagar(Runnable tarea) {
+        ContextoPeticion contexto = actual();
+        if (contexto == null) {
+            return tarea;
+        }
+        return () -> {
+            ContextoPeticion anterior = actual();
+            establecer(contexto);
+            try {
+                tarea.run();
+            } finally {
+                establecer(anterior);
+            }
+        };
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    /**
+     * @return {@code true} si las lecturas de la petición deben ir al primario: lo indicó el filtro al empezar,
+     *         o la petición ya confirmó una escritura.
+     */
+    public boolean isLeerDelPrimario() {
+        return leerDelPrimario || escribio;
+    }
+
+    /**
+     * @return {@code true} si la petición confirmó alguna escritura ({@link #registrarEscritura()}).
+     */
+    public boolean isEscribio() {
+        return escribio;
+    }
+}
@@ -0,0 +1,111 @@
+package main.java.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV en streaming (RFC 4180).
+ * Lee una fila a la vez desde un {@link Reader}, de modo que archivos grandes no se cargan completos en memoria.
+ * Soporta campos entre comillas con comas, comillas duplicadas y saltos de línea dentro del campo.
+ */
+public class CsvReader {
+
+    private static final char SEPARADOR = ',';
+
+    private final Reader origen;
+    private final StringBuilder campo = new StringBuilder();
+    private int siguiente = -2; // Carácter leído por adelantado (-2 = ninguno)
+    private long linea = 1;     // Línea física donde está el cursor de lectura
+    private long lineaFila;     // Línea física donde empezó la última fila devuelta
+
+    /**
+     * @param origen El {@link Reader} con el contenido CSV. Conviene que tenga buffer propio.
+     */
+    public CsvReader(Reader origen) {
+        this.origen = origen;
+    }
+
+    /**
+     * Lee la siguiente fila del CSV.
+     *
+     * @return Los campos de la fila, o {@code null} si se llegó al final del archivo.
+     * @throws IOException Si ocurre un error de lectura o el CSV está mal formado (comillas sin cerrar).
+     */
+    public String[] siguienteFila() throws IOException {
+        int c = leer();
+        if (c == -1) {
+            return null;
+        }
+        lineaFila = linea;
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        boolean entreComillas = false;
+
+        while (true) {
+            if (entreComillas) {
+                if (c == -1) {
+                    throw new IOException("Comillas sin cerrar en la fila que empieza en la línea " + lineaFila + ".");
+                }
+                if (c == '"') {
+                    int despues = leer();
+                    if (despues == '"') {
+                        campo.append('"'); // Comilla escapada
+                    } else {
+                        entreComillas = false;
+                        c = despues;
+                        continue;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreComillas = true;
+            } else if (c == SEPARADOR) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int despues = leer();
+                    if (despues != '\n') {
+                        devolver(despues);
+                    }
+                }
+                campos.add(campo.toString());
+                return campos.toArray(new String[0]);
+            } else {
+                campo.append((char) c);
+            }
+            c = leer();
+        }
+    }
+
+    /**
+     * @return Número de línea (empezando en 1) donde comenzó la última fila leída.
+     */
+    public long getLineaFila() {
+        return lineaFila;
+    }
+
+    private int leer() throws IOException {
+        int c;
+        if (siguiente != -2) {
+            c = siguiente;
+            siguiente = -2;
+        } else {
+            c = origen.read();
+        }
+        if (c == '\n') {
+            linea++;
+        }
+        return c;
+    }
+
+    private void devolver(int c) {
+        siguiente = c;
+        if (c == '\n') {
+            linea--;
+        }
+    }
+}
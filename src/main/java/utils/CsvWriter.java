@@ -0,0 +1,86 @@
+package main.java.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escritor de CSV en streaming (RFC 4180).
+ * Escribe cada campo directamente al {@link Writer} de destino, escapando comillas,
+ * separadores y saltos de línea, sin acumular las filas en memoria.
+ */
+public class CsvWriter {
+
+    private static final char SEPARADOR = ',';
+
+    private final Writer destino;
+    private boolean inicioDeFila = true;
+
+    /**
+     * @param destino El {@link Writer} donde se escribe el CSV.
+     */
+    public CsvWriter(Writer destino) {
+        this.destino = destino;
+    }
+
+    /**
+     * Escribe un campo de texto en la fila actual.
+     *
+     * @param valor El valor del campo; {@code null} se escribe como campo vacío.
+     * @return Este mismo escritor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public CsvWriter campo(String valor) throws IOException {
+        if (!inicioDeFila) {
+            destino.write(SEPARADOR);
+        }
+        inicioDeFila = false;
+        if (valor == null) {
+            return this;
+        }
+        if (necesitaComillas(valor)) {
+            destino.write('"');
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == '"') {
+                    destino.write('"'); // Las comillas se escapan duplicándolas
+                }
+                destino.write(c);
+            }
+            destino.write('"');
+        } else {
+            destino.write(valor);
+        }
+        return this;
+    }
+
+    /**
+     * Escribe un campo numérico entero en la fila actual.
+     *
+     * @param valor El valor del campo.
+     * @return Este mismo escritor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public CsvWriter campo(long valor) throws IOException {
+        return campo(Long.toString(valor));
+    }
+
+    /**
+     * Termina la fila actual.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void finFila() throws IOException {
+        destino.write("\r\n");
+        inicioDeFila = true;
+    }
+
+    private static boolean necesitaComillas(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == SEPARADOR || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
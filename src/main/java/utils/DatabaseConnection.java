@@ -1,53 +1,278 @@
 package main.java.utils;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Clase de utilidad para gestionar la conexión a la base de datos MySQL.
  * Proporciona métodos estáticos para obtener y cerrar conexiones.
- * Esta clase utiliza el patrón Singleton para asegurar que solo se cree una conexión a la base de datos.
- * 
+ * Las conexiones se obtienen de un único {@link ConnectionPool} compartido por toda la aplicación,
+ * de modo que los repositorios no pagan el costo de abrir una conexión TCP con MySQL en cada llamada.
+ * Cerrar una conexión obtenida aquí la devuelve al pool.
+ *
+ * La configuración se lee con {@link AppConfig} (propiedades del sistema o variables de entorno):
+ * <ul>
+ *     <li>{@code sgc.db.url}, {@code sgc.db.user}, {@code sgc.db.password}: datos de conexión.</li>
+ *     <li>{@code sgc.db.pool.min} y {@code sgc.db.pool.max}: tamaño mínimo y máximo del pool.</li>
+ *     <li>{@code sgc.db.pool.maxWaitMs}: espera máxima por una conexión libre.</li>
+ *     <li>{@code sgc.db.pool.idleTimeoutMs}: tiempo tras el cual se cierran conexiones inactivas sobrantes.</li>
+ *     <li>{@code sgc.db.pool.leakDetectionMs}: tiempo tras el cual se reporta una conexión no devuelta (0 = desactivado).</li>
+ *     <li>{@code sgc.db.replicas}: URLs JDBC de réplicas de solo lectura, separadas por comas (vacío = sin réplicas).
+ *     Sus credenciales son {@code sgc.db.replica.user} y {@code sgc.db.replica.password} (por defecto, las del primario)
+ *     y sus pools se ajustan con {@code sgc.db.replica.pool.*}. Ver {@link #getReadConnection()}.</li>
+ * </ul>
  */
 public class DatabaseConnection {
 
-    private static final String JDBC_URL = "jdbc:mysql://localhost:3306/sgc_db?useSSL=false&serverTimezone=UTC";
+    private static final String JDBC_URL = AppConfig.getString("sgc.db.url",
+            "jdbc:mysql://localhost:3306/sgc_db?useSSL=false&serverTimezone=UTC");
 
     // Nombre de usuario de la base de datos.
-    private static final String JDBC_USER = "samir_valiente";
+    private static final String JDBC_USER = AppConfig.getString("sgc.db.user", "samir_valiente");
 
     // Contraseña del usuario de la base de datos.
-    private static final String JDBC_PASSWORD = "AbcdeUdeC";
+    private static final String JDBC_PASSWORD = AppConfig.getString("sgc.db.password", "AbcdeUdeC");
+
+    // Clase del driver JDBC.
+    private static final String JDBC_DRIVER = AppConfig.getString("sgc.db.driver", "com.mysql.cj.jdbc.Driver");
+
+    // Propiedades de Connector/J para usar sentencias preparadas del lado del servidor y cachearlas por conexión,
+    // y para reescribir los lotes de INSERT como un único INSERT de múltiples filas.
+    private static final String PROPIEDADES_CACHE_SENTENCIAS =
+            "useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048&rewriteBatchedStatements=true";
+
+    private static volatile ConnectionPool pool;
+
+    // URLs de las réplicas de lectura; sin réplicas, todas las lecturas van al primario
+    private static final List<String> URLS_REPLICAS = leerUrlsReplicas();
+
+    // Tras una escritura, las lecturas de la misma sesión van al primario durante este tiempo (lo aplica ContextoPeticionFilter)
+    public static final long LECTURA_PROPIA_MS = AppConfig.getLong("sgc.db.replica.stickyMs", 5_000);
+
+    private static volatile ReplicaRouter replicas;
+
+    // Marca los hilos que deben leer del primario aunque haya réplicas (ver leerDelPrimario)
+    private static final ThreadLocal<Boolean> SOLO_PRIMARIO = new ThreadLocal<>();
+
+    // Conexión de la transacción en curso en este hilo (ver enTransaccion)
+    private static final ThreadLocal<Connection> TRANSACCION = new ThreadLocal<>();
+
+    // Tiempo de espera por una conexión del pool y fallos al obtenerla, exportados en /metrics
+    private static final LatencyHistogram LATENCIA_OBTENER_CONEXION = MetricsRegistry.histograma(
+            "sgc_db_connection_acquire_seconds", "Tiempo para obtener una conexión del pool.");
+    private static final LongAdder FALLOS_OBTENER_CONEXION = MetricsRegistry.contador(
+            "sgc_db_connection_acquire_failures_total", "Conexiones que no se pudieron obtener (error o espera agotada).");
+    private static final LongAdder LECTURAS_REPLICA = MetricsRegistry.contador(
+            "sgc_db_reads_total", "Conexiones de lectura entregadas, por destino.", "destino", "replica");
+    private static final LongAdder LECTURAS_PRIMARIO = MetricsRegistry.contador(
+            "sgc_db_reads_total", "Conexiones de lectura entregadas, por destino.", "destino", "primario");
+
+    static {
+        MetricsRegistry.gauge("sgc_db_pool_active", "Conexiones prestadas.",
+                () -> pool == null ? 0 : pool.getConexionesActivas());
+        MetricsRegistry.gauge("sgc_db_pool_idle", "Conexiones inactivas en el pool.",
+                () -> pool == null ? 0 : pool.getConexionesInactivas());
+        MetricsRegistry.gauge("sgc_db_pool_waiting_threads", "Hilos esperando una conexión.",
+                () -> pool == null ? 0 : pool.getHilosEsperando());
+        MetricsRegistry.gauge("sgc_db_pool_max", "Tamaño máximo del pool.",
+                () -> pool == null ? 0 : pool.getMaxConexiones());
+    }
+
+    /**
+     * Trabajo que se ejecuta dentro de una transacción.
+     */
+    @FunctionalInterface
+    public interface TrabajoTransaccional {
+        /**
+         * @return {@code true} para confirmar la transacción, {@code false} para deshacerla.
+         * @throws SQLException Si falla una operación; la transacción se deshace.
+         */
+        boolean ejecutar() throws SQLException;
+    }
 
     /**
-     * Obtiene una nueva conexión a la base de datos.
+     * Obtiene una conexión del pool. Sus sentencias preparadas se trazan con {@link SqlTracer}.
+     * Si el hilo está dentro de {@link #enTransaccion(TrabajoTransaccional)}, devuelve la conexión de esa
+     * transacción; en ese caso cerrarla no hace nada, ya que la transacción la cierra al terminar.
      *
      * @return Un objeto {@link Connection} si la conexión es exitosa, o {@code null} en caso de error.
      */
     public static Connection getConnection() {
-        Connection connection = null;
+        Connection enCurso = TRANSACCION.get();
+        if (enCurso != null) {
+            return sinCerrar(enCurso);
+        }
+        long inicio = System.nanoTime();
         try {
-            // Cargar el driver JDBC de MySQL.
-            Class.forName("com.mysql.cj.jdbc.Driver");
-
-            // Establecer la conexión utilizando la URL, usuario y contraseña definidos.
-            connection = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
-            System.out.println("Conexión a la base de datos establecida correctamente.");
-        } catch (ClassNotFoundException e) {
-            // Se lanza si el driver JDBC no se encuentra en el classpath.
-            System.err.println("Error: Driver JDBC de MySQL no encontrado. Asegúrate de que el JAR esté en WEB-INF/lib.");
-            e.printStackTrace();
+            Connection conexion = getPool().getConnection();
+            LATENCIA_OBTENER_CONEXION.registrarDesde(inicio);
+            return SqlTracer.envolver(conexion);
         } catch (SQLException e) {
-            // Se lanza si hay un error al intentar conectar a la base de datos.
+            FALLOS_OBTENER_CONEXION.increment();
+            // Se lanza si no se pudo abrir la conexión o si se agotó la espera por una conexión libre.
             System.err.println("Error al conectar a la base de datos. Verifica la URL, usuario, contraseña y que MySQL esté corriendo.");
             e.printStackTrace();
+        } catch (IllegalStateException e) {
+            FALLOS_OBTENER_CONEXION.increment();
+            System.err.println(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene una conexión para una lectura que tolera un pequeño retraso respecto de las últimas escrituras.
+     * Si hay réplicas configuradas, la conexión es de una réplica sana; si no hay réplicas, ninguna está sana,
+     * o la lectura debe ver las escrituras recientes, es del primario, igual que {@link #getConnection()}.
+     * Las lecturas van al primario:
+     * <ul>
+     *     <li>dentro de {@link #enTransaccion(TrabajoTransaccional)}, que usa siempre su propia conexión;</li>
+     *     <li>dentro de {@link #leerDelPrimario()};</li>
+     *     <li>en peticiones cuyo {@link ContextoPeticion} lo indica (la petición puede escribir o ya confirmó una
+     *     escritura, o su sesión escribió hace menos de {@code sgc.db.replica.stickyMs}).</li>
+     * </ul>
+     * Las conexiones de réplica también se trazan con {@link SqlTracer}. No deben usarse para escribir.
+     *
+     * @return Un objeto {@link Connection} si la conexión es exitosa, o {@code null} en caso de error.
+     */
+    public static Connection getReadConnection() {
+        if (URLS_REPLICAS.isEmpty() || TRANSACCION.get() != null || SOLO_PRIMARIO.get() != null) {
+            return getConnection();
+        }
+        if (puedeLeerDeReplica()) {
+            try {
+                Connection replica = getReplicas().getConnection();
+                if (replica != null) {
+                    LECTURAS_REPLICA.increment();
+                    return SqlTracer.envolver(replica);
+                }
+            } catch (IllegalStateException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        LECTURAS_PRIMARIO.increment();
+        return getConnection();
+    }
+
+    /**
+     * Indica si una lectura hecha ahora con {@link #getReadConnection()} podría ir a una réplica y, por lo tanto,
+     * no ver las escrituras más recientes.
+     *
+     * @return {@code true} si hay réplicas configuradas y nada obliga a leer del primario en este hilo.
+     */
+    public static boolean puedeLeerDeReplica() {
+        if (URLS_REPLICAS.isEmpty() || TRANSACCION.get() != null || SOLO_PRIMARIO.get() != null) {
+            return false;
+        }
+        ContextoPeticion contexto = ContextoPeticion.actual();
+        return contexto == null || !contexto.isLeerDelPrimario();
+    }
+
+    /**
+     * Hace que las lecturas del hilo actual vayan al primario hasta cerrar el ámbito devuelto:
+     * <pre>
+     * try (DatabaseConnection.AmbitoPrimario primario = DatabaseConnection.leerDelPrimario()) { ... }
+     * </pre>
+     * Se usa al cargar cachés e índices que luego se mantienen con los cambios confirmados: cargarlos desde una
+     * réplica atrasada dejaría fuera escrituras que ya se notificaron.
+     *
+     * @return El ámbito, que restablece el enrutamiento anterior al cerrarse.
+     */
+    public static AmbitoPrimario leerDelPrimario() {
+        if (SOLO_PRIMARIO.get() != null) {
+            return () -> { }; // Ámbito anidado: lo cierra el externo
+        }
+        SOLO_PRIMARIO.set(Boolean.TRUE);
+        return SOLO_PRIMARIO::remove;
+    }
+
+    /**
+     * Ámbito devuelto por {@link #leerDelPrimario()}.
+     */
+    @FunctionalInterface
+    public interface AmbitoPrimario extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Ejecuta un trabajo en una única transacción. Los repositorios que el trabajo use obtienen, con
+     * {@link #getConnection()}, la misma conexión, de modo que todas sus escrituras se confirman o se deshacen juntas.
+     * La transacción se confirma si el trabajo devuelve {@code true} y se deshace si devuelve {@code false}
+     * o lanza una excepción. Si ya hay una transacción en curso en el hilo, el trabajo se une a ella.
+     * Al confirmarse se registra la escritura en el {@link ContextoPeticion} de la petición en curso.
+     * El trabajo no debe confirmar ni deshacer la transacción por su cuenta.
+     *
+     * @param trabajo El trabajo a ejecutar.
+     * @return {@code true} si la transacción se confirmó, {@code false} si se deshizo.
+     */
+    public static boolean enTransaccion(TrabajoTransaccional trabajo) {
+        if (TRANSACCION.get() != null) {
+            try {
+                return trabajo.ejecutar(); // Transacción anidada: la confirma o deshace la transacción externa
+            } catch (SQLException e) {
+                System.err.println("Error en la transacción: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        Connection conn = getConnection();
+        if (conn == null) {
+            return false;
+        }
+        boolean confirmada = false;
+        try {
+            conn.setAutoCommit(false);
+            TRANSACCION.set(conn);
+            if (trabajo.ejecutar()) {
+                conn.commit();
+                confirmada = true;
+                ContextoPeticion.registrarEscritura();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error en la transacción, se deshace: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            TRANSACCION.remove();
+            if (!confirmada) {
+                deshacer(conn);
+            }
+            closeConnection(conn); // El pool restablece el autocommit al recibirla
+        }
+        return confirmada;
+    }
+
+    /**
+     * Ejecuta un trabajo usando una conexión con una transacción ya abierta por el llamador, como si fuera la
+     * transacción en curso del hilo. No confirma ni deshace nada: eso sigue a cargo de quien abrió la transacción.
+     * Sirve para que otros repositorios escriban en la misma transacción que una inserción por lotes.
+     *
+     * @param conn    La conexión con {@code autoCommit} desactivado.
+     * @param trabajo El trabajo a ejecutar.
+     * @return Lo que devuelva el trabajo.
+     * @throws SQLException Si el trabajo falla.
+     */
+    public static boolean ejecutarEnTransaccion(Connection conn, TrabajoTransaccional trabajo) throws SQLException {
+        Connection anterior = TRANSACCION.get();
+        TRANSACCION.set(conn);
+        try {
+            return trabajo.ejecutar();
+        } finally {
+            if (anterior != null) {
+                TRANSACCION.set(anterior);
+            } else {
+                TRANSACCION.remove();
+            }
         }
-        return connection;
     }
 
     /**
-     * Cierra una conexión a la base de datos de forma segura.
+     * Cierra una conexión a la base de datos de forma segura (la devuelve al pool).
      *
      * @param connection El objeto {@link Connection} a cerrar. Si es {@code null}, no hace nada.
      */
@@ -55,7 +280,6 @@ public class DatabaseConnection {
         if (connection != null) {
             try {
                 connection.close();
-                System.out.println("Conexión a la base de datos cerrada.");
             } catch (SQLException e) {
                 // Se lanza si hay un error al intentar cerrar la conexión.
                 System.err.println("Error al cerrar la conexión: " + e.getMessage());
@@ -63,4 +287,164 @@ public class DatabaseConnection {
             }
         }
     }
+
+    private static void deshacer(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error al deshacer la transacción: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve un proxy de la conexión de la transacción en curso cuyo {@code close()} no hace nada,
+     * para que los repositorios puedan usar try-with-resources como siempre.
+     */
+    private static Connection sinCerrar(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "isClosed":
+                            return conn.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(conn, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    /**
+     * Crea el pool (si aún no existe) y abre el mínimo de conexiones configurado.
+     * Se llama al iniciar la aplicación para no pagar el costo en la primera petición.
+     */
+    public static void inicializar() {
+        getPool().precalentar();
+    }
+
+    /**
+     * Cierra el pool y todas sus conexiones. Se llama al detener la aplicación.
+     */
+    public static synchronized void shutdown() {
+        if (replicas != null) {
+            replicas.shutdown();
+            replicas = null;
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Obtiene el pool compartido, creándolo la primera vez que se necesita.
+     *
+     * @return El {@link ConnectionPool} de la aplicación.
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool actual = pool;
+        if (actual == null) {
+            synchronized (DatabaseConnection.class) {
+                actual = pool;
+                if (actual == null) {
+                    actual = crearPool();
+                    pool = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Obtiene el enrutador de réplicas, creándolo la primera vez que se necesita. Solo se llama si hay réplicas configuradas.
+     */
+    private static ReplicaRouter getReplicas() {
+        ReplicaRouter actual = replicas;
+        if (actual == null) {
+            synchronized (DatabaseConnection.class) {
+                actual = replicas;
+                if (actual == null) {
+                    actual = crearReplicas();
+                    replicas = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    private static ReplicaRouter crearReplicas() {
+        cargarDriver();
+        String usuario = AppConfig.getString("sgc.db.replica.user", JDBC_USER);
+        String password = AppConfig.getString("sgc.db.replica.password", JDBC_PASSWORD);
+        List<ConnectionPool> pools = new ArrayList<>(URLS_REPLICAS.size());
+        for (String url : URLS_REPLICAS) {
+            pools.add(new ConnectionPool(
+                    agregarPropiedadesCache(url),
+                    usuario,
+                    password,
+                    AppConfig.getInt("sgc.db.replica.pool.min", 1),
+                    AppConfig.getInt("sgc.db.replica.pool.max", 10),
+                    // Espera corta: si la réplica está saturada, la lectura va al primario en lugar de esperar
+                    AppConfig.getLong("sgc.db.replica.pool.maxWaitMs", 1_000),
+                    AppConfig.getLong("sgc.db.pool.idleTimeoutMs", 600_000),
+                    AppConfig.getLong("sgc.db.pool.leakDetectionMs", 60_000)));
+        }
+        System.out.println("Pools de conexiones a " + pools.size() + " réplica(s) de lectura creados.");
+        return new ReplicaRouter(URLS_REPLICAS, pools,
+                AppConfig.getLong("sgc.db.replica.healthCheckMs", 5_000),
+                AppConfig.getLong("sgc.db.replica.maxLagSeconds", 0));
+    }
+
+    private static List<String> leerUrlsReplicas() {
+        List<String> urls = new ArrayList<>();
+        for (String url : AppConfig.getString("sgc.db.replicas", "").split(",")) {
+            if (!url.trim().isEmpty()) {
+                urls.add(url.trim());
+            }
+        }
+        return urls;
+    }
+
+    private static void cargarDriver() {
+        try {
+            // Cargar el driver JDBC una sola vez.
+            Class.forName(JDBC_DRIVER);
+        } catch (ClassNotFoundException e) {
+            // Se lanza si el driver JDBC no se encuentra en el classpath.
+            throw new IllegalStateException("Error: Driver JDBC " + JDBC_DRIVER + " no encontrado. Asegúrate de que el JAR esté en WEB-INF/lib.", e);
+        }
+    }
+
+    private static ConnectionPool crearPool() {
+        cargarDriver();
+        ConnectionPool nuevo = new ConnectionPool(
+                agregarPropiedadesCache(JDBC_URL),
+                JDBC_USER,
+                JDBC_PASSWORD,
+                AppConfig.getInt("sgc.db.pool.min", 2),
+                AppConfig.getInt("sgc.db.pool.max", 10),
+                AppConfig.getLong("sgc.db.pool.maxWaitMs", 5_000),
+                AppConfig.getLong("sgc.db.pool.idleTimeoutMs", 600_000),
+                AppConfig.getLong("sgc.db.pool.leakDetectionMs", 60_000));
+        System.out.println("Pool de conexiones a la base de datos creado.");
+        return nuevo;
+    }
+
+    /**
+     * Agrega a la URL de MySQL las propiedades de caché de sentencias preparadas y de lotes, salvo que ya vengan configuradas.
+     */
+    private static String agregarPropiedadesCache(String url) {
+        if (!url.startsWith("jdbc:mysql:") || url.contains("cachePrepStmts")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + PROPIEDADES_CACHE_SENTENCIAS;
+    }
 }
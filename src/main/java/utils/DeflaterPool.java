@@ -0,0 +1,71 @@
+package main.java.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Pool de {@link Deflater} para comprimir respuestas sin crear uno por petición.
+ * <p>
+ * Cada {@code Deflater} reserva memoria nativa (unos 256 KB con el nivel por defecto) que solo se libera con
+ * {@link Deflater#end()} o cuando el recolector de basura lo finaliza; crear uno por respuesta la hace crecer
+ * sin control bajo carga. El pool guarda hasta {@code maxLibres} instancias ya reiniciadas y cierra las que sobran.
+ * Si está vacío, {@link #obtener()} crea una nueva en lugar de esperar.
+ */
+public final class DeflaterPool {
+
+    private final int nivel;
+    private final ArrayBlockingQueue<Deflater> libres;
+
+    /**
+     * @param nivel     Nivel de compresión, de 1 (más rápido) a 9 (más compacto).
+     * @param maxLibres Máximo de instancias guardadas sin usar.
+     */
+    public DeflaterPool(int nivel, int maxLibres) {
+        if (nivel < Deflater.BEST_SPEED || nivel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Nivel de compresión inválido: " + nivel);
+        }
+        this.nivel = nivel;
+        this.libres = new ArrayBlockingQueue<>(Math.max(1, maxLibres));
+    }
+
+    /**
+     * Obtiene un {@code Deflater} sin encabezado zlib (para escribir formato gzip), listo para usarse.
+     * Debe devolverse con {@link #devolver(Deflater)} al terminar.
+     *
+     * @return Un {@code Deflater} del pool, o uno nuevo si no hay ninguno libre.
+     */
+    public Deflater obtener() {
+        Deflater deflater = libres.poll();
+        return deflater != null ? deflater : new Deflater(nivel, true);
+    }
+
+    /**
+     * Devuelve un {@code Deflater} al pool. Se puede devolver en cualquier estado, incluso a mitad de una compresión.
+     *
+     * @param deflater El {@code Deflater} obtenido con {@link #obtener()}.
+     */
+    public void devolver(Deflater deflater) {
+        deflater.reset();
+        if (!libres.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return Número de instancias libres en el pool.
+     */
+    public int getLibres() {
+        return libres.size();
+    }
+
+    /**
+     * Libera la memoria nativa de las instancias libres. Las que están en uso se liberan al devolverse
+     * si el pool ya está lleno, o las finaliza el recolector de basura.
+     */
+    public void cerrar() {
+        Deflater deflater;
+        while ((deflater = libres.poll()) != null) {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package main.java.utils;
+
+import main.java.models.repositories.ContratoRepository;
+import main.java.models.repositories.FiltroContratos;
+import main.java.models.repositories.ResumenContratoRepository;
+import main.java.models.repositories.UsuarioRepository;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Herramienta de línea de comandos que comprueba, con {@code EXPLAIN}, que las consultas con filtro de los
+ * repositorios usan un índice y no recorren tablas completas. Pensada para correr en integración continua
+ * contra una base MySQL con el esquema de las migraciones:
+ * <pre>
+ * java -Dsgc.db.url=... -cp ... main.java.utils.ExplainPlanVerifier [directorio de migraciones]
+ * </pre>
+ * Si se indica el directorio (por ejemplo, {@code WebContent/WEB-INF/db/migrations}), primero aplica las
+ * migraciones pendientes. Termina con código 1 si alguna consulta no usa índice.
+ * <p>
+ * Las sentencias son las que ejecutan los repositorios, tomadas de sus constantes y de los métodos que las generan
+ * (para las dinámicas, con valores representativos: máscaras de columnas, filtros y listas de IDs). Quedan fuera los
+ * recorridos completos intencionales (listados sin filtro, carga de la instantánea analítica, reconstrucción de
+ * resúmenes y lecturas de las tablas de resumen, que tienen una fila por empresa, frecuencia o usuario).
+ * Con tablas casi vacías el optimizador puede preferir un recorrido completo; conviene correrla con datos de prueba.
+ */
+public final class ExplainPlanVerifier {
+
+    private static final Date FECHA = Date.valueOf("2025-01-01");
+    private static final List<Integer> IDS = Arrays.asList(1, 2, 3);
+    private static final FiltroContratos POR_FILTRO = FiltroContratos.porUsuario("admin", "Acme", FECHA);
+    private static final FiltroContratos POR_IDS = FiltroContratos.porIds("admin", IDS);
+
+    private static final List<Caso> CASOS = Arrays.asList(
+            new Caso("ContratoRepository.getContratoById", ContratoRepository.SQL_POR_ID, 1),
+            new Caso("ContratoRepository.getContratoByIdForUpdate", ContratoRepository.SQL_POR_ID_FOR_UPDATE, 1),
+            new Caso("ContratoRepository.getUsuarioUsernameByContratoId", ContratoRepository.SQL_DUENO_POR_ID, 1),
+            new Caso("ContratoRepository.getContratosByUsuario", ContratoRepository.SQL_POR_USUARIO, "admin"),
+            new Caso("ContratoRepository.getContratosByUsuarioForUpdate", ContratoRepository.SQL_POR_USUARIO_FOR_UPDATE, "admin"),
+            new Caso("ContratoRepository.getContratosPagina (adelante)",
+                    ContratoRepository.sqlPagina(true, false), "admin", 0, 21),
+            new Caso("ContratoRepository.getContratosPagina (atrás)",
+                    ContratoRepository.sqlPagina(true, true), "admin", 1000, 21),
+            new Caso("ContratoRepository.getContratosPagina (todos)",
+                    ContratoRepository.sqlPagina(false, false), 0, 21),
+            new Caso("ContratoRepository.streamContratos (por usuario)", ContratoRepository.sqlStream(true), "admin"),
+            new Caso("ContratoRepository.streamContratosPagina (id, empresa, monto)",
+                    ContratoRepository.sqlPaginaColumnas(columnas("empresa", "monto"), true), "admin", 0, 100),
+            new Caso("ContratoRepository.getContratosLoteForUpdate (empresa, fecha_fin)",
+                    ContratoRepository.sqlLoteForUpdate(POR_FILTRO, null), "admin", "Acme", FECHA, 0, 500),
+            new Caso("ContratoRepository.getContratosLoteForUpdate (ids)",
+                    ContratoRepository.sqlLoteForUpdate(POR_IDS, IDS), "admin", 1, 2, 3, 0, 500),
+            new Caso("ContratoRepository.contarContratos (empresa, fecha_fin)",
+                    ContratoRepository.sqlContar(POR_FILTRO), "admin", "Acme", FECHA),
+            new Caso("ContratoRepository.contarContratos (ids)",
+                    ContratoRepository.sqlContar(POR_IDS), "admin", 1, 2, 3),
+            new Caso("ContratoRepository.getVencimientosLote (primer lote)",
+                    ContratoRepository.sqlVencimientosLote(false), FECHA, Date.valueOf("2025-01-31"), 500),
+            new Caso("ContratoRepository.getVencimientosLote",
+                    ContratoRepository.sqlVencimientosLote(true),
+                    FECHA, Date.valueOf("2025-01-31"), Date.valueOf("2025-01-10"), Date.valueOf("2025-01-10"), 100, 500),
+            new Caso("ContratoRepository.getConteoValores (empresa)", ContratoRepository.sqlConteoValores("empresa")),
+            new Caso("ContratoRepository.getConteoValores (empleado)", ContratoRepository.sqlConteoValores("empleado")),
+            new Caso("ContratoRepository.updateContrato (todas las columnas)",
+                    ContratoRepository.sqlActualizar(ContratoRepository.TODAS_LAS_COLUMNAS),
+                    "2024-01-01", "2024-01-01", "2024-12-31", "e", "e", "f", 1, "Mensual", "admin", 1),
+            new Caso("ContratoRepository.updateContrato (empresa, monto)",
+                    ContratoRepository.sqlActualizar(columnas("empresa", "monto")), "e", 1, 1),
+            new Caso("ContratoRepository.deleteContrato", ContratoRepository.SQL_ELIMINAR, 1),
+            new Caso("ContratoRepository.deleteContratos",
+                    ContratoRepository.sqlEliminarVarios(IDS.size()), 1, 2, 3),
+            new Caso("ContratoRepository.reasignarContratos",
+                    ContratoRepository.sqlReasignar(IDS.size()), "admin", 1, 2, 3),
+            new Caso("UsuarioRepository.getUsuarioByUsername", UsuarioRepository.SQL_POR_USERNAME, "admin"),
+            new Caso("UsuarioRepository.getUsuariosPagina (adelante)", UsuarioRepository.sqlPagina(true, false), "a", 21),
+            new Caso("UsuarioRepository.getUsuariosPagina (atrás)", UsuarioRepository.sqlPagina(true, true), "z", 21),
+            new Caso("UsuarioRepository.streamUsuariosPagina",
+                    UsuarioRepository.sqlPaginaColumnas(UsuarioRepository.TODAS_LAS_COLUMNAS_PUBLICAS, true), "a", 100),
+            new Caso("UsuarioRepository.deleteUsuario", UsuarioRepository.SQL_ELIMINAR, "admin"),
+            new Caso("ResumenContratoRepository.getVigentesPorMes",
+                    ResumenContratoRepository.SQL_VIGENTES_POR_MES, "2024-01-01", "2024-12-01"));
+
+    private ExplainPlanVerifier() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && !new MigrationRunner(MigrationRunner.leerDirectorio(Paths.get(args[0]))).migrar()) {
+            System.err.println("No se pudieron aplicar las migraciones.");
+            System.exit(2);
+        }
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            System.exit(2);
+        }
+        List<String> fallas;
+        try {
+            fallas = verificar(conn);
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+            DatabaseConnection.shutdown();
+        }
+        if (!fallas.isEmpty()) {
+            System.err.println(fallas.size() + " consulta(s) sin índice:");
+            fallas.forEach(falla -> System.err.println("  " + falla));
+            System.exit(1);
+        }
+        System.out.println("Las " + CASOS.size() + " consultas usan índices.");
+    }
+
+    /**
+     * Ejecuta {@code EXPLAIN} de cada consulta e informa las que recorren una tabla completa o no usan índice.
+     *
+     * @param conn Conexión a la base a verificar.
+     * @return Una descripción por cada consulta que no usa índice; vacía si todas lo usan.
+     */
+    public static List<String> verificar(Connection conn) {
+        List<String> fallas = new ArrayList<>();
+        for (Caso caso : CASOS) {
+            try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + caso.sql)) {
+                for (int i = 0; i < caso.parametros.length; i++) {
+                    pstmt.setObject(i + 1, caso.parametros[i]);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String tabla = rs.getString("table");
+                        String tipo = rs.getString("type");
+                        String clave = rs.getString("key");
+                        String plan = caso.nombre + ": tabla=" + tabla + " type=" + tipo + " key=" + clave;
+                        if ("ALL".equals(tipo) || clave == null) {
+                            fallas.add(plan);
+                        } else {
+                            System.out.println("OK   " + plan);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                fallas.add(caso.nombre + ": no se pudo ejecutar EXPLAIN (" + e.getMessage() + ")");
+            }
+        }
+        return fallas;
+    }
+
+    private static int columnas(String... nombres) {
+        int mascara = 0;
+        for (String nombre : nombres) {
+            mascara |= 1 << ContratoRepository.indiceColumna(nombre);
+        }
+        return mascara;
+    }
+
+    private static final class Caso {
+        private final String nombre;
+        private final String sql;
+        private final Object[] parametros;
+
+        private Caso(String nombre, String sql, Object... parametros) {
+            this.nombre = nombre;
+            this.sql = sql;
+            this.parametros = parametros;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package main.java.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Flujo que comprime en formato gzip (RFC 1952) usando un {@link Deflater} de un {@link DeflaterPool}.
+ * <p>
+ * A diferencia de {@link java.util.zip.GZIPOutputStream}, que crea su propio {@code Deflater} en cada instancia,
+ * este lo toma del pool y lo devuelve al terminar. {@link #flush()} envía todo lo escrito hasta el momento
+ * (sync flush), de modo que las respuestas largas que se escriben por partes, como las exportaciones,
+ * llegan al cliente sin esperar al final.
+ * <p>
+ * {@link #terminar()} escribe el final del flujo y no cierra el destino; {@link #abortar()} devuelve el
+ * {@code Deflater} sin terminarlo, dejando un gzip incompleto que el cliente detecta como truncado.
+ * No es seguro para usarse desde varios hilos a la vez.
+ */
+public final class GzipSalida extends OutputStream {
+
+    // Encabezado gzip: identificación, método deflate, sin flags, sin fecha, sin flags extra, SO desconocido
+    private static final byte[] ENCABEZADO = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TAMANO_BUFFER = 8 * 1024;
+
+    private final OutputStream destino;
+    private final DeflaterPool pool;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[TAMANO_BUFFER];
+    private Deflater deflater;
+    private long bytesEntrada;
+    private long bytesSalida;
+    private long nanosCompresion;
+
+    /**
+     * Escribe el encabezado gzip en el destino y toma un {@code Deflater} del pool.
+     *
+     * @param destino Flujo donde se escribe el resultado comprimido.
+     * @param pool    Pool del que se toma el {@code Deflater}.
+     * @throws IOException Si falla la escritura del encabezado.
+     */
+    public GzipSalida(OutputStream destino, DeflaterPool pool) throws IOException {
+        this.destino = destino;
+        this.pool = pool;
+        destino.write(ENCABEZADO);
+        this.bytesSalida = ENCABEZADO.length;
+        this.deflater = pool.obtener();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (deflater == null) {
+            throw new IOException("El flujo gzip ya fue terminado.");
+        }
+        if (len == 0) {
+            return;
+        }
+        crc.update(b, off, len);
+        bytesEntrada += len;
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            comprimir(Deflater.NO_FLUSH);
+        }
+    }
+
+    /**
+     * Comprime y envía todo lo escrito hasta ahora, sin terminar el flujo.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (deflater != null) {
+            // Con SYNC_FLUSH, un buffer lleno indica que puede quedar salida pendiente
+            while (comprimir(Deflater.SYNC_FLUSH) == buffer.length) {
+                // Sigue vaciando
+            }
+        }
+        destino.flush();
+    }
+
+    /**
+     * Escribe el final del flujo gzip (datos pendientes, CRC y tamaño) y devuelve el {@code Deflater} al pool.
+     * No cierra el destino. Llamarlo más de una vez no tiene efecto.
+     *
+     * @throws IOException Si falla la escritura.
+     */
+    public void terminar() throws IOException {
+        if (deflater == null) {
+            return;
+        }
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                comprimir(Deflater.NO_FLUSH);
+            }
+            byte[] cola = new byte[8];
+            escribirEnteroLE(cola, 0, crc.getValue());
+            escribirEnteroLE(cola, 4, bytesEntrada); // ISIZE: tamaño original módulo 2^32
+            destino.write(cola);
+            bytesSalida += cola.length;
+        } finally {
+            liberar();
+        }
+    }
+
+    /**
+     * Devuelve el {@code Deflater} al pool sin terminar el flujo. Se usa cuando la respuesta falló a mitad
+     * de camino y no debe parecer completa.
+     */
+    public void abortar() {
+        if (deflater != null) {
+            liberar();
+        }
+    }
+
+    /**
+     * Termina el flujo y cierra el destino.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            terminar();
+        } finally {
+            destino.close();
+        }
+    }
+
+    /**
+     * @return Bytes recibidos sin comprimir.
+     */
+    public long getBytesEntrada() {
+        return bytesEntrada;
+    }
+
+    /**
+     * @return Bytes escritos en el destino, incluidos el encabezado y el final gzip.
+     */
+    public long getBytesSalida() {
+        return bytesSalida;
+    }
+
+    /**
+     * @return Tiempo total dedicado a comprimir, en nanosegundos (sin contar la escritura en el destino).
+     */
+    public long getNanosCompresion() {
+        return nanosCompresion;
+    }
+
+    private int comprimir(int modo) throws IOException {
+        long inicio = System.nanoTime();
+        int n = deflater.deflate(buffer, 0, buffer.length, modo);
+        nanosCompresion += System.nanoTime() - inicio;
+        if (n > 0) {
+            destino.write(buffer, 0, n);
+            bytesSalida += n;
+        }
+        return n;
+    }
+
+    private void liberar() {
+        Deflater usado = deflater;
+        deflater = null;
+        pool.devolver(usado);
+    }
+
+    private static void escribirEnteroLE(byte[] destino, int posicion, long valor) {
+        destino[posicion] = (byte) valor;
+        destino[posicion + 1] = (byte) (valor >> 8);
+        destino[posicion + 2] = (byte) (valor >> 16);
+        destino[posicion + 3] = (byte) (valor >> 24);
+    }
+}
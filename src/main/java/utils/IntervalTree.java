@@ -0,0 +1,214 @@
+package main.java.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Árbol de intervalos: un árbol AVL ordenado por el inicio de cada intervalo, en el que cada nodo guarda además
+ * el mayor fin de su subárbol. Con ese dato, la búsqueda de los intervalos que se superponen con un rango descarta
+ * subárboles completos, y cuesta O(log n + k), donde k es el número de resultados.
+ * <p>
+ * Los extremos son enteros (por ejemplo, días desde la época) y ambos se incluyen en el intervalo.
+ * Cada intervalo se identifica por su inicio y un ID único, que desempata los intervalos con el mismo inicio.
+ * No es seguro para hilos: el llamador debe sincronizar el acceso.
+ *
+ * @param <T> Tipo del valor asociado a cada intervalo.
+ */
+public class IntervalTree<T> {
+
+    private Nodo<T> raiz;
+    private int tamano;
+
+    /**
+     * Agrega un intervalo. Si ya existe uno con el mismo inicio e ID, se reemplaza.
+     *
+     * @param inicio Inicio del intervalo (incluido).
+     * @param fin    Fin del intervalo (incluido); debe ser mayor o igual que {@code inicio}.
+     * @param id     Identificador único del intervalo.
+     * @param valor  Valor asociado.
+     */
+    public void insertar(int inicio, int fin, long id, T valor) {
+        raiz = insertar(raiz, inicio, fin, id, valor);
+    }
+
+    /**
+     * Quita un intervalo.
+     *
+     * @param inicio Inicio con el que se insertó el intervalo.
+     * @param id     Identificador del intervalo.
+     * @return {@code true} si el intervalo existía.
+     */
+    public boolean eliminar(int inicio, long id) {
+        int antes = tamano;
+        raiz = eliminar(raiz, inicio, id);
+        return tamano < antes;
+    }
+
+    /**
+     * Entrega a {@code accion} el valor de cada intervalo que se superpone con [desde, hasta], es decir,
+     * con {@code inicio <= hasta} y {@code fin >= desde}, en orden de inicio. Con {@code desde == hasta}
+     * obtiene los intervalos que contienen ese punto.
+     *
+     * @param desde  Inicio del rango consultado (incluido).
+     * @param hasta  Fin del rango consultado (incluido).
+     * @param accion Función que recibe cada valor encontrado.
+     */
+    public void buscarSuperpuestos(int desde, int hasta, Consumer<T> accion) {
+        buscar(raiz, desde, hasta, accion);
+    }
+
+    /**
+     * @return El número de intervalos del árbol.
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    private void buscar(Nodo<T> nodo, int desde, int hasta, Consumer<T> accion) {
+        // Ningún intervalo del subárbol termina después de 'desde': se descarta completo
+        if (nodo == null || nodo.maxFin < desde) {
+            return;
+        }
+        buscar(nodo.izquierdo, desde, hasta, accion);
+        // Si este nodo empieza después de 'hasta', todo su subárbol derecho también
+        if (nodo.inicio <= hasta) {
+            if (nodo.fin >= desde) {
+                accion.accept(nodo.valor);
+            }
+            buscar(nodo.derecho, desde, hasta, accion);
+        }
+    }
+
+    private Nodo<T> insertar(Nodo<T> nodo, int inicio, int fin, long id, T valor) {
+        if (nodo == null) {
+            tamano++;
+            return new Nodo<>(inicio, fin, id, valor);
+        }
+        int comparacion = comparar(inicio, id, nodo);
+        if (comparacion < 0) {
+            nodo.izquierdo = insertar(nodo.izquierdo, inicio, fin, id, valor);
+        } else if (comparacion > 0) {
+            nodo.derecho = insertar(nodo.derecho, inicio, fin, id, valor);
+        } else {
+            Nodo<T> reemplazo = new Nodo<>(inicio, fin, id, valor);
+            reemplazo.izquierdo = nodo.izquierdo;
+            reemplazo.derecho = nodo.derecho;
+            nodo = reemplazo;
+        }
+        return balancear(nodo);
+    }
+
+    private Nodo<T> eliminar(Nodo<T> nodo, int inicio, long id) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = comparar(inicio, id, nodo);
+        if (comparacion < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, inicio, id);
+        } else if (comparacion > 0) {
+            nodo.derecho = eliminar(nodo.derecho, inicio, id);
+        } else {
+            tamano--;
+            if (nodo.izquierdo == null) {
+                return nodo.derecho;
+            }
+            if (nodo.derecho == null) {
+                return nodo.izquierdo;
+            }
+            // Dos hijos: el sucesor (mínimo del subárbol derecho) ocupa el lugar del nodo
+            Nodo<T> sucesor = nodo.derecho;
+            while (sucesor.izquierdo != null) {
+                sucesor = sucesor.izquierdo;
+            }
+            sucesor.derecho = quitarMinimo(nodo.derecho);
+            sucesor.izquierdo = nodo.izquierdo;
+            nodo = sucesor;
+        }
+        return balancear(nodo);
+    }
+
+    private Nodo<T> quitarMinimo(Nodo<T> nodo) {
+        if (nodo.izquierdo == null) {
+            return nodo.derecho;
+        }
+        nodo.izquierdo = quitarMinimo(nodo.izquierdo);
+        return balancear(nodo);
+    }
+
+    private static int comparar(int inicio, long id, Nodo<?> nodo) {
+        int comparacion = Integer.compare(inicio, nodo.inicio);
+        return comparacion != 0 ? comparacion : Long.compare(id, nodo.id);
+    }
+
+    // --- Balanceo AVL, manteniendo la altura y el fin máximo de cada subárbol ---
+
+    private Nodo<T> balancear(Nodo<T> nodo) {
+        actualizar(nodo);
+        int factor = altura(nodo.izquierdo) - altura(nodo.derecho);
+        if (factor > 1) {
+            if (altura(nodo.izquierdo.izquierdo) < altura(nodo.izquierdo.derecho)) {
+                nodo.izquierdo = rotarIzquierda(nodo.izquierdo);
+            }
+            return rotarDerecha(nodo);
+        }
+        if (factor < -1) {
+            if (altura(nodo.derecho.derecho) < altura(nodo.derecho.izquierdo)) {
+                nodo.derecho = rotarDerecha(nodo.derecho);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
+    }
+
+    private Nodo<T> rotarDerecha(Nodo<T> nodo) {
+        Nodo<T> nuevaRaiz = nodo.izquierdo;
+        nodo.izquierdo = nuevaRaiz.derecho;
+        nuevaRaiz.derecho = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private Nodo<T> rotarIzquierda(Nodo<T> nodo) {
+        Nodo<T> nuevaRaiz = nodo.derecho;
+        nodo.derecho = nuevaRaiz.izquierdo;
+        nuevaRaiz.izquierdo = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static void actualizar(Nodo<?> nodo) {
+        nodo.altura = 1 + Math.max(altura(nodo.izquierdo), altura(nodo.derecho));
+        int maxFin = nodo.fin;
+        if (nodo.izquierdo != null && nodo.izquierdo.maxFin > maxFin) {
+            maxFin = nodo.izquierdo.maxFin;
+        }
+        if (nodo.derecho != null && nodo.derecho.maxFin > maxFin) {
+            maxFin = nodo.derecho.maxFin;
+        }
+        nodo.maxFin = maxFin;
+    }
+
+    private static int altura(Nodo<?> nodo) {
+        return nodo == null ? 0 : nodo.altura;
+    }
+
+    private static final class Nodo<T> {
+        private final int inicio;
+        private final int fin;
+        private final long id;
+        private final T valor;
+        private int maxFin;
+        private int altura = 1;
+        private Nodo<T> izquierdo;
+        private Nodo<T> derecho;
+
+        private Nodo(int inicio, int fin, long id, T valor) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.id = id;
+            this.valor = valor;
+            this.maxFin = fin;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package main.java.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice invertido para búsqueda de texto completo con ranking BM25.
+ * <p>
+ * Cada documento tiene un ID entero y uno o más campos de texto, que se separan en términos con
+ * {@link SpanishTokenizer}. Cada campo tiene un peso: la frecuencia de un término en el documento es la suma
+ * ponderada de sus apariciones en cada campo (BM25F simplificado), así que una coincidencia en un campo corto
+ * y con más peso (por ejemplo, la empresa) puntúa más que en un texto largo.
+ * <p>
+ * Por término se guarda una lista de publicaciones (posiciones internas de documento y frecuencia) en arreglos
+ * primitivos, ordenada porque las posiciones se asignan en orden creciente. Una búsqueda exige todos los términos
+ * de la consulta: recorre la lista más corta y avanza por las demás con búsqueda exponencial, sin crear objetos
+ * por documento. Eliminar un documento solo lo marca como borrado; cuando los borrados superan a los vivos,
+ * el índice se compacta.
+ * <p>
+ * No es seguro para hilos: el llamador debe sincronizar el acceso. Las búsquedas no modifican el índice,
+ * así que pueden correr en paralelo entre sí.
+ *
+ * @param <T> Tipo del valor asociado a cada documento.
+ */
+public class InvertedIndex<T> {
+
+    // Parámetros estándar de BM25: saturación de la frecuencia y normalización por longitud
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Número mínimo de documentos borrados antes de considerar una compactación
+    private static final int MINIMO_BORRADOS_COMPACTAR = 1024;
+
+    private final float[] pesos;
+    private final Map<String, Publicaciones> terminos = new HashMap<>();
+    private final Map<Integer, Integer> posicionPorId = new HashMap<>();
+
+    // Datos por posición interna; una posición con terminosDocumento == null está borrada
+    private int[] ids = new int[16];
+    private Object[] valores = new Object[16];
+    private float[] longitudes = new float[16];
+    private String[][] terminosDocumento = new String[16][];
+    private int posiciones;
+    private int vivos;
+    private double sumaLongitudes;
+
+    /**
+     * @param pesos Peso de cada campo, en el orden en que se pasan a {@link #guardar}; los campos sin peso usan 1.
+     */
+    public InvertedIndex(float... pesos) {
+        this.pesos = pesos.clone();
+    }
+
+    /**
+     * Agrega un documento, o lo reemplaza si ya existe uno con el mismo ID.
+     * Un documento sin ningún término indexable no se guarda (ninguna búsqueda podría encontrarlo).
+     *
+     * @param id     Identificador único del documento.
+     * @param valor  Valor que devuelven las búsquedas.
+     * @param campos Textos del documento; {@code null} se trata como vacío.
+     */
+    public void guardar(int id, T valor, String... campos) {
+        eliminar(id);
+        Map<String, Float> frecuencias = new HashMap<>();
+        float longitud = 0;
+        for (int c = 0; c < campos.length; c++) {
+            float peso = c < pesos.length ? pesos[c] : 1f;
+            for (String termino : SpanishTokenizer.tokenizar(campos[c])) {
+                frecuencias.merge(termino, peso, Float::sum);
+                longitud += peso;
+            }
+        }
+        if (frecuencias.isEmpty()) {
+            return;
+        }
+
+        int posicion = posiciones++;
+        asegurarCapacidad(posiciones);
+        String[] propios = new String[frecuencias.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entrada : frecuencias.entrySet()) {
+            Publicaciones publicaciones = terminos.computeIfAbsent(entrada.getKey(), Publicaciones::new);
+            publicaciones.agregar(posicion, entrada.getValue());
+            propios[i++] = publicaciones.termino; // Comparte la instancia del término entre documentos
+        }
+        ids[posicion] = id;
+        valores[posicion] = valor;
+        longitudes[posicion] = longitud;
+        terminosDocumento[posicion] = propios;
+        posicionPorId.put(id, posicion);
+        vivos++;
+        sumaLongitudes += longitud;
+    }
+
+    /**
+     * Quita un documento.
+     *
+     * @param id Identificador del documento.
+     * @return {@code true} si el documento existía.
+     */
+    public boolean eliminar(int id) {
+        Integer posicion = posicionPorId.remove(id);
+        if (posicion == null) {
+            return false;
+        }
+        for (String termino : terminosDocumento[posicion]) {
+            Publicaciones publicaciones = terminos.get(termino);
+            if (--publicaciones.vivos == 0) {
+                terminos.remove(termino);
+            }
+        }
+        terminosDocumento[posicion] = null;
+        valores[posicion] = null;
+        vivos--;
+        sumaLongitudes -= longitudes[posicion];
+        int borrados = posiciones - vivos;
+        if (borrados >= MINIMO_BORRADOS_COMPACTAR && borrados > vivos) {
+            compactar();
+        }
+        return true;
+    }
+
+    /**
+     * Busca los documentos que contienen todos los términos de la consulta, ordenados por puntaje BM25
+     * descendente (a igual puntaje, primero el agregado antes).
+     *
+     * @param consulta       Texto de la búsqueda; se separa en términos igual que los documentos.
+     * @param desplazamiento Número de resultados a saltar (para paginar).
+     * @param limite         Número máximo de resultados a devolver.
+     * @return Los resultados de la página pedida y el total de documentos encontrados.
+     */
+    @SuppressWarnings("unchecked")
+    public Resultados<T> buscar(String consulta, int desplazamiento, int limite) {
+        Set<String> terminosConsulta = new LinkedHashSet<>(SpanishTokenizer.tokenizar(consulta));
+        if (terminosConsulta.isEmpty() || vivos == 0) {
+            return Resultados.vacio(desplazamiento);
+        }
+        Publicaciones[] listas = new Publicaciones[terminosConsulta.size()];
+        int l = 0;
+        for (String termino : terminosConsulta) {
+            listas[l] = terminos.get(termino);
+            if (listas[l++] == null) {
+                return Resultados.vacio(desplazamiento); // Un término que no aparece en ningún documento
+            }
+        }
+        // Se recorre la lista más corta; las demás solo se consultan por los documentos de esa
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.cantidad, b.cantidad));
+        float[] idf = new float[listas.length];
+        for (int t = 0; t < listas.length; t++) {
+            idf[t] = (float) Math.log(1 + (vivos - listas[t].vivos + 0.5) / (listas[t].vivos + 0.5));
+        }
+        float longitudPromedio = (float) (sumaLongitudes / vivos);
+        int[] cursores = new int[listas.length];
+        MejoresResultados mejores = new MejoresResultados(Math.max(0, desplazamiento) + Math.max(0, limite));
+        int total = 0;
+
+        Publicaciones base = listas[0];
+        documentos:
+        for (int i = 0; i < base.cantidad; i++) {
+            int posicion = base.posiciones[i];
+            if (terminosDocumento[posicion] == null) {
+                continue;
+            }
+            float normalizacion = K1 * (1 - B + B * longitudes[posicion] / longitudPromedio);
+            float puntaje = idf[0] * bm25(base.frecuencias[i], normalizacion);
+            for (int t = 1; t < listas.length; t++) {
+                Publicaciones lista = listas[t];
+                int indice = lista.buscarDesde(posicion, cursores[t]);
+                cursores[t] = indice;
+                if (indice >= lista.cantidad || lista.posiciones[indice] != posicion) {
+                    continue documentos;
+                }
+                puntaje += idf[t] * bm25(lista.frecuencias[indice], normalizacion);
+            }
+            total++;
+            mejores.ofrecer(posicion, puntaje);
+        }
+
+        float[] puntajesOrdenados = new float[mejores.tamano];
+        int[] orden = mejores.ordenar(puntajesOrdenados);
+        List<T> pagina = new ArrayList<>();
+        List<Float> puntajes = new ArrayList<>();
+        for (int i = Math.max(0, desplazamiento); i < orden.length; i++) {
+            pagina.add((T) valores[orden[i]]);
+            puntajes.add(puntajesOrdenados[i]);
+        }
+        return new Resultados<>(pagina, puntajes, total, Math.max(0, desplazamiento));
+    }
+
+    /**
+     * @return El número de documentos del índice.
+     */
+    public int getTamano() {
+        return vivos;
+    }
+
+    /**
+     * @return El número de términos distintos del índice.
+     */
+    public int getNumeroTerminos() {
+        return terminos.size();
+    }
+
+    private static float bm25(float frecuencia, float normalizacion) {
+        return frecuencia * (K1 + 1) / (frecuencia + normalizacion);
+    }
+
+    private void asegurarCapacidad(int capacidad) {
+        if (capacidad > ids.length) {
+            int nueva = Math.max(capacidad, ids.length * 2);
+            ids = Arrays.copyOf(ids, nueva);
+            valores = Arrays.copyOf(valores, nueva);
+            longitudes = Arrays.copyOf(longitudes, nueva);
+            terminosDocumento = Arrays.copyOf(terminosDocumento, nueva);
+        }
+    }
+
+    /**
+     * Quita los documentos borrados y renumera las posiciones en el mismo orden, así que las listas
+     * de publicaciones siguen ordenadas.
+     */
+    private void compactar() {
+        int[] nuevaPosicion = new int[posiciones];
+        int siguiente = 0;
+        for (int p = 0; p < posiciones; p++) {
+            if (terminosDocumento[p] == null) {
+                nuevaPosicion[p] = -1;
+                continue;
+            }
+            nuevaPosicion[p] = siguiente;
+            ids[siguiente] = ids[p];
+            valores[siguiente] = valores[p];
+            longitudes[siguiente] = longitudes[p];
+            terminosDocumento[siguiente] = terminosDocumento[p];
+            posicionPorId.put(ids[siguiente], siguiente);
+            siguiente++;
+        }
+        Arrays.fill(valores, siguiente, posiciones, null);
+        Arrays.fill(terminosDocumento, siguiente, posiciones, null);
+        posiciones = siguiente;
+        for (Publicaciones publicaciones : terminos.values()) {
+            publicaciones.renumerar(nuevaPosicion);
+        }
+    }
+
+    /**
+     * Lista de publicaciones de un término: posiciones de los documentos que lo contienen, en orden creciente,
+     * y la frecuencia ponderada en cada uno. Puede incluir documentos borrados hasta la siguiente compactación.
+     */
+    private static final class Publicaciones {
+        private final String termino;
+        private int[] posiciones = new int[4];
+        private float[] frecuencias = new float[4];
+        private int cantidad;
+        private int vivos;
+
+        private Publicaciones(String termino) {
+            this.termino = termino;
+        }
+
+        private void agregar(int posicion, float frecuencia) {
+            if (cantidad == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, cantidad * 2);
+                frecuencias = Arrays.copyOf(frecuencias, cantidad * 2);
+            }
+            posiciones[cantidad] = posicion;
+            frecuencias[cantidad] = frecuencia;
+            cantidad++;
+            vivos++;
+        }
+
+        /**
+         * @return El primer índice desde {@code desde} cuya posición es mayor o igual que {@code posicion},
+         * o {@code cantidad} si no hay ninguno. Avanza en saltos exponenciales y luego busca en binario.
+         */
+        private int buscarDesde(int posicion, int desde) {
+            int paso = 1;
+            int alto = desde;
+            while (alto < cantidad && posiciones[alto] < posicion) {
+                desde = alto + 1;
+                alto += paso;
+                paso <<= 1;
+            }
+            int indice = Arrays.binarySearch(posiciones, desde, Math.min(alto + 1, cantidad), posicion);
+            return indice >= 0 ? indice : -indice - 1;
+        }
+
+        private void renumerar(int[] nuevaPosicion) {
+            int siguiente = 0;
+            for (int i = 0; i < cantidad; i++) {
+                int nueva = nuevaPosicion[posiciones[i]];
+                if (nueva >= 0) {
+                    posiciones[siguiente] = nueva;
+                    frecuencias[siguiente] = frecuencias[i];
+                    siguiente++;
+                }
+            }
+            cantidad = siguiente;
+            if (posiciones.length > 4 && cantidad < posiciones.length / 4) {
+                posiciones = Arrays.copyOf(posiciones, Math.max(4, cantidad * 2));
+                frecuencias = Arrays.copyOf(frecuencias, Math.max(4, cantidad * 2));
+            }
+        }
+    }
+
+    /**
+     * Montículo de mínimos acotado a los {@code k} mejores documentos, en arreglos primitivos.
+     * La raíz es el peor de los guardados: menor puntaje y, a igual puntaje, posición mayor.
+     */
+    private static final class MejoresResultados {
+        private final int[] posiciones;
+        private final float[] puntajes;
+        private int tamano;
+
+        private MejoresResultados(int k) {
+            posiciones = new int[k];
+            puntajes = new float[k];
+        }
+
+        private void ofrecer(int posicion, float puntaje) {
+            if (tamano < posiciones.length) {
+                posiciones[tamano] = posicion;
+                puntajes[tamano] = puntaje;
+                subir(tamano++);
+            } else if (tamano > 0 && peor(posiciones[0], puntajes[0], posicion, puntaje)) {
+                posiciones[0] = posicion;
+                puntajes[0] = puntaje;
+                bajar(0);
+            }
+        }
+
+        /**
+         * @param puntajesOrdenados Arreglo de {@code tamano} elementos que recibe el puntaje de cada posición devuelta.
+         * @return Las posiciones guardadas, de mejor a peor. Vacía el montículo.
+         */
+        private int[] ordenar(float[] puntajesOrdenados) {
+            int[] orden = new int[tamano];
+            for (int i = tamano - 1; i >= 0; i--) {
+                orden[i] = posiciones[0];
+                puntajesOrdenados[i] = puntajes[0];
+                tamano--;
+                posiciones[0] = posiciones[tamano];
+                puntajes[0] = puntajes[tamano];
+                bajar(0);
+            }
+            return orden;
+        }
+
+        // true si (p1, s1) es peor resultado que (p2, s2)
+        private static boolean peor(int p1, float s1, int p2, float s2) {
+            return s1 < s2 || (s1 == s2 && p1 > p2);
+        }
+
+        private void subir(int i) {
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (!peor(posiciones[i], puntajes[i], posiciones[padre], puntajes[padre])) {
+                    return;
+                }
+                intercambiar(i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int i) {
+            while (true) {
+                int izquierdo = 2 * i + 1;
+                int derecho = izquierdo + 1;
+                int menor = i;
+                if (izquierdo < tamano && peor(posiciones[izquierdo], puntajes[izquierdo], posiciones[menor], puntajes[menor])) {
+                    menor = izquierdo;
+                }
+                if (derecho < tamano && peor(posiciones[derecho], puntajes[derecho], posiciones[menor], puntajes[menor])) {
+                    menor = derecho;
+                }
+                if (menor == i) {
+                    return;
+                }
+                intercambiar(i, menor);
+                i = menor;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            int posicion = posiciones[a];
+            posiciones[a] = posiciones[b];
+            posiciones[b] = posicion;
+            float puntaje = puntajes[a];
+            puntajes[a] = puntajes[b];
+            puntajes[b] = puntaje;
+        }
+    }
+
+    /**
+     * Página de resultados de una búsqueda.
+     *
+     * @param <T> Tipo de los valores encontrados.
+     */
+    public static final class Resultados<T> {
+        private final List<T> valores;
+        private final List<Float> puntajes;
+        private final int total;
+        private final int desplazamiento;
+
+        private Resultados(List<T> valores, List<Float> puntajes, int total, int desplazamiento) {
+            this.valores = Collections.unmodifiableList(valores);
+            this.puntajes = Collections.unmodifiableList(puntajes);
+            this.total = total;
+            this.desplazamiento = desplazamiento;
+        }
+
+        /**
+         * @param desplazamiento Resultados saltados antes de la página.
+         * @return Una página sin resultados.
+         */
+        public static <T> Resultados<T> vacio(int desplazamiento) {
+            return new Resultados<>(new ArrayList<>(), new ArrayList<>(), 0, Math.max(0, desplazamiento));
+        }
+
+        /**
+         * @return Los valores de la página, de mayor a menor puntaje.
+         */
+        public List<T> getValores() {
+            return valores;
+        }
+
+        /**
+         * @return El puntaje BM25 de cada valor, en el mismo orden.
+         */
+        public List<Float> getPuntajes() {
+            return puntajes;
+        }
+
+        /**
+         * @return El número total de documentos que coinciden con la consulta.
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * @return El número de resultados saltados antes de esta página.
+         */
+        public int getDesplazamiento() {
+            return desplazamiento;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package main.java.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escritor de JSON en streaming, sin reflexión.
+ * Los objetos y arreglos se escriben token a token directamente al {@link Writer} de destino,
+ * por lo que el tamaño del documento no afecta la memoria usada.
+ * El escritor coloca las comas automáticamente; solo se debe respetar el orden de apertura y cierre.
+ */
+public class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int PROFUNDIDAD_MAXIMA = 32;
+
+    private final Writer destino;
+    // Por cada nivel de anidamiento, indica si ya se escribió algún elemento (para saber si va una coma).
+    private final boolean[] conElementos = new boolean[PROFUNDIDAD_MAXIMA];
+    private int profundidad;
+    private boolean despuesDeNombre;
+
+    /**
+     * @param destino El {@link Writer} donde se escribe el JSON.
+     */
+    public JsonWriter(Writer destino) {
+        this.destino = destino;
+    }
+
+    public JsonWriter inicioObjeto() throws IOException {
+        abrir('{');
+        return this;
+    }
+
+    public JsonWriter finObjeto() throws IOException {
+        cerrar('}');
+        return this;
+    }
+
+    public JsonWriter inicioArreglo() throws IOException {
+        abrir('[');
+        return this;
+    }
+
+    public JsonWriter finArreglo() throws IOException {
+        cerrar(']');
+        return this;
+    }
+
+    /**
+     * Escribe el nombre de una propiedad dentro de un objeto. Debe seguirle un valor.
+     *
+     * @param nombre El nombre de la propiedad.
+     * @return Este mismo escritor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public JsonWriter nombre(String nombre) throws IOException {
+        separar();
+        escribirCadena(nombre);
+        destino.write(':');
+        despuesDeNombre = true;
+        return this;
+    }
+
+    public JsonWriter valor(String valor) throws IOException {
+        separar();
+        if (valor == null) {
+            destino.write("null");
+        } else {
+            escribirCadena(valor);
+        }
+        return this;
+    }
+
+    public JsonWriter valor(long valor) throws IOException {
+        separar();
+        destino.write(Long.toString(valor));
+        return this;
+    }
+
+    public JsonWriter valor(double valor) throws IOException {
+        separar();
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            destino.write("null"); // JSON no admite NaN ni infinitos
+        } else {
+            destino.write(Double.toString(valor));
+        }
+        return this;
+    }
+
+    public JsonWriter valor(boolean valor) throws IOException {
+        separar();
+        destino.write(valor ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Escribe un valor ya codificado como JSON (por ejemplo, un número con formato propio), sin escaparlo.
+     *
+     * @param json El texto JSON a escribir tal cual.
+     * @return Este mismo escritor, para encadenar llamadas.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public JsonWriter valorCrudo(String json) throws IOException {
+        separar();
+        destino.write(json);
+        return this;
+    }
+
+    public JsonWriter valorNulo() throws IOException {
+        separar();
+        destino.write("null");
+        return this;
+    }
+
+    /**
+     * Vacía el buffer del {@link Writer} de destino.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void flush() throws IOException {
+        destino.flush();
+    }
+
+    private void abrir(char c) throws IOException {
+        separar();
+        if (profundidad == PROFUNDIDAD_MAXIMA) {
+            throw new IllegalStateException("Profundidad máxima de JSON excedida.");
+        }
+        destino.write(c);
+        conElementos[profundidad++] = false;
+    }
+
+    private void cerrar(char c) throws IOException {
+        if (profundidad == 0) {
+            throw new IllegalStateException("Cierre de JSON sin apertura correspondiente.");
+        }
+        profundidad--;
+        destino.write(c);
+    }
+
+    /**
+     * Escribe la coma que separa elementos, salvo que sea el primer elemento del nivel o el valor de una propiedad.
+     */
+    private void separar() throws IOException {
+        if (despuesDeNombre) {
+            despuesDeNombre = false;
+            return;
+        }
+        if (profundidad > 0) {
+            if (conElementos[profundidad - 1]) {
+                destino.write(',');
+            }
+            conElementos[profundidad - 1] = true;
+        }
+    }
+
+    private void escribirCadena(String valor) throws IOException {
+        destino.write('"');
+        int inicio = 0;
+        int largo = valor.length();
+        for (int i = 0; i < largo; i++) {
+            char c = valor.charAt(i);
+            String escape = null;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                // Caracteres de control y separadores de línea Unicode se escriben escapados en hexadecimal
+                destino.write(valor, inicio, i - inicio);
+                destino.write("\\u");
+                destino.write(HEX[(c >> 12) & 0xF]);
+                destino.write(HEX[(c >> 8) & 0xF]);
+                destino.write(HEX[(c >> 4) & 0xF]);
+                destino.write(HEX[c & 0xF]);
+                inicio = i + 1;
+                continue;
+            }
+            if (escape != null) {
+                // Se escribe de una vez el tramo sin caracteres especiales y luego el escape
+                destino.write(valor, inicio, i - inicio);
+                destino.write(escape);
+                inicio = i + 1;
+            }
+        }
+        destino.write(valor, inicio, largo - inicio);
+        destino.write('"');
+    }
+}
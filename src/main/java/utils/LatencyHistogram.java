@@ -0,0 +1,111 @@
+package main.java.utils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas fijas, pensado para registrarse desde muchos hilos a la vez.
+ * Cada cubeta es un {@link LongAdder}, por lo que registrar una medición no usa locks ni reserva memoria.
+ * Los valores se guardan en nanosegundos y se exportan en segundos (formato Prometheus).
+ */
+public final class LatencyHistogram {
+
+    // Límites superiores de las cubetas, en segundos (de 0.5 ms a 10 s).
+    private static final double[] LIMITES_SEGUNDOS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final long[] LIMITES_NANOS = new long[LIMITES_SEGUNDOS.length];
+
+    // Etiqueta "le" de cada cubeta, ya formateada para la exportación (ej: le="0.0005")
+    static final String[] ETIQUETAS_LIMITES = new String[LIMITES_SEGUNDOS.length];
+
+    static {
+        for (int i = 0; i < LIMITES_SEGUNDOS.length; i++) {
+            LIMITES_NANOS[i] = (long) (LIMITES_SEGUNDOS[i] * 1_000_000_000L);
+            ETIQUETAS_LIMITES[i] = "le=\"" + BigDecimal.valueOf(LIMITES_SEGUNDOS[i]).stripTrailingZeros().toPlainString() + "\"";
+        }
+    }
+
+    // Una cubeta por límite más la cubeta +Inf (conteos no acumulados)
+    private final LongAdder[] cubetas = new LongAdder[LIMITES_NANOS.length + 1];
+    private final LongAdder sumaNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < cubetas.length; i++) {
+            cubetas[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registra una duración.
+     *
+     * @param nanos Duración en nanosegundos.
+     */
+    public void registrarNanos(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int indice = Arrays.binarySearch(LIMITES_NANOS, nanos);
+        if (indice < 0) {
+            indice = -indice - 1; // Primera cubeta cuyo límite es mayor que la duración
+        }
+        cubetas[indice].increment();
+        sumaNanos.add(nanos);
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde {@code inicioNanos} hasta ahora.
+     *
+     * @param inicioNanos Valor de {@link System#nanoTime()} al empezar la operación.
+     */
+    public void registrarDesde(long inicioNanos) {
+        registrarNanos(System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * Empieza a medir una operación. Pensado para usarse como primer recurso de un try-with-resources:
+     * la duración se registra al cerrarse el bloque, incluso si lanza una excepción.
+     *
+     * @return Una medición en curso.
+     */
+    public Medicion medir() {
+        return new Medicion(this, System.nanoTime());
+    }
+
+    /**
+     * @return Conteos acumulados por cubeta (el último elemento es el total, cubeta +Inf).
+     */
+    long[] conteosAcumulados() {
+        long[] acumulados = new long[cubetas.length];
+        long total = 0;
+        for (int i = 0; i < cubetas.length; i++) {
+            total += cubetas[i].sum();
+            acumulados[i] = total;
+        }
+        return acumulados;
+    }
+
+    double getSumaSegundos() {
+        return sumaNanos.sum() / 1_000_000_000.0;
+    }
+
+    /**
+     * Medición en curso de un {@link LatencyHistogram}; registra la duración al cerrarse.
+     */
+    public static final class Medicion implements AutoCloseable {
+        private final LatencyHistogram histograma;
+        private final long inicioNanos;
+
+        private Medicion(LatencyHistogram histograma, long inicioNanos) {
+            this.histograma = histograma;
+            this.inicioNanos = inicioNanos;
+        }
+
+        @Override
+        public void close() {
+            histograma.registrarDesde(inicioNanos);
+        }
+    }
+}
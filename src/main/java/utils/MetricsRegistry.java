@@ -0,0 +1,220 @@
+package main.java.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registro central de métricas de la aplicación (histogramas de latencia, contadores y gauges),
+ * exportables en el formato de texto de Prometheus.
+ * <p>
+ * Las métricas se agrupan en familias por nombre; cada familia tiene un tipo, un texto de ayuda y una métrica
+ * por combinación de etiquetas. Obtener una métrica busca en mapas concurrentes, por lo que en las rutas
+ * frecuentes conviene guardarla en un campo estático y reutilizarla. Registrar valores no usa locks.
+ */
+public final class MetricsRegistry {
+
+    private static final String HISTOGRAMA = "histogram";
+    private static final String CONTADOR = "counter";
+    private static final String GAUGE = "gauge";
+
+    private static final ConcurrentHashMap<String, Familia> FAMILIAS = new ConcurrentHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Obtiene (o crea) un histograma de latencias.
+     *
+     * @param nombre    Nombre de la métrica, en formato Prometheus (ej: "sgc_http_request_duration_seconds").
+     * @param ayuda     Descripción de la métrica.
+     * @param etiquetas Pares nombre/valor de etiquetas (ej: "metodo", "GET").
+     * @return El histograma de esa combinación de etiquetas.
+     */
+    public static LatencyHistogram histograma(String nombre, String ayuda, String... etiquetas) {
+        return (LatencyHistogram) familia(nombre, ayuda, HISTOGRAMA).metricas
+                .computeIfAbsent(formatearEtiquetas(etiquetas), e -> new LatencyHistogram());
+    }
+
+    /**
+     * Obtiene (o crea) un contador.
+     *
+     * @param nombre    Nombre de la métrica, terminado en "_total".
+     * @param ayuda     Descripción de la métrica.
+     * @param etiquetas Pares nombre/valor de etiquetas.
+     * @return El contador de esa combinación de etiquetas.
+     */
+    public static LongAdder contador(String nombre, String ayuda, String... etiquetas) {
+        return (LongAdder) familia(nombre, ayuda, CONTADOR).metricas
+                .computeIfAbsent(formatearEtiquetas(etiquetas), e -> new LongAdder());
+    }
+
+    /**
+     * Registra un gauge cuyo valor se lee al exportar. Si ya existía uno con las mismas etiquetas, se reemplaza.
+     *
+     * @param nombre    Nombre de la métrica.
+     * @param ayuda     Descripción de la métrica.
+     * @param valor     Función que devuelve el valor actual.
+     * @param etiquetas Pares nombre/valor de etiquetas.
+     */
+    public static void gauge(String nombre, String ayuda, DoubleSupplier valor, String... etiquetas) {
+        familia(nombre, ayuda, GAUGE).metricas.put(formatearEtiquetas(etiquetas), valor);
+    }
+
+    /**
+     * Registra un contador cuyo valor se lee al exportar, para totales que ya lleva otro objeto (la función debe
+     * devolver un valor que solo crece). Si ya existía uno con las mismas etiquetas, se reemplaza.
+     *
+     * @param nombre    Nombre de la métrica, terminado en "_total".
+     * @param ayuda     Descripción de la métrica.
+     * @param valor     Función que devuelve el total actual.
+     * @param etiquetas Pares nombre/valor de etiquetas.
+     */
+    public static void contador(String nombre, String ayuda, DoubleSupplier valor, String... etiquetas) {
+        familia(nombre, ayuda, CONTADOR).metricas.put(formatearEtiquetas(etiquetas), valor);
+    }
+
+    /**
+     * Obtiene el histograma de latencia de un método de repositorio.
+     *
+     * @param repositorio Nombre del repositorio (ej: "ContratoRepository").
+     * @param metodo      Nombre del método.
+     * @return El histograma del método.
+     */
+    public static LatencyHistogram repositorio(String repositorio, String metodo) {
+        return histograma("sgc_repository_duration_seconds", "Duración de los métodos de los repositorios.",
+                "repositorio", repositorio, "metodo", metodo);
+    }
+
+    /**
+     * Publica las estadísticas de una caché: aciertos, fallos y desalojos como contadores, entradas y peso como gauges.
+     *
+     * @param cache La caché a publicar.
+     */
+    public static void registrarCache(TtlCache<?, ?> cache) {
+        String nombre = cache.getNombre();
+        contador("sgc_cache_hits_total", "Aciertos de la caché.", cache::getAciertos, "cache", nombre);
+        contador("sgc_cache_misses_total", "Fallos de la caché.", cache::getFallos, "cache", nombre);
+        contador("sgc_cache_evictions_total", "Entradas desalojadas por falta de espacio.", cache::getDesalojos,
+                "cache", nombre);
+        gauge("sgc_cache_entries", "Entradas guardadas en la caché.", cache::getTamano, "cache", nombre);
+        gauge("sgc_cache_weight", "Peso total de las entradas de la caché.", cache::getPesoTotal, "cache", nombre);
+    }
+
+    /**
+     * Escribe todas las métricas en el formato de texto de Prometheus (versión 0.0.4).
+     *
+     * @param out Destino de la exportación.
+     * @throws IOException Si falla la escritura.
+     */
+    public static void escribirPrometheus(Writer out) throws IOException {
+        StringBuilder linea = new StringBuilder(128);
+        for (Map.Entry<String, Familia> entrada : new TreeMap<>(FAMILIAS).entrySet()) {
+            String nombre = entrada.getKey();
+            Familia familia = entrada.getValue();
+            out.write("# HELP " + nombre + " " + familia.ayuda + "\n");
+            out.write("# TYPE " + nombre + " " + familia.tipo + "\n");
+            for (Map.Entry<String, Object> metrica : new TreeMap<>(familia.metricas).entrySet()) {
+                String etiquetas = metrica.getKey();
+                Object valor = metrica.getValue();
+                if (valor instanceof LatencyHistogram) {
+                    escribirHistograma(out, linea, nombre, etiquetas, (LatencyHistogram) valor);
+                } else if (valor instanceof LongAdder) {
+                    escribirLinea(out, linea, nombre, etiquetas, null, ((LongAdder) valor).sum());
+                } else {
+                    escribirLinea(out, linea, nombre, etiquetas, null, ((DoubleSupplier) valor).getAsDouble());
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void escribirHistograma(Writer out, StringBuilder linea, String nombre, String etiquetas,
+                                           LatencyHistogram histograma) throws IOException {
+        long[] acumulados = histograma.conteosAcumulados();
+        String[] limites = LatencyHistogram.ETIQUETAS_LIMITES;
+        for (int i = 0; i < limites.length; i++) {
+            escribirLinea(out, linea, nombre + "_bucket", etiquetas, limites[i], acumulados[i]);
+        }
+        long total = acumulados[acumulados.length - 1];
+        escribirLinea(out, linea, nombre + "_bucket", etiquetas, "le=\"+Inf\"", total);
+        escribirLinea(out, linea, nombre + "_sum", etiquetas, null, histograma.getSumaSegundos());
+        escribirLinea(out, linea, nombre + "_count", etiquetas, null, total);
+    }
+
+    private static void escribirLinea(Writer out, StringBuilder linea, String nombre, String etiquetas,
+                                      String etiquetaExtra, double valor) throws IOException {
+        linea.setLength(0);
+        linea.append(nombre);
+        if (!etiquetas.isEmpty() || etiquetaExtra != null) {
+            linea.append('{').append(etiquetas);
+            if (etiquetaExtra != null) {
+                if (!etiquetas.isEmpty()) {
+                    linea.append(',');
+                }
+                linea.append(etiquetaExtra);
+            }
+            linea.append('}');
+        }
+        linea.append(' ');
+        if (valor == Math.rint(valor) && !Double.isInfinite(valor)) {
+            linea.append((long) valor); // Los enteros sin ".0"
+        } else {
+            linea.append(valor);
+        }
+        linea.append('\n');
+        out.write(linea.toString());
+    }
+
+    private static Familia familia(String nombre, String ayuda, String tipo) {
+        Familia familia = FAMILIAS.computeIfAbsent(nombre, n -> new Familia(tipo, ayuda));
+        if (!familia.tipo.equals(tipo)) {
+            throw new IllegalArgumentException("La métrica " + nombre + " ya está registrada como " + familia.tipo);
+        }
+        return familia;
+    }
+
+    /**
+     * Convierte pares nombre/valor en el texto de etiquetas de Prometheus: {@code a="x",b="y"}.
+     */
+    private static String formatearEtiquetas(String... etiquetas) {
+        if (etiquetas.length % 2 != 0) {
+            throw new IllegalArgumentException("Las etiquetas deben ser pares nombre/valor.");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < etiquetas.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(etiquetas[i]).append("=\"");
+            String valor = etiquetas[i + 1] == null ? "" : etiquetas[i + 1];
+            for (int j = 0; j < valor.length(); j++) {
+                char c = valor.charAt(j);
+                if (c == '\\' || c == '"') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static final class Familia {
+        private final String tipo;
+        private final String ayuda;
+        private final ConcurrentHashMap<String, Object> metricas = new ConcurrentHashMap<>();
+
+        private Familia(String tipo, String ayuda) {
+            this.tipo = tipo;
+            this.ayuda = ayuda;
+        }
+    }
+}
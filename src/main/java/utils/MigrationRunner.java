@@ -0,0 +1,318 @@
+package main.java.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Aplica al iniciar la aplicación las migraciones de esquema versionadas que falten.
+ * <p>
+ * Cada migración es un archivo {@code V<versión>__<descripción>.sql} (por ejemplo, {@code V2__renombrar_fecha_inicio.sql})
+ * en {@code WEB-INF/db/migrations}. Las versiones aplicadas se registran en la tabla {@code schema_version}
+ * con el SHA-256 del archivo: si un archivo ya aplicado cambia, el runner se detiene en lugar de dejar un
+ * esquema distinto del que describen los archivos. Las migraciones nunca se editan; se agrega una nueva.
+ * <p>
+ * Varias instancias de la aplicación pueden iniciar a la vez: el runner toma un bloqueo con nombre de MySQL
+ * ({@code GET_LOCK}) sobre su conexión, así que solo una aplica las migraciones y las demás esperan y luego
+ * encuentran todo aplicado. Como MySQL confirma implícitamente cada sentencia DDL, una migración no es atómica;
+ * deben escribirse para poder reintentarse (con {@code IF NOT EXISTS} o comprobando {@code information_schema}).
+ */
+public class MigrationRunner {
+
+    private static final Pattern NOMBRE_MIGRACION = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String NOMBRE_BLOQUEO = "sgc_migraciones";
+    private static final int ESPERA_BLOQUEO_SEGUNDOS = AppConfig.getInt("sgc.db.migraciones.esperaBloqueoSegundos", 300);
+
+    private static final String SQL_CREAR_TABLA = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INT PRIMARY KEY, "
+            + "descripcion VARCHAR(200) NOT NULL, "
+            + "checksum CHAR(64) NOT NULL, "
+            + "aplicada_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "duracion_ms BIGINT NOT NULL)";
+
+    private final List<Migracion> migraciones;
+
+    /**
+     * @param migraciones Migraciones disponibles, en cualquier orden. Las versiones deben ser únicas.
+     * @throws IllegalArgumentException Si dos migraciones tienen la misma versión.
+     */
+    public MigrationRunner(List<Migracion> migraciones) {
+        this.migraciones = new ArrayList<>(migraciones);
+        this.migraciones.sort(Comparator.comparingInt(Migracion::getVersion));
+        for (int i = 1; i < this.migraciones.size(); i++) {
+            if (this.migraciones.get(i).getVersion() == this.migraciones.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Versión de migración repetida: " + this.migraciones.get(i).getVersion());
+            }
+        }
+    }
+
+    /**
+     * Lee las migraciones de un directorio del sistema de archivos, para herramientas que corren fuera del contenedor.
+     *
+     * @param directorio Directorio con los archivos {@code V<versión>__<descripción>.sql}.
+     * @return Las migraciones encontradas; los archivos con otro nombre se ignoran.
+     * @throws IOException Si no se puede leer el directorio o un archivo.
+     */
+    public static List<Migracion> leerDirectorio(Path directorio) throws IOException {
+        List<Migracion> resultado = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Migracion migracion = Migracion.desdeArchivo(archivo.getFileName().toString(),
+                        new String(Files.readAllBytes(archivo), StandardCharsets.UTF_8));
+                if (migracion != null) {
+                    resultado.add(migracion);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Aplica en orden las migraciones que aún no figuran en {@code schema_version}.
+     *
+     * @return {@code true} si el esquema quedó al día; {@code false} si una migración falló, si un archivo
+     * ya aplicado fue modificado o si no se pudo obtener el bloqueo. El detalle se escribe en la salida de error.
+     */
+    public boolean migrar() {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            System.err.println("No se pudieron aplicar las migraciones: no hay conexión a la base de datos.");
+            return false;
+        }
+        try {
+            if (!tomarBloqueo(conn)) {
+                System.err.println("No se pudieron aplicar las migraciones: otra instancia mantiene el bloqueo "
+                        + NOMBRE_BLOQUEO + " por más de " + ESPERA_BLOQUEO_SEGUNDOS + " segundos.");
+                return false;
+            }
+            try {
+                return aplicarPendientes(conn);
+            } finally {
+                liberarBloqueo(conn);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al aplicar las migraciones de esquema: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+
+    private boolean aplicarPendientes(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(SQL_CREAR_TABLA);
+        }
+        Map<Integer, String> aplicadas = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT version, checksum FROM schema_version");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+
+        for (Migracion migracion : migraciones) {
+            String checksum = aplicadas.get(migracion.getVersion());
+            if (checksum != null) {
+                if (!checksum.equals(migracion.getChecksum())) {
+                    System.err.println("La migración V" + migracion.getVersion() + " (" + migracion.getDescripcion()
+                            + ") fue modificada después de aplicarse (checksum " + migracion.getChecksum()
+                            + ", registrado " + checksum + "). Cree una nueva migración en lugar de editarla.");
+                    return false;
+                }
+                continue;
+            }
+            if (!aplicar(conn, migracion)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean aplicar(Connection conn, Migracion migracion) throws SQLException {
+        long inicio = System.nanoTime();
+        List<String> sentencias = dividirSentencias(migracion.getSql());
+        for (int i = 0; i < sentencias.size(); i++) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sentencias.get(i));
+            } catch (SQLException e) {
+                System.err.println("Falló la migración V" + migracion.getVersion() + " (" + migracion.getDescripcion()
+                        + ") en la sentencia " + (i + 1) + " de " + sentencias.size() + ": " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, descripcion, checksum, duracion_ms) VALUES (?, ?, ?, ?)")) {
+            pstmt.setInt(1, migracion.getVersion());
+            pstmt.setString(2, migracion.getDescripcion());
+            pstmt.setString(3, migracion.getChecksum());
+            pstmt.setLong(4, duracionMs);
+            pstmt.executeUpdate();
+        }
+        System.out.println("Migración V" + migracion.getVersion() + " (" + migracion.getDescripcion() + ") aplicada en " + duracionMs + " ms.");
+        return true;
+    }
+
+    private static boolean tomarBloqueo(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, NOMBRE_BLOQUEO);
+            pstmt.setInt(2, ESPERA_BLOQUEO_SEGUNDOS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void liberarBloqueo(Connection conn) {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, NOMBRE_BLOQUEO);
+            pstmt.executeQuery().close();
+        } catch (SQLException e) {
+            // Al cerrarse la sesión MySQL libera el bloqueo de todos modos
+            System.err.println("No se pudo liberar el bloqueo de migraciones: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Separa un script en sentencias por los punto y coma que no están dentro de comillas ni comentarios.
+     * Quita los comentarios de línea ({@code --}) y de bloque. Es pública para los benchmarks, que aplican las
+     * migraciones sentencia por sentencia sobre H2.
+     *
+     * @param script El contenido del archivo de migración.
+     * @return Las sentencias, sin el punto y coma final y sin sentencias vacías.
+     */
+    public static List<String> dividirSentencias(String script) {
+        List<String> sentencias = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        int i = 0;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int fin = finDeCadena(script, i, c);
+                actual.append(script, i, fin);
+                i = fin;
+            } else if (c == '-' && script.startsWith("--", i)) {
+                int fin = script.indexOf('\n', i);
+                i = fin < 0 ? script.length() : fin;
+            } else if (c == '/' && script.startsWith("/*", i)) {
+                int fin = script.indexOf("*/", i + 2);
+                i = fin < 0 ? script.length() : fin + 2;
+                actual.append(' ');
+            } else if (c == ';') {
+                agregarSentencia(sentencias, actual);
+                i++;
+            } else {
+                actual.append(c);
+                i++;
+            }
+        }
+        agregarSentencia(sentencias, actual);
+        return sentencias;
+    }
+
+    // Posición siguiente al cierre de una cadena que empieza en 'inicio'; una comilla duplicada o escapada no la cierra
+    private static int finDeCadena(String script, int inicio, char comilla) {
+        int i = inicio + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '\\' && comilla != '`') {
+                i += 2;
+            } else if (c == comilla) {
+                if (i + 1 < script.length() && script.charAt(i + 1) == comilla) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return script.length();
+    }
+
+    private static void agregarSentencia(List<String> sentencias, StringBuilder actual) {
+        String sentencia = actual.toString().trim();
+        if (!sentencia.isEmpty()) {
+            sentencias.add(sentencia);
+        }
+        actual.setLength(0);
+    }
+
+    /**
+     * Una migración: versión, descripción, contenido SQL y su checksum.
+     */
+    public static final class Migracion {
+        private final int version;
+        private final String descripcion;
+        private final String sql;
+        private final String checksum;
+
+        public Migracion(int version, String descripcion, String sql) {
+            this.version = version;
+            this.descripcion = descripcion;
+            this.sql = sql;
+            this.checksum = sha256(sql.replace("\r\n", "\n")); // El mismo archivo da el mismo checksum en Windows
+        }
+
+        /**
+         * Crea una migración a partir del nombre y contenido de un archivo {@code V<versión>__<descripción>.sql}.
+         *
+         * @return La migración, o {@code null} si el nombre no sigue el formato.
+         */
+        public static Migracion desdeArchivo(String nombreArchivo, String sql) {
+            Matcher matcher = NOMBRE_MIGRACION.matcher(nombreArchivo);
+            if (!matcher.matches()) {
+                return null;
+            }
+            return new Migracion(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), sql);
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        private static String sha256(String texto) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder(64);
+                for (byte b : hash) {
+                    hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 no disponible", e); // Toda JVM debe incluirlo
+            }
+        }
+    }
+}
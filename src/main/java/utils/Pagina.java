@@ -0,0 +1,107 @@
+package main.java.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados obtenida con paginación por cursor (keyset).
+ * Contiene los elementos de la página y los cursores para navegar a la página siguiente y a la anterior.
+ * Un cursor es la clave (ID o username) del último o primer elemento de la página, en forma de texto.
+ *
+ * @param <T> Tipo de los elementos de la página.
+ */
+public class Pagina<T> {
+
+    // Tamaño de página usado cuando no se indica uno.
+    public static final int TAMANO_POR_DEFECTO = 20;
+
+    // Tamaño de página máximo permitido, para acotar la memoria usada por petición.
+    public static final int TAMANO_MAXIMO = 100;
+
+    private final List<T> elementos;
+    private final int tamano;
+    private final String cursorSiguiente;
+    private final String cursorAnterior;
+
+    /**
+     * Constructor completo de la página.
+     *
+     * @param elementos       Elementos de la página, en orden ascendente de clave.
+     * @param tamano          Tamaño de página solicitado.
+     * @param cursorSiguiente Cursor para la página siguiente, o {@code null} si no existe.
+     * @param cursorAnterior  Cursor para la página anterior, o {@code null} si no existe.
+     */
+    public Pagina(List<T> elementos, int tamano, String cursorSiguiente, String cursorAnterior) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.tamano = tamano;
+        this.cursorSiguiente = cursorSiguiente;
+        this.cursorAnterior = cursorAnterior;
+    }
+
+    /**
+     * Construye una página a partir de las filas leídas de la base de datos.
+     * El repositorio debe haber pedido {@code tamano + 1} filas: si llega la fila extra,
+     * significa que hay más elementos en la dirección de la consulta.
+     *
+     * @param filas      Filas leídas (hasta {@code tamano + 1}), en el orden devuelto por la consulta.
+     * @param tamano     Tamaño de página solicitado.
+     * @param haciaAtras {@code true} si la consulta fue hacia atrás (orden descendente).
+     * @param conCursor  {@code true} si la consulta partió de un cursor (no es la primera página).
+     * @param clave      Función que obtiene la clave de un elemento para construir los cursores.
+     * @param <T>        Tipo de los elementos.
+     * @return La página con sus elementos en orden ascendente y sus cursores.
+     */
+    public static <T> Pagina<T> desdeFilas(List<T> filas, int tamano, boolean haciaAtras, boolean conCursor, Function<T, String> clave) {
+        boolean hayMas = filas.size() > tamano;
+        List<T> elementos = new ArrayList<>(hayMas ? filas.subList(0, tamano) : filas);
+        if (haciaAtras) {
+            Collections.reverse(elementos); // La consulta hacia atrás viene en orden descendente
+        }
+        // Hacia adelante: hay siguiente si llegó la fila extra, y anterior si se partió de un cursor.
+        // Hacia atrás es al revés.
+        boolean haySiguiente = haciaAtras ? conCursor : hayMas;
+        boolean hayAnterior = haciaAtras ? hayMas : conCursor;
+        String siguiente = haySiguiente && !elementos.isEmpty() ? clave.apply(elementos.get(elementos.size() - 1)) : null;
+        String anterior = hayAnterior && !elementos.isEmpty() ? clave.apply(elementos.get(0)) : null;
+        return new Pagina<>(elementos, tamano, siguiente, anterior);
+    }
+
+    /**
+     * Ajusta un tamaño de página solicitado al rango permitido.
+     *
+     * @param tamano Tamaño solicitado; valores menores a 1 usan el tamaño por defecto.
+     * @return Un tamaño entre 1 y {@link #TAMANO_MAXIMO}.
+     */
+    public static int normalizarTamano(int tamano) {
+        if (tamano < 1) {
+            return TAMANO_POR_DEFECTO;
+        }
+        return Math.min(tamano, TAMANO_MAXIMO);
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    public String getCursorSiguiente() {
+        return cursorSiguiente;
+    }
+
+    public String getCursorAnterior() {
+        return cursorAnterior;
+    }
+
+    public boolean isHaySiguiente() {
+        return cursorSiguiente != null;
+    }
+
+    public boolean isHayAnterior() {
+        return cursorAnterior != null;
+    }
+}
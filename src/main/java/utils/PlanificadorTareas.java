@@ -0,0 +1,144 @@
+package main.java.utils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ejecuta las tareas programadas de la aplicación (por ejemplo, los avisos de vencimiento de contratos) en un hilo
+ * propio, {@code sgc-tareas}. Las tareas se ejecutan de a una, así que una ejecución nunca se solapa con otra.
+ * <p>
+ * Cada tarea publica en /metrics, con la etiqueta {@code tarea}, la duración de sus ejecuciones
+ * ({@code sgc_job_duration_seconds}, y la de la última en {@code sgc_job_last_duration_seconds}, porque una tarea
+ * larga supera las cubetas del histograma), las ejecuciones por resultado ({@code sgc_job_runs_total}) y el momento
+ * de la última ejecución correcta ({@code sgc_job_last_success_timestamp_seconds}, 0 si aún no hubo ninguna), para
+ * alertar si una tarea diaria deja de correr. Una ejecución fallida se registra y la tarea sigue programada.
+ */
+public final class PlanificadorTareas {
+
+    private static final ScheduledThreadPoolExecutor EJECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread hilo = new Thread(r, "sgc-tareas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private static final ConcurrentHashMap<String, MetricasTarea> METRICAS = new ConcurrentHashMap<>();
+
+    /**
+     * Trabajo de una tarea programada.
+     */
+    @FunctionalInterface
+    public interface Tarea {
+        /**
+         * @return {@code true} si la ejecución terminó bien, {@code false} si falló (ya informado por la tarea).
+         * @throws InterruptedException Si la aplicación se detiene durante la ejecución.
+         */
+        boolean ejecutar() throws InterruptedException;
+    }
+
+    private PlanificadorTareas() {
+    }
+
+    /**
+     * Programa una tarea para todos los días a una hora (hora local del servidor). Cada ejecución programa la del
+     * día siguiente, así que los cambios de horario no la desplazan.
+     *
+     * @param nombre Nombre de la tarea, para el log y las métricas.
+     * @param hora   Hora del día a la que se ejecuta.
+     * @param tarea  El trabajo.
+     */
+    public static void programarDiaria(String nombre, LocalTime hora, Tarea tarea) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime siguiente = ahora.toLocalDate().atTime(hora);
+        if (!siguiente.isAfter(ahora)) {
+            siguiente = siguiente.plusDays(1);
+        }
+        programar(nombre, Duration.between(ahora, siguiente).toMillis(), () -> {
+            ejecutar(nombre, tarea);
+            programarDiaria(nombre, hora, tarea);
+        });
+    }
+
+    /**
+     * Programa una única ejecución de una tarea, por ejemplo para ponerse al día al iniciar la aplicación.
+     *
+     * @param nombre    Nombre de la tarea, para el log y las métricas.
+     * @param retrasoMs Milisegundos hasta la ejecución.
+     * @param tarea     El trabajo.
+     */
+    public static void programarUnaVez(String nombre, long retrasoMs, Tarea tarea) {
+        programar(nombre, retrasoMs, () -> ejecutar(nombre, tarea));
+    }
+
+    /**
+     * Cancela las ejecuciones pendientes e interrumpe la que esté en curso. Se llama al detener la aplicación.
+     */
+    public static void shutdown() {
+        EJECUTOR.shutdownNow();
+    }
+
+    private static void programar(String nombre, long retrasoMs, Runnable ejecucion) {
+        metricas(nombre); // La tarea aparece en /metrics desde que se programa
+        try {
+            EJECUTOR.schedule(ejecucion, Math.max(0, retrasoMs), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // La aplicación se está deteniendo
+        }
+    }
+
+    private static void ejecutar(String nombre, Tarea tarea) {
+        MetricasTarea metricas = metricas(nombre);
+        boolean correcta = false;
+        long inicio = System.nanoTime();
+        try {
+            correcta = tarea.ejecutar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Tarea " + nombre + " interrumpida.");
+        } catch (RuntimeException e) {
+            System.err.println("Error en la tarea " + nombre + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        long duracion = System.nanoTime() - inicio;
+        metricas.duracion.registrarNanos(duracion);
+        metricas.ultimaDuracionNanos = duracion;
+        if (correcta) {
+            metricas.correctas.increment();
+            metricas.ultimaCorrecta = System.currentTimeMillis();
+        } else {
+            metricas.fallidas.increment();
+        }
+    }
+
+    private static MetricasTarea metricas(String nombre) {
+        return METRICAS.computeIfAbsent(nombre, MetricasTarea::new);
+    }
+
+    private static final class MetricasTarea {
+        private final LatencyHistogram duracion;
+        private final LongAdder correctas;
+        private final LongAdder fallidas;
+        private volatile long ultimaCorrecta;
+        private volatile long ultimaDuracionNanos;
+
+        private MetricasTarea(String nombre) {
+            duracion = MetricsRegistry.histograma("sgc_job_duration_seconds",
+                    "Duración de las ejecuciones de las tareas programadas.", "tarea", nombre);
+            correctas = MetricsRegistry.contador("sgc_job_runs_total",
+                    "Ejecuciones de las tareas programadas por resultado.", "tarea", nombre, "resultado", "ok");
+            fallidas = MetricsRegistry.contador("sgc_job_runs_total",
+                    "Ejecuciones de las tareas programadas por resultado.", "tarea", nombre, "resultado", "error");
+            MetricsRegistry.gauge("sgc_job_last_success_timestamp_seconds",
+                    "Momento (segundos Unix) de la última ejecución correcta de cada tarea programada.",
+                    () -> ultimaCorrecta / 1000.0, "tarea", nombre);
+            MetricsRegistry.gauge("sgc_job_last_duration_seconds",
+                    "Duración de la última ejecución de cada tarea programada.",
+                    () -> ultimaDuracionNanos / 1e9, "tarea", nombre);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package main.java.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Trie compacto (radix) de textos con su número de apariciones, para sugerencias por prefijo.
+ * <p>
+ * Cada arista guarda una secuencia de caracteres en lugar de uno solo, así que el número de nodos es como mucho
+ * el doble del número de claves. Una clave (por ejemplo, el texto normalizado sin tildes ni mayúsculas) puede
+ * tener varias formas escritas ("ACME", "Acme"); la sugerencia muestra la más usada y la suma de todas.
+ * <p>
+ * Cada nodo guarda el mayor conteo de su subárbol. Con ese dato, la búsqueda de las {@code k} claves más usadas
+ * con un prefijo recorre los nodos de mejor a peor cota y se detiene al tener {@code k} resultados, sin visitar
+ * el resto del subárbol: cuesta O(largo del prefijo + k · hijos · log) aunque el prefijo abarque miles de claves.
+ * <p>
+ * No es seguro para hilos: el llamador debe sincronizar el acceso. Las búsquedas no modifican el trie,
+ * así que pueden correr en paralelo entre sí.
+ */
+public class RadixTrie {
+
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+    private final Nodo raiz = new Nodo("");
+    private int tamano;
+
+    /**
+     * Suma {@code delta} al conteo de una forma escrita de una clave. Una forma cuyo conteo llega a cero
+     * se quita, y una clave sin formas deja de sugerirse.
+     *
+     * @param clave Clave de búsqueda, ya normalizada por el llamador.
+     * @param forma Texto que se muestra en la sugerencia.
+     * @param delta Cantidad a sumar (negativa para restar).
+     */
+    public void sumar(String clave, String forma, long delta) {
+        if (delta != 0) {
+            sumar(raiz, clave, 0, forma, delta);
+        }
+    }
+
+    /**
+     * Busca las claves que empiezan con {@code prefijo}, de mayor a menor número de apariciones.
+     *
+     * @param prefijo Prefijo, normalizado igual que las claves; vacío para las más usadas en general.
+     * @param limite  Número máximo de sugerencias.
+     * @return Las sugerencias encontradas.
+     */
+    public List<Sugerencia> buscarPrefijo(String prefijo, int limite) {
+        List<Sugerencia> resultado = new ArrayList<>();
+        Nodo inicio = buscarNodo(prefijo);
+        if (inicio == null || limite <= 0) {
+            return resultado;
+        }
+        // Cola de candidatos por cota: un nodo entra con el máximo de su subárbol y su propia clave con su conteo exacto
+        PriorityQueue<Candidato> cola = new PriorityQueue<>();
+        cola.add(new Candidato(inicio, false, inicio.maxSubarbol));
+        while (!cola.isEmpty() && resultado.size() < limite) {
+            Candidato candidato = cola.poll();
+            Nodo nodo = candidato.nodo;
+            if (candidato.esClave) {
+                resultado.add(new Sugerencia(nodo.formaPrincipal(), nodo.cantidad));
+                continue;
+            }
+            if (nodo.formas != null) {
+                cola.add(new Candidato(nodo, true, nodo.cantidad));
+            }
+            for (Nodo hijo : nodo.hijos) {
+                cola.add(new Candidato(hijo, false, hijo.maxSubarbol));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return El número de claves del trie.
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    /**
+     * @return El nodo cuyo subárbol contiene exactamente las claves que empiezan con {@code prefijo}, o {@code null}.
+     */
+    private Nodo buscarNodo(String prefijo) {
+        Nodo nodo = raiz;
+        int i = 0;
+        while (i < prefijo.length()) {
+            Nodo hijo = nodo.hijo(prefijo.charAt(i));
+            if (hijo == null) {
+                return null;
+            }
+            int comun = prefijoComun(hijo.etiqueta, prefijo, i);
+            if (i + comun == prefijo.length()) {
+                return hijo; // El prefijo termina dentro (o al final) de la etiqueta del hijo
+            }
+            if (comun < hijo.etiqueta.length()) {
+                return null;
+            }
+            i += comun;
+            nodo = hijo;
+        }
+        return nodo;
+    }
+
+    private void sumar(Nodo nodo, String clave, int desde, String forma, long delta) {
+        if (desde == clave.length()) {
+            sumarForma(nodo, forma, delta);
+        } else {
+            char primero = clave.charAt(desde);
+            Nodo hijo = nodo.hijo(primero);
+            if (hijo == null) {
+                if (delta < 0) {
+                    return; // Restar a una clave que no existe no cambia nada
+                }
+                hijo = new Nodo(clave.substring(desde));
+                nodo.agregarHijo(hijo);
+                sumarForma(hijo, forma, delta);
+            } else {
+                int comun = prefijoComun(hijo.etiqueta, clave, desde);
+                if (comun < hijo.etiqueta.length()) {
+                    if (delta < 0) {
+                        return;
+                    }
+                    hijo = dividir(nodo, hijo, comun);
+                }
+                sumar(hijo, clave, desde + comun, forma, delta);
+                limpiar(nodo, hijo);
+            }
+        }
+        nodo.actualizarMaximo();
+    }
+
+    private void sumarForma(Nodo nodo, String forma, long delta) {
+        boolean eraClave = nodo.formas != null;
+        if (nodo.formas == null) {
+            if (delta < 0) {
+                return;
+            }
+            nodo.formas = new HashMap<>(2);
+        }
+        long anterior = nodo.formas.getOrDefault(forma, 0L);
+        long nuevo = Math.max(0, anterior + delta);
+        if (nuevo == 0) {
+            nodo.formas.remove(forma);
+        } else {
+            nodo.formas.put(forma, nuevo);
+        }
+        nodo.cantidad += nuevo - anterior;
+        if (nodo.formas.isEmpty()) {
+            nodo.formas = null;
+            nodo.cantidad = 0;
+        }
+        if (!eraClave && nodo.formas != null) {
+            tamano++;
+        } else if (eraClave && nodo.formas == null) {
+            tamano--;
+        }
+        nodo.actualizarMaximo();
+    }
+
+    /**
+     * Parte la arista de {@code hijo} tras {@code largo} caracteres, con un nodo intermedio que queda como hijo de {@code padre}.
+     */
+    private static Nodo dividir(Nodo padre, Nodo hijo, int largo) {
+        Nodo intermedio = new Nodo(hijo.etiqueta.substring(0, largo));
+        padre.reemplazarHijo(hijo, intermedio);
+        hijo.etiqueta = hijo.etiqueta.substring(largo);
+        intermedio.agregarHijo(hijo);
+        intermedio.actualizarMaximo();
+        return intermedio;
+    }
+
+    /**
+     * Tras una resta, quita el hijo si quedó sin claves, o lo une con su único nieto si ya no es una clave,
+     * para mantener el trie compacto.
+     */
+    private static void limpiar(Nodo padre, Nodo hijo) {
+        if (hijo.formas != null) {
+            return;
+        }
+        if (hijo.hijos.length == 0) {
+            padre.quitarHijo(hijo);
+        } else if (hijo.hijos.length == 1) {
+            Nodo nieto = hijo.hijos[0];
+            nieto.etiqueta = hijo.etiqueta + nieto.etiqueta;
+            padre.reemplazarHijo(hijo, nieto);
+        }
+    }
+
+    private static int prefijoComun(String etiqueta, String texto, int desde) {
+        int maximo = Math.min(etiqueta.length(), texto.length() - desde);
+        int i = 0;
+        while (i < maximo && etiqueta.charAt(i) == texto.charAt(desde + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Nodo {
+        private String etiqueta; // Caracteres de la arista que llega a este nodo
+        private Nodo[] hijos = SIN_HIJOS; // Ordenados por el primer carácter de su etiqueta
+        private Map<String, Long> formas; // null si el nodo no es una clave
+        private long cantidad;
+        private long maxSubarbol;
+
+        private Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        private Nodo hijo(char primero) {
+            int indice = indiceHijo(primero);
+            return indice >= 0 ? hijos[indice] : null;
+        }
+
+        private int indiceHijo(char primero) {
+            int bajo = 0;
+            int alto = hijos.length - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                char c = hijos[medio].etiqueta.charAt(0);
+                if (c < primero) {
+                    bajo = medio + 1;
+                } else if (c > primero) {
+                    alto = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -bajo - 1;
+        }
+
+        private void agregarHijo(Nodo hijo) {
+            int punto = -indiceHijo(hijo.etiqueta.charAt(0)) - 1;
+            Nodo[] nuevos = new Nodo[hijos.length + 1];
+            System.arraycopy(hijos, 0, nuevos, 0, punto);
+            nuevos[punto] = hijo;
+            System.arraycopy(hijos, punto, nuevos, punto + 1, hijos.length - punto);
+            hijos = nuevos;
+        }
+
+        private void quitarHijo(Nodo hijo) {
+            int indice = indiceHijo(hijo.etiqueta.charAt(0));
+            Nodo[] nuevos = new Nodo[hijos.length - 1];
+            System.arraycopy(hijos, 0, nuevos, 0, indice);
+            System.arraycopy(hijos, indice + 1, nuevos, indice, hijos.length - indice - 1);
+            hijos = nuevos.length == 0 ? SIN_HIJOS : nuevos;
+        }
+
+        // El reemplazo empieza con el mismo carácter, así que ocupa la misma posición
+        private void reemplazarHijo(Nodo anterior, Nodo nuevo) {
+            hijos[indiceHijo(anterior.etiqueta.charAt(0))] = nuevo;
+        }
+
+        private void actualizarMaximo() {
+            long maximo = cantidad;
+            for (Nodo hijo : hijos) {
+                maximo = Math.max(maximo, hijo.maxSubarbol);
+            }
+            maxSubarbol = maximo;
+        }
+
+        // La forma más usada; a igual conteo, la primera en orden alfabético
+        private String formaPrincipal() {
+            String mejor = null;
+            long mejorCantidad = -1;
+            for (Map.Entry<String, Long> forma : formas.entrySet()) {
+                if (forma.getValue() > mejorCantidad
+                        || (forma.getValue() == mejorCantidad && forma.getKey().compareTo(mejor) < 0)) {
+                    mejor = forma.getKey();
+                    mejorCantidad = forma.getValue();
+                }
+            }
+            return mejor;
+        }
+    }
+
+    private static final class Candidato implements Comparable<Candidato> {
+        private final Nodo nodo;
+        private final boolean esClave;
+        private final long prioridad;
+
+        private Candidato(Nodo nodo, boolean esClave, long prioridad) {
+            this.nodo = nodo;
+            this.esClave = esClave;
+            this.prioridad = prioridad;
+        }
+
+        // Mayor prioridad primero; a igual cota, las claves antes que los subárboles
+        @Override
+        public int compareTo(Candidato otro) {
+            int comparacion = Long.compare(otro.prioridad, prioridad);
+            return comparacion != 0 ? comparacion : Boolean.compare(otro.esClave, esClave);
+        }
+    }
+
+    /**
+     * Sugerencia de un texto con su número de apariciones.
+     */
+    public static final class Sugerencia {
+        private final String texto;
+        private final long cantidad;
+
+        public Sugerencia(String texto, long cantidad) {
+            this.texto = texto;
+            this.cantidad = cantidad;
+        }
+
+        public String getTexto() {
+            return texto;
+        }
+
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        @Override
+        public String toString() {
+            return texto + " (" + cantidad + ")";
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package main.java.utils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte las lecturas entre las réplicas de solo lectura de la base de datos, cada una con su propio
+ * {@link ConnectionPool}, y deja de usar las que fallan.
+ * <p>
+ * Las réplicas se eligen por turnos entre las sanas. Si una réplica falla al entregar una conexión se marca como
+ * caída y se prueba la siguiente; si ninguna responde, {@link #getConnection()} devuelve {@code null} y el llamador
+ * lee del primario. Un hilo de chequeo prueba todas las réplicas cada {@code intervaloChequeoMs} y vuelve a usar
+ * las que responden. Con {@code maxRetrasoSegundos} mayor que 0, también se descartan las réplicas cuya
+ * replicación se detuvo o va más atrasada que ese límite (requiere el privilegio {@code REPLICATION CLIENT}).
+ */
+public class ReplicaRouter {
+
+    private static final int VALIDACION_TIMEOUT_SEGUNDOS = 2;
+
+    private final List<Replica> replicas;
+    private final long maxRetrasoSegundos;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final ScheduledExecutorService chequeo;
+
+    /**
+     * Crea el enrutador e inicia el hilo de chequeo.
+     *
+     * @param urls               URL JDBC de cada réplica, solo para los logs.
+     * @param pools              Un pool por réplica, en el mismo orden que {@code urls}.
+     * @param intervaloChequeoMs Cada cuánto se prueban las réplicas.
+     * @param maxRetrasoSegundos Retraso de replicación máximo tolerado, o 0 para no comprobarlo.
+     */
+    public ReplicaRouter(List<String> urls, List<ConnectionPool> pools, long intervaloChequeoMs, long maxRetrasoSegundos) {
+        if (urls.size() != pools.size() || urls.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita un pool por cada réplica.");
+        }
+        List<Replica> lista = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            Replica replica = new Replica(urls.get(i), pools.get(i));
+            lista.add(replica);
+            MetricsRegistry.gauge("sgc_db_replica_healthy", "1 si la réplica recibe lecturas, 0 si está fuera de servicio.",
+                    () -> replica.sana ? 1 : 0, "replica", String.valueOf(i));
+        }
+        this.replicas = Collections.unmodifiableList(lista);
+        this.maxRetrasoSegundos = maxRetrasoSegundos;
+
+        this.chequeo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "sgc-replicas-chequeo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.chequeo.scheduleWithFixedDelay(this::chequear, intervaloChequeoMs, intervaloChequeoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtiene una conexión de la siguiente réplica sana.
+     *
+     * @return Una conexión de réplica cuyo {@code close()} la devuelve a su pool, o {@code null} si no hay
+     *         ninguna réplica disponible.
+     */
+    public Connection getConnection() {
+        int inicio = Math.floorMod(turno.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (!replica.sana) {
+                continue;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLTimeoutException e) {
+                // Pool de la réplica saturado: la réplica responde, solo se lee de otra o del primario esta vez
+            } catch (SQLException e) {
+                marcarCaida(replica, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Número de réplicas que reciben lecturas.
+     */
+    public int getReplicasSanas() {
+        int sanas = 0;
+        for (Replica replica : replicas) {
+            if (replica.sana) {
+                sanas++;
+            }
+        }
+        return sanas;
+    }
+
+    /**
+     * Detiene el hilo de chequeo y cierra los pools de las réplicas.
+     */
+    public void shutdown() {
+        chequeo.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.shutdown();
+        }
+    }
+
+    private void chequear() {
+        for (Replica replica : replicas) {
+            String problema;
+            try (Connection conn = replica.pool.getConnection()) {
+                problema = conn.isValid(VALIDACION_TIMEOUT_SEGUNDOS) ? comprobarRetraso(conn) : "no responde";
+            } catch (SQLTimeoutException e) {
+                continue; // Pool saturado: la réplica está en uso, se conserva su estado
+            } catch (SQLException | RuntimeException e) {
+                problema = e.getMessage();
+            }
+            if (problema != null) {
+                marcarCaida(replica, problema);
+            } else if (!replica.sana) {
+                replica.sana = true;
+                System.out.println("Réplica " + replica.url + " disponible de nuevo para lecturas.");
+            }
+        }
+    }
+
+    /**
+     * @return Una descripción del problema si la réplica va demasiado atrasada, o {@code null} si está al día.
+     */
+    private String comprobarRetraso(Connection conn) throws SQLException {
+        if (maxRetrasoSegundos <= 0) {
+            return null;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            ResultSet rs;
+            String columna;
+            try {
+                rs = stmt.executeQuery("SHOW REPLICA STATUS"); // MySQL 8.0.22+
+                columna = "Seconds_Behind_Source";
+            } catch (SQLException e) {
+                rs = stmt.executeQuery("SHOW SLAVE STATUS");
+                columna = "Seconds_Behind_Master";
+            }
+            try (ResultSet estado = rs) {
+                if (!estado.next()) {
+                    return "no está configurada como réplica";
+                }
+                long retraso = estado.getLong(columna);
+                if (estado.wasNull()) {
+                    return "la replicación está detenida";
+                }
+                return retraso > maxRetrasoSegundos ? "retraso de replicación de " + retraso + " s" : null;
+            }
+        }
+    }
+
+    private void marcarCaida(Replica replica, String motivo) {
+        if (replica.sana) {
+            replica.sana = false;
+            System.err.println("Réplica " + replica.url + " fuera de servicio, las lecturas van al primario: " + motivo);
+        }
+    }
+
+    private static final class Replica {
+        private final String url;
+        private final ConnectionPool pool;
+        private volatile boolean sana = true;
+
+        private Replica(String url, ConnectionPool pool) {
+            int consulta = url.indexOf('?');
+            this.url = consulta < 0 ? url : url.substring(0, consulta); // Sin parámetros, que pueden incluir credenciales
+            this.pool = pool;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package main.java.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de las acciones de un servlet para un método HTTP: un histograma de latencia y un contador de errores
+ * por acción. Las métricas se crean al construir el objeto, de modo que registrar una petición solo hace una
+ * búsqueda en un mapa de solo lectura.
+ * <p>
+ * Las rutas no declaradas se agrupan en la acción "otra", para que una URL arbitraria no cree métricas nuevas.
+ */
+public final class RequestMetrics {
+
+    private static final String RAIZ = "/";
+    private static final String OTRA = "otra";
+
+    private final Map<String, LatencyHistogram> latencias = new HashMap<>();
+    private final Map<String, LongAdder> errores = new HashMap<>();
+
+    /**
+     * @param servlet  Nombre del servlet (ej: "contratos").
+     * @param metodo   Método HTTP (ej: "GET").
+     * @param acciones Rutas conocidas del servlet (ej: "/new", "/edit"). La ruta raíz se agrega siempre.
+     */
+    public RequestMetrics(String servlet, String metodo, String... acciones) {
+        registrar(servlet, metodo, RAIZ);
+        registrar(servlet, metodo, OTRA);
+        for (String accion : acciones) {
+            registrar(servlet, metodo, accion);
+        }
+    }
+
+    /**
+     * Registra una petición procesada.
+     *
+     * @param accion      Ruta de la acción ({@code getPathInfo()}), o {@code null} para la raíz.
+     * @param inicioNanos Valor de {@link System#nanoTime()} al empezar a procesarla.
+     * @param error       {@code true} si la acción terminó con una excepción.
+     */
+    public void registrar(String accion, long inicioNanos, boolean error) {
+        String clave = accion == null ? RAIZ : (latencias.containsKey(accion) ? accion : OTRA);
+        latencias.get(clave).registrarDesde(inicioNanos);
+        if (error) {
+            errores.get(clave).increment();
+        }
+    }
+
+    private void registrar(String servlet, String metodo, String accion) {
+        latencias.put(accion, MetricsRegistry.histograma("sgc_http_request_duration_seconds",
+                "Duración del procesamiento de las acciones de los servlets.",
+                "servlet", servlet, "metodo", metodo, "accion", accion));
+        errores.put(accion, MetricsRegistry.contador("sgc_http_request_errors_total",
+                "Acciones de los servlets que terminaron con una excepción.",
+                "servlet", servlet, "metodo", metodo, "accion", accion));
+    }
+}
@@ -0,0 +1,114 @@
+package main.java.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Separa un texto en español en términos para búsqueda de texto completo.
+ * <ul>
+ *     <li>Pasa el texto a minúsculas y quita tildes y diéresis (la "ñ" se trata como "n"), para que
+ *     "Gestión" y "gestion" coincidan.</li>
+ *     <li>Corta por cualquier carácter que no sea letra ni dígito.</li>
+ *     <li>Descarta las palabras vacías más comunes ("de", "la", "que"...) y los términos de una letra.</li>
+ *     <li>Reduce los plurales regulares ("servicios" a "servicio", "funciones" a "funcion"). No es un stemmer
+ *     completo, pero se aplica igual a los textos indexados y a las consultas, así que ambos coinciden.</li>
+ * </ul>
+ */
+public final class SpanishTokenizer {
+
+    private static final int LONGITUD_MINIMA = 2;
+
+    // Palabras vacías, ya sin tildes porque se comparan después de normalizar
+    private static final Set<String> PALABRAS_VACIAS = new HashSet<>(Arrays.asList(
+            "a", "al", "algo", "algunas", "algunos", "ante", "antes", "como", "con", "contra", "cual", "cuando",
+            "de", "del", "desde", "donde", "durante", "e", "el", "ella", "ellas", "ellos", "en", "entre", "era",
+            "es", "esa", "esas", "ese", "eso", "esos", "esta", "estas", "este", "esto", "estos", "fue", "ha",
+            "hasta", "hay", "la", "las", "le", "les", "lo", "los", "mas", "me", "mi", "mis", "mucho", "muy",
+            "ni", "no", "nos", "o", "otra", "otras", "otro", "otros", "para", "pero", "poco", "por", "porque",
+            "que", "quien", "se", "sea", "ser", "si", "sin", "sobre", "su", "sus", "tambien", "te", "todo",
+            "todos", "tu", "u", "un", "una", "unas", "uno", "unos", "y", "ya", "yo"));
+
+    private SpanishTokenizer() {
+    }
+
+    /**
+     * @param texto El texto a separar; {@code null} se trata como vacío.
+     * @return Los términos del texto, en orden y con repeticiones.
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> terminos = new ArrayList<>();
+        tokenizar(texto, terminos::add);
+        return terminos;
+    }
+
+    /**
+     * Entrega cada término del texto a {@code destino}, en orden y con repeticiones.
+     *
+     * @param texto   El texto a separar; {@code null} se trata como vacío.
+     * @param destino Función que recibe cada término.
+     */
+    public static void tokenizar(String texto, Consumer<String> destino) {
+        if (texto == null || texto.isEmpty()) {
+            return;
+        }
+        String normalizado = normalizar(texto);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean enPalabra = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (enPalabra && inicio < 0) {
+                inicio = i;
+            } else if (!enPalabra && inicio >= 0) {
+                String termino = normalizado.substring(inicio, i);
+                inicio = -1;
+                if (termino.length() >= LONGITUD_MINIMA && !PALABRAS_VACIAS.contains(termino)) {
+                    destino.accept(singular(termino));
+                }
+            }
+        }
+    }
+
+    /**
+     * Pasa un texto a minúsculas y le quita las marcas diacríticas (tildes, diéresis, virgulilla de la ñ).
+     *
+     * @param texto El texto a normalizar.
+     * @return El texto normalizado.
+     */
+    public static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder resultado = new StringBuilder(descompuesto.length());
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString();
+    }
+
+    /**
+     * Reduce los plurales regulares: "-ces" a "-z" (luces), "-iones" a "-ion", "-es" tras consonante y "-s" final.
+     */
+    private static String singular(String termino) {
+        int n = termino.length();
+        if (n > 4 && termino.endsWith("ces")) {
+            return termino.substring(0, n - 3) + "z";
+        }
+        if (n > 5 && termino.endsWith("es") && !esVocal(termino.charAt(n - 3))) {
+            return termino.substring(0, n - 2);
+        }
+        if (n > 3 && termino.charAt(n - 1) == 's' && esVocal(termino.charAt(n - 2))) {
+            return termino.substring(0, n - 1);
+        }
+        return termino;
+    }
+
+    private static boolean esVocal(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
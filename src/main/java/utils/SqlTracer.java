@@ -0,0 +1,451 @@
+package main.java.utils;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.BatchUpdateException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Traza la ejecución de las sentencias preparadas de la aplicación.
+ * <p>
+ * {@link #envolver(Connection)} devuelve un proxy de la conexión cuyas {@link PreparedStatement} miden cada
+ * ejecución y registran la plantilla SQL, el número de parámetros, las filas devueltas o afectadas y el tiempo.
+ * En las consultas, el tiempo incluye la lectura de las filas ({@code ResultSet.next()}), pero no el trabajo que
+ * hace la aplicación con cada fila. Por cada plantilla se acumulan estadísticas que se exportan en /metrics; las
+ * ejecuciones que fallan (la ejecución o la lectura de filas lanza {@link SQLException}) cuentan igual, con su
+ * tiempo hasta el error, y además suman en {@code sgc_db_statement_errors_total}.
+ * En la plantilla, las listas de marcadores {@code IN (?, ?, ...)} y las filas repetidas de
+ * {@code VALUES (...), (...)} se reducen a una sola forma, para que el mismo SQL generado con listas de distinto
+ * largo no cree una plantilla (y un histograma) por cada largo.
+ * <p>
+ * Las sentencias que superan {@code sgc.db.slowQuery.thresholdMs} se escriben en un log propio
+ * (logger {@code sgc.slowquery}, archivo {@code sgc.db.slowQuery.file}) junto con las estadísticas acumuladas
+ * de su plantilla, y el error si la sentencia falló. Al detener la aplicación ({@link #shutdown()}) se escribe además un resumen de todas las plantillas.
+ * El trazado se desactiva con {@code sgc.db.tracing.enabled=false}.
+ */
+public final class SqlTracer {
+
+    private static final boolean HABILITADO = AppConfig.getBoolean("sgc.db.tracing.enabled", true);
+    private static final long UMBRAL_LENTA_NANOS = AppConfig.getLong("sgc.db.slowQuery.thresholdMs", 200) * 1_000_000L;
+    // Máximo de plantillas distintas con estadísticas propias; el resto se agrupa en PLANTILLA_OTRAS
+    private static final int MAX_PLANTILLAS = AppConfig.getInt("sgc.db.tracing.maxTemplates", 500);
+    private static final String PLANTILLA_OTRAS = "(otras)";
+    // "IN (?, ?, ?)" -> "IN (?, ...)"
+    private static final Pattern LISTA_IN = Pattern.compile("(\\bIN\\s*\\(\\s*\\?)(?:\\s*,\\s*\\?)*(\\s*\\))",
+            Pattern.CASE_INSENSITIVE);
+    // "VALUES (?, ?), (?, ?)" -> "VALUES (?, ?), ..."
+    private static final Pattern FILAS_VALUES = Pattern.compile("(\\bVALUES\\s*\\([^()]*\\))(?:\\s*,\\s*\\([^()]*\\))+",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Logger LOG_LENTAS = crearLogLentas();
+    private static final ConcurrentHashMap<String, EstadisticasPlantilla> ESTADISTICAS = new ConcurrentHashMap<>();
+
+    private SqlTracer() {
+    }
+
+    /**
+     * Envuelve una conexión para trazar sus sentencias preparadas.
+     *
+     * @param conexion La conexión a envolver (puede ser {@code null}).
+     * @return El proxy de trazado, o la misma conexión si el trazado está desactivado o es {@code null}.
+     */
+    public static Connection envolver(Connection conexion) {
+        if (!HABILITADO || conexion == null) {
+            return conexion;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConexionTrazada(conexion));
+    }
+
+    /**
+     * Escribe en el log de consultas lentas un resumen de todas las plantillas, ordenadas por tiempo total,
+     * y cierra el archivo del log. Se llama al detener la aplicación.
+     */
+    public static void shutdown() {
+        if (!ESTADISTICAS.isEmpty()) {
+            escribirResumen();
+        }
+        for (Handler handler : LOG_LENTAS.getHandlers()) {
+            LOG_LENTAS.removeHandler(handler);
+            handler.close();
+        }
+    }
+
+    private static void escribirResumen() {
+        List<EstadisticasPlantilla> todas = new ArrayList<>(ESTADISTICAS.values());
+        todas.sort(Comparator.comparingLong((EstadisticasPlantilla e) -> e.nanosTotales.sum()).reversed());
+        StringBuilder sb = new StringBuilder("Resumen de sentencias SQL por plantilla:");
+        for (EstadisticasPlantilla estadisticas : todas) {
+            sb.append("\n  ").append(estadisticas.describir()).append(" | ").append(estadisticas.plantilla);
+        }
+        LOG_LENTAS.info(sb.toString());
+    }
+
+    private static EstadisticasPlantilla estadisticas(String sql) {
+        EstadisticasPlantilla existentes = ESTADISTICAS.get(sql);
+        if (existentes != null) {
+            return existentes;
+        }
+        if (ESTADISTICAS.size() >= MAX_PLANTILLAS) {
+            sql = PLANTILLA_OTRAS; // SQL generado dinámicamente: se evita que el mapa crezca sin límite
+        }
+        return ESTADISTICAS.computeIfAbsent(sql, EstadisticasPlantilla::new);
+    }
+
+    /**
+     * Reduce el SQL a su plantilla: las listas de {@code IN} y las filas de {@code VALUES}, que se generan según el
+     * número de elementos, quedan con un único largo.
+     */
+    static String plantilla(String sql) {
+        String plantilla = LISTA_IN.matcher(sql).replaceAll("$1, ...$2");
+        return FILAS_VALUES.matcher(plantilla).replaceAll("$1, ...");
+    }
+
+    /**
+     * @param error La excepción de la ejecución, o {@code null} si terminó bien.
+     */
+    private static void registrar(String plantilla, String sql, int parametros, int lotes, long filas, long nanos,
+                                  Exception error) {
+        EstadisticasPlantilla estadisticas = estadisticas(plantilla);
+        estadisticas.registrar(filas, nanos, error != null);
+        if (nanos >= UMBRAL_LENTA_NANOS) {
+            estadisticas.lentas.increment();
+            if (LOG_LENTAS.isLoggable(Level.WARNING)) {
+                LOG_LENTAS.warning(String.format(Locale.ROOT, "%.1f ms | filas=%d | parametros=%d%s%s | %s | plantilla: %s",
+                        nanos / 1_000_000.0, filas, parametros, lotes > 0 ? " | lotes=" + lotes : "",
+                        error != null ? " | error: " + error : "", normalizar(sql), estadisticas.describir()));
+            }
+        }
+    }
+
+    private static String normalizar(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+
+    private static Logger crearLogLentas() {
+        Logger logger = Logger.getLogger("sgc.slowquery");
+        logger.setUseParentHandlers(false); // No mezclar con el log del servidor
+        String archivo = AppConfig.getString("sgc.db.slowQuery.file", "%h/sgc-consultas-lentas.%g.log");
+        try {
+            FileHandler handler = new FileHandler(archivo,
+                    AppConfig.getInt("sgc.db.slowQuery.maxBytes", 10 * 1024 * 1024),
+                    AppConfig.getInt("sgc.db.slowQuery.files", 5), true);
+            handler.setEncoding("UTF-8");
+            handler.setFormatter(new FormatoLinea());
+            logger.addHandler(handler);
+        } catch (IOException | SecurityException e) {
+            System.err.println("No se pudo abrir el log de consultas lentas (" + archivo + "): " + e.getMessage()
+                    + ". Se escribirá en la salida de errores.");
+            logger.setUseParentHandlers(true);
+        }
+        return logger;
+    }
+
+    /**
+     * Estadísticas acumuladas de una plantilla SQL.
+     */
+    private static final class EstadisticasPlantilla {
+        private final String plantilla;
+        private final LatencyHistogram latencia;
+        private final LongAdder filas;
+        private final LongAdder lentas;
+        private final LongAdder errores;
+        private final LongAdder ejecuciones = new LongAdder();
+        private final LongAdder nanosTotales = new LongAdder();
+        private final LongAccumulator nanosMaximo = new LongAccumulator(Math::max, 0);
+
+        private EstadisticasPlantilla(String plantilla) {
+            this.plantilla = plantilla;
+            String etiqueta = normalizar(plantilla);
+            this.latencia = MetricsRegistry.histograma("sgc_db_statement_duration_seconds",
+                    "Duración de las sentencias SQL (ejecución y lectura de filas), por plantilla.", "sql", etiqueta);
+            this.filas = MetricsRegistry.contador("sgc_db_statement_rows_total",
+                    "Filas devueltas o afectadas por las sentencias SQL, por plantilla.", "sql", etiqueta);
+            this.lentas = MetricsRegistry.contador("sgc_db_statement_slow_total",
+                    "Sentencias SQL que superaron el umbral de consulta lenta, por plantilla.", "sql", etiqueta);
+            this.errores = MetricsRegistry.contador("sgc_db_statement_errors_total",
+                    "Sentencias SQL que fallaron, por plantilla.", "sql", etiqueta);
+        }
+
+        private void registrar(long filasSentencia, long nanos, boolean fallo) {
+            ejecuciones.increment();
+            if (fallo) {
+                errores.increment();
+            }
+            nanosTotales.add(nanos);
+            nanosMaximo.accumulate(nanos);
+            latencia.registrarNanos(nanos);
+            if (filasSentencia > 0) {
+                filas.add(filasSentencia);
+            }
+        }
+
+        private String describir() {
+            long total = ejecuciones.sum();
+            double promedioMs = total == 0 ? 0 : nanosTotales.sum() / 1_000_000.0 / total;
+            return String.format(Locale.ROOT, "ejecuciones=%d promedio=%.2f ms max=%.1f ms lentas=%d errores=%d filas=%d",
+                    total, promedioMs, nanosMaximo.get() / 1_000_000.0, lentas.sum(), errores.sum(), filas.sum());
+        }
+    }
+
+    /**
+     * Proxy de la conexión: devuelve sentencias preparadas trazadas y delega el resto.
+     */
+    private static final class ConexionTrazada implements InvocationHandler {
+        private final Connection conexion;
+
+        private ConexionTrazada(Connection conexion) {
+            this.conexion = conexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object resultado = delegar(conexion, method, args);
+            if ("prepareStatement".equals(method.getName()) && resultado instanceof PreparedStatement) {
+                return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class},
+                        new SentenciaTrazada((PreparedStatement) resultado, (String) args[0]));
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Proxy de una sentencia preparada: cuenta los parámetros asignados y mide cada ejecución.
+     */
+    private static final class SentenciaTrazada implements InvocationHandler {
+        private final PreparedStatement sentencia;
+        private final String sql;
+        private final String plantilla;
+        private int parametros; // Mayor índice de parámetro asignado
+        private int lotes;      // Filas agregadas con addBatch()
+        private ConsultaTrazada consultaAbierta;
+
+        private SentenciaTrazada(PreparedStatement sentencia, String sql) {
+            this.sentencia = sentencia;
+            this.sql = sql;
+            this.plantilla = plantilla(sql); // Una vez por sentencia preparada, no por ejecución
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            switch (nombre) {
+                case "executeQuery":
+                    if (args == null) {
+                        cerrarConsultaAbierta();
+                        long inicio = System.nanoTime();
+                        ResultSet rs;
+                        try {
+                            rs = (ResultSet) delegar(sentencia, method, null);
+                        } catch (SQLException | RuntimeException e) {
+                            registrar(plantilla, sql, parametros, 0, 0, System.nanoTime() - inicio, e);
+                            throw e;
+                        }
+                        consultaAbierta = new ConsultaTrazada(rs, plantilla, sql, parametros, System.nanoTime() - inicio);
+                        return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                new Class<?>[]{ResultSet.class}, consultaAbierta);
+                    }
+                    break;
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                    if (args == null) {
+                        long inicio = System.nanoTime();
+                        Object resultado;
+                        try {
+                            resultado = delegar(sentencia, method, null);
+                        } catch (SQLException | RuntimeException e) {
+                            registrar(plantilla, sql, parametros, 0, 0, System.nanoTime() - inicio, e);
+                            throw e;
+                        }
+                        long filas = resultado instanceof Number ? ((Number) resultado).longValue() : Math.max(0, sentencia.getUpdateCount());
+                        registrar(plantilla, sql, parametros, 0, filas, System.nanoTime() - inicio, null);
+                        return resultado;
+                    }
+                    break;
+                case "executeBatch":
+                case "executeLargeBatch":
+                    long inicio = System.nanoTime();
+                    int agregados = lotes;
+                    Object resultado;
+                    try {
+                        resultado = delegar(sentencia, method, args);
+                    } catch (BatchUpdateException e) {
+                        // Los conteos de las filas que el driver alcanzó a procesar antes del error
+                        Object conteos = e.getLargeUpdateCounts() != null ? e.getLargeUpdateCounts() : e.getUpdateCounts();
+                        registrar(plantilla, sql, parametros, agregados, sumarFilas(conteos), System.nanoTime() - inicio, e);
+                        throw e;
+                    } catch (SQLException | RuntimeException e) {
+                        registrar(plantilla, sql, parametros, agregados, 0, System.nanoTime() - inicio, e);
+                        throw e;
+                    } finally {
+                        lotes = 0;
+                    }
+                    registrar(plantilla, sql, parametros, lotesEjecutados(resultado), sumarFilas(resultado), System.nanoTime() - inicio, null);
+                    return resultado;
+                case "addBatch":
+                    lotes++;
+                    break;
+                case "clearBatch":
+                    lotes = 0;
+                    break;
+                case "clearParameters":
+                    parametros = 0;
+                    break;
+                case "close":
+                    cerrarConsultaAbierta();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    // setInt(1, ...), setString(2, ...), etc.: el primer argumento es el índice del parámetro
+                    if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                            && method.getParameterTypes()[0] == int.class) {
+                        parametros = Math.max(parametros, (Integer) args[0]);
+                    }
+                    break;
+            }
+            return delegar(sentencia, method, args);
+        }
+
+        private void cerrarConsultaAbierta() {
+            if (consultaAbierta != null) {
+                consultaAbierta.terminar();
+                consultaAbierta = null;
+            }
+        }
+
+        private int lotesEjecutados(Object resultado) {
+            if (resultado instanceof int[]) {
+                return ((int[]) resultado).length;
+            }
+            return resultado instanceof long[] ? ((long[]) resultado).length : 0;
+        }
+
+        private long sumarFilas(Object resultado) {
+            long total = 0;
+            if (resultado instanceof int[]) {
+                for (int filas : (int[]) resultado) {
+                    total += filas > 0 ? filas : 0; // SUCCESS_NO_INFO (-2) no aporta un conteo
+                }
+            } else if (resultado instanceof long[]) {
+                for (long filas : (long[]) resultado) {
+                    total += filas > 0 ? filas : 0;
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Proxy del {@link ResultSet} de una consulta: suma el tiempo de {@code next()} y cuenta las filas.
+     * La consulta se registra al cerrar el ResultSet (o su sentencia), como fallida si {@code next()} lanzó una
+     * excepción.
+     */
+    private static final class ConsultaTrazada implements InvocationHandler {
+        private final ResultSet rs;
+        private final String plantilla;
+        private final String sql;
+        private final int parametros;
+        private long nanos;
+        private long filas;
+        private SQLException error;
+        private boolean terminada;
+
+        private ConsultaTrazada(ResultSet rs, String plantilla, String sql, int parametros, long nanosEjecucion) {
+            this.rs = rs;
+            this.plantilla = plantilla;
+            this.sql = sql;
+            this.parametros = parametros;
+            this.nanos = nanosEjecucion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    long inicio = System.nanoTime();
+                    boolean hayFila;
+                    try {
+                        hayFila = (Boolean) delegar(rs, method, args);
+                    } catch (SQLException e) {
+                        error = e; // La consulta se registra como fallida al cerrarse
+                        throw e;
+                    } finally {
+                        nanos += System.nanoTime() - inicio;
+                    }
+                    if (hayFila) {
+                        filas++;
+                    }
+                    return hayFila;
+                case "close":
+                    terminar();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return delegar(rs, method, args);
+        }
+
+        private void terminar() {
+            if (!terminada) {
+                terminada = true;
+                registrar(plantilla, sql, parametros, 0, filas, nanos, error);
+            }
+        }
+    }
+
+    /**
+     * Formato de una línea por registro: fecha, nivel y mensaje.
+     */
+    private static final class FormatoLinea extends Formatter {
+        @Override
+        public String format(LogRecord registro) {
+            return String.format(Locale.ROOT, "%1$tF %1$tT.%1$tL %2$s %3$s%n",
+                    registro.getMillis(), registro.getLevel().getName(), registro.getMessage());
+        }
+    }
+
+    private static Object delegar(Object destino, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
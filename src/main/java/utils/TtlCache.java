@@ -0,0 +1,321 @@
+package main.java.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caché en memoria acotada, con expiración por tiempo (TTL) y desalojo LRU.
+ * Es segura para usarse desde varios hilos de servlet al mismo tiempo.
+ * <p>
+ * El límite se expresa como un peso total: por defecto cada entrada pesa 1 (límite por número de entradas),
+ * pero se puede indicar una función de peso, por ejemplo el tamaño de una lista, para acotar la memoria.
+ * <p>
+ * Las cargas desde la base de datos se hacen con {@link #obtener(Object, Function)}:
+ * <ul>
+ *     <li>Si varios hilos piden a la vez la misma clave ausente, solo uno ejecuta la carga y el resto espera su
+ *     resultado (evita la avalancha de consultas iguales cuando una entrada expira o se invalida).</li>
+ *     <li>Si mientras se cargaba un valor alguien invalidó la caché (porque el dato cambió), el valor cargado
+ *     se devuelve pero no se guarda, para no dejar en caché un dato viejo.</li>
+ * </ul>
+ *
+ * @param <K> Tipo de la clave.
+ * @param <V> Tipo del valor.
+ */
+public class TtlCache<K, V> {
+
+    private final String nombre;
+    private final long maxPeso;
+    private final long ttlNanos;
+    private final ToIntFunction<V> pesador;
+    private final ReentrantLock lock = new ReentrantLock();
+    // LinkedHashMap en orden de acceso: la primera entrada es la usada hace más tiempo (LRU)
+    private final LinkedHashMap<K, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    // Cargas en curso por clave, para que los hilos concurrentes esperen la misma carga
+    private final ConcurrentHashMap<K, CompletableFuture<V>> cargasEnCurso = new ConcurrentHashMap<>();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private long generacion; // Aumenta con cada invalidación (protegido por lock)
+    private long pesoTotal;  // Suma de los pesos de las entradas (protegido por lock)
+
+    /**
+     * Crea una caché acotada por número de entradas.
+     *
+     * @param nombre      Nombre de la caché (para métricas y mensajes).
+     * @param maxEntradas Número máximo de entradas; al superarlo se desaloja la menos usada recientemente.
+     * @param ttlMillis   Tiempo de vida de cada entrada desde que se guarda.
+     */
+    public TtlCache(String nombre, int maxEntradas, long ttlMillis) {
+        this(nombre, maxEntradas, ttlMillis, valor -> 1);
+    }
+
+    /**
+     * Crea una caché acotada por el peso total de sus entradas.
+     *
+     * @param nombre    Nombre de la caché (para métricas y mensajes).
+     * @param maxPeso   Peso total máximo; al superarlo se desalojan las entradas menos usadas recientemente.
+     * @param ttlMillis Tiempo de vida de cada entrada desde que se guarda.
+     * @param pesador   Función que calcula el peso de un valor (al menos 1).
+     */
+    public TtlCache(String nombre, long maxPeso, long ttlMillis, ToIntFunction<V> pesador) {
+        if (maxPeso < 1) {
+            throw new IllegalArgumentException("La caché " + nombre + " debe admitir al menos una entrada.");
+        }
+        this.nombre = nombre;
+        this.maxPeso = maxPeso;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.pesador = pesador;
+    }
+
+    /**
+     * Busca un valor en la caché.
+     *
+     * @param clave La clave a buscar.
+     * @return El valor guardado, o {@code null} si no está o ya expiró.
+     */
+    public V get(K clave) {
+        lock.lock();
+        try {
+            Entrada<V> entrada = entradas.get(clave);
+            if (entrada != null && entrada.expiraEn - System.nanoTime() > 0) {
+                aciertos.increment();
+                return entrada.valor;
+            }
+            if (entrada != null) {
+                quitar(clave); // Expirada
+            }
+            fallos.increment();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Obtiene un valor de la caché o, si no está, lo carga con {@code cargador} y lo guarda.
+     * Si otro hilo ya está cargando la misma clave, espera ese resultado en lugar de cargarla de nuevo.
+     * Si el cargador devuelve {@code null}, no se guarda nada.
+     *
+     * @param clave    La clave a buscar.
+     * @param cargador Función que obtiene el valor desde su origen (por ejemplo, la base de datos).
+     * @return El valor de la caché o el recién cargado.
+     */
+    public V obtener(K clave, Function<K, V> cargador) {
+        long generacionInicial;
+        CompletableFuture<V> carga;
+        CompletableFuture<V> existente;
+        lock.lock();
+        try {
+            V valor = get(clave);
+            if (valor != null) {
+                return valor;
+            }
+            generacionInicial = generacion;
+            carga = new CompletableFuture<>();
+            existente = cargasEnCurso.putIfAbsent(clave, carga);
+        } finally {
+            lock.unlock();
+        }
+
+        if (existente != null) {
+            return esperar(existente); // Otro hilo ya está cargando esta clave
+        }
+        try {
+            V cargado = cargador.apply(clave); // Fuera del lock: la carga puede tardar
+            if (cargado != null) {
+                guardarSiVigente(clave, cargado, generacionInicial);
+            }
+            carga.complete(cargado);
+            return cargado;
+        } catch (RuntimeException | Error e) {
+            carga.completeExceptionally(e);
+            throw e;
+        } finally {
+            cargasEnCurso.remove(clave, carga);
+        }
+    }
+
+    /**
+     * Guarda un valor en la caché, desalojando la entrada menos usada si se supera el máximo.
+     *
+     * @param clave La clave.
+     * @param valor El valor a guardar.
+     */
+    public void put(K clave, V valor) {
+        lock.lock();
+        try {
+            guardar(clave, valor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Elimina una clave de la caché. Las cargas que estén en curso no guardarán su resultado.
+     *
+     * @param clave La clave a invalidar.
+     */
+    public void invalidar(K clave) {
+        lock.lock();
+        try {
+            quitar(clave);
+            // Las nuevas peticiones de esta clave no deben esperar una carga que empezó antes del cambio
+            cargasEnCurso.remove(clave);
+            generacion++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Elimina todas las claves que cumplen una condición. Recorre las entradas, por lo que conviene
+     * para cachés de tamaño moderado donde las escrituras son poco frecuentes frente a las lecturas.
+     *
+     * @param condicion Condición que deben cumplir las claves a invalidar.
+     */
+    public void invalidarSi(Predicate<K> condicion) {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entrada<V>> entrada = it.next();
+                if (condicion.test(entrada.getKey())) {
+                    pesoTotal -= entrada.getValue().peso;
+                    it.remove();
+                }
+            }
+            cargasEnCurso.keySet().removeIf(condicion);
+            generacion++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Vacía la caché por completo.
+     */
+    public void invalidarTodo() {
+        lock.lock();
+        try {
+            entradas.clear();
+            cargasEnCurso.clear();
+            pesoTotal = 0;
+            generacion++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getDesalojos() {
+        return desalojos.sum();
+    }
+
+    /**
+     * @return Suma de los pesos de las entradas guardadas.
+     */
+    public long getPesoTotal() {
+        lock.lock();
+        try {
+            return pesoTotal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Número de entradas guardadas (incluyendo las expiradas que aún no se limpiaron).
+     */
+    public int getTamano() {
+        lock.lock();
+        try {
+            return entradas.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void guardarSiVigente(K clave, V valor, long generacionInicial) {
+        lock.lock();
+        try {
+            if (generacion == generacionInicial) {
+                guardar(clave, valor);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void guardar(K clave, V valor) {
+        int peso = Math.max(1, pesador.applyAsInt(valor));
+        Entrada<V> anterior = entradas.put(clave, new Entrada<>(valor, System.nanoTime() + ttlNanos, peso));
+        pesoTotal += peso - (anterior != null ? anterior.peso : 0);
+        if (pesoTotal > maxPeso) {
+            Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+            while (pesoTotal > maxPeso && it.hasNext()) {
+                Map.Entry<K, Entrada<V>> entrada = it.next();
+                if (Objects.equals(entrada.getKey(), clave) && entradas.size() > 1) {
+                    continue; // No se desaloja la entrada recién guardada mientras haya otras
+                }
+                pesoTotal -= entrada.getValue().peso;
+                it.remove();
+                desalojos.increment();
+            }
+        }
+    }
+
+    private void quitar(K clave) {
+        Entrada<V> entrada = entradas.remove(clave);
+        if (entrada != null) {
+            pesoTotal -= entrada.peso;
+        }
+    }
+
+    private V esperar(CompletableFuture<V> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entrada<V> {
+        private final V valor;
+        private final long expiraEn;
+        private final int peso;
+
+        private Entrada(V valor, long expiraEn, int peso) {
+            this.valor = valor;
+            this.expiraEn = expiraEn;
+            this.peso = peso;
+        }
+    }
+}
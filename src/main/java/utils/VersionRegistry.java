@@ -0,0 +1,68 @@
+package main.java.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro en memoria de la versión de datos por clave (por ejemplo, los contratos de un usuario).
+ * Cada escritura confirmada incrementa la versión de las claves afectadas; si la versión no cambió, los datos
+ * tampoco, así que se puede responder a una petición condicional sin consultar la base de datos.
+ * <p>
+ * Las versiones salen de un contador global, así que nunca se repiten para una misma clave, y se reinician con la
+ * aplicación: quien las publique (por ejemplo, en un ETag) debe combinarlas con {@link #getArranque()}.
+ * Solo reflejan las escrituras hechas a través de la aplicación.
+ */
+public class VersionRegistry {
+
+    private static final long ARRANQUE = System.currentTimeMillis();
+
+    private final AtomicLong secuencia = new AtomicLong();
+    private final ConcurrentHashMap<String, Marca> marcas = new ConcurrentHashMap<>();
+
+    /**
+     * Registra un cambio confirmado en los datos de una clave.
+     *
+     * @param clave La clave cuyos datos cambiaron.
+     */
+    public void incrementar(String clave) {
+        // La versión se asigna dentro de compute para que dos cambios simultáneos no dejen la menor
+        marcas.compute(clave, (k, anterior) -> new Marca(secuencia.incrementAndGet(), System.currentTimeMillis()));
+    }
+
+    /**
+     * @param clave La clave consultada.
+     * @return La versión actual de la clave; si no cambió desde el arranque, versión 0 con el instante de arranque.
+     */
+    public Marca getMarca(String clave) {
+        Marca marca = marcas.get(clave);
+        return marca != null ? marca : new Marca(0, ARRANQUE);
+    }
+
+    /**
+     * @return El instante de arranque de la aplicación, que distingue las versiones de distintas ejecuciones.
+     */
+    public static long getArranque() {
+        return ARRANQUE;
+    }
+
+    /**
+     * Versión de una clave y momento (System.currentTimeMillis) del cambio que la produjo.
+     */
+    public static final class Marca {
+        private final long version;
+        private final long instante;
+
+        private Marca(long version, long instante) {
+            this.version = version;
+            this.instante = instante;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getInstante() {
+            return instante;
+        }
+    }
+}